@@ -21,6 +21,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
 import io.pivotal.cla.data.AccessToken;
 import io.pivotal.cla.data.repository.AccessTokenRepository;
+import io.pivotal.cla.security.GitHubSignature;
 
 /**
  * @author Rob Winch
@@ -29,6 +30,8 @@ import io.pivotal.cla.data.repository.AccessTokenRepository;
 public class GenerateAccessTokenConfig implements SmartInitializingSingleton {
 	@Autowired
 	private AccessTokenRepository accessTokens;
+	@Autowired
+	private GitHubSignature gitHubSignature;
 
 	/* (non-Javadoc)
 	 * @see org.springframework.beans.factory.SmartInitializingSingleton#afterSingletonsInstantiated()
@@ -42,5 +45,6 @@ public class GenerateAccessTokenConfig implements SmartInitializingSingleton {
 		String token = UUID.randomUUID().toString();
 		accessToken = new AccessToken(AccessToken.CLA_ACCESS_TOKEN_ID, token);
 		accessTokens.save(accessToken);
+		gitHubSignature.invalidate();
 	}
 }
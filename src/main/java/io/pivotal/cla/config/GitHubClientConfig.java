@@ -0,0 +1,196 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.config;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+import org.springframework.stereotype.Component;
+
+/**
+ * Settings for the HTTP client that is shared by all requests to GitHub.
+ *
+ * @see GitHubHttpClientConfig
+ */
+@Component
+@ConfigurationProperties(prefix = "cla.github.client")
+public class GitHubClientConfig {
+	private Duration connectTimeout = Duration.ofSeconds(5);
+	private Duration readTimeout = Duration.ofSeconds(30);
+	/**
+	 * The maximum number of idle connections kept in the pool.
+	 */
+	private int maxIdleConnections = 20;
+	/**
+	 * How long an idle connection is kept in the pool.
+	 */
+	private Duration keepAlive = Duration.ofMinutes(5);
+	/**
+	 * If true, HTTP/2 is negotiated with GitHub when possible.
+	 */
+	private boolean http2 = true;
+	/**
+	 * The maximum size of the GET responses that are kept to be revalidated with
+	 * their ETag or Last-Modified. Zero disables the cache.
+	 */
+	private DataSize cacheSize = DataSize.ofMegabytes(10);
+	/**
+	 * The minimum time between two writes (i.e. creating a commit status) with
+	 * the same access token, which avoids the GitHub abuse rate limits.
+	 */
+	private Duration writeInterval = Duration.ofSeconds(1);
+	/**
+	 * The longest a request waits for the rate limit. If the rate limit resets
+	 * later, the request fails immediately.
+	 */
+	private Duration maxRateLimitWait = Duration.ofMinutes(1);
+	/**
+	 * If true, the state of a Pull Request (comments, review comments and status)
+	 * is fetched with a single GraphQL query instead of a REST request each.
+	 */
+	private boolean graphql;
+	/**
+	 * The number of threads that run the requests of the AsyncGitHubApi.
+	 */
+	private int asyncThreads = 16;
+	/**
+	 * The number of asynchronous requests that wait for a thread. Additional
+	 * requests fail immediately.
+	 */
+	private int asyncQueueCapacity = 100;
+	/**
+	 * How long an asynchronous request may take (including the time waiting for
+	 * a thread) before it fails with a timeout.
+	 */
+	private Duration asyncTimeout = Duration.ofSeconds(30);
+	/**
+	 * If true, the last decision for each Pull Request is persisted, so that
+	 * evaluating it again with the same outcome makes no requests to GitHub.
+	 */
+	private boolean decisionMemo = true;
+
+	public GitHubClientConfig() {
+	}
+
+	public Duration getConnectTimeout() {
+		return this.connectTimeout;
+	}
+
+	public Duration getReadTimeout() {
+		return this.readTimeout;
+	}
+
+	public int getMaxIdleConnections() {
+		return this.maxIdleConnections;
+	}
+
+	public Duration getKeepAlive() {
+		return this.keepAlive;
+	}
+
+	public boolean isHttp2() {
+		return this.http2;
+	}
+
+	public DataSize getCacheSize() {
+		return this.cacheSize;
+	}
+
+	public Duration getWriteInterval() {
+		return this.writeInterval;
+	}
+
+	public Duration getMaxRateLimitWait() {
+		return this.maxRateLimitWait;
+	}
+
+	public boolean isGraphql() {
+		return this.graphql;
+	}
+
+	public int getAsyncThreads() {
+		return this.asyncThreads;
+	}
+
+	public int getAsyncQueueCapacity() {
+		return this.asyncQueueCapacity;
+	}
+
+	public Duration getAsyncTimeout() {
+		return this.asyncTimeout;
+	}
+
+	public boolean isDecisionMemo() {
+		return this.decisionMemo;
+	}
+
+	public void setConnectTimeout(final Duration connectTimeout) {
+		this.connectTimeout = connectTimeout;
+	}
+
+	public void setReadTimeout(final Duration readTimeout) {
+		this.readTimeout = readTimeout;
+	}
+
+	public void setMaxIdleConnections(final int maxIdleConnections) {
+		this.maxIdleConnections = maxIdleConnections;
+	}
+
+	public void setKeepAlive(final Duration keepAlive) {
+		this.keepAlive = keepAlive;
+	}
+
+	public void setHttp2(final boolean http2) {
+		this.http2 = http2;
+	}
+
+	public void setCacheSize(final DataSize cacheSize) {
+		this.cacheSize = cacheSize;
+	}
+
+	public void setWriteInterval(final Duration writeInterval) {
+		this.writeInterval = writeInterval;
+	}
+
+	public void setMaxRateLimitWait(final Duration maxRateLimitWait) {
+		this.maxRateLimitWait = maxRateLimitWait;
+	}
+
+	public void setGraphql(final boolean graphql) {
+		this.graphql = graphql;
+	}
+
+	public void setAsyncThreads(final int asyncThreads) {
+		this.asyncThreads = asyncThreads;
+	}
+
+	public void setAsyncQueueCapacity(final int asyncQueueCapacity) {
+		this.asyncQueueCapacity = asyncQueueCapacity;
+	}
+
+	public void setAsyncTimeout(final Duration asyncTimeout) {
+		this.asyncTimeout = asyncTimeout;
+	}
+
+	public void setDecisionMemo(final boolean decisionMemo) {
+		this.decisionMemo = decisionMemo;
+	}
+
+	@java.lang.Override
+	public java.lang.String toString() {
+		return "GitHubClientConfig(connectTimeout=" + this.getConnectTimeout() + ", readTimeout=" + this.getReadTimeout() + ", maxIdleConnections=" + this.getMaxIdleConnections() + ", keepAlive=" + this.getKeepAlive() + ", http2=" + this.isHttp2() + ", cacheSize=" + this.getCacheSize() + ", writeInterval=" + this.getWriteInterval() + ", maxRateLimitWait=" + this.getMaxRateLimitWait() + ", graphql=" + this.isGraphql() + ", asyncThreads=" + this.getAsyncThreads() + ", asyncQueueCapacity=" + this.getAsyncQueueCapacity() + ", asyncTimeout=" + this.getAsyncTimeout() + ", decisionMemo=" + this.isDecisionMemo() + ")";
+	}
+}
@@ -0,0 +1,281 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.config;
+
+import java.time.Duration;
+import org.springframework.util.unit.DataSize;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Settings for processing the GitHub hooks received on
+ * {@code /github/hooks/pull_request/{cla}}.
+ */
+@Component
+@ConfigurationProperties(prefix = "cla.hooks")
+public class GitHubHooksConfig {
+	/**
+	 * If true, deliveries are written to a queue and acknowledged with a 202
+	 * immediately. Otherwise deliveries are processed on the request thread.
+	 */
+	private boolean async;
+	/**
+	 * The number of threads processing queued deliveries.
+	 */
+	private int workerThreads = 4;
+	/**
+	 * The number of times a queued delivery is attempted before it is moved to
+	 * the dead letter state.
+	 */
+	private int maxAttempts = 5;
+	/**
+	 * How often the queue is polled for deliveries.
+	 */
+	private Duration pollInterval = Duration.ofSeconds(1);
+	/**
+	 * The delay before the first retry of a failed delivery. Doubles with every
+	 * attempt.
+	 */
+	private Duration retryBackoff = Duration.ofSeconds(30);
+	/**
+	 * How long a delivery can be processing before another worker may claim it.
+	 */
+	private Duration lease = Duration.ofMinutes(5);
+	/**
+	 * The number of recent X-GitHub-Delivery ids kept in memory. Older ids are
+	 * looked up in the database.
+	 */
+	private int dedupCacheSize = 10000;
+	/**
+	 * How long a X-GitHub-Delivery id is remembered. Redeliveries of a delivery
+	 * received within this time are ignored.
+	 */
+	private Duration dedupTtl = Duration.ofDays(3);
+	/**
+	 * If positive, the events received for a Pull Request within this window
+	 * (starting with the first event) are collapsed into a single evaluation of
+	 * the Pull Request. Zero disables coalescing.
+	 */
+	private Duration coalesceWindow = Duration.ZERO;
+	/**
+	 * How long an update of a Pull Request waits for the updates of the same Pull
+	 * Request that are in progress. Updates of a Pull Request are processed in
+	 * order and never concurrently.
+	 */
+	private Duration laneTimeout = Duration.ofMinutes(1);
+	/**
+	 * The maximum number of hook requests that are processed concurrently. Keep
+	 * this plus {@link #getMaxQueued()} well below the number of server threads
+	 * so that interactive pages always have capacity.
+	 */
+	private int maxConcurrent = 20;
+	/**
+	 * The maximum number of hook requests that wait for one of the
+	 * {@link #getMaxConcurrent()} slots. Additional requests are rejected.
+	 */
+	private int maxQueued = 20;
+	/**
+	 * How long a hook request waits for a slot before it is rejected.
+	 */
+	private Duration queueTimeout = Duration.ofSeconds(5);
+	/**
+	 * The Retry-After sent when a hook request is rejected.
+	 */
+	private Duration retryAfter = Duration.ofSeconds(60);
+	/**
+	 * The directory verified deliveries are archived in so that they can be
+	 * replayed. If null, deliveries are not archived.
+	 */
+	private String archiveDirectory;
+	/**
+	 * The size at which a new archive segment is started.
+	 */
+	private DataSize archiveSegmentSize = DataSize.ofMegabytes(64);
+	/**
+	 * The number of archive segments that are kept. The oldest segments are
+	 * deleted first.
+	 */
+	private int archiveMaxSegments = 100;
+	/**
+	 * The default number of archived deliveries replayed per second.
+	 */
+	private double replayRate = 2;
+	/**
+	 * How often the links between repositories and CLAs are reconciled with the
+	 * hooks on GitHub. Zero disables the reconciliation.
+	 */
+	private Duration reconcileInterval = Duration.ofHours(6);
+
+	public GitHubHooksConfig() {
+	}
+
+	public boolean isAsync() {
+		return this.async;
+	}
+
+	public int getWorkerThreads() {
+		return this.workerThreads;
+	}
+
+	public int getMaxAttempts() {
+		return this.maxAttempts;
+	}
+
+	public Duration getPollInterval() {
+		return this.pollInterval;
+	}
+
+	public Duration getRetryBackoff() {
+		return this.retryBackoff;
+	}
+
+	public Duration getLease() {
+		return this.lease;
+	}
+
+	public int getDedupCacheSize() {
+		return this.dedupCacheSize;
+	}
+
+	public Duration getDedupTtl() {
+		return this.dedupTtl;
+	}
+
+	public Duration getCoalesceWindow() {
+		return this.coalesceWindow;
+	}
+
+	public Duration getLaneTimeout() {
+		return this.laneTimeout;
+	}
+
+	public int getMaxConcurrent() {
+		return this.maxConcurrent;
+	}
+
+	public int getMaxQueued() {
+		return this.maxQueued;
+	}
+
+	public Duration getQueueTimeout() {
+		return this.queueTimeout;
+	}
+
+	public Duration getRetryAfter() {
+		return this.retryAfter;
+	}
+
+	public String getArchiveDirectory() {
+		return this.archiveDirectory;
+	}
+
+	public DataSize getArchiveSegmentSize() {
+		return this.archiveSegmentSize;
+	}
+
+	public int getArchiveMaxSegments() {
+		return this.archiveMaxSegments;
+	}
+
+	public double getReplayRate() {
+		return this.replayRate;
+	}
+
+	public Duration getReconcileInterval() {
+		return this.reconcileInterval;
+	}
+
+	public void setAsync(final boolean async) {
+		this.async = async;
+	}
+
+	public void setWorkerThreads(final int workerThreads) {
+		this.workerThreads = workerThreads;
+	}
+
+	public void setMaxAttempts(final int maxAttempts) {
+		this.maxAttempts = maxAttempts;
+	}
+
+	public void setPollInterval(final Duration pollInterval) {
+		this.pollInterval = pollInterval;
+	}
+
+	public void setRetryBackoff(final Duration retryBackoff) {
+		this.retryBackoff = retryBackoff;
+	}
+
+	public void setLease(final Duration lease) {
+		this.lease = lease;
+	}
+
+	public void setDedupCacheSize(final int dedupCacheSize) {
+		this.dedupCacheSize = dedupCacheSize;
+	}
+
+	public void setDedupTtl(final Duration dedupTtl) {
+		this.dedupTtl = dedupTtl;
+	}
+
+	public void setCoalesceWindow(final Duration coalesceWindow) {
+		this.coalesceWindow = coalesceWindow;
+	}
+
+	public void setLaneTimeout(final Duration laneTimeout) {
+		this.laneTimeout = laneTimeout;
+	}
+
+	public void setMaxConcurrent(final int maxConcurrent) {
+		this.maxConcurrent = maxConcurrent;
+	}
+
+	public void setMaxQueued(final int maxQueued) {
+		this.maxQueued = maxQueued;
+	}
+
+	public void setQueueTimeout(final Duration queueTimeout) {
+		this.queueTimeout = queueTimeout;
+	}
+
+	public void setRetryAfter(final Duration retryAfter) {
+		this.retryAfter = retryAfter;
+	}
+
+	public void setArchiveDirectory(final String archiveDirectory) {
+		this.archiveDirectory = archiveDirectory;
+	}
+
+	public void setArchiveSegmentSize(final DataSize archiveSegmentSize) {
+		this.archiveSegmentSize = archiveSegmentSize;
+	}
+
+	public void setArchiveMaxSegments(final int archiveMaxSegments) {
+		this.archiveMaxSegments = archiveMaxSegments;
+	}
+
+	public void setReplayRate(final double replayRate) {
+		this.replayRate = replayRate;
+	}
+
+	public void setReconcileInterval(final Duration reconcileInterval) {
+		this.reconcileInterval = reconcileInterval;
+	}
+
+	@java.lang.Override
+	public java.lang.String toString() {
+		return "GitHubHooksConfig(async=" + this.isAsync() + ", workerThreads=" + this.getWorkerThreads() + ", maxAttempts=" + this.getMaxAttempts() + ", pollInterval=" + this.getPollInterval() + ", retryBackoff=" + this.getRetryBackoff() + ", lease=" + this.getLease() + ", dedupCacheSize=" + this.getDedupCacheSize() + ", dedupTtl=" + this.getDedupTtl() + ", coalesceWindow=" + this.getCoalesceWindow() + ", laneTimeout=" + this.getLaneTimeout() + ", maxConcurrent=" + this.getMaxConcurrent() + ", maxQueued=" + this.getMaxQueued() + ", queueTimeout=" + this.getQueueTimeout() + ", retryAfter=" + this.getRetryAfter() + ", archiveDirectory=" + this.getArchiveDirectory() + ", archiveSegmentSize=" + this.getArchiveSegmentSize() + ", archiveMaxSegments=" + this.getArchiveMaxSegments() + ", replayRate=" + this.getReplayRate() + ", reconcileInterval=" + this.getReconcileInterval() + ")";
+	}
+}
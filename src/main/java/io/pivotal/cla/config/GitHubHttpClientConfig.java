@@ -0,0 +1,60 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.config;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.okhttp3.OkHttpMetricsEventListener;
+import io.pivotal.cla.egit.github.core.client.ConditionalRequestCache;
+import io.pivotal.cla.egit.github.core.client.GitHubRateLimiter;
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+
+/**
+ * Creates the {@link OkHttpClient} that is shared by all requests to GitHub, so
+ * that they use a single connection pool, GET responses are revalidated with
+ * {@link ConditionalRequestCache} and requests are scheduled within the rate
+ * limits by {@link GitHubRateLimiter}.
+ */
+@Configuration
+public class GitHubHttpClientConfig {
+
+	@Bean
+	public OkHttpClient gitHubHttpClient(GitHubClientConfig config, MeterRegistry meterRegistry) {
+		ConnectionPool pool = new ConnectionPool(config.getMaxIdleConnections(), config.getKeepAlive().toMillis(), TimeUnit.MILLISECONDS);
+		Gauge.builder("cla.github.http.connections", pool, ConnectionPool::connectionCount).tag("state", "total").register(meterRegistry);
+		Gauge.builder("cla.github.http.connections", pool, ConnectionPool::idleConnectionCount).tag("state", "idle").register(meterRegistry);
+		OkHttpClient.Builder builder = new OkHttpClient.Builder();
+		if (config.getCacheSize().toBytes() > 0) {
+			builder.addInterceptor(new ConditionalRequestCache(config.getCacheSize().toBytes(), meterRegistry));
+		}
+		builder.addInterceptor(new GitHubRateLimiter(config.getWriteInterval(), config.getMaxRateLimitWait(), meterRegistry));
+		return builder
+				.connectionPool(pool)
+				.connectTimeout(config.getConnectTimeout().toMillis(), TimeUnit.MILLISECONDS)
+				.readTimeout(config.getReadTimeout().toMillis(), TimeUnit.MILLISECONDS)
+				.writeTimeout(config.getReadTimeout().toMillis(), TimeUnit.MILLISECONDS)
+				.protocols(config.isHttp2() ? Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1) : Collections.singletonList(Protocol.HTTP_1_1))
+				.eventListener(OkHttpMetricsEventListener.builder(meterRegistry, "cla.github.http.requests").build())
+				.build();
+	}
+}
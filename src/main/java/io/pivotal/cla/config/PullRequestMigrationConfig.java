@@ -0,0 +1,69 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.config;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Settings for migrating the statuses of the open Pull Requests of the
+ * repositories that are linked to a CLA.
+ */
+@Component
+@ConfigurationProperties(prefix = "cla.migration")
+public class PullRequestMigrationConfig {
+	/**
+	 * The number of repositories that are migrated concurrently. The writes of
+	 * each access token are still paced by the GitHub rate limits.
+	 */
+	private int concurrency = 4;
+	/**
+	 * If true, migrations that were interrupted (i.e. by a restart) are resumed
+	 * from their last checkpoint on startup.
+	 */
+	private boolean resume = true;
+	/**
+	 * How long a migration is claimed by the instance running it. The claim is
+	 * renewed after each Pull Request. If an instance stops without completing a
+	 * migration, another instance resumes it once the claim expired.
+	 */
+	private Duration lease = Duration.ofMinutes(5);
+
+	public int getConcurrency() {
+		return this.concurrency;
+	}
+
+	public boolean isResume() {
+		return this.resume;
+	}
+
+	public Duration getLease() {
+		return this.lease;
+	}
+
+	public void setConcurrency(final int concurrency) {
+		this.concurrency = concurrency;
+	}
+
+	public void setResume(final boolean resume) {
+		this.resume = resume;
+	}
+
+	public void setLease(final Duration lease) {
+		this.lease = lease;
+	}
+}
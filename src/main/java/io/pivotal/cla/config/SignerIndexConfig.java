@@ -0,0 +1,87 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.config;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Settings for the in-memory index of the signers that is used to determine if
+ * a user has signed a CLA.
+ */
+@Component
+@ConfigurationProperties(prefix = "cla.signer-index")
+public class SignerIndexConfig {
+	/**
+	 * If false, the signatures are always looked up in the database.
+	 */
+	private boolean enabled = true;
+	/**
+	 * How often the signatures that were added since the last refresh (i.e. by
+	 * another instance of the application) are loaded. Zero disables the
+	 * refresh.
+	 */
+	private Duration refreshInterval = Duration.ofSeconds(30);
+	/**
+	 * How often the index is compared with the database and replaced if it has
+	 * drifted (i.e. signatures that were deleted). Zero disables the check.
+	 */
+	private Duration verifyInterval = Duration.ofHours(1);
+	/**
+	 * How many ids below the last loaded id are loaded again on every refresh,
+	 * so that signatures that another instance committed after signatures with a
+	 * higher id are not missed until the index is verified.
+	 */
+	private int refreshOverlap = 1000;
+
+	public boolean isEnabled() {
+		return this.enabled;
+	}
+
+	public Duration getRefreshInterval() {
+		return this.refreshInterval;
+	}
+
+	public Duration getVerifyInterval() {
+		return this.verifyInterval;
+	}
+
+	public int getRefreshOverlap() {
+		return this.refreshOverlap;
+	}
+
+	public void setEnabled(final boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public void setRefreshInterval(final Duration refreshInterval) {
+		this.refreshInterval = refreshInterval;
+	}
+
+	public void setVerifyInterval(final Duration verifyInterval) {
+		this.verifyInterval = verifyInterval;
+	}
+
+	public void setRefreshOverlap(final int refreshOverlap) {
+		this.refreshOverlap = refreshOverlap;
+	}
+
+	@java.lang.Override
+	public java.lang.String toString() {
+		return "SignerIndexConfig(enabled=" + this.isEnabled() + ", refreshInterval=" + this.getRefreshInterval() + ", verifyInterval=" + this.getVerifyInterval() + ", refreshOverlap=" + this.getRefreshOverlap() + ")";
+	}
+}
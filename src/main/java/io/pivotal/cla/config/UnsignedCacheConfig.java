@@ -0,0 +1,74 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.config;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Settings for remembering the users that have not signed a CLA, so that the
+ * events of their Pull Requests do not look up the signatures and
+ * organizations again each time.
+ */
+@Component
+@ConfigurationProperties(prefix = "cla.unsigned-cache")
+public class UnsignedCacheConfig {
+	/**
+	 * If false, the signatures are looked up every time.
+	 */
+	private boolean enabled = true;
+	/**
+	 * The maximum number of GitHub logins that are remembered. The least
+	 * recently used logins are forgotten first.
+	 */
+	private int maxSize = 10000;
+	/**
+	 * How long a user is remembered as not having signed a CLA. This bounds how
+	 * long a change that is not observed by the application (i.e. joining a
+	 * GitHub organization) goes unnoticed.
+	 */
+	private Duration ttl = Duration.ofMinutes(10);
+
+	public boolean isEnabled() {
+		return this.enabled;
+	}
+
+	public int getMaxSize() {
+		return this.maxSize;
+	}
+
+	public Duration getTtl() {
+		return this.ttl;
+	}
+
+	public void setEnabled(final boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public void setMaxSize(final int maxSize) {
+		this.maxSize = maxSize;
+	}
+
+	public void setTtl(final Duration ttl) {
+		this.ttl = ttl;
+	}
+
+	@java.lang.Override
+	public java.lang.String toString() {
+		return "UnsignedCacheConfig(enabled=" + this.isEnabled() + ", maxSize=" + this.getMaxSize() + ", ttl=" + this.getTtl() + ")";
+	}
+}
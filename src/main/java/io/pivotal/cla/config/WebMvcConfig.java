@@ -17,11 +17,16 @@ package io.pivotal.cla.config;
 
 import java.util.List;
 
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
 import org.springframework.web.method.support.HandlerMethodArgumentResolver;
 import org.springframework.web.servlet.config.annotation.ViewControllerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurerAdapter;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.pivotal.cla.mvc.github.GitHubHooksBulkheadFilter;
 import io.pivotal.cla.mvc.support.ImportedSignaturesSessionAttrResolver;
 
 /**
@@ -39,6 +44,18 @@ public class WebMvcConfig extends WebMvcConfigurerAdapter {
 		resolvers.add(new ImportedSignaturesSessionAttrResolver());
 	}
 
+	/**
+	 * Limits the GitHub hooks before any other filter (i.e. Spring Security) so
+	 * that rejected deliveries are cheap.
+	 */
+	@Bean
+	public FilterRegistrationBean<GitHubHooksBulkheadFilter> gitHubHooksBulkheadFilter(GitHubHooksConfig hooksConfig, MeterRegistry meterRegistry) {
+		FilterRegistrationBean<GitHubHooksBulkheadFilter> registration = new FilterRegistrationBean<>(new GitHubHooksBulkheadFilter(hooksConfig, meterRegistry));
+		registration.addUrlPatterns("/github/hooks/*");
+		registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+		return registration;
+	}
+
 	@Override
 	public void addViewControllers(ViewControllerRegistry registry) {
 		registry.addViewController("/error/403").setViewName("error/403");
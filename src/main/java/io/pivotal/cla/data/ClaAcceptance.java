@@ -0,0 +1,81 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.data;
+
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * Records that a signature of a CLA satisfies every CLA with a given name. A
+ * signature satisfies the CLAs with the same name and the CLAs it supersedes,
+ * following chains of superseding CLAs of any length. The rows are rebuilt
+ * whenever the CLAs change so that the signature queries can join against
+ * them rather than walking the superseding CLAs.
+ */
+@Entity
+@Table(name = "cla_acceptance")
+public class ClaAcceptance {
+	@Id
+	@GeneratedValue
+	private Long id;
+	/**
+	 * The name of the CLA that must be signed
+	 */
+	private String claName;
+	/**
+	 * The id of a CLA whose signatures are accepted
+	 */
+	private Long acceptedClaId;
+
+	public ClaAcceptance() {
+	}
+
+	public ClaAcceptance(String claName, Long acceptedClaId) {
+		this.claName = claName;
+		this.acceptedClaId = acceptedClaId;
+	}
+
+	public Long getId() {
+		return this.id;
+	}
+
+	public String getClaName() {
+		return this.claName;
+	}
+
+	public Long getAcceptedClaId() {
+		return this.acceptedClaId;
+	}
+
+	public void setId(final Long id) {
+		this.id = id;
+	}
+
+	public void setClaName(final String claName) {
+		this.claName = claName;
+	}
+
+	public void setAcceptedClaId(final Long acceptedClaId) {
+		this.acceptedClaId = acceptedClaId;
+	}
+
+	@java.lang.Override
+	public java.lang.String toString() {
+		return "ClaAcceptance(id=" + this.getId() + ", claName=" + this.getClaName() + ", acceptedClaId=" + this.getAcceptedClaId() + ")";
+	}
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.data;
+
+import java.util.Date;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.Lob;
+import javax.persistence.Table;
+
+/**
+ * A GitHub hook delivery that was accepted by the application, but has not been
+ * processed yet. Deliveries are removed once they have been processed
+ * successfully. Deliveries that keep failing end up in
+ * {@link State#DEAD_LETTER} so they can be inspected.
+ */
+@Entity
+@Table(name = "github_hook_delivery")
+public class GitHubHookDelivery {
+	@Id
+	@GeneratedValue
+	private Long id;
+	/**
+	 * The value of the X-GitHub-Delivery header (may be null)
+	 */
+	private String deliveryId;
+	/**
+	 * The value of the X-GitHub-Event header
+	 */
+	private String event;
+	private String claName;
+	/**
+	 * The URL of the application when the delivery was received (i.e.
+	 * https://cla.pivotal.io/). Used to create the links that are posted to
+	 * GitHub.
+	 */
+	private String baseUrl;
+	@Lob
+	private String payload;
+	@Enumerated(EnumType.STRING)
+	private State state;
+	private int attempts;
+	/**
+	 * When the delivery may be (re)processed. While a delivery is
+	 * {@link State#PROCESSING} this is the time its lease expires.
+	 */
+	private Date nextAttempt;
+	private String lastError;
+	private Date created;
+
+	public enum State {
+		QUEUED, PROCESSING, DEAD_LETTER
+	}
+
+	public GitHubHookDelivery() {
+	}
+
+	public Long getId() {
+		return this.id;
+	}
+
+	public String getDeliveryId() {
+		return this.deliveryId;
+	}
+
+	public String getEvent() {
+		return this.event;
+	}
+
+	public String getClaName() {
+		return this.claName;
+	}
+
+	public String getBaseUrl() {
+		return this.baseUrl;
+	}
+
+	public String getPayload() {
+		return this.payload;
+	}
+
+	public State getState() {
+		return this.state;
+	}
+
+	public int getAttempts() {
+		return this.attempts;
+	}
+
+	public Date getNextAttempt() {
+		return this.nextAttempt;
+	}
+
+	public String getLastError() {
+		return this.lastError;
+	}
+
+	public Date getCreated() {
+		return this.created;
+	}
+
+	public void setId(final Long id) {
+		this.id = id;
+	}
+
+	public void setDeliveryId(final String deliveryId) {
+		this.deliveryId = deliveryId;
+	}
+
+	public void setEvent(final String event) {
+		this.event = event;
+	}
+
+	public void setClaName(final String claName) {
+		this.claName = claName;
+	}
+
+	public void setBaseUrl(final String baseUrl) {
+		this.baseUrl = baseUrl;
+	}
+
+	public void setPayload(final String payload) {
+		this.payload = payload;
+	}
+
+	public void setState(final State state) {
+		this.state = state;
+	}
+
+	public void setAttempts(final int attempts) {
+		this.attempts = attempts;
+	}
+
+	public void setNextAttempt(final Date nextAttempt) {
+		this.nextAttempt = nextAttempt;
+	}
+
+	public void setLastError(final String lastError) {
+		this.lastError = lastError;
+	}
+
+	public void setCreated(final Date created) {
+		this.created = created;
+	}
+
+	@java.lang.Override
+	public java.lang.String toString() {
+		return "GitHubHookDelivery(id=" + this.getId() + ", deliveryId=" + this.getDeliveryId() + ", event=" + this.getEvent() + ", claName=" + this.getClaName() + ", baseUrl=" + this.getBaseUrl() + ", state=" + this.getState() + ", attempts=" + this.getAttempts() + ", nextAttempt=" + this.getNextAttempt() + ", lastError=" + this.getLastError() + ", created=" + this.getCreated() + ")";
+	}
+}
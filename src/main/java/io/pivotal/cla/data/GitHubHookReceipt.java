@@ -0,0 +1,63 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.data;
+
+import java.util.Date;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * Records that a GitHub hook delivery (identified by the X-GitHub-Delivery
+ * header) was received so that redeliveries of it can be ignored. Receipts are
+ * removed once they are older than {@code cla.hooks.dedup-ttl}.
+ */
+@Entity
+@Table(name = "github_hook_receipt")
+public class GitHubHookReceipt {
+	@Id
+	private String deliveryId;
+	private Date received;
+
+	public GitHubHookReceipt() {
+	}
+
+	public GitHubHookReceipt(String deliveryId, Date received) {
+		this.deliveryId = deliveryId;
+		this.received = received;
+	}
+
+	public String getDeliveryId() {
+		return this.deliveryId;
+	}
+
+	public Date getReceived() {
+		return this.received;
+	}
+
+	public void setDeliveryId(final String deliveryId) {
+		this.deliveryId = deliveryId;
+	}
+
+	public void setReceived(final Date received) {
+		this.received = received;
+	}
+
+	@java.lang.Override
+	public java.lang.String toString() {
+		return "GitHubHookReceipt(deliveryId=" + this.getDeliveryId() + ", received=" + this.getReceived() + ")";
+	}
+}
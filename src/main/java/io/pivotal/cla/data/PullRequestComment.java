@@ -0,0 +1,97 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.data;
+
+import java.util.Date;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Id;
+import javax.persistence.Lob;
+import javax.persistence.Table;
+import io.pivotal.cla.data.PullRequestDecision.CommentKind;
+
+/**
+ * A comment the CLA bot made on a Pull Request. Knowing the comments allows
+ * editing them by id instead of listing all comments of the Pull Request.
+ */
+@Entity
+@Table(name = "pull_request_comment")
+public class PullRequestComment {
+	/**
+	 * The id of the comment on GitHub
+	 */
+	@Id
+	private Long id;
+	/**
+	 * The repository and number of the Pull Request (see
+	 * {@link PullRequestDecision#id(String, int)})
+	 */
+	private String pullRequest;
+	@Enumerated(EnumType.STRING)
+	private CommentKind kind;
+	@Lob
+	private String body;
+	private Date updated;
+
+	public PullRequestComment() {
+	}
+
+	public Long getId() {
+		return this.id;
+	}
+
+	public String getPullRequest() {
+		return this.pullRequest;
+	}
+
+	public CommentKind getKind() {
+		return this.kind;
+	}
+
+	public String getBody() {
+		return this.body;
+	}
+
+	public Date getUpdated() {
+		return this.updated;
+	}
+
+	public void setId(final Long id) {
+		this.id = id;
+	}
+
+	public void setPullRequest(final String pullRequest) {
+		this.pullRequest = pullRequest;
+	}
+
+	public void setKind(final CommentKind kind) {
+		this.kind = kind;
+	}
+
+	public void setBody(final String body) {
+		this.body = body;
+	}
+
+	public void setUpdated(final Date updated) {
+		this.updated = updated;
+	}
+
+	@java.lang.Override
+	public java.lang.String toString() {
+		return "PullRequestComment(id=" + this.getId() + ", pullRequest=" + this.getPullRequest() + ", kind=" + this.getKind() + ", updated=" + this.getUpdated() + ")";
+	}
+}
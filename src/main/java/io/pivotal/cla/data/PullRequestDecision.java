@@ -0,0 +1,148 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.data;
+
+import java.util.Date;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * The last decision that was made for a Pull Request and what was written to
+ * GitHub for it. When a Pull Request is evaluated again with the same head sha
+ * and the same outcome, nothing needs to be read from or written to GitHub.
+ */
+@Entity
+@Table(name = "pull_request_decision")
+public class PullRequestDecision {
+	/**
+	 * The repository and number of the Pull Request (i.e.
+	 * spring-projects/spring-security#123)
+	 */
+	@Id
+	private String id;
+	/**
+	 * The head sha the decision was made for
+	 */
+	private String sha;
+	private boolean signedCla;
+	private boolean obviousFix;
+	/**
+	 * The state of the commit status (i.e. success or failure)
+	 */
+	private String statusState;
+	private String statusDescription;
+	/**
+	 * The kind of the most recent comment of the CLA bot on the Pull Request
+	 */
+	@Enumerated(EnumType.STRING)
+	private CommentKind commentKind;
+	/**
+	 * The id of the most recent comment of the CLA bot or null if there is none
+	 */
+	private Long commentId;
+	private Date updated;
+
+	public enum CommentKind {
+		NONE, PLEASE_SIGN, THANK_YOU, OBVIOUS_FIX
+	}
+
+	public PullRequestDecision() {
+	}
+
+	public static String id(String repositoryId, int pullRequestId) {
+		return repositoryId + "#" + pullRequestId;
+	}
+
+	public String getId() {
+		return this.id;
+	}
+
+	public String getSha() {
+		return this.sha;
+	}
+
+	public boolean isSignedCla() {
+		return this.signedCla;
+	}
+
+	public boolean isObviousFix() {
+		return this.obviousFix;
+	}
+
+	public String getStatusState() {
+		return this.statusState;
+	}
+
+	public String getStatusDescription() {
+		return this.statusDescription;
+	}
+
+	public CommentKind getCommentKind() {
+		return this.commentKind;
+	}
+
+	public Long getCommentId() {
+		return this.commentId;
+	}
+
+	public Date getUpdated() {
+		return this.updated;
+	}
+
+	public void setId(final String id) {
+		this.id = id;
+	}
+
+	public void setSha(final String sha) {
+		this.sha = sha;
+	}
+
+	public void setSignedCla(final boolean signedCla) {
+		this.signedCla = signedCla;
+	}
+
+	public void setObviousFix(final boolean obviousFix) {
+		this.obviousFix = obviousFix;
+	}
+
+	public void setStatusState(final String statusState) {
+		this.statusState = statusState;
+	}
+
+	public void setStatusDescription(final String statusDescription) {
+		this.statusDescription = statusDescription;
+	}
+
+	public void setCommentKind(final CommentKind commentKind) {
+		this.commentKind = commentKind;
+	}
+
+	public void setCommentId(final Long commentId) {
+		this.commentId = commentId;
+	}
+
+	public void setUpdated(final Date updated) {
+		this.updated = updated;
+	}
+
+	@java.lang.Override
+	public java.lang.String toString() {
+		return "PullRequestDecision(id=" + this.getId() + ", sha=" + this.getSha() + ", signedCla=" + this.isSignedCla() + ", obviousFix=" + this.isObviousFix() + ", statusState=" + this.getStatusState() + ", statusDescription=" + this.getStatusDescription() + ", commentKind=" + this.getCommentKind() + ", commentId=" + this.getCommentId() + ", updated=" + this.getUpdated() + ")";
+	}
+}
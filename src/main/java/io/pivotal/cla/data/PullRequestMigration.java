@@ -0,0 +1,266 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.data;
+
+import java.util.Date;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * The migration of the statuses of the open Pull Requests of a repository to a
+ * CLA. Pull Requests are migrated in the order of their number, so
+ * {@link #getLastPullRequest()} is the checkpoint a migration resumes from
+ * (i.e. after a restart).
+ */
+@Entity
+@Table(name = "pull_request_migration")
+public class PullRequestMigration {
+	@Id
+	@GeneratedValue
+	private Long id;
+	private String claName;
+	/**
+	 * The repository in the format of spring-projects/spring-security
+	 */
+	private String repositoryId;
+	private String commitStatusUrl;
+	private String faqUrl;
+	private String baseSyncUrl;
+	@Enumerated(EnumType.STRING)
+	private State state;
+	/**
+	 * The number of open Pull Requests when the migration (last) started.
+	 */
+	private int total;
+	/**
+	 * The number of Pull Requests that were migrated.
+	 */
+	private int done;
+	/**
+	 * The value of {@link #getDone()} when the migration (last) started, used to
+	 * estimate the remaining time.
+	 */
+	private int startedDone;
+	/**
+	 * The number of the last Pull Request that was migrated.
+	 */
+	private int lastPullRequest;
+	/**
+	 * The number of Pull Requests whose status could not be updated.
+	 * {@link #getLastError()} contains the error of the last of them.
+	 */
+	private int failed;
+	private String lastError;
+	private Date created;
+	private Date started;
+	private Date updated;
+	/**
+	 * When the instance running the migration must have renewed its claim. After
+	 * that the migration can be resumed by another instance.
+	 */
+	private Date leaseExpires;
+
+	public enum State {
+		QUEUED, RUNNING, DONE, FAILED
+	}
+
+	public PullRequestMigration() {
+	}
+
+	/**
+	 * @return true if the migration is queued or running
+	 */
+	public boolean isActive() {
+		return this.state == State.QUEUED || this.state == State.RUNNING;
+	}
+
+	/**
+	 * @return the number of Pull Requests left or 0 if unknown
+	 */
+	public int getRemaining() {
+		return Math.max(0, this.total - this.done);
+	}
+
+	/**
+	 * @return the estimated milliseconds until the migration is done or null if
+	 * unknown
+	 */
+	public Long getEstimatedRemainingMillis() {
+		return estimateRemainingMillis(new Date());
+	}
+
+	/**
+	 * Estimates the remaining time from the rate Pull Requests were migrated at
+	 * since the migration (last) started.
+	 *
+	 * @param now the current time
+	 * @return the estimated milliseconds until the migration is done or null if
+	 * unknown
+	 */
+	public Long estimateRemainingMillis(Date now) {
+		int migrated = this.done - this.startedDone;
+		if (this.state != State.RUNNING || this.started == null || migrated <= 0) {
+			return null;
+		}
+		long elapsed = now.getTime() - this.started.getTime();
+		return elapsed * getRemaining() / migrated;
+	}
+
+	public Long getId() {
+		return this.id;
+	}
+
+	public String getClaName() {
+		return this.claName;
+	}
+
+	public String getRepositoryId() {
+		return this.repositoryId;
+	}
+
+	public String getCommitStatusUrl() {
+		return this.commitStatusUrl;
+	}
+
+	public String getFaqUrl() {
+		return this.faqUrl;
+	}
+
+	public String getBaseSyncUrl() {
+		return this.baseSyncUrl;
+	}
+
+	public State getState() {
+		return this.state;
+	}
+
+	public int getTotal() {
+		return this.total;
+	}
+
+	public int getDone() {
+		return this.done;
+	}
+
+	public int getStartedDone() {
+		return this.startedDone;
+	}
+
+	public int getLastPullRequest() {
+		return this.lastPullRequest;
+	}
+
+	public int getFailed() {
+		return this.failed;
+	}
+
+	public String getLastError() {
+		return this.lastError;
+	}
+
+	public Date getCreated() {
+		return this.created;
+	}
+
+	public Date getStarted() {
+		return this.started;
+	}
+
+	public Date getUpdated() {
+		return this.updated;
+	}
+
+	public Date getLeaseExpires() {
+		return this.leaseExpires;
+	}
+
+	public void setId(final Long id) {
+		this.id = id;
+	}
+
+	public void setClaName(final String claName) {
+		this.claName = claName;
+	}
+
+	public void setRepositoryId(final String repositoryId) {
+		this.repositoryId = repositoryId;
+	}
+
+	public void setCommitStatusUrl(final String commitStatusUrl) {
+		this.commitStatusUrl = commitStatusUrl;
+	}
+
+	public void setFaqUrl(final String faqUrl) {
+		this.faqUrl = faqUrl;
+	}
+
+	public void setBaseSyncUrl(final String baseSyncUrl) {
+		this.baseSyncUrl = baseSyncUrl;
+	}
+
+	public void setState(final State state) {
+		this.state = state;
+	}
+
+	public void setTotal(final int total) {
+		this.total = total;
+	}
+
+	public void setDone(final int done) {
+		this.done = done;
+	}
+
+	public void setStartedDone(final int startedDone) {
+		this.startedDone = startedDone;
+	}
+
+	public void setLastPullRequest(final int lastPullRequest) {
+		this.lastPullRequest = lastPullRequest;
+	}
+
+	public void setFailed(final int failed) {
+		this.failed = failed;
+	}
+
+	public void setLastError(final String lastError) {
+		this.lastError = lastError;
+	}
+
+	public void setCreated(final Date created) {
+		this.created = created;
+	}
+
+	public void setStarted(final Date started) {
+		this.started = started;
+	}
+
+	public void setUpdated(final Date updated) {
+		this.updated = updated;
+	}
+
+	public void setLeaseExpires(final Date leaseExpires) {
+		this.leaseExpires = leaseExpires;
+	}
+
+	@java.lang.Override
+	public java.lang.String toString() {
+		return "PullRequestMigration(id=" + this.getId() + ", claName=" + this.getClaName() + ", repositoryId=" + this.getRepositoryId() + ", state=" + this.getState() + ", total=" + this.getTotal() + ", done=" + this.getDone() + ", lastPullRequest=" + this.getLastPullRequest() + ", failed=" + this.getFailed() + ", lastError=" + this.getLastError() + ")";
+	}
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.data;
+
+import java.util.Date;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * Records that a repository is linked to a CLA by a GitHub hook. This is kept
+ * current when CLAs are linked, from the meta and repository events of the
+ * hooks, and by a periodic reconciliation with the hooks on GitHub, so that
+ * the CLAs of a repository can be found without listing its hooks.
+ */
+@Entity
+@Table(name = "repository_cla_link")
+public class RepositoryClaLink {
+	@Id
+	@GeneratedValue
+	private Long id;
+	/**
+	 * The repository in the format of spring-projects/spring-security
+	 */
+	private String repositoryId;
+	private String claName;
+	/**
+	 * The id of the GitHub hook (may be null if unknown)
+	 */
+	private Long hookId;
+	/**
+	 * The GitHub login of the user that linked the repository or null if the link
+	 * was found on GitHub.
+	 */
+	private String linkedBy;
+	private Date linked;
+
+	public RepositoryClaLink() {
+	}
+
+	public Long getId() {
+		return this.id;
+	}
+
+	public String getRepositoryId() {
+		return this.repositoryId;
+	}
+
+	public String getClaName() {
+		return this.claName;
+	}
+
+	public Long getHookId() {
+		return this.hookId;
+	}
+
+	public String getLinkedBy() {
+		return this.linkedBy;
+	}
+
+	public Date getLinked() {
+		return this.linked;
+	}
+
+	public void setId(final Long id) {
+		this.id = id;
+	}
+
+	public void setRepositoryId(final String repositoryId) {
+		this.repositoryId = repositoryId;
+	}
+
+	public void setClaName(final String claName) {
+		this.claName = claName;
+	}
+
+	public void setHookId(final Long hookId) {
+		this.hookId = hookId;
+	}
+
+	public void setLinkedBy(final String linkedBy) {
+		this.linkedBy = linkedBy;
+	}
+
+	public void setLinked(final Date linked) {
+		this.linked = linked;
+	}
+
+	@java.lang.Override
+	public java.lang.String toString() {
+		return "RepositoryClaLink(id=" + this.getId() + ", repositoryId=" + this.getRepositoryId() + ", claName=" + this.getClaName() + ", hookId=" + this.getHookId() + ", linkedBy=" + this.getLinkedBy() + ", linked=" + this.getLinked() + ")";
+	}
+}
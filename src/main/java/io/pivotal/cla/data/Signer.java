@@ -0,0 +1,110 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.data;
+
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * Records that an identity (i.e. a GitHub login) has signed a CLA. There is a
+ * row for every name of a CLA that the signature is accepted for (see
+ * {@link ClaAcceptance}), so determining if someone signed a CLA is a single
+ * lookup of the (cla_name, kind, identity_value) index. The rows are written
+ * in the same transaction as the signatures.
+ */
+@Entity
+@Table(name = "signer")
+public class Signer {
+	@Id
+	@GeneratedValue
+	private Long id;
+	/**
+	 * The name of the CLA the signature is accepted for
+	 */
+	private String claName;
+	@Enumerated(EnumType.STRING)
+	private Kind kind;
+	private String identityValue;
+
+	public enum Kind {
+		/**
+		 * The GitHub login of an individual signature
+		 */
+		LOGIN,
+		/**
+		 * The email of an individual signature
+		 */
+		EMAIL,
+		/**
+		 * The email domain of a corporate signature
+		 */
+		DOMAIN,
+		/**
+		 * The GitHub organization of a corporate signature
+		 */
+		ORGANIZATION
+	}
+
+	public Signer() {
+	}
+
+	public Signer(String claName, Kind kind, String identityValue) {
+		this.claName = claName;
+		this.kind = kind;
+		this.identityValue = identityValue;
+	}
+
+	public Long getId() {
+		return this.id;
+	}
+
+	public String getClaName() {
+		return this.claName;
+	}
+
+	public Kind getKind() {
+		return this.kind;
+	}
+
+	public String getIdentityValue() {
+		return this.identityValue;
+	}
+
+	public void setId(final Long id) {
+		this.id = id;
+	}
+
+	public void setClaName(final String claName) {
+		this.claName = claName;
+	}
+
+	public void setKind(final Kind kind) {
+		this.kind = kind;
+	}
+
+	public void setIdentityValue(final String identityValue) {
+		this.identityValue = identityValue;
+	}
+
+	@java.lang.Override
+	public java.lang.String toString() {
+		return "Signer(id=" + this.getId() + ", claName=" + this.getClaName() + ", kind=" + this.getKind() + ", identityValue=" + this.getIdentityValue() + ")";
+	}
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.data.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+
+import io.pivotal.cla.data.ClaAcceptance;
+
+public interface ClaAcceptanceRepository extends CrudRepository<ClaAcceptance, Long> {
+
+	List<ClaAcceptance> findByAcceptedClaId(Long acceptedClaId);
+
+	/**
+	 * Finds the name of every CLA along with the name of each CLA whose
+	 * signatures are accepted for it.
+	 */
+	@Query("select a.claName as claName, c.name as acceptedClaName from ClaAcceptance a, ContributorLicenseAgreement c where c.id = a.acceptedClaId")
+	List<AcceptedName> findAcceptedNames();
+
+	interface AcceptedName {
+		String getClaName();
+
+		String getAcceptedClaName();
+	}
+}
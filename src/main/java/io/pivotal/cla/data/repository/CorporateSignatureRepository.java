@@ -53,12 +53,29 @@ public interface CorporateSignatureRepository extends CrudRepository<CorporateSi
 		return findSignaturesByOrganizationsAndEmailDomains(pageable, organizations, emailDomains);
 	}
 
-	@Query("select s from CorporateSignature s where (s.cla.name = :claName or s.cla.name in (select distinct c.supersedingCla.name from ContributorLicenseAgreement c where c.name = :#{#claName})) and (s.gitHubOrganization in (:organizations) or s.emailDomain in (:emailDomains))")
+	@Query("select s from CorporateSignature s, ClaAcceptance a where a.claName = :claName and s.cla.id = a.acceptedClaId and (s.gitHubOrganization in (:organizations) or s.emailDomain in (:emailDomains))")
 	List<CorporateSignature> findSignatures(Pageable pageable, @Param("claName") String claName, @Param("organizations") Collection<String> organizations, @Param("emailDomains") Collection<String> emailDomains);
 
 	@Query("select s from CorporateSignature s where (s.gitHubOrganization in (:organizations) or s.emailDomain in (:emailDomains))")
 	List<CorporateSignature> findSignaturesByOrganizationsAndEmailDomains(Pageable pageable, @Param("organizations") Collection<String> organizations, @Param("emailDomains") Collection<String> emailDomains);
 
+	/**
+	 * Finds what is needed to index the signatures with an id greater than the
+	 * given id without loading the signatures themselves.
+	 */
+	@Query("select s.id as id, s.gitHubOrganization as gitHubOrganization, s.emailDomain as emailDomain, s.cla.name as claName from CorporateSignature s where s.id > :id order by s.id")
+	List<Signer> findSignersAfter(@Param("id") long id);
+
+	interface Signer {
+		Long getId();
+
+		String getGitHubOrganization();
+
+		String getEmailDomain();
+
+		String getClaName();
+	}
+
 	// part of github organization
 	// has email that ends with @domain
 }
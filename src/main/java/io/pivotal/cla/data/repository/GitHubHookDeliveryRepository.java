@@ -0,0 +1,76 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.data.repository;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import io.pivotal.cla.data.GitHubHookDelivery;
+import io.pivotal.cla.data.GitHubHookDelivery.State;
+
+public interface GitHubHookDeliveryRepository extends CrudRepository<GitHubHookDelivery, Long> {
+
+	/**
+	 * States of deliveries that are eligible for processing once
+	 * {@link GitHubHookDelivery#getNextAttempt()} has passed. A
+	 * {@link State#PROCESSING} delivery with an expired lease was abandoned
+	 * (i.e. the instance processing it was stopped).
+	 */
+	public static final List<State> READY_STATES = Arrays.asList(State.QUEUED, State.PROCESSING);
+
+	default GitHubHookDelivery findOne(Long id) {
+		return findById(id).orElse(null);
+	}
+
+	default List<Long> findReadyIds(int max, Date now) {
+		return findIds(PageRequest.of(0, max), READY_STATES, now);
+	}
+
+	/**
+	 * Marks the delivery as {@link State#PROCESSING} if it is still ready to be
+	 * processed. Only one caller can claim a delivery, even across multiple
+	 * instances of the application.
+	 *
+	 * @param id the id of the delivery
+	 * @param now the current time
+	 * @param leaseExpires when the delivery can be claimed again if it is not
+	 * completed
+	 * @return true if the delivery was claimed
+	 */
+	default boolean claim(Long id, Date now, Date leaseExpires) {
+		return updateState(id, READY_STATES, now, State.PROCESSING, leaseExpires) == 1;
+	}
+
+	@Query("select d.id from GitHubHookDelivery d where d.state in (:states) and d.nextAttempt <= :now order by d.id")
+	List<Long> findIds(Pageable pageable, @Param("states") Collection<State> states, @Param("now") Date now);
+
+	@Transactional
+	@Modifying
+	@Query("update GitHubHookDelivery d set d.state = :newState, d.nextAttempt = :nextAttempt, d.attempts = d.attempts + 1 where d.id = :id and d.state in (:states) and d.nextAttempt <= :now")
+	int updateState(@Param("id") Long id, @Param("states") Collection<State> states, @Param("now") Date now, @Param("newState") State newState, @Param("nextAttempt") Date nextAttempt);
+
+	long countByState(State state);
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.data.repository;
+
+import java.util.Date;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import io.pivotal.cla.data.GitHubHookReceipt;
+
+public interface GitHubHookReceiptRepository extends CrudRepository<GitHubHookReceipt, String> {
+
+	/**
+	 * Records the delivery if it was not received since {@code expired}. A
+	 * receipt that is older than {@code expired} is replaced.
+	 *
+	 * @param deliveryId the value of the X-GitHub-Delivery header
+	 * @param now the current time
+	 * @param expired receipts older than this are ignored
+	 * @return true if the delivery was recorded, false if it is a redelivery
+	 */
+	default boolean record(String deliveryId, Date now, Date expired) {
+		if (renew(deliveryId, now, expired) == 1) {
+			return true;
+		}
+		if (existsById(deliveryId)) {
+			return false;
+		}
+		return insert(deliveryId, now) == 1;
+	}
+
+	@Transactional
+	@Modifying
+	@Query("update GitHubHookReceipt r set r.received = :now where r.deliveryId = :deliveryId and r.received < :expired")
+	int renew(@Param("deliveryId") String deliveryId, @Param("now") Date now, @Param("expired") Date expired);
+
+	/**
+	 * Inserts a new receipt. A native query is used so that a concurrent insert of
+	 * the same delivery fails with a
+	 * {@link org.springframework.dao.DataIntegrityViolationException} rather than
+	 * being merged.
+	 */
+	@Transactional
+	@Modifying
+	@Query(value = "insert into github_hook_receipt (delivery_id, received) values (:deliveryId, :now)", nativeQuery = true)
+	int insert(@Param("deliveryId") String deliveryId, @Param("now") Date now);
+
+	@Transactional
+	@Modifying
+	@Query("delete from GitHubHookReceipt r where r.received < :expired")
+	int deleteExpired(@Param("expired") Date expired);
+}
@@ -31,11 +31,28 @@ public interface IndividualSignatureRepository extends CrudRepository<Individual
 		return findById(id).orElse(null);
 	}
 
-	@Query("select s from IndividualSignature s where (s.cla.name = :#{#claName} or s.cla.name in (select distinct c.supersedingCla.name from ContributorLicenseAgreement c where c.name = :#{#claName})) and (s.gitHubLogin = :#{#u.gitHubLogin} or s.email in (:#{#u.emails.empty ? '' : #u.emails}))")
+	@Query("select s from IndividualSignature s, ClaAcceptance a where a.claName = :#{#claName} and s.cla.id = a.acceptedClaId and (s.gitHubLogin = :#{#u.gitHubLogin} or s.email in (:#{#u.emails.empty ? '' : #u.emails}))")
 	List<IndividualSignature> findSignaturesFor(Pageable pageable, @Param("u") User user,  @Param("claName") String claName);
 
 	@Query("select s from IndividualSignature s where (s.gitHubLogin = :#{#u.gitHubLogin} or s.email in (:#{#u.emails.empty ? '' : #u.emails}))")
 	List<IndividualSignature> findSignaturesFor(Pageable pageable, @Param("u") User user);
 
 	List<IndividualSignature> findByEmailIn(Set<String> email);
+
+	/**
+	 * Finds what is needed to index the signatures with an id greater than the
+	 * given id without loading the signatures themselves.
+	 */
+	@Query("select s.id as id, s.gitHubLogin as gitHubLogin, s.email as email, s.cla.name as claName from IndividualSignature s where s.id > :id order by s.id")
+	List<Signer> findSignersAfter(@Param("id") long id);
+
+	interface Signer {
+		Long getId();
+
+		String getGitHubLogin();
+
+		String getEmail();
+
+		String getClaName();
+	}
 }
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.data.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import io.pivotal.cla.data.PullRequestComment;
+
+public interface PullRequestCommentRepository extends CrudRepository<PullRequestComment, Long> {
+
+	List<PullRequestComment> findByPullRequestOrderById(String pullRequest);
+
+	@Transactional
+	@Modifying
+	@Query("delete from PullRequestComment c where c.pullRequest = :pullRequest")
+	int deleteByPullRequest(@Param("pullRequest") String pullRequest);
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.data.repository;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import io.pivotal.cla.data.PullRequestMigration;
+import io.pivotal.cla.data.PullRequestMigration.State;
+
+public interface PullRequestMigrationRepository extends CrudRepository<PullRequestMigration, Long> {
+
+	/**
+	 * States of migrations that are eligible for running unless another instance
+	 * holds an unexpired lease.
+	 */
+	public static final List<State> ACTIVE_STATES = Arrays.asList(State.QUEUED, State.RUNNING);
+
+	default PullRequestMigration findOne(Long id) {
+		return findById(id).orElse(null);
+	}
+
+	List<PullRequestMigration> findByStateIn(Collection<State> states);
+
+	/**
+	 * Leases the migration if it is active and not leased by another instance.
+	 * Only one caller can claim a migration, even across multiple instances of
+	 * the application.
+	 *
+	 * @param id the id of the migration
+	 * @param now the current time
+	 * @param leaseExpires when the migration can be claimed again if the lease
+	 * is not renewed
+	 * @return true if the migration was claimed
+	 */
+	default boolean claim(Long id, Date now, Date leaseExpires) {
+		return updateLease(id, ACTIVE_STATES, now, leaseExpires) == 1;
+	}
+
+	@Transactional
+	@Modifying
+	@Query("update PullRequestMigration m set m.leaseExpires = :leaseExpires where m.id = :id and m.state in (:states) and (m.leaseExpires is null or m.leaseExpires <= :now)")
+	int updateLease(@Param("id") Long id, @Param("states") Collection<State> states, @Param("now") Date now, @Param("leaseExpires") Date leaseExpires);
+
+	List<PullRequestMigration> findTop100ByOrderByIdDesc();
+}
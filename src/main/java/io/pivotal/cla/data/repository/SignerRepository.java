@@ -0,0 +1,117 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.data.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import io.pivotal.cla.data.Signer;
+import io.pivotal.cla.data.Signer.Kind;
+
+public interface SignerRepository extends CrudRepository<Signer, Long> {
+
+	/**
+	 * Determines if the CLA (or a CLA superseding it) was signed for any of the
+	 * identities of a user. The login, emails and email domains are looked up
+	 * with a single query, each kind of identity in the IX_SIGNER_CLA_KIND_VALUE
+	 * index (a disjunction of the kinds is not resolved with the index by every
+	 * database). The organizations are only requested (typically from GitHub) if
+	 * none of them signed and there is a corporate signature of the CLA for an
+	 * organization that the user could be a member of.
+	 *
+	 * @param claName the name of the CLA
+	 * @param gitHubLogin the GitHub login of the user
+	 * @param emails the verified emails of the user (also used for their
+	 * domains)
+	 * @param organizations the GitHub organizations of the user
+	 * @return true if the user has signed the CLA
+	 */
+	default boolean hasSigned(String claName, String gitHubLogin, Collection<String> emails, Supplier<List<String>> organizations) {
+		List<String> emailDomains = emails.stream().map(e -> e.substring(e.lastIndexOf("@") + 1)).collect(Collectors.toList());
+		if (!findIds(claName, gitHubLogin, forQuery(emails), forQuery(emailDomains), CorporateSignatureRepository.EMPTY_LIST_FOR_QUERY).isEmpty()) {
+			return true;
+		}
+		if (!existsByClaNameAndKind(claName, Kind.ORGANIZATION)) {
+			return false;
+		}
+		return !findSigned(claName, Kind.ORGANIZATION, organizations.get()).isEmpty();
+	}
+
+	/**
+	 * Finds which of the identities signed the CLA (or a CLA superseding it).
+	 *
+	 * @param claName the name of the CLA
+	 * @param kind the kind of the identities
+	 * @param identityValues the identities to look up
+	 * @return the identities that signed the CLA
+	 */
+	default List<String> findSigned(String claName, Kind kind, Collection<String> identityValues) {
+		return findIdentityValues(claName, kind, forQuery(identityValues));
+	}
+
+	@Query(nativeQuery = true, value = "SELECT s.id FROM signer s WHERE s.cla_name = :claName AND s.kind = 'LOGIN' AND s.identity_value = :gitHubLogin"
+			+ " UNION ALL"
+			+ " SELECT s.id FROM signer s WHERE s.cla_name = :claName AND s.kind = 'EMAIL' AND s.identity_value IN (:emails)"
+			+ " UNION ALL"
+			+ " SELECT s.id FROM signer s WHERE s.cla_name = :claName AND s.kind = 'DOMAIN' AND s.identity_value IN (:emailDomains)"
+			+ " UNION ALL"
+			+ " SELECT s.id FROM signer s WHERE s.cla_name = :claName AND s.kind = 'ORGANIZATION' AND s.identity_value IN (:organizations)"
+			+ " LIMIT 1")
+	List<Number> findIds(@Param("claName") String claName, @Param("gitHubLogin") String gitHubLogin, @Param("emails") Collection<String> emails,
+			@Param("emailDomains") Collection<String> emailDomains, @Param("organizations") Collection<String> organizations);
+
+	boolean existsByClaNameAndKind(String claName, Kind kind);
+
+	@Query("select distinct s.identityValue from Signer s where s.claName = :claName and s.kind = :kind and s.identityValue in (:identityValues)")
+	List<String> findIdentityValues(@Param("claName") String claName, @Param("kind") Kind kind, @Param("identityValues") Collection<String> identityValues);
+
+	@Transactional
+	@Modifying
+	@Query("delete from Signer s")
+	int deleteAllSigners();
+
+	/**
+	 * Inserts the rows of every signature. The same statement backfilled the
+	 * table in V1_11__create-signer.sql.
+	 */
+	@Transactional
+	@Modifying
+	@Query(nativeQuery = true, value = "INSERT INTO signer (cla_name, kind, identity_value)"
+			+ " SELECT a.cla_name, 'LOGIN', s.github_login FROM individual_signature s"
+			+ " JOIN cla_acceptance a ON a.accepted_cla_id = s.cla_id WHERE s.github_login IS NOT NULL"
+			+ " UNION ALL"
+			+ " SELECT a.cla_name, 'EMAIL', s.email FROM individual_signature s"
+			+ " JOIN cla_acceptance a ON a.accepted_cla_id = s.cla_id WHERE s.email IS NOT NULL"
+			+ " UNION ALL"
+			+ " SELECT a.cla_name, 'DOMAIN', s.email_domain FROM corporate_signature s"
+			+ " JOIN cla_acceptance a ON a.accepted_cla_id = s.cla_id WHERE s.email_domain IS NOT NULL"
+			+ " UNION ALL"
+			+ " SELECT a.cla_name, 'ORGANIZATION', s.git_hub_organization FROM corporate_signature s"
+			+ " JOIN cla_acceptance a ON a.accepted_cla_id = s.cla_id WHERE s.git_hub_organization IS NOT NULL")
+	int insertAllSigners();
+
+	static Collection<String> forQuery(Collection<String> values) {
+		return values == null || values.isEmpty() ? CorporateSignatureRepository.EMPTY_LIST_FOR_QUERY : values;
+	}
+}
@@ -16,11 +16,23 @@
 package io.pivotal.cla.data.repository;
 
 import io.pivotal.cla.data.User;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
 
 public interface UserRepository extends CrudRepository<User, String> {
 
 	default User findOne(String id) {
 		return findById(id).orElse(null);
 	}
+
+	/**
+	 * Finds the users and their emails with a single query, so the emails can be
+	 * used outside of a transaction.
+	 */
+	@Query("select distinct u from User u left join fetch u.emails where u.gitHubLogin in (:gitHubLogins)")
+	List<User> findAllWithEmails(@Param("gitHubLogins") Collection<String> gitHubLogins);
 }
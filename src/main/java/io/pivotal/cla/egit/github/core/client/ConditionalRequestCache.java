@@ -0,0 +1,180 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.egit.github.core.client;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import okhttp3.Headers;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * Remembers the ETag and Last-Modified of GET responses from GitHub and
+ * revalidates them with If-None-Match and If-Modified-Since on the next request
+ * for the same URL and credentials. A 304 is answered from memory and does not
+ * count against the GitHub rate limit.
+ *
+ * Unlike {@link okhttp3.Cache} every request is revalidated, so a response is
+ * never stale (GitHub allows caching for 60 seconds, which is too long for i.e.
+ * the comments on a Pull Request). The least recently used responses are
+ * evicted once the cached bodies exceed the maximum size.
+ */
+public class ConditionalRequestCache implements Interceptor {
+	private static final String ETAG = "ETag";
+	private static final String LAST_MODIFIED = "Last-Modified";
+	private final long maxBytes;
+	private final LinkedHashMap<String, CachedResponse> responses = new LinkedHashMap<>(16, 0.75f, true);
+	private long bytes;
+	private final Counter hits;
+	private final Counter misses;
+	private final Counter bytesSaved;
+
+	public ConditionalRequestCache(long maxBytes, MeterRegistry meterRegistry) {
+		this.maxBytes = maxBytes;
+		this.hits = meterRegistry.counter("cla.github.cache.requests", "result", "hit");
+		this.misses = meterRegistry.counter("cla.github.cache.requests", "result", "miss");
+		this.bytesSaved = Counter.builder("cla.github.cache.saved").baseUnit("bytes").register(meterRegistry);
+		Gauge.builder("cla.github.cache.size", this, ConditionalRequestCache::size).baseUnit("bytes").register(meterRegistry);
+	}
+
+	@Override
+	public Response intercept(Chain chain) throws IOException {
+		Request request = chain.request();
+		if (!"GET".equals(request.method())) {
+			return chain.proceed(request);
+		}
+		String key = key(request);
+		CachedResponse cached = get(key);
+		if (cached == null) {
+			this.misses.increment();
+			return store(key, chain.proceed(request));
+		}
+		Request.Builder conditional = request.newBuilder();
+		if (cached.etag != null) {
+			conditional.header("If-None-Match", cached.etag);
+		}
+		if (cached.lastModified != null) {
+			conditional.header("If-Modified-Since", cached.lastModified);
+		}
+		Response response = chain.proceed(conditional.build());
+		if (response.code() != 304) {
+			this.misses.increment();
+			return store(key, response);
+		}
+		response.close();
+		this.hits.increment();
+		this.bytesSaved.increment(cached.body.length);
+		return response.newBuilder()
+				.code(cached.code)
+				.message(cached.message)
+				.headers(merge(cached.headers, response.headers()))
+				.body(ResponseBody.create(cached.contentType, cached.body))
+				.build();
+	}
+
+	private Response store(String key, Response response) throws IOException {
+		String etag = response.header(ETAG);
+		String lastModified = response.header(LAST_MODIFIED);
+		if (response.code() != 200 || response.body() == null || (etag == null && lastModified == null)) {
+			remove(key);
+			return response;
+		}
+		MediaType contentType = response.body().contentType();
+		byte[] body = response.body().bytes();
+		put(key, new CachedResponse(response, etag, lastModified, contentType, body));
+		return response.newBuilder().body(ResponseBody.create(contentType, body)).build();
+	}
+
+	/**
+	 * The response of a GitHub request depends on the credentials (i.e. private
+	 * repositories) and the requested media type.
+	 */
+	private static String key(Request request) {
+		return request.url() + "\n" + request.header("Authorization") + "\n" + request.header("Accept");
+	}
+
+	/**
+	 * The headers of the cached response, updated with the headers of the 304
+	 * (i.e. the current rate limit).
+	 */
+	private static Headers merge(Headers cached, Headers notModified) {
+		Headers.Builder headers = cached.newBuilder();
+		for (String name : notModified.names()) {
+			headers.removeAll(name);
+			for (String value : notModified.values(name)) {
+				headers.add(name, value);
+			}
+		}
+		return headers.build();
+	}
+
+	private synchronized CachedResponse get(String key) {
+		return this.responses.get(key);
+	}
+
+	private synchronized void put(String key, CachedResponse response) {
+		remove(key);
+		if (response.body.length > this.maxBytes) {
+			return;
+		}
+		this.responses.put(key, response);
+		this.bytes += response.body.length;
+		Iterator<Map.Entry<String, CachedResponse>> eldest = this.responses.entrySet().iterator();
+		while (this.bytes > this.maxBytes && eldest.hasNext()) {
+			this.bytes -= eldest.next().getValue().body.length;
+			eldest.remove();
+		}
+	}
+
+	private synchronized void remove(String key) {
+		CachedResponse removed = this.responses.remove(key);
+		if (removed != null) {
+			this.bytes -= removed.body.length;
+		}
+	}
+
+	synchronized long size() {
+		return this.bytes;
+	}
+
+	private static final class CachedResponse {
+		private final int code;
+		private final String message;
+		private final Headers headers;
+		private final String etag;
+		private final String lastModified;
+		private final MediaType contentType;
+		private final byte[] body;
+
+		private CachedResponse(Response response, String etag, String lastModified, MediaType contentType, byte[] body) {
+			this.code = response.code();
+			this.message = response.message();
+			this.headers = response.headers();
+			this.etag = etag;
+			this.lastModified = lastModified;
+			this.contentType = contentType;
+			this.body = body;
+		}
+	}
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.egit.github.core.client;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Schedules the requests to GitHub within the rate limits of the access token
+ * they are sent with. The budget of a token is read from the
+ * X-RateLimit-Remaining, X-RateLimit-Reset and Retry-After headers of every
+ * response. GitHub limits the REST API ("core"), search and GraphQL separately,
+ * so each of them has its own budget (see X-RateLimit-Resource).
+ *
+ * <ul>
+ * <li>Reads are sent immediately, unless the budget is exhausted or GitHub
+ * asked to retry later.</li>
+ * <li>Writes (POST, PATCH, PUT and DELETE) are spaced by at least the write
+ * interval, as recommended to avoid the secondary (abuse) rate limits, and by
+ * more if that is needed to make the remaining budget last until it
+ * resets. GraphQL queries are sent with POST, but are reads.</li>
+ * </ul>
+ *
+ * If a request would have to wait longer than the maximum wait an
+ * {@link IOException} is thrown instead of sending a request that GitHub would
+ * reject.
+ *
+ * @see <a href=
+ * "https://developer.github.com/guides/best-practices-for-integrators/#dealing-with-abuse-rate-limits">Dealing
+ * with abuse rate limits</a>
+ */
+public class GitHubRateLimiter implements Interceptor {
+	private static final int MAX_BUDGETS = 1000;
+	private static final String CORE = "core";
+	private static final String SEARCH = "search";
+	private static final String GRAPHQL = "graphql";
+	private final long writeIntervalNanos;
+	private final long maxWaitNanos;
+	private final Map<String, Budget> budgets = new LinkedHashMap<String, Budget>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Budget> eldest) {
+			return size() > MAX_BUDGETS;
+		}
+	};
+	private final Timer readWait;
+	private final Timer writeWait;
+
+	public GitHubRateLimiter(Duration writeInterval, Duration maxWait, MeterRegistry meterRegistry) {
+		this.writeIntervalNanos = writeInterval.toNanos();
+		this.maxWaitNanos = maxWait.toNanos();
+		this.readWait = meterRegistry.timer("cla.github.ratelimit.wait", "request", "read");
+		this.writeWait = meterRegistry.timer("cla.github.ratelimit.wait", "request", "write");
+	}
+
+	@Override
+	public Response intercept(Chain chain) throws IOException {
+		Request request = chain.request();
+		String resource = resource(request);
+		Budget budget = budget(request, resource);
+		boolean write = !GRAPHQL.equals(resource) && isWrite(request.method());
+		long wait = budget.reserve(write, System.nanoTime(), this.maxWaitNanos);
+		if (wait > this.maxWaitNanos) {
+			throw new IOException("GitHub rate limit for " + request.url().host() + " is exhausted for another " + TimeUnit.NANOSECONDS.toSeconds(wait) + "s");
+		}
+		if (wait > 0) {
+			(write ? this.writeWait : this.readWait).record(wait, TimeUnit.NANOSECONDS);
+			sleep(wait);
+		}
+		Response response = chain.proceed(request);
+		String reportedResource = response.header("X-RateLimit-Resource");
+		if (reportedResource != null && !reportedResource.equals(resource)) {
+			budget = budget(request, reportedResource);
+		}
+		budget.update(response, System.nanoTime(), System.currentTimeMillis());
+		return response;
+	}
+
+	private synchronized Budget budget(Request request, String resource) {
+		String key = request.url().host() + " " + request.header("Authorization") + " " + resource;
+		return this.budgets.computeIfAbsent(key, k -> new Budget(this.writeIntervalNanos));
+	}
+
+	/**
+	 * @return the name GitHub uses for the rate limit of the request in
+	 * X-RateLimit-Resource
+	 */
+	static String resource(Request request) {
+		String path = request.url().encodedPath();
+		if (path.endsWith("/graphql")) {
+			return GRAPHQL;
+		}
+		if (path.startsWith("/search/") || path.startsWith("/api/v3/search/")) {
+			return SEARCH;
+		}
+		return CORE;
+	}
+
+	private static boolean isWrite(String method) {
+		return !"GET".equals(method) && !"HEAD".equals(method);
+	}
+
+	private static void sleep(long nanos) throws InterruptedIOException {
+		try {
+			TimeUnit.NANOSECONDS.sleep(nanos);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for the GitHub rate limit");
+		}
+	}
+
+	/**
+	 * The rate limit of a single access token.
+	 */
+	static class Budget {
+		private final long writeIntervalNanos;
+		/**
+		 * The requests left until the limit resets or -1 if unknown.
+		 */
+		private long remaining = -1;
+		private long resetNanos;
+		private long blockedUntilNanos;
+		private long nextWriteNanos;
+
+		Budget(long writeIntervalNanos) {
+			this.writeIntervalNanos = writeIntervalNanos;
+		}
+
+		synchronized long reserve(boolean write, long now) {
+			return reserve(write, now, Long.MAX_VALUE);
+		}
+
+		/**
+		 * Reserves a slot for a request, unless it would have to wait longer than
+		 * the maximum wait. A refused request does not use up a slot, so the
+		 * requests after it are not delayed by it.
+		 *
+		 * @return how many nanoseconds the caller must wait before sending the
+		 * request (nothing is reserved if that is more than the maximum wait)
+		 */
+		synchronized long reserve(boolean write, long now, long maxWaitNanos) {
+			long start = Math.max(now, this.blockedUntilNanos);
+			if (this.remaining == 0 && this.resetNanos > start) {
+				start = this.resetNanos;
+			}
+			if (write) {
+				start = Math.max(start, this.nextWriteNanos);
+			}
+			long wait = start - now;
+			if (wait > maxWaitNanos) {
+				return wait;
+			}
+			if (write) {
+				this.nextWriteNanos = start + writeInterval(start);
+			}
+			if (this.remaining > 0) {
+				this.remaining--;
+			}
+			return wait;
+		}
+
+		/**
+		 * The write interval, or longer if the remaining budget would not last
+		 * until it resets otherwise.
+		 */
+		private long writeInterval(long now) {
+			if (this.remaining <= 0 || this.resetNanos <= now) {
+				return this.writeIntervalNanos;
+			}
+			return Math.max(this.writeIntervalNanos, (this.resetNanos - now) / this.remaining);
+		}
+
+		synchronized void update(Response response, long now, long currentTimeMillis) {
+			String remaining = response.header("X-RateLimit-Remaining");
+			String reset = response.header("X-RateLimit-Reset");
+			String retryAfter = response.header("Retry-After");
+			try {
+				if (remaining != null && reset != null) {
+					this.remaining = Long.parseLong(remaining);
+					long untilReset = TimeUnit.SECONDS.toMillis(Long.parseLong(reset)) - currentTimeMillis;
+					this.resetNanos = now + TimeUnit.MILLISECONDS.toNanos(Math.max(0, untilReset));
+				}
+				if (retryAfter != null) {
+					this.blockedUntilNanos = Math.max(this.blockedUntilNanos, now + TimeUnit.SECONDS.toNanos(Long.parseLong(retryAfter.trim())));
+				}
+			} catch (NumberFormatException e) {
+				// ignore headers that are not understood
+			}
+		}
+	}
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.egit.github.core.client;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import org.eclipse.egit.github.core.client.GitHubClient;
+import okhttp3.OkHttpClient;
+
+/**
+ * A {@link GitHubClient} that sends its requests with a shared
+ * {@link OkHttpClient}, so that connections to GitHub are pooled and kept alive
+ * across clients (a client is created per access token) and the configured
+ * timeouts apply.
+ */
+public class OkHttpGitHubClient extends GitHubClient {
+	private final OkHttpClient httpClient;
+
+	public OkHttpGitHubClient(String hostname, int port, String scheme, OkHttpClient httpClient) {
+		super(hostname, port, scheme);
+		this.httpClient = httpClient;
+	}
+
+	@Override
+	protected HttpURLConnection createConnection(String uri) throws IOException {
+		return new OkHttpUrlConnection(new URL(createUri(uri)), this.httpClient);
+	}
+}
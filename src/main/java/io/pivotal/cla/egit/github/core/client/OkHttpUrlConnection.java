@@ -0,0 +1,185 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.egit.github.core.client;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import okhttp3.Headers;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+
+/**
+ * The subset of {@link HttpURLConnection} that {@link OkHttpGitHubClient} needs,
+ * executed with an {@link OkHttpClient}. The response body is read completely
+ * when the request is executed, so the connection is always returned to the
+ * pool (even if the caller never reads or closes the stream).
+ */
+class OkHttpUrlConnection extends HttpURLConnection {
+	private static final byte[] EMPTY = new byte[0];
+	private final OkHttpClient httpClient;
+	private ByteArrayOutputStream requestBody;
+	private String statusLine;
+	private Headers responseHeaders;
+	private byte[] responseBody;
+
+	OkHttpUrlConnection(URL url, OkHttpClient httpClient) {
+		super(url);
+		this.httpClient = httpClient;
+	}
+
+	@Override
+	public void connect() throws IOException {
+		if (this.connected) {
+			return;
+		}
+		Request.Builder request = new Request.Builder().url(this.url);
+		for (Map.Entry<String, List<String>> header : getRequestProperties().entrySet()) {
+			if (header.getKey() == null || "Content-Length".equalsIgnoreCase(header.getKey())) {
+				continue;
+			}
+			for (String value : header.getValue()) {
+				request.addHeader(header.getKey(), value);
+			}
+		}
+		request.method(this.method, createRequestBody());
+		try (Response response = this.httpClient.newCall(request.build()).execute()) {
+			this.responseCode = response.code();
+			this.responseMessage = response.message();
+			this.statusLine = response.protocol().toString().toUpperCase() + " " + response.code() + " " + response.message();
+			this.responseHeaders = response.headers();
+			this.responseBody = response.body() == null ? EMPTY : response.body().bytes();
+		}
+		this.connected = true;
+	}
+
+	private RequestBody createRequestBody() {
+		if (this.requestBody == null) {
+			boolean requiresBody = "POST".equals(this.method) || "PUT".equals(this.method);
+			return requiresBody ? RequestBody.create(null, EMPTY) : null;
+		}
+		String contentType = getRequestProperty("Content-Type");
+		return RequestBody.create(contentType == null ? null : MediaType.parse(contentType), this.requestBody.toByteArray());
+	}
+
+	@Override
+	public OutputStream getOutputStream() throws IOException {
+		if (this.connected) {
+			throw new IllegalStateException("Already connected");
+		}
+		if (this.requestBody == null) {
+			this.requestBody = new ByteArrayOutputStream();
+		}
+		return this.requestBody;
+	}
+
+	@Override
+	public InputStream getInputStream() throws IOException {
+		connect();
+		if (this.responseCode == HTTP_NOT_FOUND || this.responseCode == HTTP_GONE) {
+			throw new FileNotFoundException(this.url.toString());
+		}
+		if (this.responseCode >= HTTP_BAD_REQUEST) {
+			throw new IOException("Server returned HTTP response code: " + this.responseCode + " for URL: " + this.url);
+		}
+		return new ByteArrayInputStream(this.responseBody);
+	}
+
+	@Override
+	public InputStream getErrorStream() {
+		if (!this.connected || this.responseCode < HTTP_BAD_REQUEST || this.responseBody.length == 0) {
+			return null;
+		}
+		return new ByteArrayInputStream(this.responseBody);
+	}
+
+	@Override
+	public int getResponseCode() throws IOException {
+		connect();
+		return this.responseCode;
+	}
+
+	@Override
+	public String getResponseMessage() throws IOException {
+		connect();
+		return this.responseMessage;
+	}
+
+	@Override
+	public String getHeaderField(String name) {
+		if (!connectQuietly()) {
+			return null;
+		}
+		return name == null ? this.statusLine : this.responseHeaders.get(name);
+	}
+
+	@Override
+	public String getHeaderFieldKey(int n) {
+		if (!connectQuietly() || n <= 0 || n > this.responseHeaders.size()) {
+			return null;
+		}
+		return this.responseHeaders.name(n - 1);
+	}
+
+	@Override
+	public String getHeaderField(int n) {
+		if (!connectQuietly() || n < 0 || n > this.responseHeaders.size()) {
+			return null;
+		}
+		return n == 0 ? this.statusLine : this.responseHeaders.value(n - 1);
+	}
+
+	@Override
+	public Map<String, List<String>> getHeaderFields() {
+		if (!connectQuietly()) {
+			return Collections.emptyMap();
+		}
+		Map<String, List<String>> fields = new LinkedHashMap<>();
+		fields.put(null, Collections.singletonList(this.statusLine));
+		fields.putAll(this.responseHeaders.toMultimap());
+		return Collections.unmodifiableMap(fields);
+	}
+
+	private boolean connectQuietly() {
+		try {
+			connect();
+			return true;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	@Override
+	public void disconnect() {
+	}
+
+	@Override
+	public boolean usingProxy() {
+		return false;
+	}
+}
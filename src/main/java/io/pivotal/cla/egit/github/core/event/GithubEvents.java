@@ -22,4 +22,6 @@ public class GithubEvents {
 	public static final String ISSUE_COMMENT = "issue_comment";
 	public static final String PULL_REQUEST_REVIEW_COMMENT = "pull_request_review_comment";
 	public static final String PULL_REQUEST = "pull_request";
+	public static final String META = "meta";
+	public static final String REPOSITORY = "repository";
 }
@@ -29,6 +29,8 @@ import org.eclipse.egit.github.core.util.EncodingUtils;
 import com.google.gson.reflect.TypeToken;
 import io.pivotal.cla.config.ClaOAuthConfig;
 import io.pivotal.cla.egit.github.core.Email;
+import io.pivotal.cla.egit.github.core.client.OkHttpGitHubClient;
+import okhttp3.OkHttpClient;
 
 public class EmailService extends GitHubService {
 	public List<Email> getEmails() {
@@ -46,16 +48,16 @@ public class EmailService extends GitHubService {
 		super(client);
 	}
 
-	public static EmailService forOAuth(String token, ClaOAuthConfig config) {
-		return new EmailService(new EmailGitHubClient(config.getGitHubApiHost(), config.getPort(), config.getScheme()).setOAuth2Token(token));
+	public static EmailService forOAuth(String token, ClaOAuthConfig config, OkHttpClient httpClient) {
+		return new EmailService(new EmailGitHubClient(config.getGitHubApiHost(), config.getPort(), config.getScheme(), httpClient).setOAuth2Token(token));
 	}
 
 
-	private static final class EmailGitHubClient extends GitHubClient {
+	private static final class EmailGitHubClient extends OkHttpGitHubClient {
 		private String credentials;
 
-		public EmailGitHubClient(String hostname, int port, String scheme) {
-			super(hostname, port, scheme);
+		public EmailGitHubClient(String hostname, int port, String scheme, OkHttpClient httpClient) {
+			super(hostname, port, scheme, httpClient);
 		}
 
 		public GitHubClient setCredentials(String user, String password) {
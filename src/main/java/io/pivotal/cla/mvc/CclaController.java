@@ -19,10 +19,10 @@ import io.pivotal.cla.data.ContributorLicenseAgreement;
 import io.pivotal.cla.data.CorporateSignature;
 import io.pivotal.cla.data.User;
 import io.pivotal.cla.data.repository.ContributorLicenseAgreementRepository;
-import io.pivotal.cla.data.repository.CorporateSignatureRepository;
 import io.pivotal.cla.service.ClaPullRequestStatusRequest;
 import io.pivotal.cla.service.ClaService;
 import io.pivotal.cla.service.CorporateSignatureInfo;
+import io.pivotal.cla.service.SignerService;
 import io.pivotal.cla.service.github.GitHubApi;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -43,7 +43,7 @@ public class CclaController {
 	@Autowired
 	private ContributorLicenseAgreementRepository clas;
 	@Autowired
-	private CorporateSignatureRepository corporate;
+	private SignerService signerService;
 	@Autowired
 	private GitHubApi gitHub;
 	@Autowired
@@ -90,8 +90,8 @@ public class CclaController {
 	@PostMapping("/sign/{claName}/ccla")
 	public String signCla(@AuthenticationPrincipal User user, @Valid SignCorporateClaForm signCorporateClaForm, BindingResult result, Map<String, Object> model, RedirectAttributes redirect) throws Exception {
 		ContributorLicenseAgreement cla = clas.findOne(signCorporateClaForm.getClaId());
-		List<String> currentUserGitHubOrganizations = gitHub.getOrganizations(user.getGitHubLogin());
 		if (result.hasErrors()) {
+			List<String> currentUserGitHubOrganizations = gitHub.getOrganizations(user.getGitHubLogin());
 			model.put("cla", cla);
 			signCorporateClaForm.setGitHubOrganizations(currentUserGitHubOrganizations);
 			return "cla/ccla/sign";
@@ -108,7 +108,7 @@ public class CclaController {
 		signature.setMailingAddress(signCorporateClaForm.getMailingAddress());
 		signature.setTelephone(signCorporateClaForm.getTelephone());
 		signature.setCompanyName(signCorporateClaForm.getCompanyName());
-		corporate.save(signature);
+		signerService.save(signature);
 		// update github
 		String repositoryId = signCorporateClaForm.getRepositoryId();
 		Integer pullRequestId = signCorporateClaForm.getPullRequestId();
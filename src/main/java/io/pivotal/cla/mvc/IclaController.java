@@ -19,9 +19,9 @@ import io.pivotal.cla.data.ContributorLicenseAgreement;
 import io.pivotal.cla.data.IndividualSignature;
 import io.pivotal.cla.data.User;
 import io.pivotal.cla.data.repository.ContributorLicenseAgreementRepository;
-import io.pivotal.cla.data.repository.IndividualSignatureRepository;
 import io.pivotal.cla.service.ClaPullRequestStatusRequest;
 import io.pivotal.cla.service.ClaService;
+import io.pivotal.cla.service.SignerService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.stereotype.Controller;
@@ -40,7 +40,7 @@ public class IclaController {
 	@Autowired
 	private ContributorLicenseAgreementRepository clas;
 	@Autowired
-	private IndividualSignatureRepository individual;
+	private SignerService signerService;
 	@Autowired
 	private ClaService claService;
 
@@ -94,7 +94,7 @@ public class IclaController {
 		signature.setDateOfSignature(new Date());
 		signature.setTelephone(signClaForm.getTelephone());
 		signature.setGitHubLogin(user.getGitHubLogin());
-		individual.save(signature);
+		signerService.save(signature);
 		// update github
 		redirect.addAttribute("claName", claName);
 		if (repositoryId == null || pullRequestId == null) {
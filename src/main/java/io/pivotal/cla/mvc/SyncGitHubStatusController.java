@@ -4,7 +4,8 @@ import io.pivotal.cla.data.User;
 import io.pivotal.cla.data.repository.UserRepository;
 import io.pivotal.cla.service.ClaPullRequestStatusRequest;
 import io.pivotal.cla.service.ClaService;
-import io.pivotal.cla.service.github.GitHubApi;
+import io.pivotal.cla.service.UnsignedCache;
+import io.pivotal.cla.service.github.AsyncGitHubApi;
 import org.eclipse.egit.github.core.PullRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -17,6 +18,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 @Controller
 public class SyncGitHubStatusController {
@@ -24,9 +26,11 @@ public class SyncGitHubStatusController {
 	@Autowired
 	private ClaService claService;
 	@Autowired
-	private GitHubApi github;
+	private AsyncGitHubApi github;
 	@Autowired
 	private UserRepository users;
+	@Autowired
+	private UnsignedCache unsignedCache;
 
 	@GetMapping("/sync/{claName}")
 	public String syncForm(@ModelAttribute ClaRequest claRequest) throws Exception {
@@ -42,22 +46,31 @@ public class SyncGitHubStatusController {
 		if (repositoryParts.length != 2 || !StringUtils.hasText(repositoryParts[0]) || !StringUtils.hasText(repositoryParts[1])) {
 			throw new IllegalArgumentException("RepositoryId must be in format \'username/repository\'");
 		}
-		Set<String> verifiedEmails = github.getVerifiedEmails(currentUser.getAccessToken());
+		// the lookups are independent, so they are requested concurrently
+		CompletableFuture<Set<String>> verifiedEmailsLookup = github.getVerifiedEmails(currentUser.getAccessToken());
+		CompletableFuture<Optional<PullRequest>> pullRequestLookup = claService.findPullRequestAsync(claRequest.getRepositoryId(), claRequest.getPullRequestId());
+		CompletableFuture<Set<String>> associatedClaNamesLookup = claService.findAssociatedClaNamesAsync(claRequest.getRepositoryId());
+		Set<String> verifiedEmails = AsyncGitHubApi.join(verifiedEmailsLookup);
 		if (!currentUser.getEmails().containsAll(verifiedEmails)) {
 			currentUser.setEmails(verifiedEmails);
 			users.save(currentUser);
 		}
-		Optional<PullRequest> optionalPullRequest = claService.findPullRequest(claRequest.getRepositoryId(), claRequest.getPullRequestId());
+		Optional<PullRequest> optionalPullRequest = AsyncGitHubApi.join(pullRequestLookup);
 		PullRequest pullRequest = optionalPullRequest.orElseThrow(() -> new IllegalArgumentException(String.format("Pull-request %s#%s does not exist", claRequest.getRepositoryId(), claRequest.getPullRequestId())));
 		log.debug("Got pull request {}", pullRequest);
 		ClaPullRequestStatusRequest updatePullRequest = claRequest.createUpdatePullRequestStatus(pullRequest.getUser().getLogin());
 		updatePullRequest.getCommitStatus().setPullRequestState(pullRequest.getState());
-		Set<String> associatedClaNames = claService.findAssociatedClaNames(claRequest.getRepositoryId());
+		Set<String> associatedClaNames = AsyncGitHubApi.join(associatedClaNamesLookup);
 		if (!associatedClaNames.contains(claRequest.getClaName())) {
 			throw new IllegalArgumentException(String.format("Requested CLA \'%s\' is not linked to the repository", claRequest.getClaName()));
 		}
 		if (updatePullRequest != null) {
 			updatePullRequest.getCommitStatus().setAdmin(currentUser.isAdmin());
+			// the user asked to synchronize with the current state on GitHub
+			updatePullRequest.getCommitStatus().setReevaluate(true);
+			// the emails or organizations of the user may have changed
+			unsignedCache.evictUser(currentUser.getGitHubLogin());
+			unsignedCache.evictUser(pullRequest.getUser().getLogin());
 			claService.savePullRequestStatus(updatePullRequest);
 			log.debug("Updating Pull Request ");
 		}
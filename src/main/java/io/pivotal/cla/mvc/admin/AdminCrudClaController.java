@@ -19,6 +19,10 @@ import io.pivotal.cla.data.ContributorLicenseAgreement;
 import io.pivotal.cla.data.MarkdownContent;
 import io.pivotal.cla.data.User;
 import io.pivotal.cla.mvc.ResourceNotFoundException;
+import io.pivotal.cla.service.ClaAcceptanceService;
+import io.pivotal.cla.service.SignerIndex;
+import io.pivotal.cla.service.UnsignedCache;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.stereotype.Controller;
@@ -38,6 +42,12 @@ import java.util.Map;
 @Controller
 @PreAuthorize("hasRole('CLA_AUTHOR')")
 public class AdminCrudClaController extends AdminClaController {
+	@Autowired
+	private ClaAcceptanceService claAcceptances;
+	@Autowired
+	private SignerIndex signerIndex;
+	@Autowired
+	private UnsignedCache unsignedCache;
 
 	@GetMapping("/admin/cla/")
 	public String listClas(Map<String, Object> model) throws Exception {
@@ -106,13 +116,17 @@ public class AdminCrudClaController extends AdminClaController {
 		cla.setPrimary(claForm.isPrimary());
 		cla.setSupersedingCla(supersedingCla);
 
-		claRepo.save(cla);
+		claAcceptances.save(cla);
+		signerIndex.refreshClas();
+		unsignedCache.evictAll();
 		return "redirect:/admin/cla/?success";
 	}
 
 	@DeleteMapping("/admin/cla/{claId}")
 	public String delete(@AuthenticationPrincipal User user, @PathVariable long claId) {
-		claRepo.deleteById(claId);
+		claAcceptances.delete(claId);
+		signerIndex.refreshClas();
+		unsignedCache.evictAll();
 		return "redirect:/admin/cla/?success";
 	}
 }
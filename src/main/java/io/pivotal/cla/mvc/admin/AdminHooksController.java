@@ -0,0 +1,57 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.mvc.admin;
+
+import java.time.Instant;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DateTimeFormat.ISO;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import io.pivotal.cla.mvc.github.GitHubHookReplayer;
+
+@RestController
+@PreAuthorize("hasRole('CLA_AUTHOR')")
+public class AdminHooksController {
+	@Autowired
+	GitHubHookReplayer replayer;
+
+	/**
+	 * Replays the archived GitHub hook deliveries that were received within a time
+	 * range (i.e. {@code from=2020-01-01T10:00:00Z&to=2020-01-01T12:00:00Z}).
+	 */
+	@PostMapping("/admin/hooks/replay")
+	ResponseEntity<?> replay(@RequestParam @DateTimeFormat(iso = ISO.DATE_TIME) Instant from, @RequestParam @DateTimeFormat(iso = ISO.DATE_TIME) Instant to, @RequestParam(required = false) Double rate) {
+		if (!from.isBefore(to)) {
+			return ResponseEntity.badRequest().body("from must be before to");
+		}
+		try {
+			return ResponseEntity.accepted().body(this.replayer.replay(from, to, rate));
+		} catch (IllegalStateException | IllegalArgumentException e) {
+			return ResponseEntity.badRequest().body(e.getMessage());
+		}
+	}
+
+	@GetMapping("/admin/hooks/replay")
+	ResponseEntity<GitHubHookReplayer.Status> replayStatus() {
+		GitHubHookReplayer.Status status = this.replayer.getStatus();
+		return status == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(status);
+	}
+}
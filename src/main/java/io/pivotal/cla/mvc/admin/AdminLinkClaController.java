@@ -16,9 +16,12 @@
 package io.pivotal.cla.mvc.admin;
 
 import io.pivotal.cla.data.AccessToken;
+import io.pivotal.cla.data.PullRequestMigration;
 import io.pivotal.cla.data.User;
 import io.pivotal.cla.mvc.util.UrlBuilder;
 import io.pivotal.cla.service.MigratePullRequestStatusRequest;
+import io.pivotal.cla.service.PullRequestMigrationService;
+import io.pivotal.cla.service.RepositoryClaLinkService;
 import io.pivotal.cla.service.github.ContributingUrlsResponse;
 import io.pivotal.cla.service.github.CreatePullRequestHookRequest;
 import io.pivotal.cla.service.github.GitHubApi;
@@ -28,7 +31,9 @@ import org.springframework.stereotype.Controller;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
@@ -43,6 +48,12 @@ import java.util.Map;
 public class AdminLinkClaController extends AdminClaController {
 	private static final String ACCESS_TOKENS_URL = "https://github.com/settings/applications";
 
+	@Autowired
+	PullRequestMigrationService migrationService;
+
+	@Autowired
+	RepositoryClaLinkService links;
+
 	@GetMapping("/admin/cla/link")
 	public String linkClaForm(@AuthenticationPrincipal User user, Map<String, Object> model) throws Exception {
 		model.put("linkClaForm", new LinkClaForm());
@@ -72,7 +83,7 @@ public class AdminLinkClaController extends AdminClaController {
 		createPullRequest.setRepositoryIds(repositoryIds);
 		createPullRequest.setGitHubEventUrl(pullRequestHookUrl);
 		createPullRequest.setSecret(accessToken.getToken());
-		ContributingUrlsResponse contributingUrls = gitHub.getContributingUrls(repositoryIds);
+		ContributingUrlsResponse contributingUrls = gitHub.getContributingUrls(repositoryIds, user.getAccessToken());
 		List<String> hookUrls = gitHub.createPullRequestHooks(createPullRequest);
 		for (String repositoryId : repositoryIds) {
 			AccessToken token = new AccessToken();
@@ -80,6 +91,7 @@ public class AdminLinkClaController extends AdminClaController {
 			token.setToken(user.getAccessToken());
 			tokenRepo.save(token);
 		}
+		links.link(linkClaForm.getClaName(), repositoryIds, hookUrls, user.getGitHubLogin());
 		UpdatePullRequestStatusesForm updatePullRequestStatusesForm = new UpdatePullRequestStatusesForm();
 		updatePullRequestStatusesForm.setClaName(linkClaForm.getClaName());
 		updatePullRequestStatusesForm.setRepositories(repositoryIds);
@@ -103,7 +115,27 @@ public class AdminLinkClaController extends AdminClaController {
 		UrlBuilder baseSyncUrlBldr = UrlBuilder.fromRequest(request);
 		String baseSyncUrl = baseSyncUrlBldr.path("/sync/" + urlEncodedClaName).build();
 		MigratePullRequestStatusRequest migratePullRequests = MigratePullRequestStatusRequest.builder().accessToken(user.getAccessToken()).commitStatusUrl(signClaUrl).repositoryIds(updatePullRequestStatusesForm.getRepositories()).faqUrl(aboutUrl).baseSyncUrl(baseSyncUrl).build();
-		claService.migratePullRequestStatus(updatePullRequestStatusesForm.getClaName(), migratePullRequests);
-		return "redirect:/admin/cla/link";
+		migrationService.start(claName, migratePullRequests);
+		return "redirect:/admin/cla/link/migrate";
+	}
+
+	@PostMapping("/admin/cla/link/migrate/{id}/retry")
+	public String retryMigration(@PathVariable Long id) {
+		migrationService.retry(id);
+		return "redirect:/admin/cla/link/migrate";
+	}
+
+	@GetMapping("/admin/cla/link/migrate")
+	public String migrations(Map<String, Object> model) {
+		List<PullRequestMigration> migrations = migrationService.findRecent();
+		model.put("migrations", migrations);
+		model.put("active", migrations.stream().anyMatch(PullRequestMigration::isActive));
+		return "admin/cla/migrations";
+	}
+
+	@GetMapping("/admin/cla/link/migrate/progress")
+	@ResponseBody
+	public List<PullRequestMigration> migrationProgress() {
+		return migrationService.findRecent();
 	}
 }
@@ -3,7 +3,7 @@ package io.pivotal.cla.mvc.admin;
 import io.pivotal.cla.data.ContributorLicenseAgreement;
 import io.pivotal.cla.data.IndividualSignature;
 import io.pivotal.cla.data.repository.ContributorLicenseAgreementRepository;
-import io.pivotal.cla.data.repository.IndividualSignatureRepository;
+import io.pivotal.cla.service.SignerService;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -17,11 +17,11 @@ import java.util.Date;
 public class AdminSignClaController {
     private final ContributorLicenseAgreementRepository clas;
 
-    private final IndividualSignatureRepository individual;
+    private final SignerService signerService;
 
-    public AdminSignClaController(ContributorLicenseAgreementRepository clas, IndividualSignatureRepository individual) {
+    public AdminSignClaController(ContributorLicenseAgreementRepository clas, SignerService signerService) {
         this.clas = clas;
-        this.individual = individual;
+        this.signerService = signerService;
     }
 
     @GetMapping("/admin/sign/icla")
@@ -44,7 +44,7 @@ public class AdminSignClaController {
         signature.setDateOfSignature(new Date());
         signature.setTelephone(signClaForm.getTelephone());
         signature.setGitHubLogin(signClaForm.getGitHubLogin());
-        individual.save(signature);
+        signerService.save(signature);
         return "redirect:/admin/sign/icla?success";
     }
 }
@@ -0,0 +1,328 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.mvc.github;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import io.pivotal.cla.config.GitHubHooksConfig;
+
+/**
+ * An append only archive of the verified GitHub hook deliveries on local disk,
+ * so that deliveries can be replayed (i.e. after a GitHub outage).
+ *
+ * Deliveries are appended to a segment ({@code segment-<created>.gz}) that is
+ * rotated once it reaches {@link GitHubHooksConfig#getArchiveSegmentSize()}.
+ * Every delivery is a separate gzip member, so a segment is a valid gzip file
+ * and a single delivery can be read by seeking to its offset. Each segment has
+ * an index ({@code segment-<created>.idx}) with a line per delivery containing
+ * the timestamp, offset and delivery id.
+ *
+ * @see GitHubHookReplayer
+ */
+@Component
+public class GitHubHookArchive implements DisposableBean {
+	private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(GitHubHookArchive.class);
+	private static final String SEGMENT_PREFIX = "segment-";
+	private static final String SEGMENT_SUFFIX = ".gz";
+	private static final String INDEX_SUFFIX = ".idx";
+	private final GitHubHooksConfig config;
+	private final Path directory;
+	private FileChannel segment;
+	private Writer index;
+
+	@Autowired
+	public GitHubHookArchive(GitHubHooksConfig config) {
+		this.config = config;
+		this.directory = config.getArchiveDirectory() == null ? null : Paths.get(config.getArchiveDirectory());
+	}
+
+	public boolean isEnabled() {
+		return directory != null;
+	}
+
+	/**
+	 * Appends a delivery to the archive. Failures are logged rather than thrown, so
+	 * that the archive never causes a delivery to fail.
+	 */
+	public void append(String deliveryId, String event, String claName, String baseUrl, byte[] payload) {
+		if (!isEnabled()) {
+			return;
+		}
+		ArchivedDelivery delivery = new ArchivedDelivery(System.currentTimeMillis(), deliveryId, event, claName, baseUrl, payload);
+		try {
+			byte[] member = compress(delivery);
+			synchronized (this) {
+				if (segment == null || segment.size() >= config.getArchiveSegmentSize().toBytes()) {
+					rotate();
+				}
+				long offset = segment.size();
+				segment.write(ByteBuffer.wrap(member), offset);
+				index.write(delivery.getTimestamp() + "\t" + offset + "\t" + (deliveryId == null ? "" : deliveryId) + "\n");
+				index.flush();
+			}
+		} catch (IOException e) {
+			log.error("Could not archive GitHub hook delivery " + deliveryId, e);
+		}
+	}
+
+	/**
+	 * Reads the archived deliveries received within a time range in the order they
+	 * were received.
+	 *
+	 * @param from the start of the range (inclusive)
+	 * @param to the end of the range (exclusive)
+	 * @param consumer invoked with every delivery in the range
+	 * @return the number of deliveries
+	 */
+	public int read(Instant from, Instant to, Consumer<ArchivedDelivery> consumer) throws IOException {
+		if (!isEnabled()) {
+			return 0;
+		}
+		long start = from.toEpochMilli();
+		long end = to.toEpochMilli();
+		List<Path> segments = segments();
+		int count = 0;
+		for (int i = 0; i < segments.size(); i++) {
+			// a segment is created after its deliveries were received (and its name may
+			// be incremented to be unique), so only the next one bounds its deliveries
+			if (i + 1 < segments.size() && created(segments.get(i + 1)) < start) {
+				continue;
+			}
+			for (IndexEntry entry : index(segments.get(i))) {
+				if (entry.timestamp >= start && entry.timestamp < end) {
+					consumer.accept(read(segments.get(i), entry.offset));
+					count++;
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * @param deliveryId the value of the X-GitHub-Delivery header
+	 * @return the archived delivery or null if it is not in the archive
+	 */
+	public ArchivedDelivery find(String deliveryId) throws IOException {
+		if (!isEnabled() || deliveryId == null) {
+			return null;
+		}
+		List<Path> segments = segments();
+		Collections.reverse(segments);
+		for (Path segment : segments) {
+			for (IndexEntry entry : index(segment)) {
+				if (deliveryId.equals(entry.deliveryId)) {
+					return read(segment, entry.offset);
+				}
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public synchronized void destroy() throws IOException {
+		close();
+	}
+
+	private void rotate() throws IOException {
+		close();
+		Files.createDirectories(directory);
+		long created = System.currentTimeMillis();
+		while (Files.exists(segmentPath(created))) {
+			created++;
+		}
+		segment = FileChannel.open(segmentPath(created), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+		index = Files.newBufferedWriter(directory.resolve(SEGMENT_PREFIX + created + INDEX_SUFFIX), StandardCharsets.UTF_8);
+		List<Path> segments = segments();
+		for (int i = 0; i < segments.size() - Math.max(1, config.getArchiveMaxSegments()); i++) {
+			Files.deleteIfExists(segments.get(i));
+			Files.deleteIfExists(indexPath(segments.get(i)));
+		}
+	}
+
+	private void close() throws IOException {
+		if (segment != null) {
+			segment.close();
+			index.close();
+			segment = null;
+			index = null;
+		}
+	}
+
+	private Path segmentPath(long created) {
+		return directory.resolve(SEGMENT_PREFIX + created + SEGMENT_SUFFIX);
+	}
+
+	private static Path indexPath(Path segment) {
+		String name = segment.getFileName().toString();
+		return segment.resolveSibling(name.substring(0, name.length() - SEGMENT_SUFFIX.length()) + INDEX_SUFFIX);
+	}
+
+	private static long created(Path segment) {
+		String name = segment.getFileName().toString();
+		return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+	}
+
+	/**
+	 * @return the segments, oldest first
+	 */
+	private List<Path> segments() throws IOException {
+		if (!Files.isDirectory(directory)) {
+			return new ArrayList<>();
+		}
+		List<Path> segments = new ArrayList<>();
+		try (Stream<Path> files = Files.list(directory)) {
+			files.filter(p -> p.getFileName().toString().startsWith(SEGMENT_PREFIX) && p.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+				.forEach(segments::add);
+		}
+		segments.sort((a, b) -> Long.compare(created(a), created(b)));
+		return segments;
+	}
+
+	private static List<IndexEntry> index(Path segment) throws IOException {
+		List<IndexEntry> entries = new ArrayList<>();
+		Path index = indexPath(segment);
+		if (!Files.exists(index)) {
+			return entries;
+		}
+		try (BufferedReader reader = Files.newBufferedReader(index, StandardCharsets.UTF_8)) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				String[] parts = line.split("\t", 3);
+				if (parts.length == 3) {
+					entries.add(new IndexEntry(Long.parseLong(parts[0]), Long.parseLong(parts[1]), parts[2].isEmpty() ? null : parts[2]));
+				}
+			}
+		}
+		return entries;
+	}
+
+	private static byte[] compress(ArchivedDelivery delivery) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(delivery.getPayload().length / 4 + 256);
+		try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(bytes))) {
+			out.writeLong(delivery.getTimestamp());
+			out.writeUTF(nullToEmpty(delivery.getDeliveryId()));
+			out.writeUTF(delivery.getEvent());
+			out.writeUTF(delivery.getClaName());
+			out.writeUTF(delivery.getBaseUrl());
+			out.writeInt(delivery.getPayload().length);
+			out.write(delivery.getPayload());
+		}
+		return bytes.toByteArray();
+	}
+
+	private static ArchivedDelivery read(Path segment, long offset) throws IOException {
+		try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+			channel.position(offset);
+			InputStream member = Channels.newInputStream(channel);
+			DataInputStream in = new DataInputStream(new GZIPInputStream(member));
+			long timestamp = in.readLong();
+			String deliveryId = in.readUTF();
+			String event = in.readUTF();
+			String claName = in.readUTF();
+			String baseUrl = in.readUTF();
+			byte[] payload = new byte[in.readInt()];
+			in.readFully(payload);
+			return new ArchivedDelivery(timestamp, deliveryId.isEmpty() ? null : deliveryId, event, claName, baseUrl, payload);
+		}
+	}
+
+	private static String nullToEmpty(String value) {
+		return value == null ? "" : value;
+	}
+
+	private static final class IndexEntry {
+		private final long timestamp;
+		private final long offset;
+		private final String deliveryId;
+
+		private IndexEntry(long timestamp, long offset, String deliveryId) {
+			this.timestamp = timestamp;
+			this.offset = offset;
+			this.deliveryId = deliveryId;
+		}
+	}
+
+	public static class ArchivedDelivery {
+		private final long timestamp;
+		private final String deliveryId;
+		private final String event;
+		private final String claName;
+		private final String baseUrl;
+		private final byte[] payload;
+
+		public ArchivedDelivery(long timestamp, String deliveryId, String event, String claName, String baseUrl, byte[] payload) {
+			this.timestamp = timestamp;
+			this.deliveryId = deliveryId;
+			this.event = event;
+			this.claName = claName;
+			this.baseUrl = baseUrl;
+			this.payload = payload;
+		}
+
+		public long getTimestamp() {
+			return this.timestamp;
+		}
+
+		public String getDeliveryId() {
+			return this.deliveryId;
+		}
+
+		public String getEvent() {
+			return this.event;
+		}
+
+		public String getClaName() {
+			return this.claName;
+		}
+
+		public String getBaseUrl() {
+			return this.baseUrl;
+		}
+
+		public byte[] getPayload() {
+			return this.payload;
+		}
+
+		@java.lang.Override
+		public java.lang.String toString() {
+			return "ArchivedDelivery(timestamp=" + this.getTimestamp() + ", deliveryId=" + this.getDeliveryId() + ", event=" + this.getEvent() + ", claName=" + this.getClaName() + ", baseUrl=" + this.getBaseUrl() + ")";
+		}
+	}
+}
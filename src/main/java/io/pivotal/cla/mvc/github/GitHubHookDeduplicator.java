@@ -0,0 +1,138 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.mvc.github;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.pivotal.cla.config.GitHubHooksConfig;
+import io.pivotal.cla.data.repository.GitHubHookReceiptRepository;
+
+/**
+ * Detects GitHub hook redeliveries using the X-GitHub-Delivery header. Recently
+ * seen ids are kept in a bounded LRU so that most redeliveries are detected
+ * without touching the database. The {@link GitHubHookReceiptRepository} makes
+ * this work across restarts and multiple instances.
+ *
+ * The number of duplicates (hits) and new deliveries (misses) is published as
+ * {@code cla.hooks.dedup} (i.e. {@code /manage/metrics/cla.hooks.dedup}).
+ */
+@Component
+public class GitHubHookDeduplicator {
+	static final String METRIC_NAME = "cla.hooks.dedup";
+	/**
+	 * The size of the github_hook_receipt.delivery_id column. GitHub uses UUIDs.
+	 */
+	private static final int MAX_DELIVERY_ID_LENGTH = 64;
+	private final GitHubHookReceiptRepository receipts;
+	private final GitHubHooksConfig config;
+	private final Map<String, Long> recent;
+	private final Counter hits;
+	private final Counter misses;
+	private final AtomicLong nextPurge = new AtomicLong();
+
+	@Autowired
+	public GitHubHookDeduplicator(GitHubHookReceiptRepository receipts, GitHubHooksConfig config, MeterRegistry meterRegistry) {
+		this.receipts = receipts;
+		this.config = config;
+		this.recent = Collections.synchronizedMap(new LruMap<>(config.getDedupCacheSize()));
+		this.hits = Counter.builder(METRIC_NAME).tag("result", "hit")
+				.description("GitHub hook redeliveries that were ignored").register(meterRegistry);
+		this.misses = Counter.builder(METRIC_NAME).tag("result", "miss")
+				.description("GitHub hook deliveries that were processed").register(meterRegistry);
+	}
+
+	/**
+	 * Records the delivery and determines if it was already received.
+	 *
+	 * @param deliveryId the value of the X-GitHub-Delivery header. If null (or
+	 * not a valid id), the delivery is never considered a duplicate.
+	 * @return true if the delivery was already received within
+	 * {@link GitHubHooksConfig#getDedupTtl()} and should be ignored
+	 */
+	public boolean isDuplicate(String deliveryId) {
+		if (deliveryId == null || deliveryId.length() > MAX_DELIVERY_ID_LENGTH) {
+			return false;
+		}
+		long now = System.currentTimeMillis();
+		long expired = now - config.getDedupTtl().toMillis();
+		Long received = recent.get(deliveryId);
+		if (received != null && received >= expired) {
+			hits.increment();
+			return true;
+		}
+		purgeExpired(now, expired);
+		boolean recorded;
+		try {
+			recorded = receipts.record(deliveryId, new Date(now), new Date(expired));
+		} catch (DataIntegrityViolationException concurrentInsert) {
+			recorded = false;
+		}
+		recent.put(deliveryId, now);
+		if (recorded) {
+			misses.increment();
+		} else {
+			hits.increment();
+		}
+		return !recorded;
+	}
+
+	/**
+	 * Forgets a delivery so that a redelivery of it is processed again. Used when
+	 * processing the delivery failed.
+	 *
+	 * @param deliveryId the value of the X-GitHub-Delivery header (may be null)
+	 */
+	public void forget(String deliveryId) {
+		if (deliveryId == null) {
+			return;
+		}
+		recent.remove(deliveryId);
+		if (receipts.existsById(deliveryId)) {
+			receipts.deleteById(deliveryId);
+		}
+	}
+
+	private void purgeExpired(long now, long expired) {
+		long purgeAt = nextPurge.get();
+		if (now < purgeAt || !nextPurge.compareAndSet(purgeAt, now + config.getDedupTtl().toMillis() / 10)) {
+			return;
+		}
+		receipts.deleteExpired(new Date(expired));
+	}
+
+	@SuppressWarnings("serial")
+	static class LruMap<K, V> extends LinkedHashMap<K, V> {
+		private final int maxSize;
+
+		LruMap(int maxSize) {
+			super(16, 0.75f, true);
+			this.maxSize = maxSize;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+			return size() > maxSize;
+		}
+	}
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.mvc.github;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import io.pivotal.cla.config.GitHubHooksConfig;
+import io.pivotal.cla.data.GitHubHookDelivery;
+import io.pivotal.cla.data.GitHubHookDelivery.State;
+import io.pivotal.cla.data.repository.GitHubHookDeliveryRepository;
+
+/**
+ * A durable queue of GitHub hook deliveries backed by the
+ * {@link GitHubHookDeliveryRepository}. This allows acknowledging a delivery
+ * before any of the (slow) calls to GitHub are made. The queue is drained by a
+ * bounded pool of workers. Failed deliveries are retried with an exponential
+ * backoff until {@link GitHubHooksConfig#getMaxAttempts()} is reached, after
+ * which they are kept as {@link State#DEAD_LETTER}. A delivery whose evaluation
+ * is coalesced is only removed once the coalesced evaluation succeeded.
+ *
+ * @see GitHubHooksConfig#isAsync()
+ */
+@Component
+public class GitHubHookDeliveryQueue implements SmartLifecycle {
+	private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(GitHubHookDeliveryQueue.class);
+	private static final int MAX_ERROR_LENGTH = 1024;
+	private final GitHubHookDeliveryRepository deliveries;
+	private final PullRequestHookHandler handler;
+	private final GitHubHooksConfig config;
+	private ScheduledExecutorService poller;
+	private ThreadPoolExecutor workers;
+	private volatile boolean running;
+
+	@Autowired
+	public GitHubHookDeliveryQueue(GitHubHookDeliveryRepository deliveries, PullRequestHookHandler handler, GitHubHooksConfig config) {
+		this.deliveries = deliveries;
+		this.handler = handler;
+		this.config = config;
+	}
+
+	/**
+	 * Durably stores the delivery so that it is processed by a worker.
+	 *
+	 * @param deliveryId the value of the X-GitHub-Delivery header (may be null)
+	 * @param githubEvent the value of the X-GitHub-Event header
+	 * @param claName the name of the CLA
+	 * @param baseUrl the URL of the application
+	 * @param payload the body of the delivery
+	 * @return the stored delivery
+	 */
+	public GitHubHookDelivery enqueue(String deliveryId, String githubEvent, String claName, String baseUrl, String payload) {
+		Date now = new Date();
+		GitHubHookDelivery delivery = new GitHubHookDelivery();
+		delivery.setDeliveryId(deliveryId);
+		delivery.setEvent(githubEvent);
+		delivery.setClaName(claName);
+		delivery.setBaseUrl(baseUrl);
+		delivery.setPayload(payload);
+		delivery.setState(State.QUEUED);
+		delivery.setCreated(now);
+		delivery.setNextAttempt(now);
+		return deliveries.save(delivery);
+	}
+
+	void poll() {
+		int available = config.getWorkerThreads() - workers.getActiveCount() - workers.getQueue().size();
+		if (available <= 0) {
+			return;
+		}
+		Date now = new Date();
+		Date leaseExpires = new Date(now.getTime() + config.getLease().toMillis());
+		List<Long> readyIds = deliveries.findReadyIds(available, now);
+		for (Long id : readyIds) {
+			if (deliveries.claim(id, now, leaseExpires)) {
+				workers.execute(() -> process(id));
+			}
+		}
+	}
+
+	void process(Long id) {
+		GitHubHookDelivery delivery = deliveries.findOne(id);
+		if (delivery == null) {
+			return;
+		}
+		try {
+			handler.submit(delivery.getEvent(), delivery.getClaName(), delivery.getBaseUrl(), delivery.getPayload()).whenComplete((response, e) -> {
+				if (e == null) {
+					deliveries.delete(delivery);
+				} else {
+					failed(delivery, e instanceof CompletionException ? e.getCause() : e);
+				}
+			});
+		} catch (Exception e) {
+			failed(delivery, e);
+		}
+	}
+
+	private void failed(GitHubHookDelivery delivery, Throwable e) {
+		String error = String.valueOf(e);
+		delivery.setLastError(error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error);
+		if (delivery.getAttempts() >= config.getMaxAttempts()) {
+			log.warn("Giving up on {} after {} attempts", delivery, delivery.getAttempts(), e);
+			delivery.setState(State.DEAD_LETTER);
+		} else {
+			log.debug("Retrying {}", delivery, e);
+			long backoff = config.getRetryBackoff().toMillis() << Math.min(delivery.getAttempts() - 1, 16);
+			delivery.setState(State.QUEUED);
+			delivery.setNextAttempt(new Date(System.currentTimeMillis() + backoff));
+		}
+		deliveries.save(delivery);
+	}
+
+	private void pollSafely() {
+		try {
+			poll();
+		} catch (Exception e) {
+			log.error("Could not poll the GitHub hook delivery queue", e);
+		}
+	}
+
+	@Override
+	public void start() {
+		if (!config.isAsync()) {
+			return;
+		}
+		int threads = config.getWorkerThreads();
+		workers = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(threads), new CustomizableThreadFactory("github-hooks-"));
+		poller = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("github-hooks-poller-"));
+		long interval = config.getPollInterval().toMillis();
+		poller.scheduleWithFixedDelay(this::pollSafely, interval, interval, TimeUnit.MILLISECONDS);
+		running = true;
+	}
+
+	@Override
+	public void stop() {
+		if (poller != null) {
+			poller.shutdownNow();
+			workers.shutdown();
+		}
+		running = false;
+	}
+
+	@Override
+	public boolean isRunning() {
+		return running;
+	}
+}
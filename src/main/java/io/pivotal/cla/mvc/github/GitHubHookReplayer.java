@@ -0,0 +1,184 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.mvc.github;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import io.pivotal.cla.config.GitHubHooksConfig;
+import io.pivotal.cla.mvc.github.GitHubHookArchive.ArchivedDelivery;
+
+/**
+ * Replays the deliveries in the {@link GitHubHookArchive} that were received
+ * within a time range. Deliveries are replayed in the order they were received
+ * at a limited rate, so that a replay does not exhaust the GitHub rate limit.
+ * Replayed deliveries bypass the {@link GitHubHookDeduplicator}.
+ */
+@Component
+public class GitHubHookReplayer implements DisposableBean {
+	private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(GitHubHookReplayer.class);
+	private final GitHubHookArchive archive;
+	private final GitHubHookDeliveryQueue queue;
+	private final PullRequestHookHandler handler;
+	private final GitHubHooksConfig config;
+	private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+		Thread thread = new Thread(r, "github-hook-replay");
+		thread.setDaemon(true);
+		return thread;
+	});
+	private volatile Status status;
+
+	@Autowired
+	public GitHubHookReplayer(GitHubHookArchive archive, GitHubHookDeliveryQueue queue, PullRequestHookHandler handler, GitHubHooksConfig config) {
+		this.archive = archive;
+		this.queue = queue;
+		this.handler = handler;
+		this.config = config;
+	}
+
+	/**
+	 * Starts replaying the deliveries received within a time range.
+	 *
+	 * @param from the start of the range (inclusive)
+	 * @param to the end of the range (exclusive)
+	 * @param rate the maximum number of deliveries per second or null for
+	 * {@link GitHubHooksConfig#getReplayRate()}
+	 * @return the status of the replay that was started
+	 * @throws IllegalStateException if the archive is disabled or a replay is
+	 * already running
+	 */
+	public synchronized Status replay(Instant from, Instant to, Double rate) {
+		if (!archive.isEnabled()) {
+			throw new IllegalStateException("The GitHub hook archive is disabled (see cla.hooks.archive-directory)");
+		}
+		if (status != null && status.isRunning()) {
+			throw new IllegalStateException("A replay is already running " + status);
+		}
+		double perSecond = rate == null ? config.getReplayRate() : rate;
+		if (perSecond <= 0) {
+			throw new IllegalArgumentException("rate must be greater than 0");
+		}
+		Status replay = new Status(from, to, perSecond);
+		status = replay;
+		executor.execute(() -> run(replay));
+		return replay;
+	}
+
+	/**
+	 * @return the status of the last replay or null if there was none
+	 */
+	public Status getStatus() {
+		return status;
+	}
+
+	private void run(Status replay) {
+		long interval = (long) (TimeUnit.SECONDS.toNanos(1) / replay.getRate());
+		long[] next = { System.nanoTime() };
+		try {
+			archive.read(replay.getFrom(), replay.getTo(), delivery -> {
+				long wait = next[0] - System.nanoTime();
+				if (wait > 0) {
+					LockSupport.parkNanos(wait);
+				}
+				next[0] = Math.max(next[0], System.nanoTime()) + interval;
+				replay(delivery, replay);
+			});
+		} catch (IOException | RuntimeException e) {
+			log.error("Replay of GitHub hook deliveries failed " + replay, e);
+			replay.error = e.getMessage();
+		} finally {
+			replay.running = false;
+			log.info("Finished replay of GitHub hook deliveries " + replay);
+		}
+	}
+
+	private void replay(ArchivedDelivery delivery, Status replay) {
+		String payload = new String(delivery.getPayload(), StandardCharsets.UTF_8);
+		try {
+			if (config.isAsync()) {
+				queue.enqueue(delivery.getDeliveryId(), delivery.getEvent(), delivery.getClaName(), delivery.getBaseUrl(), payload);
+			} else {
+				handler.handle(delivery.getEvent(), delivery.getClaName(), delivery.getBaseUrl(), payload);
+			}
+			replay.replayed.incrementAndGet();
+		} catch (Exception e) {
+			log.warn("Could not replay GitHub hook delivery " + delivery, e);
+			replay.failed.incrementAndGet();
+		}
+	}
+
+	@Override
+	public void destroy() {
+		executor.shutdownNow();
+	}
+
+	public static class Status {
+		private final Instant from;
+		private final Instant to;
+		private final double rate;
+		private final AtomicInteger replayed = new AtomicInteger();
+		private final AtomicInteger failed = new AtomicInteger();
+		private volatile boolean running = true;
+		private volatile String error;
+
+		public Status(Instant from, Instant to, double rate) {
+			this.from = from;
+			this.to = to;
+			this.rate = rate;
+		}
+
+		public Instant getFrom() {
+			return this.from;
+		}
+
+		public Instant getTo() {
+			return this.to;
+		}
+
+		public double getRate() {
+			return this.rate;
+		}
+
+		public int getReplayed() {
+			return this.replayed.get();
+		}
+
+		public int getFailed() {
+			return this.failed.get();
+		}
+
+		public boolean isRunning() {
+			return this.running;
+		}
+
+		public String getError() {
+			return this.error;
+		}
+
+		@java.lang.Override
+		public java.lang.String toString() {
+			return "Status(from=" + this.getFrom() + ", to=" + this.getTo() + ", rate=" + this.getRate() + ", replayed=" + this.getReplayed() + ", failed=" + this.getFailed() + ", running=" + this.isRunning() + ", error=" + this.getError() + ")";
+		}
+	}
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.mvc.github;
+
+import java.io.IOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.pivotal.cla.config.GitHubHooksConfig;
+
+/**
+ * A bulkhead for the GitHub hook endpoint. At most
+ * {@link GitHubHooksConfig#getMaxConcurrent()} hook requests are processed at a
+ * time and at most {@link GitHubHooksConfig#getMaxQueued()} wait for a slot.
+ * Everything else is answered with a 503 and a Retry-After header, which makes
+ * GitHub redeliver later. This keeps a burst of hooks from using up the server
+ * threads the interactive pages need.
+ *
+ * Publishes {@code cla.hooks.bulkhead.inflight}, {@code cla.hooks.bulkhead.queued}
+ * and {@code cla.hooks.bulkhead.rejected} (tagged with the reason).
+ *
+ * @see io.pivotal.cla.config.WebMvcConfig
+ */
+public class GitHubHooksBulkheadFilter extends OncePerRequestFilter {
+	private final Semaphore permits;
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final AtomicInteger queued = new AtomicInteger();
+	private final int maxQueued;
+	private final long queueTimeoutMs;
+	private final String retryAfterSeconds;
+	private final Counter queueFull;
+	private final Counter timedOut;
+
+	public GitHubHooksBulkheadFilter(GitHubHooksConfig config, MeterRegistry meterRegistry) {
+		this.permits = new Semaphore(config.getMaxConcurrent(), true);
+		this.maxQueued = config.getMaxQueued();
+		this.queueTimeoutMs = config.getQueueTimeout().toMillis();
+		this.retryAfterSeconds = String.valueOf(Math.max(1, config.getRetryAfter().getSeconds()));
+		Gauge.builder("cla.hooks.bulkhead.inflight", inFlight, AtomicInteger::get)
+				.description("Hook requests being processed").register(meterRegistry);
+		Gauge.builder("cla.hooks.bulkhead.queued", queued, AtomicInteger::get)
+				.description("Hook requests waiting to be processed").register(meterRegistry);
+		this.queueFull = Counter.builder("cla.hooks.bulkhead.rejected").tag("reason", "queue_full")
+				.description("Hook requests rejected with a 503").register(meterRegistry);
+		this.timedOut = Counter.builder("cla.hooks.bulkhead.rejected").tag("reason", "timeout")
+				.description("Hook requests rejected with a 503").register(meterRegistry);
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		if (!permits.tryAcquire() && !awaitPermit(response)) {
+			return;
+		}
+		inFlight.incrementAndGet();
+		try {
+			filterChain.doFilter(request, response);
+		} finally {
+			inFlight.decrementAndGet();
+			permits.release();
+		}
+	}
+
+	/**
+	 * @return true if a permit was acquired, else the response was rejected
+	 */
+	private boolean awaitPermit(HttpServletResponse response) throws IOException {
+		if (queued.incrementAndGet() > maxQueued) {
+			queued.decrementAndGet();
+			queueFull.increment();
+			reject(response);
+			return false;
+		}
+		boolean acquired;
+		try {
+			acquired = permits.tryAcquire(queueTimeoutMs, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			acquired = false;
+		} finally {
+			queued.decrementAndGet();
+		}
+		if (!acquired) {
+			timedOut.increment();
+			reject(response);
+		}
+		return acquired;
+	}
+
+	private void reject(HttpServletResponse response) throws IOException {
+		response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+		response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Too many GitHub hook deliveries");
+	}
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.mvc.github;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.pivotal.cla.config.GitHubHooksConfig;
+import io.pivotal.cla.service.ClaPullRequestStatusRequest;
+import io.pivotal.cla.service.github.PullRequestStatus;
+
+/**
+ * Collapses the events received for the same Pull Request within
+ * {@link GitHubHooksConfig#getCoalesceWindow()} into a single evaluation. A
+ * busy Pull Request (i.e. a push followed by a few comments) is then only
+ * evaluated once, rather than listing the comments and updating the commit
+ * status for every event.
+ *
+ * The window starts with the first event, so an event is never delayed by more
+ * than the window. The evaluation uses the latest event, falling back to the
+ * head SHA of an earlier event if the latest event does not contain one. The
+ * number of events that were collapsed is published as
+ * {@code cla.hooks.coalesced}.
+ *
+ * Every event is given the future of the evaluation it was collapsed into, so
+ * that a failed evaluation can be retried for each of them (i.e. by the
+ * {@link GitHubHookDeliveryQueue}). The evaluations that are still waiting for
+ * their window when the application stops are run immediately, rather than
+ * dropping their events.
+ */
+@Component
+public class PullRequestCoalescer implements SmartLifecycle {
+	private final GitHubHooksConfig config;
+	private final Map<String, Pending> pending = new ConcurrentHashMap<>();
+	private final Counter coalesced;
+	private ScheduledThreadPoolExecutor scheduler;
+	private volatile boolean running;
+
+	@Autowired
+	public PullRequestCoalescer(GitHubHooksConfig config, MeterRegistry meterRegistry) {
+		this.config = config;
+		this.coalesced = Counter.builder("cla.hooks.coalesced")
+				.description("GitHub hook events that were merged into the evaluation of another event").register(meterRegistry);
+	}
+
+	public boolean isEnabled() {
+		return !config.getCoalesceWindow().isZero() && !config.getCoalesceWindow().isNegative();
+	}
+
+	/**
+	 * Schedules the evaluation of the Pull Request unless an evaluation of it is
+	 * already pending, in which case the pending evaluation is updated.
+	 *
+	 * @param request the request for the event that was received. The
+	 * {@link PullRequestStatus#getSha()} may be null if it is not contained in the
+	 * event.
+	 * @param evaluator invoked with the merged request once the window has passed
+	 * @return the future of the evaluation, which completes exceptionally with
+	 * the exception thrown by the evaluator
+	 */
+	public CompletableFuture<Void> submit(ClaPullRequestStatusRequest request, Consumer<ClaPullRequestStatusRequest> evaluator) {
+		String key = key(request.getCommitStatus());
+		Pending created = new Pending(request, evaluator);
+		Pending current = pending.compute(key, (k, previous) -> previous == null ? created : previous.merge(request));
+		if (current != created) {
+			coalesced.increment();
+			return current.evaluation;
+		}
+		try {
+			scheduler.schedule(() -> evaluate(key), config.getCoalesceWindow().toMillis(), TimeUnit.MILLISECONDS);
+		} catch (RejectedExecutionException e) {
+			// stopped, so the caller must fail (and the event be redelivered)
+			pending.remove(key, created);
+			throw e;
+		}
+		return created.evaluation;
+	}
+
+	private void evaluate(String key) {
+		Pending evaluated = pending.remove(key);
+		if (evaluated == null) {
+			return;
+		}
+		try {
+			evaluated.evaluator.accept(evaluated.request);
+			evaluated.evaluation.complete(null);
+		} catch (Exception e) {
+			evaluated.evaluation.completeExceptionally(e);
+		}
+	}
+
+	private static ClaPullRequestStatusRequest merge(ClaPullRequestStatusRequest previous, ClaPullRequestStatusRequest latest) {
+		PullRequestStatus previousStatus = previous.getCommitStatus();
+		PullRequestStatus latestStatus = latest.getCommitStatus();
+		if (latestStatus.getSha() == null) {
+			latestStatus.setSha(previousStatus.getSha());
+		}
+		if (latestStatus.getPullRequestBody() == null) {
+			latestStatus.setPullRequestBody(previousStatus.getPullRequestBody());
+		}
+		if (previousStatus.isReevaluate()) {
+			latestStatus.setReevaluate(true);
+		}
+		return latest;
+	}
+
+	/**
+	 * The merged request of a Pull Request and the future of its evaluation. Only
+	 * modified within {@link Map#compute} so that an event is never merged into
+	 * an evaluation that already started.
+	 */
+	private static class Pending {
+		private final CompletableFuture<Void> evaluation = new CompletableFuture<>();
+		private final Consumer<ClaPullRequestStatusRequest> evaluator;
+		private ClaPullRequestStatusRequest request;
+
+		Pending(ClaPullRequestStatusRequest request, Consumer<ClaPullRequestStatusRequest> evaluator) {
+			this.request = request;
+			this.evaluator = evaluator;
+		}
+
+		Pending merge(ClaPullRequestStatusRequest latest) {
+			this.request = PullRequestCoalescer.merge(this.request, latest);
+			return this;
+		}
+	}
+
+	private static String key(PullRequestStatus status) {
+		return status.getRepoId() + "#" + status.getPullRequestId();
+	}
+
+	@Override
+	public void start() {
+		if (!isEnabled()) {
+			return;
+		}
+		scheduler = new ScheduledThreadPoolExecutor(config.getWorkerThreads(), new CustomizableThreadFactory("github-hooks-coalesce-"));
+		scheduler.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+		running = true;
+	}
+
+	/**
+	 * Runs the evaluations that are waiting for their window and waits for the
+	 * evaluations that already started.
+	 */
+	@Override
+	public void stop() {
+		if (scheduler != null) {
+			scheduler.shutdown();
+			for (String key : pending.keySet()) {
+				evaluate(key);
+			}
+			try {
+				scheduler.awaitTermination(config.getLaneTimeout().toMillis(), TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		running = false;
+	}
+
+	@Override
+	public boolean isRunning() {
+		return running;
+	}
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.mvc.github;
+
+import java.util.EnumMap;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.pivotal.cla.service.github.MylynGitHubApi;
+
+/**
+ * Drops GitHub hook events that cannot change the status of a Pull Request
+ * before any database or GitHub access happens. Skipped events are counted in
+ * {@code cla.hooks.skipped}, tagged with the {@link Reason}.
+ */
+@Component
+public class PullRequestHookFilter {
+	private static final String CLOSED = "closed";
+	private static final String EDITED = "edited";
+	private static final String DELETED = "deleted";
+	private final Map<Reason, Counter> skipped = new EnumMap<>(Reason.class);
+
+	public enum Reason {
+		/**
+		 * The action never affects the status (i.e. labeled, assigned)
+		 */
+		IGNORED_ACTION,
+		/**
+		 * The Pull Request is closed (or merged)
+		 */
+		CLOSED,
+		/**
+		 * An edit or deletion of a Pull Request body or comment that neither
+		 * contained nor contains the obvious fix sentence
+		 */
+		IRRELEVANT_EDIT
+	}
+
+	@Autowired
+	public PullRequestHookFilter(MeterRegistry meterRegistry) {
+		for (Reason reason : Reason.values()) {
+			skipped.put(reason, Counter.builder("cla.hooks.skipped").tag("reason", reason.name().toLowerCase())
+					.description("GitHub hook events that were skipped before being processed").register(meterRegistry));
+		}
+	}
+
+	/**
+	 * @param payload the payload of the delivery
+	 * @return the reason the event is skipped or null if it must be processed
+	 */
+	public Reason skip(PullRequestHookPayload payload) {
+		Reason reason = getReason(payload);
+		if (reason != null) {
+			skipped.get(reason).increment();
+		}
+		return reason;
+	}
+
+	private static Reason getReason(PullRequestHookPayload payload) {
+		if (payload.isIgnored()) {
+			return Reason.IGNORED_ACTION;
+		}
+		if (CLOSED.equals(payload.getState())) {
+			return Reason.CLOSED;
+		}
+		String action = payload.getAction();
+		if (EDITED.equals(action) || DELETED.equals(action)) {
+			String text = payload.getCommentBody() == null ? payload.getBody() : payload.getCommentBody();
+			if (!containsObviousFix(text) && !containsObviousFix(payload.getPreviousBody())) {
+				return Reason.IRRELEVANT_EDIT;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * A case insensitive check for {@link MylynGitHubApi#OBVIOUS_FIX_SENTENCE}
+	 * that does not copy the (potentially large) text.
+	 */
+	static boolean containsObviousFix(String text) {
+		if (text == null) {
+			return false;
+		}
+		String sentence = MylynGitHubApi.OBVIOUS_FIX_SENTENCE;
+		int last = text.length() - sentence.length();
+		for (int i = 0; i <= last; i++) {
+			if (text.regionMatches(true, i, sentence, 0, sentence.length())) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
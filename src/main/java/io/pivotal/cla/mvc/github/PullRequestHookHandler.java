@@ -0,0 +1,185 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.mvc.github;
+
+import static io.pivotal.cla.egit.github.core.event.GithubEvents.*;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import org.eclipse.egit.github.core.RepositoryId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import io.pivotal.cla.egit.github.core.PullRequestId;
+import io.pivotal.cla.mvc.util.UrlBuilder;
+import io.pivotal.cla.service.ClaPullRequestStatusRequest;
+import io.pivotal.cla.service.ClaService;
+import io.pivotal.cla.service.github.GitHubApi;
+import io.pivotal.cla.service.github.PullRequestStatus;
+
+/**
+ * Updates the commit status of a Pull Request for a GitHub hook delivery. This
+ * does not depend on the current request so that it can be used for deliveries
+ * that are processed asynchronously.
+ *
+ * @see GitHubHooksController
+ * @see GitHubHookDeliveryQueue
+ */
+@Component
+public class PullRequestHookHandler {
+	private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(PullRequestHookHandler.class);
+	private static final ResponseEntity<String> SCHEDULED = ResponseEntity.accepted().body("SCHEDULED");
+	static final Set<String> ACCEPTED_EVENTS = new HashSet<>(Arrays.asList(ISSUE_COMMENT, PULL_REQUEST_REVIEW_COMMENT, PULL_REQUEST));
+
+	@Autowired
+	private ClaService claService;
+	@Autowired
+	private GitHubApi gitHubApi;
+	@Autowired
+	private PullRequestCoalescer coalescer;
+	@Autowired
+	private PullRequestLanes lanes;
+	@Autowired
+	private PullRequestHookFilter filter;
+
+	public static boolean isAccepted(String githubEvent) {
+		return ACCEPTED_EVENTS.contains(githubEvent);
+	}
+
+	/**
+	 * @param githubEvent the value of the X-GitHub-Event header
+	 * @param cla the name of the CLA the repository is linked to
+	 * @param baseUrl the URL of the application used to create links (i.e.
+	 * https://cla.pivotal.io/)
+	 * @param body the payload of the delivery
+	 * @return the response for GitHub
+	 * @throws IOException if the payload is not valid JSON
+	 */
+	public ResponseEntity<String> handle(String githubEvent, String cla, String baseUrl, String body) throws IOException {
+		return handle(githubEvent, cla, baseUrl, body, () -> {});
+	}
+
+	/**
+	 * @param githubEvent the value of the X-GitHub-Event header
+	 * @param cla the name of the CLA the repository is linked to
+	 * @param baseUrl the URL of the application used to create links
+	 * @param body the payload of the delivery
+	 * @param failed invoked if a coalesced evaluation fails after GitHub was
+	 * answered (i.e. to accept a redelivery of the event)
+	 * @return the response for GitHub
+	 * @throws IOException if the payload is not valid JSON
+	 */
+	public ResponseEntity<String> handle(String githubEvent, String cla, String baseUrl, String body, Runnable failed) throws IOException {
+		CompletableFuture<ResponseEntity<String>> response = submit(githubEvent, cla, baseUrl, body);
+		if (response.isDone() && !response.isCompletedExceptionally()) {
+			return response.join();
+		}
+		response.whenComplete((r, e) -> {
+			if (e != null) {
+				log.error("Could not update the status of a Pull Request for " + githubEvent, e);
+				failed.run();
+			}
+		});
+		return SCHEDULED;
+	}
+
+	/**
+	 * Like {@link #handle(String, String, String, String)}, but the returned
+	 * future only completes once the status was updated. This allows retrying a
+	 * delivery whose evaluation was coalesced and failed later on.
+	 *
+	 * @param githubEvent the value of the X-GitHub-Event header
+	 * @param cla the name of the CLA the repository is linked to
+	 * @param baseUrl the URL of the application used to create links
+	 * @param body the payload of the delivery
+	 * @return the response for GitHub, completed exceptionally if a coalesced
+	 * evaluation failed
+	 * @throws IOException if the payload is not valid JSON
+	 */
+	public CompletableFuture<ResponseEntity<String>> submit(String githubEvent, String cla, String baseUrl, String body) throws IOException {
+		if (!isAccepted(githubEvent)) {
+			return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(String.format("X-Github-Event: %s not acceptable", githubEvent)));
+		}
+		PullRequestHookPayload payload = PullRequestHookPayloadReader.read(githubEvent, body);
+		if (!payload.isIgnored() && !payload.isPullRequest()) {
+			return CompletableFuture.completedFuture(ResponseEntity.badRequest().body("Not related to a Pull request"));
+		}
+		PullRequestHookFilter.Reason skipReason = filter.skip(payload);
+		if (skipReason != null) {
+			return CompletableFuture.completedFuture(ResponseEntity.ok(String.format("Skipping %s (%s)", payload.getAction(), skipReason)));
+		}
+		if (payload.getSenderLogin() == null) {
+			throw new IllegalStateException("Cannot determine Sender from payload");
+		}
+		if (payload.getSenderLogin().equals(gitHubApi.getGitHubClaUserLogin())) {
+			return CompletableFuture.completedFuture(ResponseEntity.ok("Skipping self-events"));
+		}
+		if (payload.getAuthorLogin() == null) {
+			throw new IllegalStateException("Cannot determine User from payload");
+		}
+		PullRequestStatus status = new PullRequestStatus();
+		status.setGitHubUsername(payload.getAuthorLogin());
+		status.setPullRequestId(payload.getNumber());
+		status.setPullRequestBody(payload.getBody());
+		status.setRepoId(payload.getRepositoryId());
+		status.setSha(payload.getHeadSha());
+		String signUrl = UrlBuilder.signUrl().baseUrl(baseUrl).claName(cla).repositoryId(status.getRepoId()).pullRequestId(status.getPullRequestId()).build();
+		status.setUrl(signUrl);
+		status.setPullRequestState(payload.getState());
+		status.setReevaluate(mentionsObviousFix(payload));
+		String syncUrl = UrlBuilder.createSyncUrl(baseUrl, cla, status.getRepoId(), status.getPullRequestId());
+		status.setSyncUrl(syncUrl);
+		String faqUrl = UrlBuilder.createAboutUrl(baseUrl);
+		status.setFaqUrl(faqUrl);
+		ClaPullRequestStatusRequest pullRequestStatusRequest = new ClaPullRequestStatusRequest();
+		pullRequestStatusRequest.setClaName(cla);
+		pullRequestStatusRequest.setCommitStatus(status);
+		if (coalescer.isEnabled()) {
+			return coalescer.submit(pullRequestStatusRequest, this::savePullRequestStatus).thenApply(evaluated -> SCHEDULED);
+		}
+		savePullRequestStatus(pullRequestStatusRequest);
+		return CompletableFuture.completedFuture(ResponseEntity.ok("SUCCESS"));
+	}
+
+	/**
+	 * An event that mentions the obvious fix sentence may change whether the Pull
+	 * Request is an obvious fix, so the last decision cannot be reused.
+	 */
+	private static boolean mentionsObviousFix(PullRequestHookPayload payload) {
+		return PullRequestHookFilter.containsObviousFix(payload.getBody()) || PullRequestHookFilter.containsObviousFix(payload.getCommentBody())
+				|| PullRequestHookFilter.containsObviousFix(payload.getPreviousBody());
+	}
+
+	/**
+	 * Saves the status in the lane of the Pull Request, so that concurrent events
+	 * for the same Pull Request do not race (i.e. both creating a comment).
+	 */
+	private void savePullRequestStatus(ClaPullRequestStatusRequest pullRequestStatusRequest) {
+		PullRequestStatus status = pullRequestStatusRequest.getCommitStatus();
+		lanes.run(status.getRepoId(), status.getPullRequestId(), () -> updatePullRequestStatus(pullRequestStatusRequest));
+	}
+
+	private void updatePullRequestStatus(ClaPullRequestStatusRequest pullRequestStatusRequest) {
+		PullRequestStatus status = pullRequestStatusRequest.getCommitStatus();
+		if (status.getSha() == null) {
+			RepositoryId repoId = RepositoryId.createFromId(status.getRepoId());
+			status.setSha(gitHubApi.getShaForPullRequest(PullRequestId.of(repoId, status.getPullRequestId())));
+		}
+		claService.savePullRequestStatus(pullRequestStatusRequest);
+	}
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.mvc.github;
+
+/**
+ * The values of a GitHub hook delivery that are needed to update the commit
+ * status of a Pull Request.
+ *
+ * @see PullRequestHookPayloadReader
+ */
+public class PullRequestHookPayload {
+	private String action;
+	/**
+	 * True if the action is never acted on. In that case reading the payload
+	 * stopped after the action, so the remaining values may not be populated.
+	 */
+	private boolean ignored;
+	/**
+	 * True if the payload is related to a Pull Request. For example, an
+	 * issue_comment for an issue that is not a Pull Request is not.
+	 */
+	private boolean pullRequest;
+	private String repositoryOwner;
+	private String repositoryName;
+	private int number;
+	/**
+	 * The head SHA of the Pull Request or null if the event does not contain it
+	 * (i.e. issue_comment).
+	 */
+	private String headSha;
+	private String authorLogin;
+	private String senderLogin;
+	private String state;
+	private String body;
+	/**
+	 * The body of the comment for issue_comment and pull_request_review_comment
+	 * events.
+	 */
+	private String commentBody;
+	/**
+	 * The body before it was edited (changes.body.from) for edited actions.
+	 */
+	private String previousBody;
+
+	public PullRequestHookPayload() {
+	}
+
+	/**
+	 * @return the relative id of the repository (i.e. spring-projects/spring-security)
+	 */
+	public String getRepositoryId() {
+		return this.repositoryOwner + "/" + this.repositoryName;
+	}
+
+	public String getAction() {
+		return this.action;
+	}
+
+	public boolean isIgnored() {
+		return this.ignored;
+	}
+
+	public boolean isPullRequest() {
+		return this.pullRequest;
+	}
+
+	public String getRepositoryOwner() {
+		return this.repositoryOwner;
+	}
+
+	public String getRepositoryName() {
+		return this.repositoryName;
+	}
+
+	public int getNumber() {
+		return this.number;
+	}
+
+	public String getHeadSha() {
+		return this.headSha;
+	}
+
+	public String getAuthorLogin() {
+		return this.authorLogin;
+	}
+
+	public String getSenderLogin() {
+		return this.senderLogin;
+	}
+
+	public String getState() {
+		return this.state;
+	}
+
+	public String getBody() {
+		return this.body;
+	}
+
+	public String getCommentBody() {
+		return this.commentBody;
+	}
+
+	public String getPreviousBody() {
+		return this.previousBody;
+	}
+
+	public void setAction(final String action) {
+		this.action = action;
+	}
+
+	public void setIgnored(final boolean ignored) {
+		this.ignored = ignored;
+	}
+
+	public void setPullRequest(final boolean pullRequest) {
+		this.pullRequest = pullRequest;
+	}
+
+	public void setRepositoryOwner(final String repositoryOwner) {
+		this.repositoryOwner = repositoryOwner;
+	}
+
+	public void setRepositoryName(final String repositoryName) {
+		this.repositoryName = repositoryName;
+	}
+
+	public void setNumber(final int number) {
+		this.number = number;
+	}
+
+	public void setHeadSha(final String headSha) {
+		this.headSha = headSha;
+	}
+
+	public void setAuthorLogin(final String authorLogin) {
+		this.authorLogin = authorLogin;
+	}
+
+	public void setSenderLogin(final String senderLogin) {
+		this.senderLogin = senderLogin;
+	}
+
+	public void setState(final String state) {
+		this.state = state;
+	}
+
+	public void setBody(final String body) {
+		this.body = body;
+	}
+
+	public void setCommentBody(final String commentBody) {
+		this.commentBody = commentBody;
+	}
+
+	public void setPreviousBody(final String previousBody) {
+		this.previousBody = previousBody;
+	}
+
+	@java.lang.Override
+	public java.lang.String toString() {
+		return "PullRequestHookPayload(action=" + this.getAction() + ", ignored=" + this.isIgnored() + ", pullRequest=" + this.isPullRequest() + ", repositoryOwner=" + this.getRepositoryOwner() + ", repositoryName=" + this.getRepositoryName() + ", number=" + this.getNumber() + ", headSha=" + this.getHeadSha() + ", authorLogin=" + this.getAuthorLogin() + ", senderLogin=" + this.getSenderLogin() + ", state=" + this.getState() + ")";
+	}
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.mvc.github;
+
+import static io.pivotal.cla.egit.github.core.event.GithubEvents.*;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * Reads a {@link PullRequestHookPayload} from the JSON of a GitHub hook delivery
+ * without binding the whole document. Only the handful of values that are used
+ * are materialized, everything else (labels, links, the repository details,
+ * etc) is skipped by the tokenizer.
+ *
+ * Reading stops as soon as an action that is never acted on is found (GitHub
+ * sends the action first).
+ */
+public final class PullRequestHookPayloadReader {
+	/**
+	 * The actions, by event, that cannot change the author, head SHA or CLA
+	 * status of a Pull Request.
+	 */
+	static final Map<String, Set<String>> IGNORED_ACTIONS = new HashMap<>();
+
+	static {
+		IGNORED_ACTIONS.put(PULL_REQUEST, new HashSet<>(Arrays.asList("assigned", "unassigned", "labeled", "unlabeled", "review_requested", "review_request_removed", "locked", "unlocked", "milestoned", "demilestoned")));
+	}
+
+	private PullRequestHookPayloadReader() {
+	}
+
+	public static PullRequestHookPayload read(String githubEvent, String json) throws IOException {
+		return read(githubEvent, new StringReader(json));
+	}
+
+	/**
+	 * @param githubEvent the value of the X-GitHub-Event header
+	 * @param json the payload of the delivery
+	 * @return the payload. Never null.
+	 * @throws IOException if the payload is not valid JSON
+	 */
+	public static PullRequestHookPayload read(String githubEvent, Reader json) throws IOException {
+		Set<String> ignoredActions = IGNORED_ACTIONS.getOrDefault(githubEvent, Collections.emptySet());
+		boolean issueComment = ISSUE_COMMENT.equals(githubEvent);
+		PullRequestHookPayload payload = new PullRequestHookPayload();
+		try (JsonReader reader = new JsonReader(json)) {
+			reader.beginObject();
+			while (reader.hasNext()) {
+				String name = reader.nextName();
+				if ("action".equals(name)) {
+					payload.setAction(nextString(reader));
+					if (ignoredActions.contains(payload.getAction())) {
+						payload.setIgnored(true);
+						return payload;
+					}
+				} else if ("repository".equals(name) && reader.peek() == JsonToken.BEGIN_OBJECT) {
+					readRepository(reader, payload);
+				} else if ("sender".equals(name)) {
+					payload.setSenderLogin(readLogin(reader));
+				} else if ("pull_request".equals(name) && !issueComment && reader.peek() == JsonToken.BEGIN_OBJECT) {
+					readPullRequest(reader, payload);
+				} else if ("issue".equals(name) && issueComment && reader.peek() == JsonToken.BEGIN_OBJECT) {
+					readIssue(reader, payload);
+				} else if ("comment".equals(name)) {
+					payload.setCommentBody(readField(reader, "body"));
+				} else if ("changes".equals(name) && reader.peek() == JsonToken.BEGIN_OBJECT) {
+					readChanges(reader, payload);
+				} else {
+					reader.skipValue();
+				}
+			}
+			reader.endObject();
+		}
+		return payload;
+	}
+
+	private static void readRepository(JsonReader reader, PullRequestHookPayload payload) throws IOException {
+		reader.beginObject();
+		while (reader.hasNext()) {
+			String name = reader.nextName();
+			if ("name".equals(name)) {
+				payload.setRepositoryName(nextString(reader));
+			} else if ("owner".equals(name)) {
+				payload.setRepositoryOwner(readLogin(reader));
+			} else {
+				reader.skipValue();
+			}
+		}
+		reader.endObject();
+	}
+
+	private static void readChanges(JsonReader reader, PullRequestHookPayload payload) throws IOException {
+		reader.beginObject();
+		while (reader.hasNext()) {
+			if ("body".equals(reader.nextName())) {
+				payload.setPreviousBody(readField(reader, "from"));
+			} else {
+				reader.skipValue();
+			}
+		}
+		reader.endObject();
+	}
+
+	private static void readPullRequest(JsonReader reader, PullRequestHookPayload payload) throws IOException {
+		payload.setPullRequest(true);
+		reader.beginObject();
+		while (reader.hasNext()) {
+			String name = reader.nextName();
+			if ("head".equals(name)) {
+				payload.setHeadSha(readField(reader, "sha"));
+			} else if (!readIssueField(name, reader, payload)) {
+				reader.skipValue();
+			}
+		}
+		reader.endObject();
+	}
+
+	private static void readIssue(JsonReader reader, PullRequestHookPayload payload) throws IOException {
+		reader.beginObject();
+		while (reader.hasNext()) {
+			String name = reader.nextName();
+			if ("pull_request".equals(name)) {
+				payload.setPullRequest(reader.peek() != JsonToken.NULL);
+				reader.skipValue();
+			} else if (!readIssueField(name, reader, payload)) {
+				reader.skipValue();
+			}
+		}
+		reader.endObject();
+	}
+
+	/**
+	 * Reads the values that issues and Pull Requests have in common.
+	 *
+	 * @return true if the value was read
+	 */
+	private static boolean readIssueField(String name, JsonReader reader, PullRequestHookPayload payload) throws IOException {
+		switch (name) {
+		case "number":
+			payload.setNumber(reader.nextInt());
+			return true;
+		case "state":
+			payload.setState(nextString(reader));
+			return true;
+		case "body":
+			payload.setBody(nextString(reader));
+			return true;
+		case "user":
+			payload.setAuthorLogin(readLogin(reader));
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	private static String readLogin(JsonReader reader) throws IOException {
+		return readField(reader, "login");
+	}
+
+	/**
+	 * Reads a single string value of an object, skipping the rest of the object.
+	 */
+	private static String readField(JsonReader reader, String field) throws IOException {
+		if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+			reader.skipValue();
+			return null;
+		}
+		String result = null;
+		reader.beginObject();
+		while (reader.hasNext()) {
+			if (field.equals(reader.nextName())) {
+				result = nextString(reader);
+			} else {
+				reader.skipValue();
+			}
+		}
+		reader.endObject();
+		return result;
+	}
+
+	private static String nextString(JsonReader reader) throws IOException {
+		if (reader.peek() == JsonToken.NULL) {
+			reader.nextNull();
+			return null;
+		}
+		return reader.nextString();
+	}
+}
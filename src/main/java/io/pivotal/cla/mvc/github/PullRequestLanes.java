@@ -0,0 +1,146 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.mvc.github;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.pivotal.cla.config.GitHubHooksConfig;
+
+/**
+ * A lane per Pull Request that is being updated. The updates of a single Pull
+ * Request run one at a time and in order, while the updates of different Pull
+ * Requests never wait for each other. This prevents two events for the same
+ * Pull Request from racing and creating duplicate comments.
+ *
+ * A task runs on the thread of the caller (i.e. a request thread or a worker
+ * of the {@link GitHubHookDeliveryQueue}), which only waits if an update of the
+ * same Pull Request is in progress. The number of waiting tasks is therefore
+ * bounded by the callers, and a lane only exists while it is in use. A task
+ * that waits longer than {@link GitHubHooksConfig#getLaneTimeout()} fails.
+ *
+ * The number of tasks waiting for their lane is published as
+ * {@code cla.hooks.lane.queue} and the time tasks waited as
+ * {@code cla.hooks.lane.wait}, which is tagged with the repository so that a
+ * backed up repository can be found. The Pull Request is not a tag, since its
+ * number is unbounded.
+ */
+@Component
+public class PullRequestLanes {
+	private final Map<String, Lane> lanes = new ConcurrentHashMap<>();
+	private final AtomicInteger waiting = new AtomicInteger();
+	private final GitHubHooksConfig config;
+	private final MeterRegistry meterRegistry;
+
+	@Autowired
+	public PullRequestLanes(GitHubHooksConfig config, MeterRegistry meterRegistry) {
+		this.config = config;
+		this.meterRegistry = meterRegistry;
+		Gauge.builder("cla.hooks.lane.queue", this.waiting, AtomicInteger::get)
+				.description("The number of Pull Request updates waiting for their lane").register(meterRegistry);
+	}
+
+	/**
+	 * Runs the task in the lane of the Pull Request.
+	 *
+	 * @param repositoryId the relative id of the repository (i.e.
+	 * spring-projects/spring-security)
+	 * @param pullRequestId the Pull Request number
+	 * @param task the task to run
+	 * @throws RuntimeException the exception thrown by the task
+	 */
+	public void run(String repositoryId, int pullRequestId, Runnable task) {
+		call(repositoryId, pullRequestId, () -> {
+			task.run();
+			return null;
+		});
+	}
+
+	/**
+	 * Runs the task in the lane of the Pull Request and returns its result.
+	 *
+	 * @throws RuntimeException the exception thrown by the task (checked
+	 * exceptions are wrapped in an {@link IllegalStateException})
+	 * @throws IllegalStateException if the lane could not be entered within
+	 * {@link GitHubHooksConfig#getLaneTimeout()}
+	 */
+	public <T> T call(String repositoryId, int pullRequestId, Callable<T> task) {
+		String key = repositoryId + "#" + pullRequestId;
+		Lane lane = this.lanes.compute(key, (k, existing) -> (existing == null ? new Lane() : existing).acquire());
+		try {
+			enter(lane, repositoryId, key);
+			try {
+				return task.call();
+			} catch (RuntimeException e) {
+				throw e;
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			} finally {
+				lane.lock.unlock();
+			}
+		} finally {
+			this.lanes.computeIfPresent(key, (k, existing) -> existing.release() ? null : existing);
+		}
+	}
+
+	private void enter(Lane lane, String repositoryId, String key) {
+		long started = System.nanoTime();
+		this.waiting.incrementAndGet();
+		try {
+			if (!lane.lock.tryLock(this.config.getLaneTimeout().toNanos(), TimeUnit.NANOSECONDS)) {
+				throw new IllegalStateException("Timed out waiting for the updates of " + key);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while updating " + key, e);
+		} finally {
+			this.waiting.decrementAndGet();
+			Timer.builder("cla.hooks.lane.wait").tag("repository", repositoryId)
+					.description("The time Pull Request updates waited for their lane").register(this.meterRegistry)
+					.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	int size() {
+		return this.lanes.size();
+	}
+
+	/**
+	 * A fair lock, so waiting tasks run in the order they arrived, and the number
+	 * of tasks using it. Only modified within {@link Map#compute}.
+	 */
+	private static class Lane {
+		private final ReentrantLock lock = new ReentrantLock(true);
+		private int users;
+
+		Lane acquire() {
+			this.users++;
+			return this;
+		}
+
+		boolean release() {
+			return --this.users == 0;
+		}
+	}
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.mvc.github;
+
+import static io.pivotal.cla.egit.github.core.event.GithubEvents.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import io.pivotal.cla.service.RepositoryClaLinkService;
+
+/**
+ * Updates the {@link RepositoryClaLinkService} for the meta (the hook was
+ * deleted) and repository (the repository was renamed, transferred or deleted)
+ * events of a hook. These only touch the database, so they are always
+ * processed on the request thread.
+ *
+ * @see GitHubHooksController
+ */
+@Component
+public class RepositoryHookHandler {
+	private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(RepositoryHookHandler.class);
+
+	@Autowired
+	private RepositoryClaLinkService links;
+
+	public static boolean isAccepted(String githubEvent) {
+		return META.equals(githubEvent) || REPOSITORY.equals(githubEvent);
+	}
+
+	/**
+	 * @param githubEvent the value of the X-GitHub-Event header
+	 * @param cla the name of the CLA the hook links the repository to
+	 * @param body the payload of the delivery
+	 * @return the response for GitHub
+	 */
+	public ResponseEntity<String> handle(String githubEvent, String cla, String body) {
+		JsonObject payload = JsonParser.parseString(body).getAsJsonObject();
+		String action = string(payload, "action");
+		JsonObject repository = object(payload, "repository");
+		String repositoryId = string(repository, "full_name");
+		if (action == null || repositoryId == null) {
+			return ResponseEntity.badRequest().body("Not related to a repository");
+		}
+		if (META.equals(githubEvent) && "deleted".equals(action)) {
+			log.info("The hook of {} for {} was deleted", repositoryId, cla);
+			links.unlink(repositoryId, cla);
+		} else if (REPOSITORY.equals(githubEvent) && "deleted".equals(action)) {
+			log.info("{} was deleted", repositoryId);
+			links.unlinkAll(repositoryId);
+		} else if (REPOSITORY.equals(githubEvent) && ("renamed".equals(action) || "transferred".equals(action))) {
+			String previousRepositoryId = previousRepositoryId(payload, repositoryId);
+			if (previousRepositoryId == null) {
+				return ResponseEntity.badRequest().body("Cannot determine the previous name of the repository");
+			}
+			log.info("{} was {} to {}", previousRepositoryId, action, repositoryId);
+			links.rename(previousRepositoryId, repositoryId);
+		} else {
+			return ResponseEntity.ok(String.format("Skipping %s", action));
+		}
+		return ResponseEntity.ok("SUCCESS");
+	}
+
+	/**
+	 * A rename changes the name ({@code changes.repository.name.from}) and a
+	 * transfer the owner ({@code changes.owner.from.user.login} or
+	 * {@code changes.owner.from.organization.login}).
+	 */
+	private static String previousRepositoryId(JsonObject payload, String repositoryId) {
+		String[] parts = repositoryId.split("/", 2);
+		JsonObject changes = object(payload, "changes");
+		String name = string(object(object(changes, "repository"), "name"), "from");
+		JsonObject ownerFrom = object(object(changes, "owner"), "from");
+		String owner = string(object(ownerFrom, "user"), "login");
+		if (owner == null) {
+			owner = string(object(ownerFrom, "organization"), "login");
+		}
+		if (name == null && owner == null) {
+			return null;
+		}
+		return (owner == null ? parts[0] : owner) + "/" + (name == null ? parts[1] : name);
+	}
+
+	private static JsonObject object(JsonObject object, String name) {
+		JsonElement element = object == null ? null : object.get(name);
+		return element != null && element.isJsonObject() ? element.getAsJsonObject() : null;
+	}
+
+	private static String string(JsonObject object, String name) {
+		JsonElement element = object == null ? null : object.get(name);
+		return element != null && element.isJsonPrimitive() ? element.getAsString() : null;
+	}
+}
@@ -24,6 +24,8 @@ import io.pivotal.cla.mvc.support.ImportedSignaturesSessionAttr;
 import io.pivotal.cla.mvc.util.UrlBuilder;
 import io.pivotal.cla.security.GitHubAuthenticationEntryPoint;
 import io.pivotal.cla.security.Login;
+import io.pivotal.cla.service.UnsignedCache;
+import io.pivotal.cla.service.github.AsyncGitHubApi;
 import io.pivotal.cla.service.github.CurrentUserRequest;
 import io.pivotal.cla.service.github.GitHubApi;
 import io.pivotal.cla.service.github.OAuthAccessTokenParams;
@@ -42,6 +44,7 @@ import org.springframework.web.bind.annotation.ResponseStatus;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @Controller
 public class OAuthController {
@@ -49,11 +52,15 @@ public class OAuthController {
 	@Autowired
 	private GitHubApi gitHub;
 	@Autowired
+	private AsyncGitHubApi asyncGitHub;
+	@Autowired
 	private IndividualSignatureRepository individual;
 	@Autowired
 	private CorporateSignatureRepository corporate;
 	@Autowired
 	private UserRepository users;
+	@Autowired
+	private UnsignedCache unsignedCache;
 
 	@GetMapping("/login/oauth2/github")
 	public void oauth(ImportedSignaturesSessionAttr importedSignaturesAttr, HttpServletRequest request, HttpServletResponse response, @RequestParam String code, @RequestParam String state) throws Exception {
@@ -73,12 +80,18 @@ public class OAuthController {
 		User existingUser = users.findOne(user.getGitHubLogin());
 		boolean isNewUser = existingUser == null;
 		users.save(user);
+		// the emails or organizations of the user may have changed
+		unsignedCache.evictUser(user.getGitHubLogin());
 		Authentication authentication = Login.loginAs(user);
 		if (isNewUser) {
+			// the organizations are requested while the individual signatures are queried
+			CompletableFuture<List<String>> organizationsLookup = asyncGitHub.getOrganizations(user.getGitHubLogin());
 			List<IndividualSignature> individualSignatures = individual.findSignaturesFor(PageRequest.of(0, 1), user);
 			boolean signed = !individualSignatures.isEmpty();
-			if (!signed) {
-				List<String> organizations = gitHub.getOrganizations(user.getGitHubLogin());
+			if (signed) {
+				organizationsLookup.cancel(true);
+			} else {
+				List<String> organizations = AsyncGitHubApi.join(organizationsLookup);
 				signed = !corporate.findSignatures(PageRequest.of(0, 1), organizations, user.getEmails()).isEmpty();
 			}
 			if (signed) {
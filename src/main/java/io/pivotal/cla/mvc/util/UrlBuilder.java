@@ -28,11 +28,18 @@ import org.springframework.web.util.UriComponentsBuilder;
  */
 public class UrlBuilder {
 	private final HttpServletRequest request;
+	private final String baseUrl;
 	private String path;
 	private MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
 
 	private UrlBuilder(HttpServletRequest request) {
 		this.request = request;
+		this.baseUrl = null;
+	}
+
+	private UrlBuilder(String baseUrl) {
+		this.request = null;
+		this.baseUrl = baseUrl;
 	}
 
 	public String callbackUrl() {
@@ -49,19 +56,25 @@ public class UrlBuilder {
 		return this;
 	}
 
-	private static String createSignUrl(HttpServletRequest request, String claName, String repositoryId, int pullRequestId) {
+	private static String createSignUrl(UrlBuilder url, String claName, String repositoryId, int pullRequestId) {
 		String urlEncodedClaName = urlEncode(claName);
-		UrlBuilder url =  UrlBuilder.fromRequest(request)
-				.path("/sign/" + urlEncodedClaName)
+		url.path("/sign/" + urlEncodedClaName)
 				.param("repositoryId", repositoryId)
 				.param("pullRequestId", String.valueOf(pullRequestId));
 		return url.build();
 	}
 
 	public static String createSyncUrl(HttpServletRequest request, String claName, String repositoryId, int pullRequestId) {
+		return createSyncUrl(UrlBuilder.fromRequest(request), claName, repositoryId, pullRequestId);
+	}
+
+	public static String createSyncUrl(String baseUrl, String claName, String repositoryId, int pullRequestId) {
+		return createSyncUrl(UrlBuilder.fromBaseUrl(baseUrl), claName, repositoryId, pullRequestId);
+	}
+
+	private static String createSyncUrl(UrlBuilder url, String claName, String repositoryId, int pullRequestId) {
 			String urlEncodedClaName = urlEncode(claName);
-			UrlBuilder url =  UrlBuilder.fromRequest(request)
-				.path("/sync/" + urlEncodedClaName)
+			url.path("/sync/" + urlEncodedClaName)
 					.param("repositoryId", repositoryId)
 					.param("pullRequestId", String.valueOf(pullRequestId));
 			return url.build();
@@ -81,8 +94,28 @@ public class UrlBuilder {
 		return url.build();
 	}
 
+	public static String createAboutUrl(String baseUrl) {
+		UrlBuilder url = UrlBuilder.fromBaseUrl(baseUrl)
+			.path("/about");
+		return url.build();
+	}
+
+	/**
+	 * Creates the URL of the application (i.e. {@code https://cla.pivotal.io/})
+	 * as seen by the current request. This allows building URLs for the request
+	 * after it has completed (i.e. when a GitHub hook is processed
+	 * asynchronously).
+	 *
+	 * @param request the current request
+	 * @return the base URL
+	 */
+	public static String createBaseUrl(HttpServletRequest request) {
+		return UrlBuilder.fromRequest(request).path("/").build();
+	}
+
 	public String build() {
-		String url =  UriComponentsBuilder.fromHttpRequest(new ServletServerHttpRequest(request))
+		UriComponentsBuilder builder = baseUrl == null ? UriComponentsBuilder.fromHttpRequest(new ServletServerHttpRequest(request)) : UriComponentsBuilder.fromHttpUrl(baseUrl);
+		String url =  builder
 				.replacePath(path)
 				.replaceQueryParams(params)
 				.build()
@@ -100,6 +133,10 @@ public class UrlBuilder {
 		return new UrlBuilder(request);
 	}
 
+	public static UrlBuilder fromBaseUrl(String baseUrl) {
+		return new UrlBuilder(baseUrl);
+	}
+
 	public static String pullRequestHookCallbackPath(String claName) {
 		String urlEncodedClaName = urlEncode(claName);
 		return String.format("%s/%s", "/github/hooks/pull_request", urlEncodedClaName);
@@ -108,6 +145,7 @@ public class UrlBuilder {
 
 	public static class StringBuilder {
 		private HttpServletRequest request;
+		private String baseUrl;
 		private String claName;
 		private String repositoryId;
 		private int pullRequestId;
@@ -120,6 +158,11 @@ public class UrlBuilder {
 			return this;
 		}
 
+		public StringBuilder baseUrl(final String baseUrl) {
+			this.baseUrl = baseUrl;
+			return this;
+		}
+
 		public StringBuilder claName(final String claName) {
 			this.claName = claName;
 			return this;
@@ -136,12 +179,13 @@ public class UrlBuilder {
 		}
 
 		public String build() {
-			return UrlBuilder.createSignUrl(request, claName, repositoryId, pullRequestId);
+			UrlBuilder url = request == null ? UrlBuilder.fromBaseUrl(baseUrl) : UrlBuilder.fromRequest(request);
+			return UrlBuilder.createSignUrl(url, claName, repositoryId, pullRequestId);
 		}
 
 		@java.lang.Override
 		public java.lang.String toString() {
-			return "UrlBuilder.StringBuilder(request=" + this.request + ", claName=" + this.claName + ", repositoryId=" + this.repositoryId + ", pullRequestId=" + this.pullRequestId + ")";
+			return "UrlBuilder.StringBuilder(request=" + this.request + ", baseUrl=" + this.baseUrl + ", claName=" + this.claName + ", repositoryId=" + this.repositoryId + ", pullRequestId=" + this.pullRequestId + ")";
 		}
 	}
 
@@ -15,9 +15,9 @@
  */
 package io.pivotal.cla.security;
 
-import java.security.InvalidKeyException;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -27,13 +27,30 @@ import io.pivotal.cla.data.AccessToken;
 import io.pivotal.cla.data.repository.AccessTokenRepository;
 
 /**
+ * Verifies the signature GitHub sends with hook deliveries. The X-Hub-Signature-256
+ * header (HMAC SHA-256) is used if present, otherwise X-Hub-Signature (HMAC SHA-1).
+ *
+ * The secret is cached, so verifying a signature does not access the database. If
+ * a signature does not match, the secret is reloaded in case it was rotated
+ * without calling {@link #invalidate()} (i.e. by another instance). The reload is
+ * done at most once per {@link #setReloadInterval(Duration) reload interval}, so
+ * that invalid signatures cannot be used to hammer the database. {@link Mac}
+ * instances are reused per thread.
+ *
  * @author Rob Winch
  */
 @Component
 public class GitHubSignature {
 	private static final String SIGNATURE_PREFIX = "sha1=";
+	private static final String SIGNATURE_256_PREFIX = "sha256=";
 	private static final String HMAC_SHA1_ALGORITHM = "HmacSHA1";
+	private static final String HMAC_SHA256_ALGORITHM = "HmacSHA256";
+	private static final ThreadLocal<Signer> SHA1 = ThreadLocal.withInitial(() -> new Signer(HMAC_SHA1_ALGORITHM));
+	private static final ThreadLocal<Signer> SHA256 = ThreadLocal.withInitial(() -> new Signer(HMAC_SHA256_ALGORITHM));
 	private AccessTokenRepository accessTokens;
+	private volatile Secret secret;
+	private volatile long lastReload;
+	private long reloadInterval = Duration.ofSeconds(30).toNanos();
 
 	@Autowired
 	public GitHubSignature(AccessTokenRepository accessTokens) {
@@ -41,33 +58,169 @@ public class GitHubSignature {
 	}
 
 	public boolean check(String gitHubSignature, String body) {
-		if (gitHubSignature == null || !gitHubSignature.startsWith(SIGNATURE_PREFIX)) {
+		return check(null, gitHubSignature, body.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * @param gitHubSignature256 the value of the X-Hub-Signature-256 header (may be
+	 * null)
+	 * @param gitHubSignature the value of the X-Hub-Signature header (may be null)
+	 * @param body the raw body of the request
+	 * @return true if the body was signed with the secret of
+	 * {@link AccessToken#CLA_ACCESS_TOKEN_ID}
+	 */
+	public boolean check(String gitHubSignature256, String gitHubSignature, byte[] body) {
+		ThreadLocal<Signer> signer;
+		String signature;
+		int offset;
+		if (gitHubSignature256 != null && gitHubSignature256.startsWith(SIGNATURE_256_PREFIX)) {
+			signer = SHA256;
+			signature = gitHubSignature256;
+			offset = SIGNATURE_256_PREFIX.length();
+		} else if (gitHubSignature != null && gitHubSignature.startsWith(SIGNATURE_PREFIX)) {
+			signer = SHA1;
+			signature = gitHubSignature;
+			offset = SIGNATURE_PREFIX.length();
+		} else {
 			return false;
 		}
-		AccessToken expectedToken = accessTokens.findOne(AccessToken.CLA_ACCESS_TOKEN_ID);
-		if (expectedToken == null) {
+		Secret current = this.secret;
+		if (current == null) {
+			current = reload(null);
+		}
+		if (current == null) {
+			return false;
+		}
+		if (signer.get().verify(current, body, signature, offset)) {
+			return true;
+		}
+		if (!isReloadDue()) {
 			return false;
 		}
-		String providedHmac = gitHubSignature.substring(SIGNATURE_PREFIX.length());
-		byte[] providedHmacBytes = Hex.decode(providedHmac);
-		byte[] expectedBytes = sign(body, expectedToken.getToken());
-		return MessageDigest.isEqual(providedHmacBytes, expectedBytes);
+		Secret reloaded = reload(current);
+		return reloaded != null && reloaded != current && signer.get().verify(reloaded, body, signature, offset);
+	}
+
+	/**
+	 * Discards the cached secret. Must be invoked when the token of
+	 * {@link AccessToken#CLA_ACCESS_TOKEN_ID} is changed.
+	 */
+	public void invalidate() {
+		this.secret = null;
+	}
+
+	/**
+	 * @param reloadInterval the minimum time between reloading the secret because
+	 * a signature did not match. The default is 30 seconds.
+	 */
+	public void setReloadInterval(Duration reloadInterval) {
+		this.reloadInterval = reloadInterval.toNanos();
 	}
 
 	public String create(String body, String token) {
-		return SIGNATURE_PREFIX + new String(Hex.encode(sign(body, token)));
+		return SIGNATURE_PREFIX + new String(Hex.encode(sign(HMAC_SHA1_ALGORITHM, body, token)));
+	}
+
+	public String create256(String body, String token) {
+		return SIGNATURE_256_PREFIX + new String(Hex.encode(sign(HMAC_SHA256_ALGORITHM, body, token)));
+	}
+
+	/**
+	 * @param stale the secret that did not match or null
+	 * @return the current secret or null if there is none
+	 */
+	private synchronized Secret reload(Secret stale) {
+		Secret current = this.secret;
+		if (current != null && current != stale) {
+			return current;
+		}
+		if (stale != null && !isReloadDue()) {
+			return stale;
+		}
+		this.lastReload = System.nanoTime();
+		AccessToken expectedToken = accessTokens.findOne(AccessToken.CLA_ACCESS_TOKEN_ID);
+		if (expectedToken == null) {
+			this.secret = null;
+			return null;
+		}
+		if (stale != null && stale.token.equals(expectedToken.getToken())) {
+			return stale;
+		}
+		current = new Secret(expectedToken.getToken());
+		this.secret = current;
+		return current;
+	}
+
+	private boolean isReloadDue() {
+		return System.nanoTime() - this.lastReload >= this.reloadInterval;
 	}
 
-	private byte[] sign(String body, String token) {
+	private static byte[] sign(String algorithm, String body, String token) {
 		try {
-			SecretKeySpec signingKey = new SecretKeySpec(token.getBytes(),
-					HMAC_SHA1_ALGORITHM);
-			Mac mac = Mac.getInstance(HMAC_SHA1_ALGORITHM);
-			mac.init(signingKey);
-			byte[] expectedBytes = mac.doFinal(body.getBytes());
-			return expectedBytes;
-		} catch (NoSuchAlgorithmException | InvalidKeyException e) {
+			Mac mac = Mac.getInstance(algorithm);
+			mac.init(new SecretKeySpec(token.getBytes(StandardCharsets.UTF_8), algorithm));
+			return mac.doFinal(body.getBytes(StandardCharsets.UTF_8));
+		} catch (GeneralSecurityException e) {
 			throw new RuntimeException(e);
 		}
 	}
+
+	private static final class Secret {
+		private final String token;
+		private final byte[] key;
+
+		private Secret(String token) {
+			this.token = token;
+			this.key = token.getBytes(StandardCharsets.UTF_8);
+		}
+	}
+
+	/**
+	 * A {@link Mac} that is reused by a single thread. It is only initialized again
+	 * when the {@link Secret} changes.
+	 */
+	private static final class Signer {
+		private final String algorithm;
+		private final Mac mac;
+		private final byte[] result;
+		private Secret initializedWith;
+
+		private Signer(String algorithm) {
+			try {
+				this.algorithm = algorithm;
+				this.mac = Mac.getInstance(algorithm);
+				this.result = new byte[this.mac.getMacLength()];
+			} catch (GeneralSecurityException e) {
+				throw new RuntimeException(e);
+			}
+		}
+
+		/**
+		 * Compares the HMAC of the body with the hex encoded signature in constant
+		 * time (for signatures of the expected length).
+		 */
+		private boolean verify(Secret secret, byte[] body, String signature, int offset) {
+			if (signature.length() - offset != result.length * 2) {
+				return false;
+			}
+			try {
+				if (initializedWith != secret) {
+					mac.init(new SecretKeySpec(secret.key, algorithm));
+					initializedWith = secret;
+				}
+				mac.update(body);
+				mac.doFinal(result, 0);
+			} catch (GeneralSecurityException e) {
+				throw new RuntimeException(e);
+			}
+			int diff = 0;
+			for (int i = 0; i < result.length; i++) {
+				int high = Character.digit(signature.charAt(offset + 2 * i), 16);
+				int low = Character.digit(signature.charAt(offset + 2 * i + 1), 16);
+				diff |= (high | low) >>> 31;
+				diff |= ((high << 4) | low) ^ (result[i] & 0xff);
+			}
+			return diff == 0;
+		}
+	}
 }
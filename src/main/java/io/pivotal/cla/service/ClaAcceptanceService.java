@@ -0,0 +1,186 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import io.pivotal.cla.data.ClaAcceptance;
+import io.pivotal.cla.data.ContributorLicenseAgreement;
+import io.pivotal.cla.data.repository.ClaAcceptanceRepository;
+import io.pivotal.cla.data.repository.ContributorLicenseAgreementRepository;
+
+/**
+ * Maintains the {@link ClaAcceptance} rows, which map the name of a CLA to
+ * every CLA whose signatures satisfy it. The rows are rebuilt on startup and
+ * whenever a CLA is saved or deleted.
+ */
+@Component
+public class ClaAcceptanceService implements SmartLifecycle {
+	private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(ClaAcceptanceService.class);
+	private final ContributorLicenseAgreementRepository clas;
+	private final ClaAcceptanceRepository acceptances;
+	private final SignerService signers;
+	private volatile boolean running;
+
+	@Autowired
+	public ClaAcceptanceService(ContributorLicenseAgreementRepository clas, ClaAcceptanceRepository acceptances, SignerService signers) {
+		this.clas = clas;
+		this.acceptances = acceptances;
+		this.signers = signers;
+	}
+
+	/**
+	 * Saves the CLA and rebuilds the rows in a single transaction, so a CLA is
+	 * never saved without the rows that its signature queries depend on. If the
+	 * rows cannot be rebuilt, the CLA is not saved either.
+	 *
+	 * @param cla the CLA to save
+	 * @return the saved CLA
+	 */
+	@Transactional
+	public ContributorLicenseAgreement save(ContributorLicenseAgreement cla) {
+		ContributorLicenseAgreement saved = clas.save(cla);
+		rebuild();
+		return saved;
+	}
+
+	/**
+	 * Deletes the CLA and rebuilds the rows in a single transaction.
+	 *
+	 * @param claId the id of the CLA to delete
+	 */
+	@Transactional
+	public void delete(long claId) {
+		clas.deleteById(claId);
+		rebuild();
+	}
+
+	/**
+	 * Rebuilds the rows from the CLAs. The missing rows are added before the
+	 * stale rows are removed, so the signature queries never miss a CLA that is
+	 * accepted both before and after the change. The signer rows are rebuilt
+	 * when the rows changed.
+	 */
+	public void rebuild() {
+		Map<String, ClaAcceptance> expected = new LinkedHashMap<>();
+		for (ClaAcceptance acceptance : computeAcceptances(clas.findAll())) {
+			expected.put(key(acceptance), acceptance);
+		}
+		List<ClaAcceptance> stale = new ArrayList<>();
+		for (ClaAcceptance acceptance : acceptances.findAll()) {
+			if (expected.remove(key(acceptance)) == null) {
+				stale.add(acceptance);
+			}
+		}
+		if (!expected.isEmpty()) {
+			acceptances.saveAll(expected.values());
+		}
+		if (!stale.isEmpty()) {
+			acceptances.deleteAll(stale);
+		}
+		log.debug("Added {} and removed {} CLA acceptances", expected.size(), stale.size());
+		if (!expected.isEmpty() || !stale.isEmpty()) {
+			signers.rebuild();
+		}
+	}
+
+	/**
+	 * A signature of a CLA is accepted for the CLAs with the same name and for
+	 * the CLAs that are superseded by it (directly or through other CLAs). Like
+	 * the database, the names are compared case insensitively.
+	 */
+	static List<ClaAcceptance> computeAcceptances(Iterable<ContributorLicenseAgreement> agreements) {
+		Map<String, String> names = new LinkedHashMap<>();
+		Map<String, Set<Long>> ids = new HashMap<>();
+		Map<String, Set<String>> supersedingNames = new HashMap<>();
+		for (ContributorLicenseAgreement cla : agreements) {
+			String name = lowerCase(cla.getName());
+			names.putIfAbsent(name, cla.getName());
+			ids.computeIfAbsent(name, n -> new HashSet<>()).add(cla.getId());
+			if (cla.getSupersedingCla() != null) {
+				supersedingNames.computeIfAbsent(name, n -> new HashSet<>()).add(lowerCase(cla.getSupersedingCla().getName()));
+			}
+		}
+		List<ClaAcceptance> result = new ArrayList<>();
+		names.forEach((name, claName) -> {
+			Set<String> accepted = new HashSet<>();
+			Deque<String> remaining = new ArrayDeque<>();
+			remaining.add(name);
+			while (!remaining.isEmpty()) {
+				String acceptedName = remaining.remove();
+				if (accepted.add(acceptedName)) {
+					remaining.addAll(supersedingNames.getOrDefault(acceptedName, Collections.emptySet()));
+				}
+			}
+			for (String acceptedName : accepted) {
+				for (Long id : ids.getOrDefault(acceptedName, Collections.emptySet())) {
+					result.add(new ClaAcceptance(claName, id));
+				}
+			}
+		});
+		return result;
+	}
+
+	private static String key(ClaAcceptance acceptance) {
+		return lowerCase(acceptance.getClaName()) + "/" + acceptance.getAcceptedClaId();
+	}
+
+	private static String lowerCase(String value) {
+		return value.toLowerCase(Locale.ENGLISH);
+	}
+
+	/**
+	 * Starts before the {@link SignerIndex} (and the web server) so that the rows
+	 * are complete before they are used.
+	 */
+	@Override
+	public int getPhase() {
+		return SmartLifecycle.DEFAULT_PHASE - 2;
+	}
+
+	@Override
+	public void start() {
+		running = true;
+		try {
+			rebuild();
+		} catch (Exception e) {
+			log.error("Could not rebuild the CLA acceptances", e);
+		}
+	}
+
+	@Override
+	public void stop() {
+		running = false;
+	}
+
+	@Override
+	public boolean isRunning() {
+		return running;
+	}
+}
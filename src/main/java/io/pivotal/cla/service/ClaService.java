@@ -1,11 +1,16 @@
 package io.pivotal.cla.service;
 
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
 import org.eclipse.egit.github.core.PullRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
@@ -14,12 +19,15 @@ import io.pivotal.cla.data.AccessToken;
 import io.pivotal.cla.data.ContributorLicenseAgreement;
 import io.pivotal.cla.data.CorporateSignature;
 import io.pivotal.cla.data.IndividualSignature;
+import io.pivotal.cla.data.Signer;
 import io.pivotal.cla.data.User;
 import io.pivotal.cla.data.repository.AccessTokenRepository;
 import io.pivotal.cla.data.repository.ContributorLicenseAgreementRepository;
 import io.pivotal.cla.data.repository.CorporateSignatureRepository;
 import io.pivotal.cla.data.repository.IndividualSignatureRepository;
+import io.pivotal.cla.data.repository.SignerRepository;
 import io.pivotal.cla.data.repository.UserRepository;
+import io.pivotal.cla.service.github.AsyncGitHubApi;
 import io.pivotal.cla.service.github.GitHubApi;
 import io.pivotal.cla.service.github.PullRequestStatus;
 
@@ -27,16 +35,26 @@ import io.pivotal.cla.service.github.PullRequestStatus;
 public class ClaService {
 	private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(ClaService.class);
 	private final GitHubApi gitHub;
+	private final AsyncGitHubApi asyncGitHub;
 	private final AccessTokenRepository accessTokenRepository;
 	private final CorporateSignatureRepository corporateSignatureRepository;
 	private final ContributorLicenseAgreementRepository contributorLicenseAgreementRepository;
 	private final IndividualSignatureRepository individualSignatureRepository;
 	private final UserRepository userRepository;
+	private final RepositoryClaLinkService links;
+	private final SignerIndex signerIndex;
+	private final UnsignedCache unsignedCache;
+	private final SignerRepository signers;
 
 	@Autowired
-	public ClaService(GitHubApi gitHub, AccessTokenRepository accessTokenRepository, ContributorLicenseAgreementRepository contributorLicenseAgreementRepository, UserRepository userRepository, CorporateSignatureRepository corporateSignatureRepository, IndividualSignatureRepository individualSignatureRepository) {
+	public ClaService(GitHubApi gitHub, AsyncGitHubApi asyncGitHub, AccessTokenRepository accessTokenRepository, RepositoryClaLinkService links, SignerIndex signerIndex, UnsignedCache unsignedCache, SignerRepository signers, ContributorLicenseAgreementRepository contributorLicenseAgreementRepository, UserRepository userRepository, CorporateSignatureRepository corporateSignatureRepository, IndividualSignatureRepository individualSignatureRepository) {
 		this.gitHub = gitHub;
+		this.asyncGitHub = asyncGitHub;
 		this.accessTokenRepository = accessTokenRepository;
+		this.links = links;
+		this.signerIndex = signerIndex;
+		this.unsignedCache = unsignedCache;
+		this.signers = signers;
 		this.contributorLicenseAgreementRepository = contributorLicenseAgreementRepository;
 		this.userRepository = userRepository;
 		this.corporateSignatureRepository = corporateSignatureRepository;
@@ -78,10 +96,19 @@ public class ClaService {
 		return results.isEmpty() ? null : results.get(0);
 	}
 
+	/**
+	 * Unlike {@link #hasSigned(User, String)}, the organizations are always
+	 * requested from GitHub (even if no corporate signature could match them),
+	 * since the CCLA form lets the user choose the organization to sign for from
+	 * {@link CorporateSignatureInfo#getGitHubOrganizations()}.
+	 */
 	public CorporateSignatureInfo findCorporateSignatureInfoFor(String claName, User user) {
-		List<String> gitHubOrganizations = gitHub.getOrganizations(user.getGitHubLogin());
+		// the primary CLA is looked up while the organizations are requested
+		CompletableFuture<List<String>> organizations = asyncGitHub.getOrganizations(user.getGitHubLogin());
+		ContributorLicenseAgreement primaryCla = contributorLicenseAgreementRepository.findByNameAndPrimaryTrue(claName);
+		List<String> gitHubOrganizations = AsyncGitHubApi.join(organizations);
 		CorporateSignature corporateSignature = corporateSignatureRepository.findSignature(claName, gitHubOrganizations, user.getEmails());
-		ContributorLicenseAgreement contributorLicenseAgreement = corporateSignature == null ? contributorLicenseAgreementRepository.findByNameAndPrimaryTrue(claName) : corporateSignature.getCla();
+		ContributorLicenseAgreement contributorLicenseAgreement = corporateSignature == null ? primaryCla : corporateSignature.getCla();
 		CorporateSignatureInfo result = new CorporateSignatureInfo(contributorLicenseAgreement, corporateSignature, gitHubOrganizations);
 		log.debug("Corp signature for user {} and cla {} found {}", user, claName, result);
 		return result;
@@ -89,51 +116,156 @@ public class ClaService {
 
 	public void migratePullRequestStatus(String claName, MigratePullRequestStatusRequest request) {
 		List<PullRequestStatus> commitStatuses = gitHub.createUpdatePullRequestStatuses(request);
-		long oneSecondInMs = TimeUnit.SECONDS.toMillis(1L);
+		Set<String> authors = commitStatuses.stream().map(PullRequestStatus::getGitHubUsername).collect(Collectors.toSet());
+		Set<String> signed = findSignedLogins(authors, claName);
 		for (PullRequestStatus status : commitStatuses) {
-			boolean success = hasSigned(status.getGitHubUsername(), claName);
-			status.setSuccess(success);
+			status.setSuccess(signed.contains(status.getGitHubUsername()));
+			// writes are paced by the GitHubRateLimiter to prevent abuse rate limits
 			gitHub.save(status);
-			// necessary to help prevent abuse rate limits
-			// https://developer.github.com/guides/best-practices-for-integrators/#dealing-with-abuse-rate-limits
-			try {
-				Thread.sleep(oneSecondInMs);
-			}
-			catch (InterruptedException e) {
-				throw new RuntimeException(e);
-			}
 		}
 	}
 
 	public boolean hasSigned(String gitHubLogin, String claName) {
+		if (claName == null || unsignedCache.isUnsigned(gitHubLogin, claName)) {
+			return false;
+		}
+		long generation = unsignedCache.generation();
+		if (signerIndex.isReady() && signerIndex.hasSignedIndividual(claName, gitHubLogin, Collections.emptySet())) {
+			return true;
+		}
 		User user = userRepository.findOne(gitHubLogin);
 		if (user == null) {
 			user = new User();
 			user.setGitHubLogin(gitHubLogin);
 			user.setEmails(new HashSet<>());
 		}
-		return hasSigned(user, claName);
+		return hasSigned(user, claName, generation);
 	}
 
 	public boolean hasSigned(User user, String claName) {
-		if (claName == null) {
+		if (claName == null || unsignedCache.isUnsigned(user.getGitHubLogin(), claName)) {
 			return false;
 		}
-		IndividualSignature signedIndividual = findIndividualSignaturesFor(user, claName);
-		if (signedIndividual != null) {
-			return true;
+		return hasSigned(user, claName, unsignedCache.generation());
+	}
+
+	/**
+	 * @param generation the {@link UnsignedCache#generation()} before anything was
+	 * looked up
+	 */
+	private boolean hasSigned(User user, String claName, long generation) {
+		boolean signed = findSigned(user, claName);
+		if (!signed) {
+			unsignedCache.putUnsigned(user, claName, generation);
+		}
+		return signed;
+	}
+
+	private boolean findSigned(User user, String claName) {
+		if (signerIndex.isReady()) {
+			return signerIndex.hasSignedIndividual(claName, user.getGitHubLogin(), user.getEmails())
+					|| signerIndex.hasSignedCorporate(claName, user.getEmails(), () -> gitHub.getOrganizations(user.getGitHubLogin()));
+		}
+		return signers.hasSigned(claName, user.getGitHubLogin(), user.getEmails(), () -> gitHub.getOrganizations(user.getGitHubLogin()));
+	}
+
+	/**
+	 * The equivalent of {@link #hasSigned(String, String)} for many logins at
+	 * once. The users and each kind of {@link Signer} are looked up with a single
+	 * query (the signatures are looked up in the {@link SignerIndex} when it is
+	 * ready). The GitHub organizations are only
+	 * looked up for the logins without an individual signature.
+	 *
+	 * @param gitHubLogins the GitHub logins to check
+	 * @param claName the name of the CLA
+	 * @return the logins that have signed the CLA
+	 */
+	public Set<String> findSignedLogins(Collection<String> gitHubLogins, String claName) {
+		Set<String> signed = new HashSet<>();
+		if (claName == null || gitHubLogins.isEmpty()) {
+			return signed;
+		}
+		Map<String, User> users = new HashMap<>();
+		for (String gitHubLogin : gitHubLogins) {
+			User user = new User();
+			user.setGitHubLogin(gitHubLogin);
+			user.setEmails(new HashSet<>());
+			users.put(gitHubLogin, user);
+		}
+		for (User user : userRepository.findAllWithEmails(gitHubLogins)) {
+			users.put(user.getGitHubLogin(), user);
+		}
+		if (signerIndex.isReady()) {
+			for (User user : users.values()) {
+				if (hasSigned(user, claName)) {
+					signed.add(user.getGitHubLogin());
+				}
+			}
+			return signed;
+		}
+		Set<String> emails = users.values().stream().flatMap(u -> u.getEmails().stream()).collect(Collectors.toSet());
+		Set<String> signedLogins = lowerCase(signers.findSigned(claName, Signer.Kind.LOGIN, gitHubLogins));
+		Set<String> signedEmails = lowerCase(signers.findSigned(claName, Signer.Kind.EMAIL, emails));
+		Map<String, List<String>> organizations = new HashMap<>();
+		for (User user : users.values()) {
+			if (signedLogins.contains(lowerCase(user.getGitHubLogin())) || user.getEmails().stream().map(ClaService::lowerCase).anyMatch(signedEmails::contains)) {
+				signed.add(user.getGitHubLogin());
+			} else {
+				organizations.put(user.getGitHubLogin(), gitHub.getOrganizations(user.getGitHubLogin()));
+			}
 		}
-		CorporateSignatureInfo corporateSignatureInfo = findCorporateSignatureInfoFor(claName, user);
-		CorporateSignature corporateSignature = corporateSignatureInfo.getCorporateSignature();
-		return corporateSignature != null;
+		if (organizations.isEmpty()) {
+			return signed;
+		}
+		Set<String> allOrganizations = organizations.values().stream().flatMap(List::stream).collect(Collectors.toSet());
+		Set<String> allDomains = organizations.keySet().stream().flatMap(login -> users.get(login).getEmails().stream()).map(ClaService::emailDomain).collect(Collectors.toSet());
+		Set<String> signedOrganizations = lowerCase(signers.findSigned(claName, Signer.Kind.ORGANIZATION, allOrganizations));
+		Set<String> signedDomains = lowerCase(signers.findSigned(claName, Signer.Kind.DOMAIN, allDomains));
+		organizations.forEach((login, userOrganizations) -> {
+			boolean organizationSigned = userOrganizations.stream().map(ClaService::lowerCase).anyMatch(signedOrganizations::contains);
+			boolean domainSigned = users.get(login).getEmails().stream().map(ClaService::emailDomain).map(ClaService::lowerCase).anyMatch(signedDomains::contains);
+			if (organizationSigned || domainSigned) {
+				signed.add(login);
+			}
+		});
+		log.debug("Signed {} of {} for cla {}", signed.size(), gitHubLogins.size(), claName);
+		return signed;
+	}
+
+	/**
+	 * The database compares case insensitively, so the same is done when matching
+	 * the signatures in memory.
+	 */
+	private static String lowerCase(String value) {
+		return value.toLowerCase(Locale.ENGLISH);
+	}
+
+	private static Set<String> lowerCase(Collection<String> values) {
+		return values.stream().map(ClaService::lowerCase).collect(Collectors.toSet());
 	}
 
+	private static String emailDomain(String email) {
+		return email.substring(email.lastIndexOf("@") + 1);
+	}
+
+	/**
+	 * Finds the CLAs the repository is linked to using the
+	 * {@link RepositoryClaLinkService}. Only repositories without any link (i.e.
+	 * linked before the links were recorded) have their hooks listed on GitHub.
+	 *
+	 * @param repoId repo slug in the format {@code owner/repository}
+	 * @return the names of the CLAs
+	 */
 	public Set<String> findAssociatedClaNames(String repoId) {
+		Set<String> claNames = links.findClaNames(repoId);
+		if (!claNames.isEmpty()) {
+			return claNames;
+		}
 		AccessToken accessToken = accessTokenRepository.findOne(repoId);
 		if (accessToken == null) {
 			return Collections.emptySet();
 		}
-		return gitHub.findAssociatedClaNames(repoId, accessToken.getToken());
+		return links.update(repoId, gitHub.findClaHooks(repoId, accessToken.getToken()));
 	}
 
 	/**
@@ -150,4 +282,30 @@ public class ClaService {
 		}
 		return gitHub.findPullRequest(repoId, pullRequestId, accessToken.getToken());
 	}
+
+	/**
+	 * The non-blocking variant of {@link #findAssociatedClaNames(String)}.
+	 */
+	public CompletableFuture<Set<String>> findAssociatedClaNamesAsync(String repoId) {
+		Set<String> claNames = links.findClaNames(repoId);
+		if (!claNames.isEmpty()) {
+			return CompletableFuture.completedFuture(claNames);
+		}
+		AccessToken accessToken = accessTokenRepository.findOne(repoId);
+		if (accessToken == null) {
+			return CompletableFuture.completedFuture(Collections.emptySet());
+		}
+		return asyncGitHub.findClaHooks(repoId, accessToken.getToken()).thenApply(claHooks -> links.update(repoId, claHooks));
+	}
+
+	/**
+	 * The non-blocking variant of {@link #findPullRequest(String, int)}.
+	 */
+	public CompletableFuture<Optional<PullRequest>> findPullRequestAsync(String repoId, int pullRequestId) {
+		AccessToken accessToken = accessTokenRepository.findOne(repoId);
+		if (accessToken == null) {
+			return CompletableFuture.completedFuture(Optional.empty());
+		}
+		return asyncGitHub.findPullRequest(repoId, pullRequestId, accessToken.getToken());
+	}
 }
@@ -0,0 +1,309 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import io.pivotal.cla.config.PullRequestMigrationConfig;
+import io.pivotal.cla.data.AccessToken;
+import io.pivotal.cla.data.PullRequestMigration;
+import io.pivotal.cla.data.PullRequestMigration.State;
+import io.pivotal.cla.data.repository.AccessTokenRepository;
+import io.pivotal.cla.data.repository.PullRequestMigrationRepository;
+import io.pivotal.cla.service.github.GitHubApi;
+import io.pivotal.cla.service.github.PullRequestStatus;
+
+/**
+ * Migrates the statuses of the open Pull Requests of repositories in the
+ * background. Each repository is a {@link PullRequestMigration} and up to
+ * {@link PullRequestMigrationConfig#getConcurrency()} repositories are migrated
+ * concurrently. The authors of a repository are evaluated in a batch (see
+ * {@link ClaService#findSignedLogins(java.util.Collection, String)}) and the
+ * checkpoint is saved after each Pull Request, so a migration that is
+ * interrupted resumes where it stopped.
+ *
+ * An instance claims a migration with a lease before running it (see
+ * {@link PullRequestMigrationRepository#claim(Long, Date, Date)}), so a
+ * migration is never run by two instances at once. A Pull Request whose status
+ * cannot be updated is counted as failed and the migration continues with the
+ * next one. A migration that failed can be retried.
+ */
+@Component
+public class PullRequestMigrationService implements SmartLifecycle {
+	private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(PullRequestMigrationService.class);
+	private static final int MAX_ERROR_LENGTH = 1024;
+	private final PullRequestMigrationRepository migrations;
+	private final AccessTokenRepository accessTokens;
+	private final GitHubApi gitHub;
+	private final ClaService claService;
+	private final PullRequestMigrationConfig config;
+	/**
+	 * The migrations that were submitted by this instance. Used to avoid queueing
+	 * a migration twice, while the lease avoids running it twice.
+	 */
+	private final Set<Long> submitted = ConcurrentHashMap.newKeySet();
+	/**
+	 * The access tokens of the administrators that started a migration. These are
+	 * not persisted, so a resumed migration uses the token saved for the
+	 * repository when it was linked.
+	 */
+	private final Map<Long, String> startedTokens = new ConcurrentHashMap<>();
+	private ExecutorService workers;
+	private ScheduledExecutorService resumer;
+	private volatile boolean running;
+
+	@Autowired
+	public PullRequestMigrationService(PullRequestMigrationRepository migrations, AccessTokenRepository accessTokens, GitHubApi gitHub, ClaService claService, PullRequestMigrationConfig config) {
+		this.migrations = migrations;
+		this.accessTokens = accessTokens;
+		this.gitHub = gitHub;
+		this.claService = claService;
+		this.config = config;
+	}
+
+	/**
+	 * Queues a migration for each of the repositories in the request.
+	 *
+	 * @param claName the name of the CLA the repositories are linked to
+	 * @param request the repositories to migrate
+	 * @return the queued migrations
+	 */
+	public List<PullRequestMigration> start(String claName, MigratePullRequestStatusRequest request) {
+		Date now = new Date();
+		List<PullRequestMigration> result = new ArrayList<>();
+		for (String repositoryId : request.getRepositoryIds()) {
+			PullRequestMigration migration = new PullRequestMigration();
+			migration.setClaName(claName);
+			migration.setRepositoryId(repositoryId);
+			migration.setCommitStatusUrl(request.getCommitStatusUrl());
+			migration.setFaqUrl(request.getFaqUrl());
+			migration.setBaseSyncUrl(request.getBaseSyncUrl());
+			migration.setState(State.QUEUED);
+			migration.setCreated(now);
+			migration.setUpdated(now);
+			migration = migrations.save(migration);
+			if (request.getAccessToken() != null) {
+				startedTokens.put(migration.getId(), request.getAccessToken());
+			}
+			submit(migration.getId());
+			result.add(migration);
+		}
+		return result;
+	}
+
+	/**
+	 * Queues a migration that failed again. All of the open Pull Requests of the
+	 * repository are migrated again, since the statuses of the Pull Requests that
+	 * failed may have been written (i.e. if the response was lost).
+	 *
+	 * @param id the id of the migration
+	 * @return the queued migration or null if there is no failed migration with
+	 * the id
+	 */
+	public PullRequestMigration retry(Long id) {
+		PullRequestMigration migration = migrations.findOne(id);
+		if (migration == null || migration.getState() != State.FAILED) {
+			return null;
+		}
+		migration.setState(State.QUEUED);
+		migration.setDone(0);
+		migration.setStartedDone(0);
+		migration.setTotal(0);
+		migration.setFailed(0);
+		migration.setLastPullRequest(0);
+		migration.setLastError(null);
+		migration.setLeaseExpires(null);
+		migration.setUpdated(new Date());
+		migration = migrations.save(migration);
+		submit(migration.getId());
+		return migration;
+	}
+
+	/**
+	 * @return the most recent migrations
+	 */
+	public List<PullRequestMigration> findRecent() {
+		return migrations.findTop100ByOrderByIdDesc();
+	}
+
+	private void submit(Long id) {
+		if (running && submitted.add(id)) {
+			workers.execute(() -> migrateSafely(id));
+		}
+	}
+
+	private void migrateSafely(Long id) {
+		try {
+			migrate(id);
+		} finally {
+			submitted.remove(id);
+			startedTokens.remove(id);
+		}
+	}
+
+	void migrate(Long id) {
+		if (!migrations.claim(id, new Date(), leaseExpires())) {
+			log.debug("Migration {} is not active or claimed by another instance", id);
+			return;
+		}
+		PullRequestMigration migration = migrations.findOne(id);
+		if (migration == null || !migration.isActive()) {
+			return;
+		}
+		try {
+			String accessToken = findAccessToken(migration);
+			if (accessToken == null) {
+				throw new IllegalStateException("No access token for " + migration.getRepositoryId());
+			}
+			MigratePullRequestStatusRequest request = MigratePullRequestStatusRequest.builder()
+					.accessToken(accessToken)
+					.commitStatusUrl(migration.getCommitStatusUrl())
+					.repositoryIds(Collections.singletonList(migration.getRepositoryId()))
+					.faqUrl(migration.getFaqUrl())
+					.baseSyncUrl(migration.getBaseSyncUrl())
+					.build();
+			int checkpoint = migration.getLastPullRequest();
+			List<PullRequestStatus> remaining = gitHub.createUpdatePullRequestStatuses(request).stream()
+					.filter(s -> s.getPullRequestId() > checkpoint)
+					.sorted(Comparator.comparingInt(PullRequestStatus::getPullRequestId))
+					.collect(Collectors.toList());
+			Date now = new Date();
+			migration.setState(State.RUNNING);
+			migration.setTotal(migration.getDone() + remaining.size());
+			migration.setStartedDone(migration.getDone());
+			migration.setStarted(now);
+			migration.setUpdated(now);
+			migration.setLeaseExpires(leaseExpires());
+			migration = migrations.save(migration);
+			Set<String> authors = remaining.stream().map(PullRequestStatus::getGitHubUsername).collect(Collectors.toSet());
+			Set<String> signed = claService.findSignedLogins(authors, migration.getClaName());
+			for (PullRequestStatus status : remaining) {
+				if (!running) {
+					log.info("Stopped {} at Pull Request {}", migration, migration.getLastPullRequest());
+					migration.setLeaseExpires(null);
+					migrations.save(migration);
+					return;
+				}
+				status.setSuccess(signed.contains(status.getGitHubUsername()));
+				try {
+					gitHub.save(status);
+				} catch (Exception e) {
+					log.warn("Could not migrate Pull Request {} of {}", status.getPullRequestId(), migration, e);
+					migration.setFailed(migration.getFailed() + 1);
+					setLastError(migration, "#" + status.getPullRequestId() + ": " + e);
+				}
+				migration.setDone(migration.getDone() + 1);
+				migration.setLastPullRequest(status.getPullRequestId());
+				migration.setUpdated(new Date());
+				migration.setLeaseExpires(leaseExpires());
+				migration = migrations.save(migration);
+			}
+			migration.setState(migration.getFailed() > 0 ? State.FAILED : State.DONE);
+			migration.setUpdated(new Date());
+			migration.setLeaseExpires(null);
+			migrations.save(migration);
+		} catch (Exception e) {
+			log.warn("Could not migrate {}", migration, e);
+			setLastError(migration, String.valueOf(e));
+			migration.setState(State.FAILED);
+			migration.setUpdated(new Date());
+			migration.setLeaseExpires(null);
+			migrations.save(migration);
+		}
+	}
+
+	private static void setLastError(PullRequestMigration migration, String error) {
+		migration.setLastError(error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error);
+	}
+
+	private Date leaseExpires() {
+		return new Date(System.currentTimeMillis() + config.getLease().toMillis());
+	}
+
+	private String findAccessToken(PullRequestMigration migration) {
+		String startedToken = startedTokens.get(migration.getId());
+		if (startedToken != null) {
+			return startedToken;
+		}
+		AccessToken accessToken = accessTokens.findOne(migration.getRepositoryId());
+		return accessToken == null ? null : accessToken.getToken();
+	}
+
+	@Override
+	public void start() {
+		workers = Executors.newFixedThreadPool(config.getConcurrency(), new CustomizableThreadFactory("pr-migration-"));
+		running = true;
+		if (config.isResume()) {
+			resume();
+			long interval = config.getLease().toMillis();
+			resumer = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("pr-migration-resume-"));
+			resumer.scheduleWithFixedDelay(this::resumeSafely, interval, interval, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * Submits the active migrations, which includes the migrations abandoned by
+	 * an instance that stopped. Migrations that are claimed by another instance
+	 * are skipped by {@link #migrate(Long)}.
+	 */
+	private void resume() {
+		for (PullRequestMigration migration : migrations.findByStateIn(PullRequestMigrationRepository.ACTIVE_STATES)) {
+			if (migration.getLeaseExpires() == null || !migration.getLeaseExpires().after(new Date())) {
+				log.info("Resuming {}", migration);
+				submit(migration.getId());
+			}
+		}
+	}
+
+	private void resumeSafely() {
+		try {
+			resume();
+		} catch (Exception e) {
+			log.error("Could not resume Pull Request migrations", e);
+		}
+	}
+
+	@Override
+	public void stop() {
+		running = false;
+		if (resumer != null) {
+			resumer.shutdownNow();
+		}
+		if (workers != null) {
+			workers.shutdown();
+		}
+	}
+
+	@Override
+	public boolean isRunning() {
+		return running;
+	}
+}
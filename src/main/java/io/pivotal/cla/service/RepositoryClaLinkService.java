@@ -0,0 +1,277 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.service;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.eclipse.egit.github.core.client.RequestException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import io.pivotal.cla.config.GitHubHooksConfig;
+import io.pivotal.cla.data.AccessToken;
+import io.pivotal.cla.data.RepositoryClaLink;
+import io.pivotal.cla.data.repository.AccessTokenRepository;
+import io.pivotal.cla.data.repository.RepositoryClaLinkRepository;
+import io.pivotal.cla.service.github.GitHubApi;
+
+/**
+ * Keeps track of the CLAs each repository is linked to, so that they can be
+ * found without listing the hooks of the repository on GitHub. The links are
+ * recorded when CLAs are linked, updated from the meta and repository events
+ * of the hooks, and reconciled with the hooks on GitHub every
+ * {@link GitHubHooksConfig#getReconcileInterval()} to catch any drift (i.e.
+ * hooks that were edited on GitHub).
+ */
+@Component
+public class RepositoryClaLinkService implements SmartLifecycle {
+	private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(RepositoryClaLinkService.class);
+	private final RepositoryClaLinkRepository links;
+	private final AccessTokenRepository accessTokens;
+	private final GitHubApi gitHub;
+	private final GitHubHooksConfig config;
+	private ScheduledExecutorService reconciler;
+	private volatile boolean running;
+
+	@Autowired
+	public RepositoryClaLinkService(RepositoryClaLinkRepository links, AccessTokenRepository accessTokens, GitHubApi gitHub, GitHubHooksConfig config) {
+		this.links = links;
+		this.accessTokens = accessTokens;
+		this.gitHub = gitHub;
+		this.config = config;
+	}
+
+	/**
+	 * Records that the repositories were linked to a CLA.
+	 *
+	 * @param claName the name of the CLA
+	 * @param repositoryIds the repositories
+	 * @param hookUrls the URLs of the hooks in the same order as the repositories
+	 * (i.e. https://github.com/spring-projects/spring-security/settings/hooks/1)
+	 * @param linkedBy the GitHub login of the user that linked the repositories
+	 */
+	public void link(String claName, List<String> repositoryIds, List<String> hookUrls, String linkedBy) {
+		Date now = new Date();
+		for (int i = 0; i < repositoryIds.size(); i++) {
+			String repositoryId = repositoryIds.get(i);
+			RepositoryClaLink link = findLink(repositoryId, claName);
+			if (link == null) {
+				link = new RepositoryClaLink();
+				link.setRepositoryId(repositoryId);
+				link.setClaName(claName);
+			}
+			link.setHookId(i < hookUrls.size() ? hookId(hookUrls.get(i)) : null);
+			link.setLinkedBy(linkedBy);
+			link.setLinked(now);
+			links.save(link);
+		}
+	}
+
+	/**
+	 * @param repositoryId the repository in the format of
+	 * spring-projects/spring-security
+	 * @return the names of the CLAs the repository is linked to
+	 */
+	public Set<String> findClaNames(String repositoryId) {
+		return links.findByRepositoryId(repositoryId).stream().map(RepositoryClaLink::getClaName).collect(Collectors.toCollection(LinkedHashSet::new));
+	}
+
+	/**
+	 * Replaces the links of a repository with the hooks that were found on GitHub.
+	 *
+	 * @param repositoryId the repository
+	 * @param claHooks the ids of the hooks by CLA name (as found in the URL of
+	 * the hook)
+	 * @return the names of the CLAs the repository is linked to
+	 */
+	public Set<String> update(String repositoryId, Map<String, Long> claHooks) {
+		Map<String, Long> hooks = new HashMap<>();
+		claHooks.forEach((claName, hookId) -> hooks.put(decode(claName), hookId));
+		for (RepositoryClaLink link : links.findByRepositoryId(repositoryId)) {
+			if (!hooks.containsKey(link.getClaName())) {
+				log.info("Removing {} which is no longer on GitHub", link);
+				links.delete(link);
+				continue;
+			}
+			Long hookId = hooks.remove(link.getClaName());
+			if (!Objects.equals(hookId, link.getHookId())) {
+				link.setHookId(hookId);
+				links.save(link);
+			}
+		}
+		Date now = new Date();
+		hooks.forEach((claName, hookId) -> {
+			RepositoryClaLink link = new RepositoryClaLink();
+			link.setRepositoryId(repositoryId);
+			link.setClaName(claName);
+			link.setHookId(hookId);
+			link.setLinked(now);
+			log.info("Adding {} which was found on GitHub", link);
+			links.save(link);
+		});
+		return findClaNames(repositoryId);
+	}
+
+	/**
+	 * Removes the link when the hook of a CLA was deleted.
+	 *
+	 * @param repositoryId the repository
+	 * @param claName the name of the CLA
+	 */
+	public void unlink(String repositoryId, String claName) {
+		links.deleteByRepositoryIdAndClaName(repositoryId, claName);
+	}
+
+	/**
+	 * Removes all links of a repository that was deleted.
+	 *
+	 * @param repositoryId the repository
+	 */
+	public void unlinkAll(String repositoryId) {
+		links.deleteByRepositoryId(repositoryId);
+	}
+
+	/**
+	 * Moves the links and the access token of a repository that was renamed or
+	 * transferred. GitHub keeps the hooks of the repository.
+	 *
+	 * @param from the previous id of the repository
+	 * @param to the new id of the repository
+	 */
+	public void rename(String from, String to) {
+		if (from.equals(to)) {
+			return;
+		}
+		Set<String> existing = findClaNames(to);
+		for (RepositoryClaLink link : links.findByRepositoryId(from)) {
+			if (existing.contains(link.getClaName())) {
+				links.delete(link);
+			} else {
+				link.setRepositoryId(to);
+				links.save(link);
+			}
+		}
+		AccessToken accessToken = accessTokens.findOne(from);
+		if (accessToken != null && accessTokens.findOne(to) == null) {
+			AccessToken moved = new AccessToken();
+			moved.setId(to);
+			moved.setToken(accessToken.getToken());
+			accessTokens.save(moved);
+			accessTokens.delete(accessToken);
+		}
+	}
+
+	/**
+	 * Reconciles the links of every repository that is linked or has an access
+	 * token with the hooks on GitHub.
+	 */
+	void reconcile() {
+		Set<String> repositoryIds = new LinkedHashSet<>(links.findRepositoryIds());
+		for (AccessToken accessToken : accessTokens.findAll()) {
+			if (!AccessToken.CLA_ACCESS_TOKEN_ID.equals(accessToken.getId())) {
+				repositoryIds.add(accessToken.getId());
+			}
+		}
+		for (String repositoryId : repositoryIds) {
+			if (!running) {
+				return;
+			}
+			AccessToken accessToken = accessTokens.findOne(repositoryId);
+			try {
+				update(repositoryId, accessToken == null ? Collections.emptyMap() : gitHub.findClaHooks(repositoryId, accessToken.getToken()));
+			} catch (RuntimeException e) {
+				if (isNotFound(e)) {
+					log.info("Removing the links of {} which cannot be found on GitHub", repositoryId);
+					unlinkAll(repositoryId);
+				} else {
+					log.warn("Could not reconcile the links of {}", repositoryId, e);
+				}
+			}
+		}
+	}
+
+	private void reconcileSafely() {
+		try {
+			reconcile();
+		} catch (Exception e) {
+			log.error("Could not reconcile the repository links", e);
+		}
+	}
+
+	private RepositoryClaLink findLink(String repositoryId, String claName) {
+		return links.findByRepositoryId(repositoryId).stream().filter(l -> l.getClaName().equals(claName)).findFirst().orElse(null);
+	}
+
+	private static Long hookId(String hookUrl) {
+		String id = hookUrl.substring(hookUrl.lastIndexOf('/') + 1);
+		try {
+			return Long.valueOf(id);
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	private static String decode(String claName) {
+		try {
+			return URLDecoder.decode(claName, "UTF-8");
+		} catch (UnsupportedEncodingException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private static boolean isNotFound(RuntimeException e) {
+		Throwable cause = e.getCause();
+		return cause instanceof RequestException && ((RequestException) cause).getStatus() == HttpStatus.NOT_FOUND.value();
+	}
+
+	@Override
+	public void start() {
+		running = true;
+		long interval = config.getReconcileInterval().toMillis();
+		if (interval <= 0) {
+			return;
+		}
+		reconciler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("link-reconciler-"));
+		reconciler.scheduleWithFixedDelay(this::reconcileSafely, interval, interval, TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public void stop() {
+		running = false;
+		if (reconciler != null) {
+			reconciler.shutdownNow();
+		}
+	}
+
+	@Override
+	public boolean isRunning() {
+		return running;
+	}
+}
@@ -0,0 +1,381 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.service;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.pivotal.cla.config.SignerIndexConfig;
+import io.pivotal.cla.data.CorporateSignature;
+import io.pivotal.cla.data.IndividualSignature;
+import io.pivotal.cla.data.repository.ClaAcceptanceRepository;
+import io.pivotal.cla.data.repository.CorporateSignatureRepository;
+import io.pivotal.cla.data.repository.IndividualSignatureRepository;
+
+/**
+ * An in-memory index of who signed which CLA, so that determining if a user
+ * has signed a CLA takes a few hash lookups rather than database queries. The
+ * index is built on startup and signatures are added as they are saved. The
+ * signatures saved by other instances of the application are loaded every
+ * {@link SignerIndexConfig#getRefreshInterval()} and the whole index is
+ * compared with the database every
+ * {@link SignerIndexConfig#getVerifyInterval()}. The users that the signatures
+ * of other instances apply to are evicted from the {@link UnsignedCache}.
+ *
+ * <p>
+ * The ids of the signatures are allocated before they are committed, so a
+ * signature can commit after a signature with a higher id was loaded. Every
+ * refresh therefore loads the last {@link SignerIndexConfig#getRefreshOverlap()}
+ * ids again. A signature of another instance is missing from the index for at
+ * most the refresh interval (30 seconds by default), unless more ids than the
+ * overlap were allocated while it was being committed. Only then it is missing
+ * until the index is verified (an hour by default).
+ *
+ * <p>
+ * The signatures are indexed by the name of their CLA, because a signature of
+ * any CLA with the same name (or a CLA superseding it) is accepted. The names
+ * that are accepted for each CLA are loaded from the
+ * {@link io.pivotal.cla.data.ClaAcceptance} rows. Like the database, the keys
+ * are compared case insensitively.
+ */
+@Component
+public class SignerIndex implements SmartLifecycle {
+	private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(SignerIndex.class);
+	static final String METRIC_NAME = "cla.signer.index.drift";
+	static final String ORGANIZATIONS_METRIC_NAME = "cla.signer.index.organizations";
+	private final IndividualSignatureRepository individualSignatures;
+	private final CorporateSignatureRepository corporateSignatures;
+	private final ClaAcceptanceRepository acceptances;
+	private final UnsignedCache unsignedCache;
+	private final SignerIndexConfig config;
+	private final Counter drift;
+	private final Counter organizationsSkipped;
+	private final Counter organizationsRequested;
+	/**
+	 * The signers or null if the index is not built (yet)
+	 */
+	private volatile Signers signers;
+	/**
+	 * The names of the CLAs whose signatures are accepted by the name of the CLA
+	 */
+	private volatile Map<String, Set<String>> acceptedNames = Collections.emptyMap();
+	private ScheduledExecutorService refresher;
+	private volatile boolean running;
+
+	@Autowired
+	public SignerIndex(IndividualSignatureRepository individualSignatures, CorporateSignatureRepository corporateSignatures, ClaAcceptanceRepository acceptances, UnsignedCache unsignedCache, SignerIndexConfig config, MeterRegistry meterRegistry) {
+		this.individualSignatures = individualSignatures;
+		this.corporateSignatures = corporateSignatures;
+		this.acceptances = acceptances;
+		this.unsignedCache = unsignedCache;
+		this.config = config;
+		this.drift = Counter.builder(METRIC_NAME)
+				.description("Entries of the signer index that did not match the database").register(meterRegistry);
+		this.organizationsSkipped = Counter.builder(ORGANIZATIONS_METRIC_NAME).tag("result", "skipped")
+				.description("Organization lookups that were skipped since no corporate signature could match").register(meterRegistry);
+		this.organizationsRequested = Counter.builder(ORGANIZATIONS_METRIC_NAME).tag("result", "requested")
+				.description("Organization lookups that were requested from GitHub").register(meterRegistry);
+	}
+
+	/**
+	 * @return true if the index can be used, otherwise the signatures must be
+	 * looked up in the database
+	 */
+	public boolean isReady() {
+		return signers != null;
+	}
+
+	/**
+	 * @param claName the name of the CLA
+	 * @param gitHubLogin the GitHub login of the user
+	 * @param emails the verified emails of the user
+	 * @return true if there is an individual signature of the CLA (or a CLA
+	 * superseding it) for the login or any of the emails
+	 */
+	public boolean hasSignedIndividual(String claName, String gitHubLogin, Collection<String> emails) {
+		Set<String> claNames = acceptedClaNames(claName);
+		Signers current = signers;
+		if (signed(current.logins, gitHubLogin, claNames)) {
+			return true;
+		}
+		return emails.stream().anyMatch(email -> signed(current.emails, email, claNames));
+	}
+
+	/**
+	 * Looks up the email domains before the organizations, so the organizations
+	 * are only requested from GitHub if none of the domains is covered and there
+	 * is a corporate signature for an organization that the user could be a
+	 * member of.
+	 *
+	 * @param claName the name of the CLA
+	 * @param emails the verified emails of the user
+	 * @param organizations the GitHub organizations of the user
+	 * @return true if there is a corporate signature of the CLA (or a CLA
+	 * superseding it) for any of the email domains or organizations
+	 */
+	public boolean hasSignedCorporate(String claName, Collection<String> emails, Supplier<List<String>> organizations) {
+		Set<String> claNames = acceptedClaNames(claName);
+		Signers current = signers;
+		if (emails.stream().anyMatch(email -> signed(current.emailDomains, emailDomain(email), claNames))) {
+			return true;
+		}
+		if (claNames.stream().noneMatch(current.organizationClaNames::contains)) {
+			organizationsSkipped.increment();
+			return false;
+		}
+		organizationsRequested.increment();
+		return organizations.get().stream().anyMatch(organization -> signed(current.organizations, organization, claNames));
+	}
+
+	/**
+	 * Adds a signature that was just saved.
+	 */
+	public void add(IndividualSignature signature) {
+		Signers current = signers;
+		if (current != null && signature.getCla() != null) {
+			current.addIndividual(signature.getGitHubLogin(), signature.getEmail(), signature.getCla().getName());
+		}
+	}
+
+	/**
+	 * Adds a signature that was just saved.
+	 */
+	public void add(CorporateSignature signature) {
+		Signers current = signers;
+		if (current != null && signature.getCla() != null) {
+			current.addCorporate(signature.getGitHubOrganization(), signature.getEmailDomain(), signature.getCla().getName());
+		}
+	}
+
+	/**
+	 * Reloads which CLAs are accepted for which. Invoked when a CLA was saved or
+	 * deleted, after the {@link ClaAcceptanceService} rebuilt the acceptances.
+	 */
+	public void refreshClas() {
+		if (!config.isEnabled()) {
+			return;
+		}
+		Map<String, Set<String>> result = new HashMap<>();
+		for (ClaAcceptanceRepository.AcceptedName accepted : acceptances.findAcceptedNames()) {
+			result.computeIfAbsent(lowerCase(accepted.getClaName()), n -> new HashSet<>()).add(lowerCase(accepted.getAcceptedClaName()));
+		}
+		acceptedNames = result;
+	}
+
+	/**
+	 * Builds the index if it was not built yet, otherwise loads the signatures
+	 * that were added since the last refresh.
+	 */
+	void refresh() {
+		refreshClas();
+		Signers current = signers;
+		if (current == null) {
+			signers = load(new Signers(), false);
+		} else {
+			load(current, true);
+		}
+	}
+
+	/**
+	 * Builds a new index from the database and replaces the current index if
+	 * they do not match.
+	 *
+	 * @return the number of entries that did not match
+	 */
+	int verify() {
+		Signers current = signers;
+		if (current == null) {
+			return 0;
+		}
+		Signers loaded = load(new Signers(), false);
+		int differences = current.differences(loaded);
+		if (differences > 0) {
+			log.warn("Replacing the signer index since {} entries did not match the database", differences);
+			drift.increment(differences);
+			signers = loaded;
+		}
+		return differences;
+	}
+
+	/**
+	 * @param evict true if the users the loaded signatures apply to must be
+	 * evicted from the {@link UnsignedCache} (i.e. they may have been saved by
+	 * another instance)
+	 */
+	private Signers load(Signers signers, boolean evict) {
+		for (IndividualSignatureRepository.Signer signer : individualSignatures.findSignersAfter(overlap(signers.lastIndividualId))) {
+			boolean added = signers.addIndividual(signer.getGitHubLogin(), signer.getEmail(), signer.getClaName());
+			signers.lastIndividualId = Math.max(signers.lastIndividualId, signer.getId());
+			if (evict && added) {
+				unsignedCache.evictIndividual(signer.getGitHubLogin(), signer.getEmail());
+			}
+		}
+		boolean corporateAdded = false;
+		for (CorporateSignatureRepository.Signer signer : corporateSignatures.findSignersAfter(overlap(signers.lastCorporateId))) {
+			corporateAdded |= signers.addCorporate(signer.getGitHubOrganization(), signer.getEmailDomain(), signer.getClaName());
+			signers.lastCorporateId = Math.max(signers.lastCorporateId, signer.getId());
+		}
+		if (evict && corporateAdded) {
+			unsignedCache.evictCorporate();
+		}
+		return signers;
+	}
+
+	/**
+	 * @return the id after which signatures are loaded again, so that the
+	 * signatures committed late are not missed
+	 */
+	private long overlap(long lastId) {
+		return Math.max(0, lastId - config.getRefreshOverlap());
+	}
+
+	private Set<String> acceptedClaNames(String claName) {
+		String name = lowerCase(claName);
+		return acceptedNames.getOrDefault(name, Collections.singleton(name));
+	}
+
+	private static boolean signed(Map<String, Set<String>> signed, String key, Set<String> claNames) {
+		if (key == null) {
+			return false;
+		}
+		Set<String> signedClaNames = signed.get(lowerCase(key));
+		return signedClaNames != null && claNames.stream().anyMatch(signedClaNames::contains);
+	}
+
+	private static String emailDomain(String email) {
+		return email.substring(email.lastIndexOf("@") + 1);
+	}
+
+	private static String lowerCase(String value) {
+		return value.toLowerCase(Locale.ENGLISH);
+	}
+
+	private void runSafely(Runnable task, String description) {
+		try {
+			task.run();
+		} catch (Exception e) {
+			log.error("Could not {} the signer index", description, e);
+		}
+	}
+
+	@Override
+	public void start() {
+		running = true;
+		if (!config.isEnabled()) {
+			return;
+		}
+		runSafely(this::refresh, "build");
+		refresher = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("signer-index-"));
+		long refreshInterval = config.getRefreshInterval().toMillis();
+		if (refreshInterval > 0) {
+			refresher.scheduleWithFixedDelay(() -> runSafely(this::refresh, "refresh"), refreshInterval, refreshInterval, TimeUnit.MILLISECONDS);
+		}
+		long verifyInterval = config.getVerifyInterval().toMillis();
+		if (verifyInterval > 0) {
+			refresher.scheduleWithFixedDelay(() -> runSafely(this::verify, "verify"), verifyInterval, verifyInterval, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	@Override
+	public void stop() {
+		running = false;
+		if (refresher != null) {
+			refresher.shutdownNow();
+		}
+	}
+
+	@Override
+	public boolean isRunning() {
+		return running;
+	}
+
+	/**
+	 * The names of the signed CLAs by login, email, email domain and
+	 * organization. Only the refresher thread loads signatures, but signatures
+	 * are added concurrently as they are saved.
+	 */
+	static class Signers {
+		final Map<String, Set<String>> logins = new ConcurrentHashMap<>();
+		final Map<String, Set<String>> emails = new ConcurrentHashMap<>();
+		final Map<String, Set<String>> emailDomains = new ConcurrentHashMap<>();
+		final Map<String, Set<String>> organizations = new ConcurrentHashMap<>();
+		/**
+		 * The names of the CLAs with a corporate signature for an organization
+		 */
+		final Set<String> organizationClaNames = ConcurrentHashMap.newKeySet();
+		long lastIndividualId;
+		long lastCorporateId;
+
+		/**
+		 * @return true if the index did not contain the signature yet
+		 */
+		boolean addIndividual(String gitHubLogin, String email, String claName) {
+			boolean added = put(logins, gitHubLogin, claName);
+			return put(emails, email, claName) || added;
+		}
+
+		/**
+		 * @return true if the index did not contain the signature yet
+		 */
+		boolean addCorporate(String organization, String emailDomain, String claName) {
+			boolean added = put(organizations, organization, claName);
+			if (organization != null && claName != null) {
+				organizationClaNames.add(lowerCase(claName));
+			}
+			return put(emailDomains, emailDomain, claName) || added;
+		}
+
+		int differences(Signers other) {
+			return differences(logins, other.logins) + differences(emails, other.emails)
+					+ differences(emailDomains, other.emailDomains) + differences(organizations, other.organizations);
+		}
+
+		private static boolean put(Map<String, Set<String>> signed, String key, String claName) {
+			if (key == null || claName == null) {
+				return false;
+			}
+			return signed.computeIfAbsent(lowerCase(key), k -> ConcurrentHashMap.newKeySet()).add(lowerCase(claName));
+		}
+
+		private static int differences(Map<String, Set<String>> signed, Map<String, Set<String>> other) {
+			Set<String> keys = new HashSet<>(signed.keySet());
+			keys.addAll(other.keySet());
+			int result = 0;
+			for (String key : keys) {
+				if (!signed.getOrDefault(key, Collections.emptySet()).equals(other.getOrDefault(key, Collections.emptySet()))) {
+					result++;
+				}
+			}
+			return result;
+		}
+	}
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import io.pivotal.cla.data.ClaAcceptance;
+import io.pivotal.cla.data.ContributorLicenseAgreement;
+import io.pivotal.cla.data.CorporateSignature;
+import io.pivotal.cla.data.IndividualSignature;
+import io.pivotal.cla.data.Signer;
+import io.pivotal.cla.data.Signer.Kind;
+import io.pivotal.cla.data.repository.ClaAcceptanceRepository;
+import io.pivotal.cla.data.repository.CorporateSignatureRepository;
+import io.pivotal.cla.data.repository.IndividualSignatureRepository;
+import io.pivotal.cla.data.repository.SignerRepository;
+
+/**
+ * Saves the signatures along with their {@link Signer} rows in a single
+ * transaction, so the rows never disagree with the signatures. Once the
+ * transaction committed, the signature is added to the {@link SignerIndex} and
+ * the {@link UnsignedCache} entries it may have changed are evicted.
+ */
+@Component
+public class SignerService {
+	private final IndividualSignatureRepository individualSignatures;
+	private final CorporateSignatureRepository corporateSignatures;
+	private final ClaAcceptanceRepository acceptances;
+	private final SignerRepository signers;
+	private final SignerIndex signerIndex;
+	private final UnsignedCache unsignedCache;
+
+	@Autowired
+	public SignerService(IndividualSignatureRepository individualSignatures, CorporateSignatureRepository corporateSignatures, ClaAcceptanceRepository acceptances, SignerRepository signers, SignerIndex signerIndex, UnsignedCache unsignedCache) {
+		this.individualSignatures = individualSignatures;
+		this.corporateSignatures = corporateSignatures;
+		this.acceptances = acceptances;
+		this.signers = signers;
+		this.signerIndex = signerIndex;
+		this.unsignedCache = unsignedCache;
+	}
+
+	@Transactional
+	public void save(IndividualSignature signature) {
+		individualSignatures.save(signature);
+		List<Signer> rows = new ArrayList<>();
+		for (String claName : findAcceptedFor(signature.getCla())) {
+			add(rows, claName, Kind.LOGIN, signature.getGitHubLogin());
+			add(rows, claName, Kind.EMAIL, signature.getEmail());
+		}
+		signers.saveAll(rows);
+		afterCommit(() -> {
+			signerIndex.add(signature);
+			unsignedCache.evict(signature);
+		});
+	}
+
+	@Transactional
+	public void save(CorporateSignature signature) {
+		corporateSignatures.save(signature);
+		List<Signer> rows = new ArrayList<>();
+		for (String claName : findAcceptedFor(signature.getCla())) {
+			add(rows, claName, Kind.DOMAIN, signature.getEmailDomain());
+			add(rows, claName, Kind.ORGANIZATION, signature.getGitHubOrganization());
+		}
+		signers.saveAll(rows);
+		afterCommit(() -> {
+			signerIndex.add(signature);
+			unsignedCache.evict(signature);
+		});
+	}
+
+	/**
+	 * Replaces the rows of every signature. Invoked when the
+	 * {@link ClaAcceptance} rows changed.
+	 */
+	@Transactional
+	public void rebuild() {
+		signers.deleteAllSigners();
+		signers.insertAllSigners();
+	}
+
+	private List<String> findAcceptedFor(ContributorLicenseAgreement cla) {
+		List<String> result = new ArrayList<>();
+		if (cla == null || cla.getId() == null) {
+			return result;
+		}
+		for (ClaAcceptance acceptance : acceptances.findByAcceptedClaId(cla.getId())) {
+			result.add(acceptance.getClaName());
+		}
+		return result;
+	}
+
+	/**
+	 * Runs the action once the current transaction committed, so that a
+	 * signature that is rolled back is never reported as signed.
+	 */
+	private static void afterCommit(Runnable action) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			action.run();
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+			@Override
+			public void afterCommit() {
+				action.run();
+			}
+		});
+	}
+
+	private static void add(List<Signer> rows, String claName, Kind kind, String identityValue) {
+		if (identityValue != null) {
+			rows.add(new Signer(claName, kind, identityValue));
+		}
+	}
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.service;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiPredicate;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.pivotal.cla.config.UnsignedCacheConfig;
+import io.pivotal.cla.data.CorporateSignature;
+import io.pivotal.cla.data.IndividualSignature;
+import io.pivotal.cla.data.User;
+
+/**
+ * Remembers the GitHub logins that have not signed a CLA for
+ * {@link UnsignedCacheConfig#getTtl()}, since the events of their Pull
+ * Requests keep asking the same question. The entries that a signature, a
+ * change of a CLA or a change of a user could affect are evicted immediately,
+ * so the cache never delays a user being considered as signed.
+ *
+ * <p>
+ * A result is only remembered if nothing was evicted while it was determined,
+ * otherwise a result that was determined before a signature was saved could be
+ * remembered after the signature evicted it.
+ */
+@Component
+public class UnsignedCache {
+	static final String METRIC_NAME = "cla.unsigned.cache";
+	static final String EVICTIONS_METRIC_NAME = "cla.unsigned.cache.evictions";
+	private final UnsignedCacheConfig config;
+	private final Map<String, Unsigned> unsigned;
+	private final AtomicLong generation = new AtomicLong();
+	private final Counter hits;
+	private final Counter misses;
+	private final MeterRegistry meterRegistry;
+
+	@Autowired
+	public UnsignedCache(UnsignedCacheConfig config, MeterRegistry meterRegistry) {
+		this.config = config;
+		this.meterRegistry = meterRegistry;
+		this.unsigned = new LinkedHashMap<String, Unsigned>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Unsigned> eldest) {
+				return size() > config.getMaxSize();
+			}
+		};
+		this.hits = Counter.builder(METRIC_NAME).tag("result", "hit")
+				.description("Lookups of users that were known not to have signed a CLA").register(meterRegistry);
+		this.misses = Counter.builder(METRIC_NAME).tag("result", "miss")
+				.description("Lookups of users that had to be looked up").register(meterRegistry);
+	}
+
+	/**
+	 * @return the value to pass to {@link #putUnsigned(User, String, long)}
+	 * once the result was determined
+	 */
+	public long generation() {
+		return generation.get();
+	}
+
+	/**
+	 * @param gitHubLogin the GitHub login of the user
+	 * @param claName the name of the CLA
+	 * @return true if the user is known not to have signed the CLA
+	 */
+	public boolean isUnsigned(String gitHubLogin, String claName) {
+		if (!config.isEnabled()) {
+			return false;
+		}
+		long now = System.currentTimeMillis();
+		boolean hit;
+		synchronized (unsigned) {
+			Unsigned entry = unsigned.get(lowerCase(gitHubLogin));
+			Long expires = entry == null ? null : entry.claNames.get(lowerCase(claName));
+			hit = expires != null && expires > now;
+		}
+		(hit ? hits : misses).increment();
+		return hit;
+	}
+
+	/**
+	 * Remembers that the user has not signed the CLA.
+	 *
+	 * @param user the user whose emails were used to determine the result
+	 * @param claName the name of the CLA
+	 * @param generation the value of {@link #generation()} before the result
+	 * was determined
+	 */
+	public void putUnsigned(User user, String claName, long generation) {
+		if (!config.isEnabled()) {
+			return;
+		}
+		long expires = System.currentTimeMillis() + config.getTtl().toMillis();
+		Set<String> emails = user.getEmails().stream().map(UnsignedCache::lowerCase).collect(Collectors.toSet());
+		synchronized (unsigned) {
+			if (this.generation.get() != generation) {
+				return;
+			}
+			Unsigned entry = unsigned.get(lowerCase(user.getGitHubLogin()));
+			if (entry == null || !entry.emails.equals(emails)) {
+				entry = new Unsigned(emails);
+				unsigned.put(lowerCase(user.getGitHubLogin()), entry);
+			}
+			entry.claNames.put(lowerCase(claName), expires);
+		}
+	}
+
+	/**
+	 * Evicts a user whose emails or organizations may have changed.
+	 */
+	public void evictUser(String gitHubLogin) {
+		String evictedLogin = lowerCase(gitHubLogin);
+		evict("user", (login, entry) -> login.equals(evictedLogin));
+	}
+
+	/**
+	 * Evicts the user that the signature was saved for.
+	 */
+	public void evict(IndividualSignature signature) {
+		evictIndividual(signature.getGitHubLogin(), signature.getEmail());
+	}
+
+	/**
+	 * Evicts the users with the login or email of an individual signature.
+	 */
+	public void evictIndividual(String gitHubLogin, String email) {
+		String evictedLogin = gitHubLogin == null ? null : lowerCase(gitHubLogin);
+		String evictedEmail = email == null ? null : lowerCase(email);
+		evict("individual-signature", (login, entry) -> login.equals(evictedLogin) || entry.emails.contains(evictedEmail));
+	}
+
+	/**
+	 * Evicts every user, since the organization of a corporate signature can
+	 * cover any of them.
+	 */
+	public void evict(CorporateSignature signature) {
+		evictCorporate();
+	}
+
+	/**
+	 * Evicts every user after a corporate signature was saved.
+	 */
+	public void evictCorporate() {
+		evict("corporate-signature", (login, entry) -> true);
+	}
+
+	/**
+	 * Evicts every user after a CLA was changed.
+	 */
+	public void evictAll() {
+		evict("cla", (login, entry) -> true);
+	}
+
+	private void evict(String reason, BiPredicate<String, Unsigned> matches) {
+		int evicted = 0;
+		synchronized (unsigned) {
+			generation.incrementAndGet();
+			for (Iterator<Map.Entry<String, Unsigned>> entries = unsigned.entrySet().iterator(); entries.hasNext();) {
+				Map.Entry<String, Unsigned> entry = entries.next();
+				if (matches.test(entry.getKey(), entry.getValue())) {
+					evicted += entry.getValue().claNames.size();
+					entries.remove();
+				}
+			}
+		}
+		if (evicted > 0) {
+			Counter.builder(EVICTIONS_METRIC_NAME).tag("reason", reason)
+					.description("Users that were no longer known not to have signed a CLA").register(meterRegistry).increment(evicted);
+		}
+	}
+
+	private static String lowerCase(String value) {
+		return value.toLowerCase(Locale.ENGLISH);
+	}
+
+	private static class Unsigned {
+		final Set<String> emails;
+		/**
+		 * When the result expires by the name of the CLA
+		 */
+		final Map<String, Long> claNames = new HashMap<>();
+
+		Unsigned(Set<String> emails) {
+			this.emails = emails;
+		}
+	}
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.service.github;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
+import org.eclipse.egit.github.core.PullRequest;
+
+import io.pivotal.cla.data.User;
+
+/**
+ * A non-blocking companion of {@link GitHubApi}, so that independent requests to
+ * GitHub can be made concurrently. The results are completed exceptionally if
+ * the request fails, times out or cannot be scheduled.
+ *
+ * @see GitHubApi
+ */
+public interface AsyncGitHubApi {
+
+	CompletableFuture<List<String>> getOrganizations(String username);
+
+	CompletableFuture<Set<String>> getVerifiedEmails(String accessToken);
+
+	CompletableFuture<User> getCurrentUser(CurrentUserRequest request);
+
+	/**
+	 * @see GitHubApi#findPullRequest(String, int, String)
+	 */
+	CompletableFuture<Optional<PullRequest>> findPullRequest(String repoId, int pullRequestId, String accessToken);
+
+	/**
+	 * @see GitHubApi#findClaHooks(String, String)
+	 */
+	CompletableFuture<Map<String, Long>> findClaHooks(String repoId, String accessToken);
+
+	CompletableFuture<Void> save(PullRequestStatus status);
+
+	/**
+	 * Waits for the result of a request. Unlike {@link CompletableFuture#join()}
+	 * the cause of a failure is rethrown (if unchecked), so callers handle errors
+	 * the same way as with {@link GitHubApi}.
+	 *
+	 * @param future the result of a request
+	 * @return the value of the future
+	 */
+	static <T> T join(CompletableFuture<T> future) {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			future.cancel(true);
+			throw new IllegalStateException(e);
+		} catch (ExecutionException | CompletionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new IllegalStateException(cause);
+		}
+	}
+}
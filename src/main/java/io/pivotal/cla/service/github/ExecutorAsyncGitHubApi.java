@@ -0,0 +1,131 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.service.github;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import org.eclipse.egit.github.core.PullRequest;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import io.pivotal.cla.config.GitHubClientConfig;
+import io.pivotal.cla.data.User;
+
+/**
+ * An {@link AsyncGitHubApi} that runs the requests of a {@link GitHubApi} on a
+ * dedicated bounded pool, so that slow GitHub requests cannot exhaust the
+ * server threads or the common pool. Requests that are not done within
+ * {@link GitHubClientConfig#getAsyncTimeout()} are interrupted and fail with a
+ * {@link TimeoutException}.
+ */
+@Component
+public class ExecutorAsyncGitHubApi implements AsyncGitHubApi, DisposableBean {
+	private final GitHubApi gitHub;
+	private final ThreadPoolExecutor executor;
+	private final ScheduledExecutorService timeouts;
+	private final long timeoutMillis;
+
+	@Autowired
+	public ExecutorAsyncGitHubApi(GitHubApi gitHub, GitHubClientConfig config) {
+		this.gitHub = gitHub;
+		int threads = config.getAsyncThreads();
+		this.executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS, new ArrayBlockingQueue<>(config.getAsyncQueueCapacity()), new CustomizableThreadFactory("github-async-"));
+		this.executor.allowCoreThreadTimeOut(true);
+		this.timeouts = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("github-async-timeout-"));
+		this.timeoutMillis = config.getAsyncTimeout().toMillis();
+	}
+
+	@Override
+	public CompletableFuture<List<String>> getOrganizations(String username) {
+		return supply(() -> gitHub.getOrganizations(username));
+	}
+
+	@Override
+	public CompletableFuture<Set<String>> getVerifiedEmails(String accessToken) {
+		return supply(() -> gitHub.getVerifiedEmails(accessToken));
+	}
+
+	@Override
+	public CompletableFuture<User> getCurrentUser(CurrentUserRequest request) {
+		return supply(() -> gitHub.getCurrentUser(request));
+	}
+
+	@Override
+	public CompletableFuture<Optional<PullRequest>> findPullRequest(String repoId, int pullRequestId, String accessToken) {
+		return supply(() -> gitHub.findPullRequest(repoId, pullRequestId, accessToken));
+	}
+
+	@Override
+	public CompletableFuture<Map<String, Long>> findClaHooks(String repoId, String accessToken) {
+		return supply(() -> gitHub.findClaHooks(repoId, accessToken));
+	}
+
+	@Override
+	public CompletableFuture<Void> save(PullRequestStatus status) {
+		return supply(() -> {
+			gitHub.save(status);
+			return null;
+		});
+	}
+
+	private <T> CompletableFuture<T> supply(Supplier<T> request) {
+		CompletableFuture<T> result = new CompletableFuture<>();
+		Future<?> task;
+		try {
+			task = executor.submit(() -> {
+				try {
+					result.complete(request.get());
+				} catch (Throwable failure) {
+					result.completeExceptionally(failure);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			result.completeExceptionally(e);
+			return result;
+		}
+		ScheduledFuture<?> timeout = timeouts.schedule(() -> result.completeExceptionally(new TimeoutException("GitHub request did not complete within " + timeoutMillis + "ms")), timeoutMillis, TimeUnit.MILLISECONDS);
+		result.whenComplete((value, failure) -> {
+			timeout.cancel(false);
+			if (result.isCancelled() || failure instanceof TimeoutException) {
+				// interrupt the request that is no longer waited for
+				task.cancel(true);
+			}
+		});
+		return result;
+	}
+
+	@Override
+	public void destroy() {
+		timeouts.shutdownNow();
+		executor.shutdownNow();
+	}
+}
@@ -16,6 +16,7 @@
 package io.pivotal.cla.service.github;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
@@ -54,7 +55,14 @@ public interface GitHubApi {
 
 	List<String> getOrganizations(String username);
 
-	ContributingUrlsResponse getContributingUrls(List<String> repositoryIds);
+	/**
+	 * Finds the links to edit (or create) the CONTRIBUTING file of each repository.
+	 *
+	 * @param repositoryIds the repositories
+	 * @param accessToken the token of the administrator linking the repositories
+	 * @return the links
+	 */
+	ContributingUrlsResponse getContributingUrls(List<String> repositoryIds, String accessToken);
 
 	String markdownToHtml(String accessToken, String markdown);
 
@@ -67,6 +75,15 @@ public interface GitHubApi {
 	 */
 	Set<String> findAssociatedClaNames(String repoId, String accessToken);
 
+	/**
+	 * Returns the ids of the active hooks that link the repository to a CLA.
+	 *
+	 * @param repoId repo slug in the format {@code owner/repository}
+	 * @param accessToken
+	 * @return the hook ids by CLA name
+	 */
+	Map<String, Long> findClaHooks(String repoId, String accessToken);
+
 	String getGitHubClaUserLogin();
 
 	/**
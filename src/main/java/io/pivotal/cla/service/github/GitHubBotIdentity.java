@@ -0,0 +1,171 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.service.github;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.time.Duration;
+import org.eclipse.egit.github.core.client.GitHubClient;
+import org.eclipse.egit.github.core.client.RequestException;
+import org.eclipse.egit.github.core.service.UserService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+import io.pivotal.cla.config.ClaOAuthConfig;
+import io.pivotal.cla.egit.github.core.client.OkHttpGitHubClient;
+import okhttp3.OkHttpClient;
+
+/**
+ * The login of the GitHub user that the CLA application acts as (the owner of
+ * {@link ClaOAuthConfig#getPivotalClaAccessToken()}). The login is resolved on
+ * first use and kept in memory until the access token changes.
+ *
+ * As a {@link HealthIndicator} the access token is verified against GitHub, so
+ * the application is reported down if the token is revoked. The result is
+ * cached for the {@link #setHealthCheckInterval(Duration) health check
+ * interval}, so probes do not call GitHub every time. If GitHub cannot be
+ * reached (i.e. an outage), the application stays up with the last known login.
+ */
+@Component
+public class GitHubBotIdentity implements HealthIndicator {
+	private final ClaOAuthConfig oauthConfig;
+	private final OkHttpClient httpClient;
+	private volatile Identity identity;
+	private volatile CheckedHealth checkedHealth;
+	private long healthCheckInterval = Duration.ofMinutes(5).toNanos();
+
+	@Autowired
+	public GitHubBotIdentity(ClaOAuthConfig oauthConfig, OkHttpClient gitHubHttpClient) {
+		this.oauthConfig = oauthConfig;
+		this.httpClient = gitHubHttpClient;
+	}
+
+	/**
+	 * @return the login of the CLA user
+	 */
+	public String getLogin() {
+		String accessToken = oauthConfig.getPivotalClaAccessToken();
+		Identity current = this.identity;
+		if (current == null || !current.isFor(accessToken)) {
+			current = resolve(accessToken, current);
+		}
+		return current.login;
+	}
+
+	/**
+	 * Resolves the login again (i.e. after the user was renamed).
+	 *
+	 * @return the login of the CLA user
+	 */
+	public String refresh() {
+		return resolve(oauthConfig.getPivotalClaAccessToken(), this.identity).login;
+	}
+
+	/**
+	 * @param healthCheckInterval how long the result of verifying the access token
+	 * is reused. The default is 5 minutes.
+	 */
+	public void setHealthCheckInterval(Duration healthCheckInterval) {
+		this.healthCheckInterval = healthCheckInterval.toNanos();
+	}
+
+	@Override
+	public Health health() {
+		String accessToken = oauthConfig.getPivotalClaAccessToken();
+		CheckedHealth current = this.checkedHealth;
+		if (current == null || !current.isFor(accessToken) || System.nanoTime() - current.checked >= this.healthCheckInterval) {
+			current = check(accessToken, current);
+		}
+		return current.health;
+	}
+
+	private synchronized CheckedHealth check(String accessToken, CheckedHealth stale) {
+		CheckedHealth current = this.checkedHealth;
+		if (current != stale && current != null && current.isFor(accessToken)) {
+			return current;
+		}
+		Health health;
+		try {
+			health = Health.up().withDetail("login", resolve(accessToken, this.identity).login).build();
+		} catch (RuntimeException e) {
+			health = unavailable(accessToken, e);
+		}
+		current = new CheckedHealth(accessToken, health);
+		this.checkedHealth = current;
+		return current;
+	}
+
+	/**
+	 * A revoked access token is reported down. Otherwise GitHub could not be
+	 * reached, which must not take the application out of service.
+	 */
+	private Health unavailable(String accessToken, RuntimeException e) {
+		if (e.getCause() instanceof RequestException && ((RequestException) e.getCause()).getStatus() == HttpURLConnection.HTTP_UNAUTHORIZED) {
+			return Health.down(e).build();
+		}
+		Identity current = this.identity;
+		if (current != null && current.isFor(accessToken)) {
+			return Health.up().withDetail("login", current.login).withDetail("error", String.valueOf(e.getCause())).build();
+		}
+		return Health.unknown().withException(e).build();
+	}
+
+	private synchronized Identity resolve(String accessToken, Identity stale) {
+		Identity current = this.identity;
+		if (current != stale && current != null && current.isFor(accessToken)) {
+			return current;
+		}
+		GitHubClient client = new OkHttpGitHubClient(oauthConfig.getGitHubApiHost(), oauthConfig.getPort(), oauthConfig.getScheme(), httpClient);
+		client.setOAuth2Token(accessToken);
+		try {
+			current = new Identity(accessToken, new UserService(client).getUser().getLogin());
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+		this.identity = current;
+		return current;
+	}
+
+	private static final class CheckedHealth {
+		private final String accessToken;
+		private final Health health;
+		private final long checked = System.nanoTime();
+
+		private CheckedHealth(String accessToken, Health health) {
+			this.accessToken = accessToken;
+			this.health = health;
+		}
+
+		private boolean isFor(String accessToken) {
+			return this.accessToken == null ? accessToken == null : this.accessToken.equals(accessToken);
+		}
+	}
+
+	private static final class Identity {
+		private final String accessToken;
+		private final String login;
+
+		private Identity(String accessToken, String login) {
+			this.accessToken = accessToken;
+			this.login = login;
+		}
+
+		private boolean isFor(String accessToken) {
+			return this.accessToken == null ? accessToken == null : this.accessToken.equals(accessToken);
+		}
+	}
+}
@@ -15,20 +15,31 @@
  */
 package io.pivotal.cla.service.github;
 
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.net.URI;
 import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import org.eclipse.egit.github.core.Comment;
 import org.eclipse.egit.github.core.CommitComment;
 import org.eclipse.egit.github.core.CommitStatus;
 import org.eclipse.egit.github.core.PullRequest;
 import org.eclipse.egit.github.core.RepositoryHook;
+import org.eclipse.egit.github.core.RepositoryContents;
 import org.eclipse.egit.github.core.RepositoryId;
 import org.eclipse.egit.github.core.client.GitHubClient;
 import org.eclipse.egit.github.core.client.RequestException;
+import org.eclipse.egit.github.core.service.ContentsService;
 import org.eclipse.egit.github.core.service.IssueService;
 import org.eclipse.egit.github.core.service.MarkdownService;
 import org.eclipse.egit.github.core.service.OrganizationService;
@@ -38,6 +49,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.RequestEntity;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.OkHttp3ClientHttpRequestFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 import org.springframework.web.client.HttpClientErrorException;
@@ -46,18 +59,21 @@ import org.springframework.web.util.UriComponentsBuilder;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import io.pivotal.cla.config.ClaOAuthConfig;
 import io.pivotal.cla.config.OAuthClientCredentials;
+import io.pivotal.cla.data.PullRequestDecision;
 import io.pivotal.cla.data.User;
 import io.pivotal.cla.egit.github.core.ContextCommitStatus;
 import io.pivotal.cla.egit.github.core.Email;
 import io.pivotal.cla.egit.github.core.EventsRepositoryHook;
 import io.pivotal.cla.egit.github.core.PullRequestId;
 import io.pivotal.cla.egit.github.core.WithPermissionsRepository;
+import io.pivotal.cla.egit.github.core.client.OkHttpGitHubClient;
 import io.pivotal.cla.egit.github.core.event.GithubEvents;
 import io.pivotal.cla.egit.github.core.service.ContextCommitService;
 import io.pivotal.cla.egit.github.core.service.EmailService;
 import io.pivotal.cla.egit.github.core.service.WithPermissionsRepositoryService;
 import io.pivotal.cla.mvc.util.UrlBuilder;
 import io.pivotal.cla.service.MigratePullRequestStatusRequest;
+import okhttp3.OkHttpClient;
 
 /**
  * @author Rob Winch
@@ -69,6 +85,10 @@ public class MylynGitHubApi implements GitHubApi {
 			"dependabot", "dependabot[bot]", "github-actions[bot]", "pfs-ci-gitbot", "mergify[bot]", "mergify"));
 	private static final String AUTHORIZE_URI = "login/oauth/access_token";
 	public static final String CONTRIBUTING_FILE = "CONTRIBUTING";
+	/**
+	 * The branch the CONTRIBUTING file is looked up in and edited on.
+	 */
+	static final String CONTRIBUTING_BRANCH = "main";
 	public static final String ADMIN_MAIL_SUFFIX = "@pivotal.io";
 	public static final Pattern PULL_REQUEST_CALLBACK_PATTERN = Pattern.compile(".*" + UrlBuilder.pullRequestHookCallbackPath("") + "([a-zA-Z0-9\\-\\s\\%\\+]*)(\\?.*)?");
 	public static final String CONTRIBUTOR_LICENSE_AGREEMENT = "Contributor License Agreement";
@@ -79,14 +99,56 @@ public class MylynGitHubApi implements GitHubApi {
 	public static final String OBVIOUS_FIX_SENTENCE = "this is an obvious fix";
 	public static final String TO_MANUALLY_SYNCHRONIZE_THE_STATUS = "to manually synchronize the status of this Pull Request";
 	public static final String FREQUENTLY_ASKED_QUESTIONS = "frequently asked questions";
+	static final String CLA_STATUS_CONTEXT = "ci/pivotal-cla";
+	/**
+	 * The number of repositories whose CONTRIBUTING file is looked up
+	 * concurrently.
+	 */
+	static final int CONTRIBUTING_LOOKUPS = 8;
+	static final long CONTRIBUTING_FILE_TTL_MILLIS = TimeUnit.MINUTES.toMillis(10);
 	private final ClaOAuthConfig oauthConfig;
 	private final String authorizeUrl;
-	private final RestTemplate rest = new RestTemplate();
+	private final OkHttpClient httpClient;
+	private final RestTemplate rest;
+	private final GitHubBotIdentity botIdentity;
+	private final PullRequestStateQuery pullRequestStateQuery;
+	private final PullRequestDecisionMemo decisionMemo;
+	/**
+	 * Looks up CONTRIBUTING files. The threads are only kept while repositories
+	 * are being linked.
+	 */
+	private final ThreadPoolExecutor contributingLookups;
+	private final Map<String, ContributingFile> contributingFiles = new ConcurrentHashMap<>();
 
-	@Autowired
 	public MylynGitHubApi(ClaOAuthConfig oauthConfig) {
+		this(oauthConfig, new OkHttpClient());
+	}
+
+	private MylynGitHubApi(ClaOAuthConfig oauthConfig, OkHttpClient gitHubHttpClient) {
+		this(oauthConfig, gitHubHttpClient, new GitHubBotIdentity(oauthConfig, gitHubHttpClient), new PullRequestStateQuery(oauthConfig, gitHubHttpClient, false));
+	}
+
+	public MylynGitHubApi(ClaOAuthConfig oauthConfig, OkHttpClient gitHubHttpClient, GitHubBotIdentity botIdentity, PullRequestStateQuery pullRequestStateQuery) {
+		this(oauthConfig, gitHubHttpClient, botIdentity, pullRequestStateQuery, PullRequestDecisionMemo.disabled());
+	}
+
+	@Autowired
+	public MylynGitHubApi(ClaOAuthConfig oauthConfig, OkHttpClient gitHubHttpClient, GitHubBotIdentity botIdentity, PullRequestStateQuery pullRequestStateQuery, PullRequestDecisionMemo decisionMemo) {
 		this.oauthConfig = oauthConfig;
 		this.authorizeUrl = oauthConfig.getGitHubBaseUrl() + AUTHORIZE_URI;
+		this.httpClient = gitHubHttpClient;
+		this.rest = new RestTemplate(new OkHttp3ClientHttpRequestFactory(gitHubHttpClient));
+		this.botIdentity = botIdentity;
+		this.pullRequestStateQuery = pullRequestStateQuery;
+		this.decisionMemo = decisionMemo;
+		this.contributingLookups = new ThreadPoolExecutor(CONTRIBUTING_LOOKUPS, CONTRIBUTING_LOOKUPS, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), contributingThreadFactory());
+		this.contributingLookups.allowCoreThreadTimeOut(true);
+	}
+
+	private static ThreadFactory contributingThreadFactory() {
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("github-contributing-");
+		threadFactory.setDaemon(true);
+		return threadFactory;
 	}
 
 	@Override
@@ -106,7 +168,7 @@ public class MylynGitHubApi implements GitHubApi {
 	}
 
 	private GitHubClient createClient(String accessToken) {
-		GitHubClient client = new GitHubClient(oauthConfig.getGitHubApiHost(), oauthConfig.getPort(), oauthConfig.getScheme());
+		GitHubClient client = new OkHttpGitHubClient(oauthConfig.getGitHubApiHost(), oauthConfig.getPort(), oauthConfig.getScheme(), httpClient);
 		client.setOAuth2Token(accessToken);
 		return client;
 	}
@@ -118,13 +180,80 @@ public class MylynGitHubApi implements GitHubApi {
 			return;
 		}
 		PullRequestId pullRequestId = PullRequestId.of(RepositoryId.createFromId(repoId), commitStatus.getPullRequestId());
+		PullRequestDecision decision = decisionMemo.find(pullRequestId, commitStatus);
+		if (decisionMemo.isUnchanged(decision, commitStatus)) {
+			return;
+		}
+		try {
+			save(pullRequestId, commitStatus, decision);
+		} catch (RuntimeException e) {
+			if (decision == null || !isNotFound(e)) {
+				throw e;
+			}
+			// a remembered comment was deleted, so start over with a full scan
+			decisionMemo.forget(pullRequestId);
+			save(pullRequestId, commitStatus, null);
+		}
+	}
+
+	/**
+	 * @param decision the last decision for the Pull Request. If not null, the
+	 * remembered comments of the CLA user are used rather than listing all
+	 * comments.
+	 */
+	private void save(PullRequestId pullRequestId, PullRequestStatus commitStatus, PullRequestDecision decision) {
+		String accessToken = commitStatus.getAccessToken();
 		boolean hasSignedCla = commitStatus.isSuccess();
 		GitHubClient client = createClient(accessToken);
 		String claUserLogin = getGitHubClaUserLogin();
-		List<Comment> comments = getComments(pullRequestId, getIssueService());
-		boolean obviousFix = isAllowedBot(commitStatus.getGitHubUsername()) || isObviousFix(pullRequestId, comments, claUserLogin, commitStatus.getPullRequestBody());
-		ContextCommitStatus status = createCommitStatusIfNecessary(pullRequestId, commitStatus, hasSignedCla, obviousFix, client);
-		createOrUpdatePullRequestComment(pullRequestId, commitStatus, hasSignedCla, obviousFix, status, comments, claUserLogin);
+		ContextCommitService commitService = new ContextCommitService(client);
+		List<Comment> comments;
+		boolean obviousFix;
+		Supplier<List<ContextCommitStatus>> statuses;
+		if (decision != null) {
+			comments = decisionMemo.findBotComments(pullRequestId, claUserLogin);
+			String obviousFixFullTrigger = ("@" + claUserLogin + " " + OBVIOUS_FIX_SENTENCE).toLowerCase(Locale.US);
+			obviousFix = isAllowedBot(commitStatus.getGitHubUsername()) || decision.isObviousFix() || hasObviousFix(commitStatus.getPullRequestBody(), obviousFixFullTrigger);
+			statuses = decision.getSha().equals(commitStatus.getSha()) ? () -> Collections.singletonList(decisionStatus(decision)) : () -> commitService.getContextStatuses(pullRequestId.getRepositoryId(), commitStatus.getSha());
+		} else {
+			PullRequestState state = pullRequestStateQuery.isEnabled() ? pullRequestStateQuery.fetch(pullRequestId, accessToken, CLA_STATUS_CONTEXT) : null;
+			if (state != null) {
+				if (commitStatus.getSha() == null) {
+					commitStatus.setSha(state.getHeadSha());
+				}
+				if (commitStatus.getPullRequestBody() == null) {
+					commitStatus.setPullRequestBody(state.getBody());
+				}
+			}
+			comments = state == null ? getComments(pullRequestId, getIssueService()) : state.getComments();
+			Supplier<List<? extends Comment>> reviewComments = state == null ? () -> getComments(pullRequestId, getPullRequestService()) : state::getReviewComments;
+			obviousFix = isAllowedBot(commitStatus.getGitHubUsername()) || isObviousFix(comments, reviewComments, claUserLogin, commitStatus.getPullRequestBody());
+			statuses = state != null && commitStatus.getSha() != null && commitStatus.getSha().equals(state.getHeadSha()) ? state::getHeadStatuses : () -> commitService.getContextStatuses(pullRequestId.getRepositoryId(), commitStatus.getSha());
+		}
+		ContextCommitStatus status = createCommitStatusIfNecessary(pullRequestId, commitStatus, hasSignedCla, obviousFix, commitService, statuses);
+		Comment botComment = createOrUpdatePullRequestComment(pullRequestId, commitStatus, hasSignedCla, obviousFix, status, comments, claUserLogin);
+		List<Comment> botComments = comments.stream().filter(comment -> comment.getUser() != null && claUserLogin.equals(comment.getUser().getLogin())).collect(Collectors.toList());
+		if (botComment != null && botComments.stream().noneMatch(c -> c.getId() == botComment.getId())) {
+			botComments.add(botComment);
+		}
+		decisionMemo.record(pullRequestId, commitStatus, obviousFix, status, botComment, botComments);
+	}
+
+	/**
+	 * The status that was written for the last decision, so that it does not need
+	 * to be read again while the sha is unchanged.
+	 */
+	private static ContextCommitStatus decisionStatus(PullRequestDecision decision) {
+		ContextCommitStatus status = new ContextCommitStatus();
+		status.setContext(CLA_STATUS_CONTEXT);
+		status.setState(decision.getStatusState());
+		status.setDescription(decision.getStatusDescription());
+		return status;
+	}
+
+	private static boolean isNotFound(RuntimeException e) {
+		Throwable cause = e.getCause();
+		return cause instanceof RequestException && ((RequestException) cause).getStatus() == HttpStatus.NOT_FOUND.value();
 	}
 
 	private boolean isAllowedBot(String githubUsername) {
@@ -134,13 +263,13 @@ public class MylynGitHubApi implements GitHubApi {
 	/**
 	 * Returns whether the pull-request is marked as obvious fix by having an issue/review comment stating it's an obvious fix.
 	 * Pull-request comments and review comments MUST start by pinging the CLA user for them to be taken into consideration.
-	 * @param pullRequestId
 	 * @param comments
+	 * @param reviewComments only fetched if no other obvious fix is found
 	 * @param claUserLogin
 	 * @return
 	 * @param pullRequestBody
 	 */
-	private boolean isObviousFix(PullRequestId pullRequestId, List<Comment> comments, String claUserLogin, String pullRequestBody) {
+	private boolean isObviousFix(List<Comment> comments, Supplier<List<? extends Comment>> reviewComments, String claUserLogin, String pullRequestBody) {
 		String obviousFixFullTrigger = "@" + claUserLogin + " " + OBVIOUS_FIX_SENTENCE;
 		obviousFixFullTrigger = obviousFixFullTrigger.toLowerCase(Locale.US);
 		if (hasObviousFix(pullRequestBody, obviousFixFullTrigger)) {
@@ -149,7 +278,7 @@ public class MylynGitHubApi implements GitHubApi {
 		if (hasObviousFixComment(comments, claUserLogin, obviousFixFullTrigger)) {
 			return true;
 		}
-		if (hasObviousFixComment(getComments(pullRequestId, getPullRequestService()), claUserLogin, obviousFixFullTrigger)) {
+		if (hasObviousFixComment(reviewComments.get(), claUserLogin, obviousFixFullTrigger)) {
 			return true;
 		}
 		return false;
@@ -167,8 +296,7 @@ public class MylynGitHubApi implements GitHubApi {
 		return obviousFixComment.isPresent();
 	}
 
-	private ContextCommitStatus createCommitStatusIfNecessary(PullRequestId pullRequestId, PullRequestStatus commitStatus, boolean hasSignedCla, boolean obviousFix, GitHubClient client) {
-		ContextCommitService commitService = new ContextCommitService(client);
+	private ContextCommitStatus createCommitStatusIfNecessary(PullRequestId pullRequestId, PullRequestStatus commitStatus, boolean hasSignedCla, boolean obviousFix, ContextCommitService commitService, Supplier<List<ContextCommitStatus>> currentStatuses) {
 		ContextCommitStatus status = new ContextCommitStatus();
 		String description;
 		if (obviousFix) {
@@ -180,10 +308,10 @@ public class MylynGitHubApi implements GitHubApi {
 		}
 		status.setDescription(description);
 		status.setState((hasSignedCla || obviousFix) ? CommitStatus.STATE_SUCCESS : CommitStatus.STATE_FAILURE);
-		status.setContext("ci/pivotal-cla");
+		status.setContext(CLA_STATUS_CONTEXT);
 		status.setUrl(commitStatus.getUrl());
 		status.setTargetUrl(status.getUrl());
-		List<ContextCommitStatus> statuses = commitService.getContextStatuses(pullRequestId.getRepositoryId(), commitStatus.getSha());
+		List<ContextCommitStatus> statuses = currentStatuses.get();
 		ContextCommitStatus firstContextStatus = statuses.stream().filter(s -> s.getContext().equals(status.getContext())).findFirst().orElse(null);
 		if (firstContextStatus == null || !matches(status, firstContextStatus)) {
 			commitService.createStatus(pullRequestId.getRepositoryId(), commitStatus.getSha(), status);
@@ -191,7 +319,11 @@ public class MylynGitHubApi implements GitHubApi {
 		return status;
 	}
 
-	private void createOrUpdatePullRequestComment(PullRequestId pullRequestId, PullRequestStatus commitStatus, boolean hasSignedCla, boolean obviousFix, ContextCommitStatus status, List<Comment> comments, String claUserLogin) {
+	/**
+	 * @return the comment of the CLA user that reflects the decision (after any
+	 * update) or null if there is none
+	 */
+	private Comment createOrUpdatePullRequestComment(PullRequestId pullRequestId, PullRequestStatus commitStatus, boolean hasSignedCla, boolean obviousFix, ContextCommitStatus status, List<Comment> comments, String claUserLogin) {
 		String claLinkMarkdown = String.format("[%s](%s)", CONTRIBUTOR_LICENSE_AGREEMENT, status.getUrl());
 		String userMentionMarkdown = String.format("@%s", commitStatus.getGitHubUsername());
 		IssueService issues = getIssueService();
@@ -202,14 +334,15 @@ public class MylynGitHubApi implements GitHubApi {
 			String body = String.format("%s %s %s!", userMentionMarkdown, THANK_YOU, claLinkMarkdown);
 			if (claUserComments.stream().anyMatch(c -> c.getBody().contains(PLEASE_SIGN))) {
 				if (claUserComments.stream().anyMatch(c -> c.getBody().contains(THANK_YOU))) {
-					return;
+					return findComment(claUserComments, THANK_YOU);
 				}
 				try {
-					issues.createComment(pullRequestId.getRepositoryId(), commitStatus.getPullRequestId(), body);
+					return issues.createComment(pullRequestId.getRepositoryId(), commitStatus.getPullRequestId(), body);
 				} catch (IOException e) {
 					throw new RuntimeException(e);
 				}
 			}
+			return findComment(claUserComments, THANK_YOU);
 		} else {
 			String sync = String.format("\n\n[Click here](%s) %s.", commitStatus.getSyncUrl(), TO_MANUALLY_SYNCHRONIZE_THE_STATUS);
 			String faq = String.format("\n\nSee the [FAQ](%s) for %s.", commitStatus.getFaqUrl(), FREQUENTLY_ASKED_QUESTIONS);
@@ -217,45 +350,56 @@ public class MylynGitHubApi implements GitHubApi {
 			String body = String.format("%s%s%s", oldBody, sync, faq);
 			if (obviousFix) {
 				if (claUserComments.stream().anyMatch(c -> c.getBody().contains(PLEASE_SIGN)) && claUserComments.stream().noneMatch(comment -> comment.getBody().contains(THIS_PR_CONTAINS_AN_OBVIOUS_FIX))) {
-					createObviousFixCommentIfNecessary(pullRequestId, userMentionMarkdown, issues, claUserComments);
+					Comment obviousFixComment = createObviousFixCommentIfNecessary(pullRequestId, userMentionMarkdown, issues, claUserComments);
+					if (obviousFixComment != null) {
+						return obviousFixComment;
+					}
 				}
-				return;
+				Comment obviousFixComment = findComment(claUserComments, THIS_PR_CONTAINS_AN_OBVIOUS_FIX);
+				return obviousFixComment != null ? obviousFixComment : findComment(claUserComments, PLEASE_SIGN);
 			}
-			if (claUserComments.stream().anyMatch(c -> c.getBody().contains(FREQUENTLY_ASKED_QUESTIONS) && c.getBody().contains(TO_MANUALLY_SYNCHRONIZE_THE_STATUS))) {
-				return;
+			Optional<Comment> currentComment = claUserComments.stream().filter(c -> c.getBody().contains(FREQUENTLY_ASKED_QUESTIONS) && c.getBody().contains(TO_MANUALLY_SYNCHRONIZE_THE_STATUS)).findFirst();
+			if (currentComment.isPresent()) {
+				return currentComment.get();
 			}
 			Optional<Comment> oldComment = claUserComments.stream().filter(c -> c.getBody().trim().contains(PLEASE_SIGN)).findFirst();
 			if (oldComment.isPresent()) {
 				Comment toEdit = oldComment.get();
 				toEdit.setBody(body);
 				runtimeException(() -> issues.editComment(pullRequestId.getRepositoryId(), toEdit));
+				return toEdit;
 			} else {
-				runtimeException(() -> issues.createComment(pullRequestId.getRepositoryId(), pullRequestId.getId(), body));
+				return runtimeException(() -> issues.createComment(pullRequestId.getRepositoryId(), pullRequestId.getId(), body));
 			}
 		}
 	}
 
+	private static Comment findComment(List<Comment> comments, String text) {
+		return comments.stream().filter(c -> c.getBody().contains(text)).findFirst().orElse(null);
+	}
+
 	/**
 	 * Add a "disarming" comment.
 	 * @param pullRequestId
 	 * @param userMentionMarkdown
 	 * @param issues
 	 * @param claUserComments
-	 * @throws IOException
+	 * @return the created comment or null if no comment was created
 	 */
-	private void createObviousFixCommentIfNecessary(PullRequestId pullRequestId, String userMentionMarkdown, IssueService issues, List<Comment> claUserComments) {
+	private Comment createObviousFixCommentIfNecessary(PullRequestId pullRequestId, String userMentionMarkdown, IssueService issues, List<Comment> claUserComments) {
 		// only if not already present and if a comment says "please sign the CLA"
 		if (claUserComments.stream().anyMatch(c -> c.getBody().contains(PLEASE_SIGN)) && !claUserComments.stream().anyMatch(c -> c.getBody().contains(OBVIOUS_FIX_CLA_NOT_REQUIRED))) {
 			if (claUserComments.stream().anyMatch(c -> c.getBody().contains(THANK_YOU))) {
-				return;
+				return null;
 			}
 			String claNotRequiredBody = String.format("%s %s", userMentionMarkdown, OBVIOUS_FIX_CLA_NOT_REQUIRED);
 			try {
-				issues.createComment(pullRequestId.getRepositoryId(), pullRequestId.getId(), claNotRequiredBody);
+				return issues.createComment(pullRequestId.getRepositoryId(), pullRequestId.getId(), claNotRequiredBody);
 			} catch (IOException e) {
 				throw new RuntimeException(e);
 			}
 		}
+		return null;
 	}
 
 	public String getShaForPullRequest(PullRequestStatus commitStatus) {
@@ -354,7 +498,7 @@ public class MylynGitHubApi implements GitHubApi {
 	}
 
 	public Set<String> getVerifiedEmails(String accessToken) {
-		EmailService emailService = EmailService.forOAuth(accessToken, oauthConfig);
+		EmailService emailService = EmailService.forOAuth(accessToken, oauthConfig, httpClient);
 		return emailService.getEmails().stream().filter(e -> e.isVerified()).map(Email::getEmail).collect(Collectors.toSet());
 	}
 
@@ -439,20 +583,77 @@ public class MylynGitHubApi implements GitHubApi {
 		return false;
 	}
 
-	public ContributingUrlsResponse getContributingUrls(List<String> repositoryIds) {
-		Set<String> remainingRepositoryIds = new LinkedHashSet<>(repositoryIds);
-		Map<String, String> mdUrls = createEditLinks(remainingRepositoryIds, String.format("%s.md", CONTRIBUTING_FILE));
-		remainingRepositoryIds.removeAll(mdUrls.keySet());
-		Map<String, String> adocUrls = createEditLinks(remainingRepositoryIds, String.format("%s.adoc", CONTRIBUTING_FILE));
-		remainingRepositoryIds.removeAll(adocUrls.keySet());
-		List<String> newUrls = createNewLinks(remainingRepositoryIds, String.format("%s.adoc", CONTRIBUTING_FILE));
+	/**
+	 * Finds the CONTRIBUTING file of each repository by listing the root of the
+	 * {@link #CONTRIBUTING_BRANCH} with the contents API, which is the branch the
+	 * links point to. The repositories are looked up concurrently and the results
+	 * are cached for {@link #CONTRIBUTING_FILE_TTL_MILLIS}.
+	 *
+	 * @throws RuntimeException if a repository could not be listed, rather than
+	 * suggesting to create a CONTRIBUTING file that may exist
+	 */
+	@Override
+	public ContributingUrlsResponse getContributingUrls(List<String> repositoryIds, String accessToken) {
+		Map<String, CompletableFuture<String>> lookups = new LinkedHashMap<>();
+		for (String repositoryId : repositoryIds) {
+			lookups.computeIfAbsent(repositoryId, id -> findContributingFile(id, accessToken));
+		}
 		ContributingUrlsResponse response = new ContributingUrlsResponse();
-		response.setMarkdown(new ArrayList<>(mdUrls.values()));
-		response.setAsciidoc(new ArrayList<>(adocUrls.values()));
+		response.setMarkdown(new ArrayList<>());
+		response.setAsciidoc(new ArrayList<>());
+		List<String> newUrls = new ArrayList<>();
+		lookups.forEach((id, lookup) -> {
+			String fileName;
+			try {
+				fileName = lookup.join();
+			} catch (CompletionException e) {
+				throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+			}
+			if (fileName == null) {
+				newUrls.add(oauthConfig.getGitHubBaseUrl() + id + "/new/" + CONTRIBUTING_BRANCH + "?filename=" + CONTRIBUTING_FILE + ".adoc");
+			} else if (fileName.endsWith(".md")) {
+				response.getMarkdown().add(oauthConfig.getGitHubBaseUrl() + id + "/edit/" + CONTRIBUTING_BRANCH + "/" + fileName);
+			} else {
+				response.getAsciidoc().add(oauthConfig.getGitHubBaseUrl() + id + "/edit/" + CONTRIBUTING_BRANCH + "/" + fileName);
+			}
+		});
 		response.getAsciidoc().addAll(newUrls);
 		return response;
 	}
 
+	/**
+	 * @return the name of the CONTRIBUTING file of the repository (preferring
+	 * Markdown over Asciidoc) or null if there is none. Completes exceptionally
+	 * if the repository could not be listed.
+	 */
+	private CompletableFuture<String> findContributingFile(String repositoryId, String accessToken) {
+		ContributingFile cached = contributingFiles.get(repositoryId);
+		if (cached != null && cached.expires > System.currentTimeMillis()) {
+			return CompletableFuture.completedFuture(cached.fileName);
+		}
+		return CompletableFuture.supplyAsync(() -> {
+			ContentsService contents = new ContentsService(createClient(accessToken));
+			Set<String> names;
+			try {
+				names = contents.getContents(RepositoryId.createFromId(repositoryId), null, CONTRIBUTING_BRANCH).stream().map(RepositoryContents::getName).collect(Collectors.toSet());
+			} catch (RequestException e) {
+				if (e.getStatus() != HttpStatus.NOT_FOUND.value()) {
+					throw new RuntimeException("Could not find the CONTRIBUTING file of " + repositoryId, e);
+				}
+				// an empty repository or no CONTRIBUTING_BRANCH
+				names = Collections.emptySet();
+			} catch (FileNotFoundException e) {
+				// a 404 without a body
+				names = Collections.emptySet();
+			} catch (IOException e) {
+				throw new RuntimeException("Could not find the CONTRIBUTING file of " + repositoryId, e);
+			}
+			String fileName = names.contains(CONTRIBUTING_FILE + ".md") ? CONTRIBUTING_FILE + ".md" : names.contains(CONTRIBUTING_FILE + ".adoc") ? CONTRIBUTING_FILE + ".adoc" : null;
+			contributingFiles.put(repositoryId, new ContributingFile(fileName, System.currentTimeMillis() + CONTRIBUTING_FILE_TTL_MILLIS));
+			return fileName;
+		}, contributingLookups);
+	}
+
 	@Override
 	public String markdownToHtml(String accessToken, String markdown) {
 		MarkdownService markdownService = new MarkdownService(createClient(accessToken));
@@ -461,22 +662,24 @@ public class MylynGitHubApi implements GitHubApi {
 
 	@Override
 	public Set<String> findAssociatedClaNames(String repoId, String accessToken) {
-			GitHubClient client = createClient(accessToken);
-			RepositoryService service = new RepositoryService(client);
-			RepositoryId repositoryId = RepositoryId.createFromId(repoId);
-			List<RepositoryHook> hooks = runtimeException(() -> service.getHooks(repositoryId));
-			Set<String> claNames =  hooks.stream()
-					.filter(h -> StringUtils.hasText(h.getConfig().get("url")))
-					.filter(RepositoryHook::isActive)
-					.map(h -> h.getConfig().get("url"))
-					.filter(PULL_REQUEST_CALLBACK_PATTERN.asPredicate())
-					.map(url -> getClaName(url, PULL_REQUEST_CALLBACK_PATTERN))
-					.collect(Collectors.toSet());
-			return claNames;
+		return findClaHooks(repoId, accessToken).keySet();
+	}
+
+	@Override
+	public Map<String, Long> findClaHooks(String repoId, String accessToken) {
+		GitHubClient client = createClient(accessToken);
+		RepositoryService service = new RepositoryService(client);
+		RepositoryId repositoryId = RepositoryId.createFromId(repoId);
+		List<RepositoryHook> hooks = runtimeException(() -> service.getHooks(repositoryId));
+		return hooks.stream()
+				.filter(h -> StringUtils.hasText(h.getConfig().get("url")))
+				.filter(RepositoryHook::isActive)
+				.filter(h -> PULL_REQUEST_CALLBACK_PATTERN.matcher(h.getConfig().get("url")).find())
+				.collect(Collectors.toMap(h -> getClaName(h.getConfig().get("url"), PULL_REQUEST_CALLBACK_PATTERN), RepositoryHook::getId, (first, second) -> first));
 	}
 
 	public String getGitHubClaUserLogin() {
-		return getCurrentGitHubUser(oauthConfig.getPivotalClaAccessToken()).getLogin();
+		return botIdentity.getLogin();
 	}
 
 	private IssueService getIssueService() {
@@ -517,35 +720,6 @@ public class MylynGitHubApi implements GitHubApi {
 		return matcher.group(1);
 	}
 
-	private Map<String, String> createEditLinks(Collection<String> repoIds, String fileName) {
-		Map<String, String> urls = new HashMap<>();
-		for (String id : repoIds) {
-			String url = oauthConfig.getGitHubBaseUrl() + id + "/edit/main/" + fileName;
-			if (urlExists(url)) {
-				urls.put(id, url);
-			}
-		}
-		return urls;
-	}
-
-	private List<String> createNewLinks(Collection<String> repoIds, String fileName) {
-		List<String> urls = new ArrayList<>();
-		for (String id : repoIds) {
-			String url = oauthConfig.getGitHubBaseUrl() + id + "/new/main?filename=" + fileName;
-			urls.add(url);
-		}
-		return urls;
-	}
-
-	private boolean urlExists(String url) {
-		try {
-			rest.getForEntity(url, String.class);
-			return true;
-		} catch (HttpClientErrorException notFound) {
-			return false;
-		}
-	}
-
 	private EventsRepositoryHook createHook(String url, String secret) {
 		Map<String, String> config = new HashMap<>();
 		config.put("url", url);
@@ -556,6 +730,9 @@ public class MylynGitHubApi implements GitHubApi {
 		hook.addEvent(GithubEvents.ISSUE_COMMENT);
 		hook.addEvent(GithubEvents.PULL_REQUEST);
 		hook.addEvent(GithubEvents.PULL_REQUEST_REVIEW_COMMENT);
+		// keeps the repository links current (see RepositoryClaLinkService)
+		hook.addEvent(GithubEvents.META);
+		hook.addEvent(GithubEvents.REPOSITORY);
 		hook.setName("web");
 		hook.setConfig(config);
 		return hook;
@@ -648,4 +825,14 @@ public class MylynGitHubApi implements GitHubApi {
 	interface ErrorCallable<T> {
 		T call() throws Exception;
 	}
+
+	private static class ContributingFile {
+		private final String fileName;
+		private final long expires;
+
+		ContributingFile(String fileName, long expires) {
+			this.fileName = fileName;
+			this.expires = expires;
+		}
+	}
 }
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.service.github;
+
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.eclipse.egit.github.core.Comment;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.pivotal.cla.config.GitHubClientConfig;
+import io.pivotal.cla.data.PullRequestComment;
+import io.pivotal.cla.data.PullRequestDecision;
+import io.pivotal.cla.data.PullRequestDecision.CommentKind;
+import io.pivotal.cla.data.repository.PullRequestCommentRepository;
+import io.pivotal.cla.data.repository.PullRequestDecisionRepository;
+import io.pivotal.cla.egit.github.core.ContextCommitStatus;
+import io.pivotal.cla.egit.github.core.PullRequestId;
+
+/**
+ * Remembers the last {@link PullRequestDecision} and the
+ * {@link PullRequestComment}s of the CLA bot for each Pull Request, so that
+ * {@link MylynGitHubApi#save(PullRequestStatus)} can skip reading the statuses
+ * and comments. Only if nothing is remembered (i.e. for Pull Requests that
+ * were last evaluated before the memo existed) all comments are listed.
+ * Lookups are counted in {@code cla.github.decisions} tagged with
+ * {@code result=hit|miss}.
+ */
+@Component
+public class PullRequestDecisionMemo {
+	private final PullRequestDecisionRepository decisions;
+	private final PullRequestCommentRepository comments;
+	private final boolean enabled;
+	private final Counter hits;
+	private final Counter misses;
+
+	@Autowired
+	public PullRequestDecisionMemo(PullRequestDecisionRepository decisions, PullRequestCommentRepository comments, GitHubClientConfig config, MeterRegistry meterRegistry) {
+		this(decisions, comments, config.isDecisionMemo(), meterRegistry);
+	}
+
+	PullRequestDecisionMemo(PullRequestDecisionRepository decisions, PullRequestCommentRepository comments, boolean enabled, MeterRegistry meterRegistry) {
+		this.decisions = decisions;
+		this.comments = comments;
+		this.enabled = enabled;
+		this.hits = Counter.builder("cla.github.decisions").tag("result", "hit")
+				.description("Pull Request evaluations that matched the last decision").register(meterRegistry);
+		this.misses = Counter.builder("cla.github.decisions").tag("result", "miss")
+				.description("Pull Request evaluations that were checked against GitHub").register(meterRegistry);
+	}
+
+	/**
+	 * @return a memo that never remembers a decision
+	 */
+	static PullRequestDecisionMemo disabled() {
+		return new PullRequestDecisionMemo(null, null, false, new SimpleMeterRegistry());
+	}
+
+	/**
+	 * Finds the last decision for the Pull Request. An obvious fix is remembered
+	 * for the Pull Request, so the decision can only be used if the evaluation
+	 * cannot have changed it (see {@link PullRequestStatus#isReevaluate()}).
+	 *
+	 * @param pullRequestId the Pull Request
+	 * @param commitStatus the status being saved
+	 * @return the last decision or null if it is unknown or cannot be used
+	 */
+	PullRequestDecision find(PullRequestId pullRequestId, PullRequestStatus commitStatus) {
+		if (!enabled || commitStatus.isReevaluate()) {
+			return null;
+		}
+		return decisions.findOne(id(pullRequestId));
+	}
+
+	/**
+	 * Determines if the same decision was already written to GitHub.
+	 *
+	 * @param decision the last decision (may be null)
+	 * @param commitStatus the status being saved
+	 * @return true if nothing needs to be read from or written to GitHub
+	 */
+	boolean isUnchanged(PullRequestDecision decision, PullRequestStatus commitStatus) {
+		if (!enabled) {
+			return false;
+		}
+		boolean unchanged = decision != null && decision.getSha().equals(commitStatus.getSha()) && decision.isSignedCla() == commitStatus.isSuccess();
+		(unchanged ? hits : misses).increment();
+		return unchanged;
+	}
+
+	/**
+	 * Finds the comments the CLA bot made on a Pull Request. This is complete if
+	 * a decision was recorded for the Pull Request.
+	 *
+	 * @param pullRequestId the Pull Request
+	 * @param claUserLogin the login of the CLA bot
+	 * @return the comments in the order they were created
+	 */
+	List<Comment> findBotComments(PullRequestId pullRequestId, String claUserLogin) {
+		return comments.findByPullRequestOrderById(id(pullRequestId)).stream().map(c -> {
+			org.eclipse.egit.github.core.User user = new org.eclipse.egit.github.core.User().setLogin(claUserLogin);
+			return new Comment().setId(c.getId()).setBody(c.getBody()).setUser(user);
+		}).collect(Collectors.toList());
+	}
+
+	/**
+	 * Forgets everything about the Pull Request (i.e. because a remembered
+	 * comment was deleted).
+	 *
+	 * @param pullRequestId the Pull Request
+	 */
+	void forget(PullRequestId pullRequestId) {
+		if (!enabled) {
+			return;
+		}
+		comments.deleteByPullRequest(id(pullRequestId));
+		decisions.deleteById(id(pullRequestId));
+	}
+
+	/**
+	 * Records the decision that was written to GitHub.
+	 *
+	 * @param pullRequestId the Pull Request
+	 * @param commitStatus the status that was saved
+	 * @param obviousFix true if the Pull Request is an obvious fix
+	 * @param status the commit status that was written (or already existed)
+	 * @param botComment the comment of the CLA bot that reflects the decision or
+	 * null if none
+	 * @param botComments all comments of the CLA bot on the Pull Request
+	 */
+	void record(PullRequestId pullRequestId, PullRequestStatus commitStatus, boolean obviousFix, ContextCommitStatus status, Comment botComment, List<Comment> botComments) {
+		if (!enabled || commitStatus.getSha() == null) {
+			return;
+		}
+		Date now = new Date();
+		comments.saveAll(botComments.stream().map(c -> {
+			PullRequestComment comment = new PullRequestComment();
+			comment.setId(c.getId());
+			comment.setPullRequest(id(pullRequestId));
+			comment.setKind(kind(c.getBody()));
+			comment.setBody(c.getBody());
+			comment.setUpdated(now);
+			return comment;
+		}).collect(Collectors.toList()));
+		PullRequestDecision decision = new PullRequestDecision();
+		decision.setId(id(pullRequestId));
+		decision.setSha(commitStatus.getSha());
+		decision.setSignedCla(commitStatus.isSuccess());
+		decision.setObviousFix(obviousFix);
+		decision.setStatusState(status.getState());
+		decision.setStatusDescription(status.getDescription());
+		decision.setCommentKind(botComment == null ? CommentKind.NONE : kind(botComment.getBody()));
+		decision.setCommentId(botComment == null ? null : botComment.getId());
+		decision.setUpdated(now);
+		decisions.save(decision);
+	}
+
+	static CommentKind kind(String body) {
+		if (body == null) {
+			return CommentKind.NONE;
+		}
+		if (body.contains(MylynGitHubApi.THIS_PR_CONTAINS_AN_OBVIOUS_FIX)) {
+			return CommentKind.OBVIOUS_FIX;
+		}
+		if (body.contains(MylynGitHubApi.THANK_YOU)) {
+			return CommentKind.THANK_YOU;
+		}
+		if (body.contains(MylynGitHubApi.PLEASE_SIGN)) {
+			return CommentKind.PLEASE_SIGN;
+		}
+		return CommentKind.NONE;
+	}
+
+	private static String id(PullRequestId pullRequestId) {
+		return PullRequestDecision.id(pullRequestId.getRepositoryId().generateId(), pullRequestId.getId());
+	}
+}
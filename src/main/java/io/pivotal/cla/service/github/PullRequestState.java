@@ -0,0 +1,80 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.service.github;
+
+import java.util.List;
+import org.eclipse.egit.github.core.Comment;
+import io.pivotal.cla.egit.github.core.ContextCommitStatus;
+
+/**
+ * The state of a Pull Request that is needed to update its CLA status, fetched
+ * with a single {@link PullRequestStateQuery}.
+ */
+class PullRequestState {
+	private final String headSha;
+	private final String authorLogin;
+	private final String body;
+	private final List<Comment> comments;
+	private final List<Comment> reviewComments;
+	private final List<ContextCommitStatus> headStatuses;
+
+	PullRequestState(String headSha, String authorLogin, String body, List<Comment> comments, List<Comment> reviewComments, List<ContextCommitStatus> headStatuses) {
+		this.headSha = headSha;
+		this.authorLogin = authorLogin;
+		this.body = body;
+		this.comments = comments;
+		this.reviewComments = reviewComments;
+		this.headStatuses = headStatuses;
+	}
+
+	public String getHeadSha() {
+		return this.headSha;
+	}
+
+	public String getAuthorLogin() {
+		return this.authorLogin;
+	}
+
+	public String getBody() {
+		return this.body;
+	}
+
+	/**
+	 * @return the issue comments of the Pull Request
+	 */
+	public List<Comment> getComments() {
+		return this.comments;
+	}
+
+	/**
+	 * @return the comments on the diff of the Pull Request
+	 */
+	public List<Comment> getReviewComments() {
+		return this.reviewComments;
+	}
+
+	/**
+	 * @return the CLA status of {@link #getHeadSha()} (empty if there is none)
+	 */
+	public List<ContextCommitStatus> getHeadStatuses() {
+		return this.headStatuses;
+	}
+
+	@java.lang.Override
+	public java.lang.String toString() {
+		return "PullRequestState(headSha=" + this.getHeadSha() + ", authorLogin=" + this.getAuthorLogin() + ", comments=" + this.getComments().size() + ", reviewComments=" + this.getReviewComments().size() + ", headStatuses=" + this.getHeadStatuses() + ")";
+	}
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.service.github;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import org.eclipse.egit.github.core.Comment;
+import org.eclipse.egit.github.core.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import io.pivotal.cla.config.ClaOAuthConfig;
+import io.pivotal.cla.config.GitHubClientConfig;
+import io.pivotal.cla.egit.github.core.ContextCommitStatus;
+import io.pivotal.cla.egit.github.core.PullRequestId;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+
+/**
+ * Fetches the {@link PullRequestState} with a single GitHub GraphQL (v4) query,
+ * instead of a paged REST request each for the issue comments, review comments
+ * and commit statuses.
+ *
+ * The query fetches the first 100 items of every connection. If a Pull Request
+ * has more (or the query fails) {@link #fetch(PullRequestId, String)} returns
+ * null, so that the caller can fall back to the REST API.
+ */
+@Component
+public class PullRequestStateQuery {
+	static final String QUERY = "query($owner: String!, $name: String!, $number: Int!, $context: String!) {\n"
+			+ "  repository(owner: $owner, name: $name) {\n"
+			+ "    pullRequest(number: $number) {\n"
+			+ "      body\n"
+			+ "      headRefOid\n"
+			+ "      author { login }\n"
+			+ "      comments(first: 100) { pageInfo { hasNextPage } nodes { databaseId body author { login } } }\n"
+			+ "      reviewThreads(first: 100) {\n"
+			+ "        pageInfo { hasNextPage }\n"
+			+ "        nodes { comments(first: 100) { pageInfo { hasNextPage } nodes { databaseId body author { login } } } }\n"
+			+ "      }\n"
+			+ "      commits(last: 1) { nodes { commit { oid status { context(name: $context) { context state description targetUrl } } } } }\n"
+			+ "    }\n"
+			+ "  }\n"
+			+ "}";
+	private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(PullRequestStateQuery.class);
+	private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
+	/**
+	 * The login GitHub uses for deleted users.
+	 */
+	private static final String GHOST = "ghost";
+	private final ClaOAuthConfig oauthConfig;
+	private final OkHttpClient httpClient;
+	private final boolean enabled;
+	private final Gson gson = new Gson();
+
+	@Autowired
+	public PullRequestStateQuery(ClaOAuthConfig oauthConfig, OkHttpClient gitHubHttpClient, GitHubClientConfig clientConfig) {
+		this(oauthConfig, gitHubHttpClient, clientConfig.isGraphql());
+	}
+
+	PullRequestStateQuery(ClaOAuthConfig oauthConfig, OkHttpClient httpClient, boolean enabled) {
+		this.oauthConfig = oauthConfig;
+		this.httpClient = httpClient;
+		this.enabled = enabled;
+	}
+
+	public boolean isEnabled() {
+		return this.enabled;
+	}
+
+	/**
+	 * @param pullRequestId the Pull Request
+	 * @param accessToken the access token used for the query
+	 * @param context the context of the status to fetch (i.e. ci/pivotal-cla)
+	 * @return the state or null if it could not be fetched completely
+	 */
+	public PullRequestState fetch(PullRequestId pullRequestId, String accessToken, String context) {
+		Map<String, Object> variables = new HashMap<>();
+		variables.put("owner", pullRequestId.getRepositoryId().getOwner());
+		variables.put("name", pullRequestId.getRepositoryId().getName());
+		variables.put("number", pullRequestId.getId());
+		variables.put("context", context);
+		Map<String, Object> query = new HashMap<>();
+		query.put("query", QUERY);
+		query.put("variables", variables);
+		Request request = new Request.Builder()
+				.url(getGraphQlUrl())
+				.header("Authorization", "bearer " + accessToken)
+				.post(RequestBody.create(JSON, this.gson.toJson(query)))
+				.build();
+		JsonObject result;
+		try (Response response = this.httpClient.newCall(request).execute()) {
+			if (!response.isSuccessful() || response.body() == null) {
+				log.warn("GraphQL query for {} failed with {}", pullRequestId, response.code());
+				return null;
+			}
+			result = this.gson.fromJson(response.body().charStream(), JsonObject.class);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+		if (result.has("errors")) {
+			log.warn("GraphQL query for {} failed with {}", pullRequestId, result.get("errors"));
+			return null;
+		}
+		JsonObject pullRequest = object(object(object(result, "data"), "repository"), "pullRequest");
+		if (pullRequest == null) {
+			return null;
+		}
+		JsonObject comments = object(pullRequest, "comments");
+		JsonObject reviewThreads = object(pullRequest, "reviewThreads");
+		if (hasNextPage(comments) || hasNextPage(reviewThreads)) {
+			return null;
+		}
+		List<Comment> reviewComments = new ArrayList<>();
+		for (JsonElement thread : nodes(reviewThreads)) {
+			JsonObject threadComments = object(thread.getAsJsonObject(), "comments");
+			if (hasNextPage(threadComments)) {
+				return null;
+			}
+			reviewComments.addAll(comments(threadComments));
+		}
+		String headSha = string(pullRequest, "headRefOid");
+		return new PullRequestState(headSha, login(pullRequest), string(pullRequest, "body"), comments(comments), reviewComments, headStatuses(pullRequest, headSha));
+	}
+
+	/**
+	 * GitHub Enterprise serves the GraphQL API on /api/graphql rather than
+	 * /graphql.
+	 */
+	private String getGraphQlUrl() {
+		String path = "api.github.com".equals(this.oauthConfig.getGitHubApiHost()) ? "graphql" : "api/graphql";
+		return this.oauthConfig.getGitHubApiBaseUrl() + path;
+	}
+
+	private static List<ContextCommitStatus> headStatuses(JsonObject pullRequest, String headSha) {
+		for (JsonElement node : nodes(object(pullRequest, "commits"))) {
+			JsonObject commit = object(node.getAsJsonObject(), "commit");
+			JsonObject status = object(object(commit, "status"), "context");
+			if (status == null || headSha == null || !headSha.equals(string(commit, "oid"))) {
+				continue;
+			}
+			ContextCommitStatus contextStatus = new ContextCommitStatus();
+			contextStatus.setContext(string(status, "context"));
+			contextStatus.setState(string(status, "state").toLowerCase(Locale.US));
+			contextStatus.setDescription(string(status, "description"));
+			contextStatus.setTargetUrl(string(status, "targetUrl"));
+			return Collections.singletonList(contextStatus);
+		}
+		return Collections.emptyList();
+	}
+
+	private static List<Comment> comments(JsonObject connection) {
+		List<Comment> comments = new ArrayList<>();
+		for (JsonElement node : nodes(connection)) {
+			JsonObject object = node.getAsJsonObject();
+			Comment comment = new Comment();
+			if (object.has("databaseId") && !object.get("databaseId").isJsonNull()) {
+				comment.setId(object.get("databaseId").getAsLong());
+			}
+			comment.setBody(string(object, "body"));
+			comment.setUser(new User().setLogin(login(object)));
+			comments.add(comment);
+		}
+		return comments;
+	}
+
+	private static String login(JsonObject object) {
+		String login = string(object(object, "author"), "login");
+		return login == null ? GHOST : login;
+	}
+
+	private static boolean hasNextPage(JsonObject connection) {
+		JsonObject pageInfo = object(connection, "pageInfo");
+		return pageInfo != null && pageInfo.has("hasNextPage") && pageInfo.get("hasNextPage").getAsBoolean();
+	}
+
+	private static JsonArray nodes(JsonObject connection) {
+		if (connection == null || !connection.has("nodes") || !connection.get("nodes").isJsonArray()) {
+			return new JsonArray();
+		}
+		return connection.getAsJsonArray("nodes");
+	}
+
+	private static JsonObject object(JsonObject object, String name) {
+		if (object == null || !object.has(name) || !object.get(name).isJsonObject()) {
+			return null;
+		}
+		return object.getAsJsonObject(name);
+	}
+
+	private static String string(JsonObject object, String name) {
+		if (object == null || !object.has(name) || object.get(name).isJsonNull()) {
+			return null;
+		}
+		return object.get(name).getAsString();
+	}
+}
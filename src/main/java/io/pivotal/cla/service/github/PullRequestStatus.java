@@ -44,6 +44,13 @@ public class PullRequestStatus {
 	private String accessToken;
 	private String pullRequestState;
 	private String pullRequestBody;
+	/**
+	 * If true, the status is evaluated against the current state on GitHub even
+	 * if the same decision was made for the head sha before (i.e. because the
+	 * event may have changed whether this is an obvious fix or the user asked to
+	 * synchronize the status).
+	 */
+	private boolean reevaluate;
 
 	public boolean isSuccess() {
 		return Boolean.TRUE.equals(success);
@@ -118,6 +125,16 @@ public class PullRequestStatus {
 		return this.pullRequestBody;
 	}
 
+	/**
+	 * If true, the status is evaluated against the current state on GitHub even
+	 * if the same decision was made for the head sha before (i.e. because the
+	 * event may have changed whether this is an obvious fix or the user asked to
+	 * synchronize the status).
+	 */
+	public boolean isReevaluate() {
+		return this.reevaluate;
+	}
+
 	public void setPullRequestId(final int pullRequestId) {
 		this.pullRequestId = pullRequestId;
 	}
@@ -178,6 +195,16 @@ public class PullRequestStatus {
 		this.pullRequestBody = pullRequestBody;
 	}
 
+	/**
+	 * If true, the status is evaluated against the current state on GitHub even
+	 * if the same decision was made for the head sha before (i.e. because the
+	 * event may have changed whether this is an obvious fix or the user asked to
+	 * synchronize the status).
+	 */
+	public void setReevaluate(final boolean reevaluate) {
+		this.reevaluate = reevaluate;
+	}
+
 	@java.lang.Override
 	public boolean equals(final java.lang.Object o) {
 		if (o == this) return true;
@@ -216,6 +243,7 @@ public class PullRequestStatus {
 		final java.lang.Object this$pullRequestBody = this.getPullRequestBody();
 		final java.lang.Object other$pullRequestBody = other.getPullRequestBody();
 		if (this$pullRequestBody == null ? other$pullRequestBody != null : !this$pullRequestBody.equals(other$pullRequestBody)) return false;
+		if (this.isReevaluate() != other.isReevaluate()) return false;
 		return true;
 	}
 
@@ -249,11 +277,12 @@ public class PullRequestStatus {
 		result = result * PRIME + ($pullRequestState == null ? 43 : $pullRequestState.hashCode());
 		final java.lang.Object $pullRequestBody = this.getPullRequestBody();
 		result = result * PRIME + ($pullRequestBody == null ? 43 : $pullRequestBody.hashCode());
+		result = result * PRIME + (this.isReevaluate() ? 79 : 97);
 		return result;
 	}
 
 	@java.lang.Override
 	public java.lang.String toString() {
-		return "PullRequestStatus(pullRequestId=" + this.getPullRequestId() + ", repoId=" + this.getRepoId() + ", sha=" + this.getSha() + ", success=" + this.getSuccess() + ", url=" + this.getUrl() + ", syncUrl=" + this.getSyncUrl() + ", faqUrl=" + this.getFaqUrl() + ", gitHubUsername=" + this.getGitHubUsername() + ", admin=" + this.isAdmin() + ", accessToken=" + this.getAccessToken() + ", pullRequestState=" + this.getPullRequestState() + ", pullRequestBody=" + this.getPullRequestBody() + ")";
+		return "PullRequestStatus(pullRequestId=" + this.getPullRequestId() + ", repoId=" + this.getRepoId() + ", sha=" + this.getSha() + ", success=" + this.getSuccess() + ", url=" + this.getUrl() + ", syncUrl=" + this.getSyncUrl() + ", faqUrl=" + this.getFaqUrl() + ", gitHubUsername=" + this.getGitHubUsername() + ", admin=" + this.isAdmin() + ", accessToken=" + this.getAccessToken() + ", pullRequestState=" + this.getPullRequestState() + ", pullRequestBody=" + this.getPullRequestBody() + ", reevaluate=" + this.isReevaluate() + ")";
 	}
 }
@@ -0,0 +1,22 @@
+CREATE TABLE cla_acceptance (
+  id               BIGINT       NOT NULL AUTO_INCREMENT,
+  cla_name         VARCHAR(255) NOT NULL,
+  accepted_cla_id  BIGINT       NOT NULL,
+  PRIMARY KEY (id)
+);
+
+CREATE UNIQUE INDEX IX_CLA_ACCEPTANCE_NAME_CLA ON cla_acceptance (cla_name, accepted_cla_id);
+
+ALTER TABLE cla_acceptance
+  ADD CONSTRAINT FK_CLA_ACCEPTANCE_CLA
+FOREIGN KEY (accepted_cla_id) REFERENCES contributor_license_agreement (id) ON DELETE CASCADE;
+
+-- the CLAs with the same name and the CLAs directly superseding them. Longer
+-- chains are added when the application starts.
+INSERT INTO cla_acceptance (cla_name, accepted_cla_id)
+SELECT c.name, a.id FROM contributor_license_agreement c
+JOIN contributor_license_agreement a ON a.name = c.name
+UNION
+SELECT c.name, a.id FROM contributor_license_agreement c
+JOIN contributor_license_agreement s ON s.id = c.superseding_cla_id
+JOIN contributor_license_agreement a ON a.name = s.name;
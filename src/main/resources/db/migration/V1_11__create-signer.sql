@@ -0,0 +1,22 @@
+CREATE TABLE signer (
+  id              BIGINT       NOT NULL AUTO_INCREMENT,
+  cla_name        VARCHAR(255) NOT NULL,
+  kind            VARCHAR(16)  NOT NULL,
+  identity_value  VARCHAR(255) NOT NULL,
+  PRIMARY KEY (id)
+);
+
+CREATE INDEX IX_SIGNER_CLA_KIND_VALUE ON signer (cla_name, kind, identity_value);
+
+INSERT INTO signer (cla_name, kind, identity_value)
+SELECT a.cla_name, 'LOGIN', s.github_login FROM individual_signature s
+JOIN cla_acceptance a ON a.accepted_cla_id = s.cla_id WHERE s.github_login IS NOT NULL
+UNION ALL
+SELECT a.cla_name, 'EMAIL', s.email FROM individual_signature s
+JOIN cla_acceptance a ON a.accepted_cla_id = s.cla_id WHERE s.email IS NOT NULL
+UNION ALL
+SELECT a.cla_name, 'DOMAIN', s.email_domain FROM corporate_signature s
+JOIN cla_acceptance a ON a.accepted_cla_id = s.cla_id WHERE s.email_domain IS NOT NULL
+UNION ALL
+SELECT a.cla_name, 'ORGANIZATION', s.git_hub_organization FROM corporate_signature s
+JOIN cla_acceptance a ON a.accepted_cla_id = s.cla_id WHERE s.git_hub_organization IS NOT NULL;
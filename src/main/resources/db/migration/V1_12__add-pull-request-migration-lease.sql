@@ -0,0 +1,3 @@
+ALTER TABLE pull_request_migration ADD COLUMN failed INT NOT NULL DEFAULT 0;
+
+ALTER TABLE pull_request_migration ADD COLUMN lease_expires DATETIME;
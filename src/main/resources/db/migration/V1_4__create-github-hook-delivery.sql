@@ -0,0 +1,16 @@
+CREATE TABLE github_hook_delivery (
+  id            BIGINT       NOT NULL AUTO_INCREMENT,
+  delivery_id   VARCHAR(255),
+  event         VARCHAR(255) NOT NULL,
+  cla_name      VARCHAR(255) NOT NULL,
+  base_url      VARCHAR(255) NOT NULL,
+  payload       LONGTEXT     NOT NULL,
+  state         VARCHAR(32)  NOT NULL,
+  attempts      INT          NOT NULL,
+  next_attempt  DATETIME     NOT NULL,
+  last_error    VARCHAR(1024),
+  created       DATETIME     NOT NULL,
+  PRIMARY KEY (id)
+);
+
+CREATE INDEX IX_HOOK_DELIVERY_NEXT_ATTEMPT ON github_hook_delivery (state, next_attempt);
@@ -0,0 +1,7 @@
+CREATE TABLE github_hook_receipt (
+  delivery_id   VARCHAR(64)  NOT NULL,
+  received      DATETIME     NOT NULL,
+  PRIMARY KEY (delivery_id)
+);
+
+CREATE INDEX IX_HOOK_RECEIPT_RECEIVED ON github_hook_receipt (received);
@@ -0,0 +1,20 @@
+CREATE TABLE pull_request_migration (
+  id                BIGINT       NOT NULL AUTO_INCREMENT,
+  cla_name          VARCHAR(255) NOT NULL,
+  repository_id     VARCHAR(255) NOT NULL,
+  commit_status_url VARCHAR(255) NOT NULL,
+  faq_url           VARCHAR(255) NOT NULL,
+  base_sync_url     VARCHAR(255) NOT NULL,
+  state             VARCHAR(32)  NOT NULL,
+  total             INT          NOT NULL,
+  done              INT          NOT NULL,
+  started_done      INT          NOT NULL,
+  last_pull_request INT          NOT NULL,
+  last_error        VARCHAR(1024),
+  created           DATETIME     NOT NULL,
+  started           DATETIME,
+  updated           DATETIME     NOT NULL,
+  PRIMARY KEY (id)
+);
+
+CREATE INDEX IX_PULL_REQUEST_MIGRATION_STATE ON pull_request_migration (state);
@@ -0,0 +1,12 @@
+CREATE TABLE pull_request_decision (
+  id                  VARCHAR(255) NOT NULL,
+  sha                 VARCHAR(64)  NOT NULL,
+  signed_cla          BOOLEAN      NOT NULL,
+  obvious_fix         BOOLEAN      NOT NULL,
+  status_state        VARCHAR(32)  NOT NULL,
+  status_description  VARCHAR(255) NOT NULL,
+  comment_kind        VARCHAR(32)  NOT NULL,
+  comment_id          BIGINT,
+  updated             DATETIME     NOT NULL,
+  PRIMARY KEY (id)
+);
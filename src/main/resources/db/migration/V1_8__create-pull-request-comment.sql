@@ -0,0 +1,10 @@
+CREATE TABLE pull_request_comment (
+  id            BIGINT       NOT NULL,
+  pull_request  VARCHAR(255) NOT NULL,
+  kind          VARCHAR(32)  NOT NULL,
+  body          LONGTEXT     NOT NULL,
+  updated       DATETIME     NOT NULL,
+  PRIMARY KEY (id)
+);
+
+CREATE INDEX IX_PULL_REQUEST_COMMENT_PULL_REQUEST ON pull_request_comment (pull_request);
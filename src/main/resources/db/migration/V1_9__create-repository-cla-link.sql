@@ -0,0 +1,11 @@
+CREATE TABLE repository_cla_link (
+  id             BIGINT       NOT NULL AUTO_INCREMENT,
+  repository_id  VARCHAR(255) NOT NULL,
+  cla_name       VARCHAR(255) NOT NULL,
+  hook_id        BIGINT,
+  linked_by      VARCHAR(255),
+  linked         DATETIME     NOT NULL,
+  PRIMARY KEY (id)
+);
+
+CREATE UNIQUE INDEX IX_REPOSITORY_CLA_LINK_REPOSITORY_CLA ON repository_cla_link (repository_id, cla_name);
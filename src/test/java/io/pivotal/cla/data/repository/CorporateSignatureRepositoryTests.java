@@ -20,6 +20,10 @@ import io.pivotal.cla.data.CorporateSignature;
 import io.pivotal.cla.data.DataUtils;
 import io.pivotal.cla.data.User;
 import io.pivotal.cla.junit.JpaTests;
+import io.pivotal.cla.service.ClaAcceptanceService;
+import io.pivotal.cla.service.SignerIndex;
+import io.pivotal.cla.service.SignerService;
+import io.pivotal.cla.service.UnsignedCache;
 import io.pivotal.cla.test.context.SystemDataActiveProfiles;
 import org.junit.Before;
 import org.junit.Test;
@@ -35,6 +39,8 @@ import java.util.Arrays;
 import java.util.Collections;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.mock;
 
 /**
  * @author Rob Winch
@@ -53,6 +59,15 @@ public class CorporateSignatureRepositoryTests {
 	@Autowired
 	CorporateSignatureRepository signatures;
 
+	@Autowired
+	ClaAcceptanceRepository acceptances;
+
+	@Autowired
+	IndividualSignatureRepository individualSignatures;
+
+	@Autowired
+	SignerRepository signers;
+
 	ContributorLicenseAgreement cla;
 
 	ContributorLicenseAgreement springCla;
@@ -74,6 +89,7 @@ public class CorporateSignatureRepositoryTests {
 		springCla.setSupersedingCla(cla);
 
 		springCla = clas.save(springCla);
+		rebuildAcceptances();
 	}
 
 	@Test
@@ -221,10 +237,57 @@ public class CorporateSignatureRepositoryTests {
 		assertThat(signatures.findSignatures(PageRequest.of(0, 1), Arrays.asList(), null)).isEmpty();
 	}
 
+	@Test
+	public void findSignersAfter() {
+		assertThat(signatures.findSignersAfter(signature.getId() - 1)).extracting(CorporateSignatureRepository.Signer::getId, CorporateSignatureRepository.Signer::getGitHubOrganization, CorporateSignatureRepository.Signer::getClaName)
+				.containsExactly(tuple(signature.getId(), signature.getGitHubOrganization(), cla.getName()));
+		assertThat(signatures.findSignersAfter(signature.getId())).isEmpty();
+	}
+
+	@Test
+	public void findSignatureSupersedingChain() {
+		ContributorLicenseAgreement apacheCla = DataUtils.createSpringCla();
+		apacheCla.setName("apache");
+		apacheCla.setSupersedingCla(springCla);
+		apacheCla = clas.save(apacheCla);
+		rebuildAcceptances();
+
+		assertThat(signatures.findSignature(apacheCla.getName(), Arrays.asList(signature.getGitHubOrganization()), user.getEmails())).isNotNull();
+	}
+
+	@Test
+	public void findAcceptedNames() {
+		assertThat(acceptances.findAcceptedNames()).extracting(ClaAcceptanceRepository.AcceptedName::getClaName, ClaAcceptanceRepository.AcceptedName::getAcceptedClaName)
+				.contains(tuple(springCla.getName(), springCla.getName()), tuple(springCla.getName(), cla.getName()))
+				.doesNotContain(tuple(cla.getName(), springCla.getName()));
+	}
+
+	@Test
+	public void signerHasSignedByDomainOrOrganization() {
+		CorporateSignature domainSignature = createSignature(cla, user);
+		domainSignature.setGitHubOrganization(null);
+		domainSignature.setEmailDomain("example.org");
+		signerService().save(domainSignature);
+
+		assertThat(signers.hasSigned(springCla.getName(), "notsigned", Arrays.asList("rob@example.org"), () -> {
+			throw new AssertionError("The organizations must not be requested");
+		})).isTrue();
+		assertThat(signers.hasSigned(springCla.getName(), "notsigned", Collections.emptyList(), () -> Arrays.asList(signature.getGitHubOrganization()))).isTrue();
+		assertThat(signers.hasSigned(springCla.getName(), "notsigned", Arrays.asList("rob@example.com"), () -> Arrays.asList("notorganization"))).isFalse();
+	}
+
 	private static CorporateSignature createSignature(ContributorLicenseAgreement cla, User user) {
 		CorporateSignature signature = DataUtils.cclaSignature(cla);
 		signature.setGitHubLogin(user.getGitHubLogin());
 		signature.setEmail(user.getEmails().iterator().next());
 		return signature;
 	}
+
+	private void rebuildAcceptances() {
+		new ClaAcceptanceService(clas, acceptances, signerService()).rebuild();
+	}
+
+	private SignerService signerService() {
+		return new SignerService(individualSignatures, signatures, acceptances, signers, mock(SignerIndex.class), mock(UnsignedCache.class));
+	}
 }
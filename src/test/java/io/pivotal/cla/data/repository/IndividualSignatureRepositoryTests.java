@@ -18,9 +18,12 @@ package io.pivotal.cla.data.repository;
 import io.pivotal.cla.data.ContributorLicenseAgreement;
 import io.pivotal.cla.data.DataUtils;
 import io.pivotal.cla.data.IndividualSignature;
+import io.pivotal.cla.data.Signer;
 import io.pivotal.cla.data.User;
 import io.pivotal.cla.junit.JpaTests;
+import io.pivotal.cla.service.ClaAcceptanceService;
 import io.pivotal.cla.service.ClaService;
+import io.pivotal.cla.service.SignerService;
 import io.pivotal.cla.test.context.SystemDataActiveProfiles;
 import org.junit.Before;
 import org.junit.Test;
@@ -32,9 +35,12 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 
 /**
  * @author Rob Winch
@@ -56,6 +62,15 @@ public class IndividualSignatureRepositoryTests {
 	@Autowired
 	ClaService claService;
 
+	@Autowired
+	ClaAcceptanceService claAcceptances;
+
+	@Autowired
+	SignerService signerService;
+
+	@Autowired
+	SignerRepository signers;
+
 	ContributorLicenseAgreement cla;
 
 	ContributorLicenseAgreement springCla;
@@ -77,6 +92,7 @@ public class IndividualSignatureRepositoryTests {
 		springCla.setSupersedingCla(cla);
 
 		springCla = clas.save(springCla);
+		claAcceptances.rebuild();
 	}
 
 	@Test
@@ -143,6 +159,29 @@ public class IndividualSignatureRepositoryTests {
 		assertThat(signatures.findSignaturesFor(PageRequest.of(0, 1), user)).isNotNull();
 	}
 
+	@Test
+	public void findSignersAfter() {
+		assertThat(signatures.findSignersAfter(signature.getId() - 1)).extracting(IndividualSignatureRepository.Signer::getId, IndividualSignatureRepository.Signer::getGitHubLogin, IndividualSignatureRepository.Signer::getEmail, IndividualSignatureRepository.Signer::getClaName)
+				.containsExactly(tuple(signature.getId(), signature.getGitHubLogin(), signature.getEmail(), cla.getName()));
+		assertThat(signatures.findSignersAfter(signature.getId())).isEmpty();
+	}
+
+	@Test
+	public void signerServiceSaveHasSigned() {
+		user.setGitHubLogin("signer" + user.getGitHubLogin());
+		user.setEmails(Collections.singleton("signer@example.com"));
+		signerService.save(createSignature(cla, user));
+
+		assertThat(signers.hasSigned(springCla.getName(), user.getGitHubLogin(), Collections.emptySet(), IndividualSignatureRepositoryTests::organizationsNotRequested)).isTrue();
+		assertThat(signers.hasSigned(cla.getName(), "notfound", user.getEmails(), IndividualSignatureRepositoryTests::organizationsNotRequested)).isTrue();
+		assertThat(signers.findSigned(cla.getName(), Signer.Kind.LOGIN, Arrays.asList(user.getGitHubLogin(), "notfound"))).containsOnly(user.getGitHubLogin());
+		assertThat(signers.hasSigned("notfound", user.getGitHubLogin(), user.getEmails(), IndividualSignatureRepositoryTests::organizationsNotRequested)).isFalse();
+	}
+
+	private static List<String> organizationsNotRequested() {
+		throw new AssertionError("The organizations must not be requested");
+	}
+
 	private static IndividualSignature createSignature(ContributorLicenseAgreement cla, User user) {
 		IndividualSignature signature = DataUtils.iclaSignature(cla);
 		signature.setGitHubLogin(user.getGitHubLogin());
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.data.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Date;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import io.pivotal.cla.data.PullRequestMigration;
+import io.pivotal.cla.data.PullRequestMigration.State;
+import io.pivotal.cla.junit.JpaTests;
+import io.pivotal.cla.test.context.SystemDataActiveProfiles;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringBootTest
+@TestPropertySource(locations = "/application-test.properties", properties = "cla.migration.resume=false")
+@SystemDataActiveProfiles
+@Category(JpaTests.class)
+public class PullRequestMigrationRepositoryTests {
+
+	@Autowired
+	PullRequestMigrationRepository migrations;
+
+	PullRequestMigration migration;
+
+	@Before
+	public void setup() {
+		Date now = new Date();
+		migration = new PullRequestMigration();
+		migration.setClaName("pivotal");
+		migration.setRepositoryId("rwinch/176_test");
+		migration.setCommitStatusUrl("https://cla.pivotal.io/sign/pivotal");
+		migration.setFaqUrl("https://cla.pivotal.io/about");
+		migration.setBaseSyncUrl("https://cla.pivotal.io/sync/pivotal");
+		migration.setState(State.QUEUED);
+		migration.setCreated(now);
+		migration.setUpdated(now);
+		migration = migrations.save(migration);
+	}
+
+	@After
+	public void cleanup() {
+		migrations.deleteAll();
+	}
+
+	@Test
+	public void claimOnce() {
+		Date now = new Date();
+		Date leaseExpires = new Date(now.getTime() + 60000);
+
+		assertThat(migrations.claim(migration.getId(), now, leaseExpires)).isTrue();
+		assertThat(migrations.claim(migration.getId(), now, leaseExpires)).isFalse();
+		assertThat(migrations.findOne(migration.getId()).getLeaseExpires()).isNotNull();
+	}
+
+	@Test
+	public void claimWhenLeaseExpired() {
+		Date now = new Date();
+		assertThat(migrations.claim(migration.getId(), now, now)).isTrue();
+
+		assertThat(migrations.claim(migration.getId(), new Date(now.getTime() + 1), new Date(now.getTime() + 60000))).isTrue();
+	}
+
+	@Test
+	public void claimWhenNotActiveThenFalse() {
+		migration.setState(State.FAILED);
+		migrations.save(migration);
+
+		assertThat(migrations.claim(migration.getId(), new Date(), new Date())).isFalse();
+	}
+}
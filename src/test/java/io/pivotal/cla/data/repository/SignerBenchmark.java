@@ -0,0 +1,154 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.data.repository;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the SQL of the signature queries (the CLA acceptance join with the
+ * login or the emails) to the lookup of the signer table on a generated
+ * dataset of one million individual signatures. Both run on an in memory H2
+ * database migrated like the application, so generating the dataset takes a
+ * few minutes. Run with {@code ./gradlew jmh -Pjmh=SignerBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class SignerBenchmark {
+	static final String URL = "jdbc:h2:mem:signer-benchmark;DB_CLOSE_DELAY=-1";
+
+	static final int SIGNATURES = 1_000_000;
+
+	static final int BATCH_SIZE = 10_000;
+
+	/**
+	 * What {@link IndividualSignatureRepository#findSignaturesFor} is translated
+	 * to.
+	 */
+	static final String SIGNATURE_SQL = "SELECT s.id FROM individual_signature s CROSS JOIN cla_acceptance a"
+			+ " WHERE a.cla_name = ? AND s.cla_id = a.accepted_cla_id AND (s.github_login = ? OR s.email IN (?)) LIMIT 1";
+
+	/**
+	 * The query of {@link SignerRepository#hasSigned}.
+	 */
+	static final String SIGNER_SQL = "SELECT s.id FROM signer s WHERE s.cla_name = ?1 AND s.kind = 'LOGIN' AND s.identity_value = ?2"
+			+ " UNION ALL SELECT s.id FROM signer s WHERE s.cla_name = ?1 AND s.kind = 'EMAIL' AND s.identity_value IN (?3)"
+			+ " UNION ALL SELECT s.id FROM signer s WHERE s.cla_name = ?1 AND s.kind = 'DOMAIN' AND s.identity_value IN (?4)"
+			+ " UNION ALL SELECT s.id FROM signer s WHERE s.cla_name = ?1 AND s.kind = 'ORGANIZATION' AND s.identity_value IN (?5) LIMIT 1";
+
+	Connection connection;
+
+	PreparedStatement signature;
+
+	PreparedStatement signer;
+
+	@Setup
+	public void setup() throws SQLException {
+		Flyway.configure().dataSource(URL, null, null).table("schema_version").load().migrate();
+		connection = DriverManager.getConnection(URL);
+		connection.setAutoCommit(false);
+		try (PreparedStatement individual = connection.prepareStatement("INSERT INTO individual_signature (id, date_of_signature, email, github_login, name, cla_id) VALUES (?, NOW(), ?, ?, ?, 1)");
+				PreparedStatement signers = connection.prepareStatement("INSERT INTO signer (cla_name, kind, identity_value)"
+						+ " SELECT a.cla_name, 'LOGIN', s.github_login FROM individual_signature s JOIN cla_acceptance a ON a.accepted_cla_id = s.cla_id WHERE s.id BETWEEN ?1 AND ?2"
+						+ " UNION ALL"
+						+ " SELECT a.cla_name, 'EMAIL', s.email FROM individual_signature s JOIN cla_acceptance a ON a.accepted_cla_id = s.cla_id WHERE s.id BETWEEN ?1 AND ?2")) {
+			// H2 is slow to commit large transactions, so the rows are committed in batches
+			for (int first = 1; first <= SIGNATURES; first += BATCH_SIZE) {
+				int last = first + BATCH_SIZE - 1;
+				for (int id = first; id <= last; id++) {
+					individual.setLong(1, id);
+					individual.setString(2, "user" + id + "@example.com");
+					individual.setString(3, "user" + id);
+					individual.setString(4, "User " + id);
+					individual.addBatch();
+				}
+				individual.executeBatch();
+				signers.setLong(1, first);
+				signers.setLong(2, last);
+				signers.executeUpdate();
+				connection.commit();
+			}
+		}
+		signature = connection.prepareStatement(SIGNATURE_SQL);
+		signer = connection.prepareStatement(SIGNER_SQL);
+	}
+
+	@TearDown
+	public void tearDown() throws SQLException {
+		connection.createStatement().execute("SHUTDOWN");
+		connection.close();
+	}
+
+	@Benchmark
+	public boolean signatureSigned() throws SQLException {
+		return hasSigned(signature, "user" + SIGNATURES / 2);
+	}
+
+	@Benchmark
+	public boolean signatureUnsigned() throws SQLException {
+		return hasSigned(signature, "unsigned");
+	}
+
+	@Benchmark
+	public boolean signerSigned() throws SQLException {
+		return hasSigned(signer, "user" + SIGNATURES / 2);
+	}
+
+	@Benchmark
+	public boolean signerUnsigned() throws SQLException {
+		return hasSigned(signer, "unsigned");
+	}
+
+	private static boolean hasSigned(PreparedStatement statement, String gitHubLogin) throws SQLException {
+		statement.setString(1, "pivotal");
+		statement.setString(2, gitHubLogin);
+		statement.setString(3, gitHubLogin + "@users.noreply.github.com");
+		if (statement.getParameterMetaData().getParameterCount() > 3) {
+			statement.setString(4, "users.noreply.github.com");
+			statement.setString(5, "");
+		}
+		try (ResultSet result = statement.executeQuery()) {
+			return result.next();
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		new Runner(new OptionsBuilder().include(SignerBenchmark.class.getSimpleName()).addProfiler("gc").build()).run();
+	}
+}
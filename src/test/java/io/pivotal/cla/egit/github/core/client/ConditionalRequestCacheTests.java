@@ -0,0 +1,152 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.egit.github.core.client;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.List;
+
+import org.eclipse.egit.github.core.Comment;
+import org.eclipse.egit.github.core.RepositoryId;
+import org.eclipse.egit.github.core.client.GitHubClient;
+import org.eclipse.egit.github.core.service.IssueService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+public class ConditionalRequestCacheTests {
+	static final RepositoryId REPOSITORY = RepositoryId.create("rwinch", "176_test");
+
+	MockWebServer server;
+
+	SimpleMeterRegistry meterRegistry;
+
+	ConditionalRequestCache cache;
+
+	OkHttpClient httpClient;
+
+	@Before
+	public void setup() throws Exception {
+		server = new MockWebServer();
+		server.start();
+		meterRegistry = new SimpleMeterRegistry();
+		cache = new ConditionalRequestCache(1024, meterRegistry);
+		httpClient = new OkHttpClient.Builder().addInterceptor(cache).build();
+	}
+
+	@After
+	public void cleanup() throws Exception {
+		server.shutdown();
+	}
+
+	@Test
+	public void notModifiedUsesCachedBody() throws Exception {
+		server.enqueue(comments("first").addHeader("ETag", "\"v1\"").addHeader("X-RateLimit-Remaining", "10"));
+		server.enqueue(new MockResponse().setResponseCode(304).addHeader("ETag", "\"v1\"").addHeader("X-RateLimit-Remaining", "9"));
+		GitHubClient client = createClient("a");
+
+		List<Comment> first = getComments(client);
+		List<Comment> second = getComments(client);
+
+		assertThat(first).extracting(Comment::getBody).containsOnly("first");
+		assertThat(second).extracting(Comment::getBody).containsOnly("first");
+		assertThat(client.getRemainingRequests()).isEqualTo(9);
+		assertThat(server.takeRequest().getHeader("If-None-Match")).isNull();
+		assertThat(server.takeRequest().getHeader("If-None-Match")).isEqualTo("\"v1\"");
+		assertThat(meterRegistry.get("cla.github.cache.requests").tag("result", "hit").counter().count()).isEqualTo(1);
+		assertThat(meterRegistry.get("cla.github.cache.requests").tag("result", "miss").counter().count()).isEqualTo(1);
+		assertThat(meterRegistry.get("cla.github.cache.saved").counter().count()).isGreaterThan(0);
+	}
+
+	@Test
+	public void modifiedReplacesCachedBody() throws Exception {
+		server.enqueue(comments("first").addHeader("ETag", "\"v1\""));
+		server.enqueue(comments("second").addHeader("ETag", "\"v2\""));
+		server.enqueue(new MockResponse().setResponseCode(304));
+		GitHubClient client = createClient("a");
+
+		getComments(client);
+		getComments(client);
+		List<Comment> third = getComments(client);
+
+		assertThat(third).extracting(Comment::getBody).containsOnly("second");
+		server.takeRequest();
+		assertThat(server.takeRequest().getHeader("If-None-Match")).isEqualTo("\"v1\"");
+		assertThat(server.takeRequest().getHeader("If-None-Match")).isEqualTo("\"v2\"");
+	}
+
+	@Test
+	public void lastModified() throws Exception {
+		server.enqueue(comments("first").addHeader("Last-Modified", "Tue, 01 Jan 2019 00:00:00 GMT"));
+		server.enqueue(new MockResponse().setResponseCode(304));
+		GitHubClient client = createClient("a");
+
+		getComments(client);
+		List<Comment> second = getComments(client);
+
+		assertThat(second).extracting(Comment::getBody).containsOnly("first");
+		server.takeRequest();
+		assertThat(server.takeRequest().getHeader("If-Modified-Since")).isEqualTo("Tue, 01 Jan 2019 00:00:00 GMT");
+	}
+
+	@Test
+	public void credentialsAreNotShared() throws Exception {
+		server.enqueue(comments("first").addHeader("ETag", "\"v1\""));
+		server.enqueue(comments("first").addHeader("ETag", "\"v1\""));
+
+		getComments(createClient("a"));
+		getComments(createClient("b"));
+
+		server.takeRequest();
+		assertThat(server.takeRequest().getHeader("If-None-Match")).isNull();
+	}
+
+	@Test
+	public void evictsLeastRecentlyUsed() throws Exception {
+		cache = new ConditionalRequestCache(40, new SimpleMeterRegistry());
+		httpClient = new OkHttpClient.Builder().addInterceptor(cache).build();
+		server.enqueue(comments("first").addHeader("ETag", "\"v1\""));
+		server.enqueue(comments("second").addHeader("ETag", "\"v2\""));
+		server.enqueue(comments("second").addHeader("ETag", "\"v1\""));
+
+		getComments(createClient("a"));
+		getComments(createClient("b"));
+		getComments(createClient("a"));
+
+		assertThat(cache.size()).isLessThanOrEqualTo(40);
+		server.takeRequest();
+		server.takeRequest();
+		assertThat(server.takeRequest().getHeader("If-None-Match")).isNull();
+	}
+
+	private List<Comment> getComments(GitHubClient client) throws Exception {
+		return new IssueService(client).getComments(REPOSITORY, 2);
+	}
+
+	private GitHubClient createClient(String accessToken) {
+		return new OkHttpGitHubClient(server.getHostName(), server.getPort(), "http", httpClient).setOAuth2Token(accessToken);
+	}
+
+	private static MockResponse comments(String body) {
+		return new MockResponse().addHeader("Content-Type", "application/json; charset=utf-8").setBody("[{\"id\":1,\"body\":\"" + body + "\"}]");
+	}
+}
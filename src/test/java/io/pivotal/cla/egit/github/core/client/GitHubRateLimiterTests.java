@@ -0,0 +1,210 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.egit.github.core.client;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.pivotal.cla.egit.github.core.client.GitHubRateLimiter.Budget;
+import okhttp3.Headers;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+public class GitHubRateLimiterTests {
+	static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+	MockWebServer server;
+
+	OkHttpClient httpClient;
+
+	@Before
+	public void setup() throws Exception {
+		server = new MockWebServer();
+		server.start();
+		GitHubRateLimiter limiter = new GitHubRateLimiter(Duration.ofMillis(200), Duration.ofSeconds(2), new SimpleMeterRegistry());
+		httpClient = new OkHttpClient.Builder().addInterceptor(limiter).build();
+	}
+
+	@After
+	public void cleanup() throws Exception {
+		server.shutdown();
+	}
+
+	@Test
+	public void readsAreNotDelayed() {
+		Budget budget = new Budget(SECOND);
+
+		assertThat(budget.reserve(false, 0)).isEqualTo(0);
+		assertThat(budget.reserve(false, 0)).isEqualTo(0);
+	}
+
+	@Test
+	public void writesAreSpacedByWriteInterval() {
+		Budget budget = new Budget(SECOND);
+
+		assertThat(budget.reserve(true, 0)).isEqualTo(0);
+		assertThat(budget.reserve(true, 0)).isEqualTo(SECOND);
+		assertThat(budget.reserve(true, SECOND / 2)).isEqualTo(SECOND + SECOND / 2);
+		assertThat(budget.reserve(false, SECOND / 2)).isEqualTo(0);
+	}
+
+	@Test
+	public void refusedWritesDoNotReserveSlots() {
+		Budget budget = new Budget(SECOND);
+		budget.update(response(200, "X-RateLimit-Remaining", "10", "X-RateLimit-Reset", "1000"), 0, 0);
+
+		assertThat(budget.reserve(true, 0, 0)).isEqualTo(0);
+		for (int i = 0; i < 5; i++) {
+			assertThat(budget.reserve(true, 0, 0)).isGreaterThan(0);
+		}
+
+		assertThat(budget.reserve(true, 100 * SECOND, 0)).isEqualTo(0);
+		assertThat(budget.reserve(true, 200 * SECOND, 0)).isEqualTo(0);
+	}
+
+	@Test
+	public void writesAreSpreadOverRemainingBudget() {
+		Budget budget = new Budget(SECOND);
+		budget.update(response(200, "X-RateLimit-Remaining", "10", "X-RateLimit-Reset", "100"), 0, 0);
+
+		assertThat(budget.reserve(true, 0)).isEqualTo(0);
+		assertThat(budget.reserve(true, 0)).isEqualTo(10 * SECOND);
+	}
+
+	@Test
+	public void exhaustedBudgetWaitsForReset() {
+		Budget budget = new Budget(SECOND);
+		budget.update(response(200, "X-RateLimit-Remaining", "0", "X-RateLimit-Reset", "30"), 0, 0);
+
+		assertThat(budget.reserve(false, 0)).isEqualTo(30 * SECOND);
+		assertThat(budget.reserve(false, 30 * SECOND)).isEqualTo(0);
+	}
+
+	@Test
+	public void retryAfter() {
+		Budget budget = new Budget(SECOND);
+		budget.update(response(403, "Retry-After", "5"), 0, 0);
+
+		assertThat(budget.reserve(false, SECOND)).isEqualTo(4 * SECOND);
+	}
+
+	@Test
+	public void writesWithSameTokenAreSpaced() throws Exception {
+		server.enqueue(new MockResponse());
+		server.enqueue(new MockResponse());
+
+		long start = System.nanoTime();
+		post("token a").close();
+		post("token a").close();
+
+		assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(200));
+	}
+
+	@Test
+	public void writesWithDifferentTokensAreNotSpaced() throws Exception {
+		server.enqueue(new MockResponse());
+		server.enqueue(new MockResponse());
+
+		post("token a").close();
+		long start = System.nanoTime();
+		post("token b").close();
+
+		assertThat(System.nanoTime() - start).isLessThan(TimeUnit.MILLISECONDS.toNanos(200));
+	}
+
+	@Test
+	public void failsFastWhenWaitExceedsMax() throws Exception {
+		server.enqueue(new MockResponse().setResponseCode(403).addHeader("Retry-After", "60"));
+
+		post("token a").close();
+
+		assertThatCode(() -> post("token a")).isInstanceOf(IOException.class).hasMessageContaining("rate limit");
+		assertThat(server.getRequestCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void graphqlQueriesAreNotSpacedAsWrites() throws Exception {
+		server.enqueue(new MockResponse());
+		server.enqueue(new MockResponse());
+
+		long start = System.nanoTime();
+		post("token a", "/graphql").close();
+		post("token a", "/graphql").close();
+
+		assertThat(System.nanoTime() - start).isLessThan(TimeUnit.MILLISECONDS.toNanos(200));
+	}
+
+	@Test
+	public void graphqlBudgetIsSeparateFromRestBudget() throws Exception {
+		long reset = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()) + 60;
+		server.enqueue(new MockResponse()
+				.addHeader("X-RateLimit-Resource", "graphql")
+				.addHeader("X-RateLimit-Remaining", "0")
+				.addHeader("X-RateLimit-Reset", String.valueOf(reset)));
+		server.enqueue(new MockResponse());
+
+		post("token a", "/graphql").close();
+		post("token a").close();
+
+		assertThatCode(() -> post("token a", "/graphql")).isInstanceOf(IOException.class).hasMessageContaining("rate limit");
+		assertThat(server.getRequestCount()).isEqualTo(2);
+	}
+
+	@Test
+	public void resourceOfRequest() {
+		assertThat(GitHubRateLimiter.resource(new Request.Builder().url("https://api.github.com/graphql").build())).isEqualTo("graphql");
+		assertThat(GitHubRateLimiter.resource(new Request.Builder().url("https://github.example.com/api/graphql").build())).isEqualTo("graphql");
+		assertThat(GitHubRateLimiter.resource(new Request.Builder().url("https://api.github.com/search/issues").build())).isEqualTo("search");
+		assertThat(GitHubRateLimiter.resource(new Request.Builder().url("https://api.github.com/repos/rwinch/176_test").build())).isEqualTo("core");
+	}
+
+	private Response post(String authorization) throws IOException {
+		return post(authorization, "/repos/rwinch/176_test/statuses/abc");
+	}
+
+	private Response post(String authorization, String path) throws IOException {
+		Request request = new Request.Builder()
+				.url(server.url(path))
+				.header("Authorization", authorization)
+				.post(RequestBody.create(MediaType.parse("application/json"), "{}"))
+				.build();
+		return httpClient.newCall(request).execute();
+	}
+
+	private static Response response(int code, String... headers) {
+		return new Response.Builder()
+				.request(new Request.Builder().url("https://api.github.com/").build())
+				.protocol(Protocol.HTTP_1_1)
+				.code(code)
+				.message("")
+				.headers(Headers.of(headers))
+				.build();
+	}
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.egit.github.core.client;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.InterruptedIOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.egit.github.core.Comment;
+import org.eclipse.egit.github.core.RepositoryId;
+import org.eclipse.egit.github.core.client.GitHubClient;
+import org.eclipse.egit.github.core.client.RequestException;
+import org.eclipse.egit.github.core.service.IssueService;
+import org.eclipse.egit.github.core.service.MarkdownService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+public class OkHttpGitHubClientTests {
+	MockWebServer server;
+
+	OkHttpClient httpClient;
+
+	@Before
+	public void setup() throws Exception {
+		server = new MockWebServer();
+		server.start();
+		httpClient = new OkHttpClient.Builder().readTimeout(1, TimeUnit.SECONDS).build();
+	}
+
+	@After
+	public void cleanup() throws Exception {
+		server.shutdown();
+	}
+
+	@Test
+	public void clientsShareConnections() throws Exception {
+		server.enqueue(json("[{\"id\":1,\"body\":\"first\"}]"));
+		server.enqueue(json("[{\"id\":2,\"body\":\"second\"}]"));
+
+		List<Comment> first = new IssueService(createClient("a")).getComments(RepositoryId.create("rwinch", "176_test"), 2);
+		List<Comment> second = new IssueService(createClient("b")).getComments(RepositoryId.create("rwinch", "176_test"), 2);
+
+		assertThat(first).extracting(Comment::getBody).containsOnly("first");
+		assertThat(second).extracting(Comment::getBody).containsOnly("second");
+		RecordedRequest firstRequest = server.takeRequest();
+		RecordedRequest secondRequest = server.takeRequest();
+		assertThat(firstRequest.getPath()).isEqualTo("/api/v3/repos/rwinch/176_test/issues/2/comments?per_page=100&page=1");
+		assertThat(firstRequest.getHeader("Authorization")).isEqualTo("token a");
+		assertThat(secondRequest.getHeader("Authorization")).isEqualTo("token b");
+		assertThat(secondRequest.getSequenceNumber()).isEqualTo(1);
+		assertThat(httpClient.connectionPool().connectionCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void postJson() throws Exception {
+		server.enqueue(new MockResponse().setBody("<p>rendered</p>"));
+
+		String html = new MarkdownService(createClient("a")).getHtml("*text*", MarkdownService.MODE_MARKDOWN);
+
+		assertThat(html).isEqualTo("<p>rendered</p>");
+		RecordedRequest request = server.takeRequest();
+		assertThat(request.getMethod()).isEqualTo("POST");
+		assertThat(request.getHeader("Content-Type")).startsWith("application/json");
+		assertThat(request.getBody().readUtf8()).contains("\"text\":\"*text*\"");
+	}
+
+	@Test
+	public void errorResponse() throws Exception {
+		server.enqueue(json("{\"message\":\"Not Found\"}").setResponseCode(404));
+
+		assertThatCode(() -> new IssueService(createClient("a")).getComments(RepositoryId.create("rwinch", "176_test"), 2))
+			.isInstanceOf(RequestException.class)
+			.hasMessageContaining("Not Found");
+		assertThat(httpClient.connectionPool().idleConnectionCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void readTimeout() throws Exception {
+		server.enqueue(json("[]").setBodyDelay(5, TimeUnit.SECONDS));
+
+		assertThatCode(() -> new IssueService(createClient("a")).getComments(RepositoryId.create("rwinch", "176_test"), 2))
+			.isInstanceOf(InterruptedIOException.class);
+	}
+
+	@Test
+	public void rateLimitHeaders() throws Exception {
+		server.enqueue(json("[]").addHeader("X-RateLimit-Limit", "5000").addHeader("X-RateLimit-Remaining", "4999"));
+		GitHubClient client = createClient("a");
+
+		assertThat(new IssueService(client).getComments(RepositoryId.create("rwinch", "176_test"), 2)).isEqualTo(Collections.emptyList());
+
+		assertThat(client.getRequestLimit()).isEqualTo(5000);
+		assertThat(client.getRemainingRequests()).isEqualTo(4999);
+	}
+
+	private GitHubClient createClient(String accessToken) {
+		return new OkHttpGitHubClient(server.getHostName(), server.getPort(), "http", httpClient).setOAuth2Token(accessToken);
+	}
+
+	private static MockResponse json(String body) {
+		return new MockResponse().addHeader("Content-Type", "application/json; charset=utf-8").setBody(body);
+	}
+}
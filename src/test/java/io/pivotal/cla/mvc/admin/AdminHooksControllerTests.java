@@ -0,0 +1,138 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.mvc.admin;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import java.time.Instant;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import io.pivotal.cla.mvc.github.GitHubHookReplayer;
+import io.pivotal.cla.security.WithAdminUser;
+import io.pivotal.cla.security.WithClaAuthorUser;
+import io.pivotal.cla.security.WithSigningUser;
+import io.pivotal.cla.webdriver.WebDriverContext;
+
+@WebDriverContext
+@RunWith(SpringRunner.class)
+public class AdminHooksControllerTests {
+	static final Instant FROM = Instant.parse("2020-01-01T10:00:00Z");
+
+	static final Instant TO = Instant.parse("2020-01-01T12:00:00Z");
+
+	@MockBean
+	GitHubHookReplayer replayer;
+
+	@Autowired
+	MockMvc mockMvc;
+
+	@Test
+	@WithClaAuthorUser
+	public void replayWhenClaAuthorUserThenAccepted() throws Exception {
+		when(replayer.replay(FROM, TO, 5.0)).thenReturn(new GitHubHookReplayer.Status(FROM, TO, 5.0));
+
+		mockMvc.perform(post("/admin/hooks/replay").with(csrf())
+				.param("from", FROM.toString())
+				.param("to", TO.toString())
+				.param("rate", "5"))
+			.andExpect(status().isAccepted())
+			.andExpect(jsonPath("$.rate").value(5.0))
+			.andExpect(jsonPath("$.running").value(true));
+	}
+
+	@Test
+	@WithClaAuthorUser
+	public void replayWhenRangeEmptyThenBadRequest() throws Exception {
+		mockMvc.perform(post("/admin/hooks/replay").with(csrf())
+				.param("from", TO.toString())
+				.param("to", FROM.toString()))
+			.andExpect(status().isBadRequest());
+
+		verifyZeroInteractions(replayer);
+	}
+
+	@Test
+	@WithClaAuthorUser
+	public void replayWhenAlreadyRunningThenBadRequest() throws Exception {
+		when(replayer.replay(any(), any(), any())).thenThrow(new IllegalStateException("A replay is already running"));
+
+		mockMvc.perform(post("/admin/hooks/replay").with(csrf())
+				.param("from", FROM.toString())
+				.param("to", TO.toString()))
+			.andExpect(status().isBadRequest())
+			.andExpect(content().string("A replay is already running"));
+	}
+
+	@Test
+	@WithClaAuthorUser
+	public void replayStatusWhenNoReplayThenNotFound() throws Exception {
+		mockMvc.perform(get("/admin/hooks/replay"))
+			.andExpect(status().isNotFound());
+	}
+
+	@Test
+	@WithAdminUser
+	public void replayWhenAdminUserThenNotOk() throws Exception {
+		mockMvc.perform(post("/admin/hooks/replay").with(csrf())
+				.param("from", FROM.toString())
+				.param("to", TO.toString()))
+			.andExpect(status().is3xxRedirection());
+
+		verifyZeroInteractions(replayer);
+	}
+
+	@Test
+	@WithSigningUser
+	public void replayWhenSigningUserThenNotOk() throws Exception {
+		mockMvc.perform(post("/admin/hooks/replay").with(csrf())
+				.param("from", FROM.toString())
+				.param("to", TO.toString()))
+			.andExpect(status().is3xxRedirection());
+
+		verifyZeroInteractions(replayer);
+	}
+
+	@Test
+	public void replayWhenAnonymousThenNotOk() throws Exception {
+		mockMvc.perform(post("/admin/hooks/replay").with(csrf())
+				.param("from", FROM.toString())
+				.param("to", TO.toString()))
+			.andExpect(status().is3xxRedirection());
+
+		verifyZeroInteractions(replayer);
+	}
+
+	@Test
+	@WithClaAuthorUser
+	public void replayWithoutCsrfTokenThenNotOk() throws Exception {
+		mockMvc.perform(post("/admin/hooks/replay")
+				.param("from", FROM.toString())
+				.param("to", TO.toString()))
+			.andExpect(status().is3xxRedirection());
+
+		verifyZeroInteractions(replayer);
+	}
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.mvc.github;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.util.StreamUtils;
+import org.springframework.util.unit.DataSize;
+
+import io.pivotal.cla.config.GitHubHooksConfig;
+import io.pivotal.cla.mvc.github.GitHubHookArchive.ArchivedDelivery;
+
+public class GitHubHookArchiveTests {
+	@Rule
+	public TemporaryFolder temp = new TemporaryFolder();
+
+	GitHubHooksConfig config;
+
+	GitHubHookArchive archive;
+
+	@Before
+	public void setup() throws Exception {
+		config = new GitHubHooksConfig();
+		config.setArchiveDirectory(temp.getRoot().getAbsolutePath());
+		archive = new GitHubHookArchive(config);
+	}
+
+	@After
+	public void cleanup() throws Exception {
+		archive.destroy();
+	}
+
+	@Test
+	public void disabledByDefault() throws Exception {
+		GitHubHookArchive disabled = new GitHubHookArchive(new GitHubHooksConfig());
+
+		disabled.append("1", "pull_request", "apache", "https://localhost/", bytes("{}"));
+
+		assertThat(disabled.isEnabled()).isFalse();
+		assertThat(disabled.find("1")).isNull();
+	}
+
+	@Test
+	public void findByDeliveryId() throws Exception {
+		archive.append("1", "pull_request", "apache", "https://localhost/", bytes("{\"number\":1}"));
+		archive.append("2", "issue_comment", "eclipse", "https://localhost/", bytes("{\"number\":2}"));
+
+		ArchivedDelivery delivery = archive.find("2");
+
+		assertThat(delivery.getDeliveryId()).isEqualTo("2");
+		assertThat(delivery.getEvent()).isEqualTo("issue_comment");
+		assertThat(delivery.getClaName()).isEqualTo("eclipse");
+		assertThat(delivery.getBaseUrl()).isEqualTo("https://localhost/");
+		assertThat(new String(delivery.getPayload(), StandardCharsets.UTF_8)).isEqualTo("{\"number\":2}");
+		assertThat(archive.find("missing")).isNull();
+	}
+
+	@Test
+	public void readTimeRange() throws Exception {
+		archive.append("1", "pull_request", "apache", "https://localhost/", bytes("1"));
+		Instant from = Instant.ofEpochMilli(System.currentTimeMillis() + 1);
+		Thread.sleep(5);
+		archive.append("2", "pull_request", "apache", "https://localhost/", bytes("2"));
+		archive.append(null, "pull_request", "apache", "https://localhost/", bytes("3"));
+		Thread.sleep(5);
+		Instant to = Instant.now();
+		Thread.sleep(5);
+		archive.append("4", "pull_request", "apache", "https://localhost/", bytes("4"));
+
+		List<String> payloads = new ArrayList<>();
+		int count = archive.read(from, to, d -> payloads.add(new String(d.getPayload(), StandardCharsets.UTF_8)));
+
+		assertThat(count).isEqualTo(2);
+		assertThat(payloads).containsExactly("2", "3");
+	}
+
+	@Test
+	public void segmentIsGzip() throws Exception {
+		archive.append("1", "pull_request", "apache", "https://localhost/", bytes("{\"number\":1}"));
+		archive.destroy();
+
+		File[] segments = temp.getRoot().listFiles((dir, name) -> name.endsWith(".gz"));
+
+		assertThat(segments).hasSize(1);
+		try (GZIPInputStream in = new GZIPInputStream(new FileInputStream(segments[0]))) {
+			assertThat(new String(StreamUtils.copyToByteArray(in), StandardCharsets.UTF_8)).endsWith("{\"number\":1}");
+		}
+	}
+
+	@Test
+	public void rotateAndDeleteOldestSegments() throws Exception {
+		config.setArchiveSegmentSize(DataSize.ofBytes(1));
+		config.setArchiveMaxSegments(2);
+
+		for (int i = 1; i <= 4; i++) {
+			archive.append(String.valueOf(i), "pull_request", "apache", "https://localhost/", bytes(String.valueOf(i)));
+		}
+
+		assertThat(temp.getRoot().listFiles((dir, name) -> name.endsWith(".gz"))).hasSize(2);
+		assertThat(temp.getRoot().listFiles((dir, name) -> name.endsWith(".idx"))).hasSize(2);
+		assertThat(archive.find("1")).isNull();
+		assertThat(archive.find("2")).isNull();
+		assertThat(archive.find("3")).isNotNull();
+		assertThat(archive.find("4")).isNotNull();
+	}
+
+	@Test
+	public void findAfterRestartUsesIndexOfExistingSegments() throws Exception {
+		archive.append("1", "pull_request", "apache", "https://localhost/", bytes("1"));
+		archive.destroy();
+		archive = new GitHubHookArchive(config);
+		archive.append("2", "pull_request", "apache", "https://localhost/", bytes("2"));
+
+		assertThat(temp.getRoot().listFiles((dir, name) -> name.endsWith(".idx"))).hasSize(2);
+		assertThat(new String(archive.find("1").getPayload(), StandardCharsets.UTF_8)).isEqualTo("1");
+		assertThat(new String(archive.find("2").getPayload(), StandardCharsets.UTF_8)).isEqualTo("2");
+	}
+
+	@Test
+	public void findIgnoresSegmentWithoutIndex() throws Exception {
+		archive.append("1", "pull_request", "apache", "https://localhost/", bytes("1"));
+		archive.destroy();
+
+		for (File index : temp.getRoot().listFiles((dir, name) -> name.endsWith(".idx"))) {
+			assertThat(index.delete()).isTrue();
+		}
+
+		assertThat(archive.find("1")).isNull();
+		assertThat(archive.read(Instant.EPOCH, Instant.now().plusSeconds(1), d -> {
+		})).isZero();
+	}
+
+	@Test
+	public void readAcrossSegments() throws Exception {
+		config.setArchiveSegmentSize(DataSize.ofBytes(1));
+		Instant from = Instant.now();
+		for (int i = 1; i <= 3; i++) {
+			archive.append(String.valueOf(i), "pull_request", "apache", "https://localhost/", bytes(String.valueOf(i)));
+		}
+
+		List<String> payloads = new ArrayList<>();
+		archive.read(from, Instant.now().plusMillis(1), d -> payloads.add(new String(d.getPayload(), StandardCharsets.UTF_8)));
+
+		assertThat(temp.getRoot().listFiles((dir, name) -> name.endsWith(".gz"))).hasSize(3);
+		assertThat(payloads).containsExactly("1", "2", "3");
+	}
+
+	@Test
+	public void readSegmentCreatedAfterItsDeliveries() throws Exception {
+		archive.append("1", "pull_request", "apache", "https://localhost/", bytes("1"));
+		archive.destroy();
+		long received = archive.find("1").getTimestamp();
+		// the name of a segment is incremented while it exists, so it can be later than its deliveries
+		for (File file : temp.getRoot().listFiles()) {
+			String name = file.getName();
+			String suffix = name.substring(name.lastIndexOf('.'));
+			assertThat(file.renameTo(new File(temp.getRoot(), "segment-" + (received + 1000) + suffix))).isTrue();
+		}
+
+		List<String> deliveryIds = new ArrayList<>();
+		archive.read(Instant.ofEpochMilli(received), Instant.ofEpochMilli(received + 1), d -> deliveryIds.add(d.getDeliveryId()));
+
+		assertThat(deliveryIds).containsExactly("1");
+	}
+
+	private static byte[] bytes(String value) {
+		return value.getBytes(StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.mvc.github;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.ResponseEntity;
+
+import io.pivotal.cla.config.GitHubHooksConfig;
+import io.pivotal.cla.data.GitHubHookDelivery;
+import io.pivotal.cla.data.GitHubHookDelivery.State;
+import io.pivotal.cla.data.repository.GitHubHookDeliveryRepository;
+
+public class GitHubHookDeliveryQueueTests {
+	GitHubHookDeliveryRepository deliveries;
+
+	PullRequestHookHandler handler;
+
+	GitHubHookDeliveryQueue queue;
+
+	GitHubHookDelivery delivery;
+
+	@Before
+	public void setup() {
+		deliveries = mock(GitHubHookDeliveryRepository.class);
+		handler = mock(PullRequestHookHandler.class);
+		GitHubHooksConfig config = new GitHubHooksConfig();
+		config.setMaxAttempts(2);
+		queue = new GitHubHookDeliveryQueue(deliveries, handler, config);
+		delivery = new GitHubHookDelivery();
+		delivery.setId(1L);
+		delivery.setEvent("pull_request");
+		delivery.setAttempts(1);
+		when(deliveries.findOne(1L)).thenReturn(delivery);
+	}
+
+	@Test
+	public void coalescedDeliveryIsDeletedOnceEvaluated() throws Exception {
+		CompletableFuture<ResponseEntity<String>> evaluation = new CompletableFuture<>();
+		when(handler.submit(any(), any(), any(), any())).thenReturn(evaluation);
+
+		queue.process(1L);
+		verify(deliveries, never()).delete(any());
+
+		evaluation.complete(ResponseEntity.accepted().body("SCHEDULED"));
+		verify(deliveries).delete(delivery);
+	}
+
+	@Test
+	public void failedCoalescedEvaluationIsRetried() throws Exception {
+		CompletableFuture<ResponseEntity<String>> evaluation = new CompletableFuture<>();
+		when(handler.submit(any(), any(), any(), any())).thenReturn(evaluation);
+
+		queue.process(1L);
+		evaluation.completeExceptionally(new IllegalStateException("GitHub is down"));
+
+		verify(deliveries, never()).delete(any());
+		verify(deliveries).save(delivery);
+		assertThat(delivery.getState()).isEqualTo(State.QUEUED);
+		assertThat(delivery.getLastError()).contains("GitHub is down");
+	}
+
+	@Test
+	public void failedCoalescedEvaluationIsDeadLettered() throws Exception {
+		delivery.setAttempts(2);
+		CompletableFuture<ResponseEntity<String>> evaluation = new CompletableFuture<>();
+		when(handler.submit(any(), any(), any(), any())).thenReturn(evaluation);
+
+		queue.process(1L);
+		evaluation.completeExceptionally(new IllegalStateException("GitHub is down"));
+
+		verify(deliveries).save(delivery);
+		assertThat(delivery.getState()).isEqualTo(State.DEAD_LETTER);
+	}
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.mvc.github;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.InOrder;
+
+import io.pivotal.cla.config.GitHubHooksConfig;
+
+public class GitHubHookReplayerTests {
+	@Rule
+	public TemporaryFolder temp = new TemporaryFolder();
+
+	GitHubHooksConfig config;
+
+	GitHubHookArchive archive;
+
+	GitHubHookDeliveryQueue queue;
+
+	PullRequestHookHandler handler;
+
+	GitHubHookReplayer replayer;
+
+	@Before
+	public void setup() throws Exception {
+		config = new GitHubHooksConfig();
+		config.setArchiveDirectory(temp.getRoot().getAbsolutePath());
+		archive = new GitHubHookArchive(config);
+		queue = mock(GitHubHookDeliveryQueue.class);
+		handler = mock(PullRequestHookHandler.class);
+		replayer = new GitHubHookReplayer(archive, queue, handler, config);
+	}
+
+	@After
+	public void cleanup() throws Exception {
+		replayer.destroy();
+		archive.destroy();
+	}
+
+	@Test
+	public void replayIsRateLimited() throws Exception {
+		Instant from = Instant.now();
+		for (int i = 1; i <= 5; i++) {
+			archive.append(String.valueOf(i), "pull_request", "apache", "https://localhost/", bytes(String.valueOf(i)));
+		}
+		Instant to = Instant.now().plusMillis(1);
+
+		long started = System.nanoTime();
+		replayer.replay(from, to, 20.0);
+		GitHubHookReplayer.Status status = awaitReplay();
+		long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+
+		assertThat(status.getReplayed()).isEqualTo(5);
+		assertThat(status.getFailed()).isZero();
+		assertThat(status.getError()).isNull();
+		// 5 deliveries at 20 per second are 4 intervals of 50ms
+		assertThat(elapsed).isGreaterThanOrEqualTo(190);
+		InOrder inOrder = inOrder(handler);
+		for (int i = 1; i <= 5; i++) {
+			inOrder.verify(handler).handle("pull_request", "apache", "https://localhost/", String.valueOf(i));
+		}
+	}
+
+	@Test
+	public void replayUsesConfiguredRateByDefault() throws Exception {
+		config.setReplayRate(7);
+
+		GitHubHookReplayer.Status status = replayer.replay(Instant.now(), Instant.now().plusSeconds(1), null);
+
+		assertThat(status.getRate()).isEqualTo(7);
+	}
+
+	@Test
+	public void replayOnlyIncludesTimeRange() throws Exception {
+		archive.append("1", "pull_request", "apache", "https://localhost/", bytes("1"));
+		Thread.sleep(5);
+		Instant from = Instant.now();
+		archive.append("2", "pull_request", "apache", "https://localhost/", bytes("2"));
+		Instant to = Instant.now().plusMillis(1);
+		Thread.sleep(5);
+		archive.append("3", "pull_request", "apache", "https://localhost/", bytes("3"));
+
+		replayer.replay(from, to, 100.0);
+
+		assertThat(awaitReplay().getReplayed()).isEqualTo(1);
+		verify(handler).handle("pull_request", "apache", "https://localhost/", "2");
+		verifyNoMoreInteractions(handler);
+	}
+
+	@Test
+	public void replayEnqueuesWhenAsync() throws Exception {
+		config.setAsync(true);
+		Instant from = Instant.now();
+		archive.append("1", "pull_request", "apache", "https://localhost/", bytes("{}"));
+		Instant to = Instant.now().plusMillis(1);
+
+		replayer.replay(from, to, 100.0);
+
+		assertThat(awaitReplay().getReplayed()).isEqualTo(1);
+		verify(queue).enqueue("1", "pull_request", "apache", "https://localhost/", "{}");
+		verifyZeroInteractions(handler);
+	}
+
+	@Test
+	public void failedDeliveriesAreCounted() throws Exception {
+		when(handler.handle(any(), any(), any(), eq("1"))).thenThrow(new IllegalStateException("failed"));
+		Instant from = Instant.now();
+		archive.append("1", "pull_request", "apache", "https://localhost/", bytes("1"));
+		archive.append("2", "pull_request", "apache", "https://localhost/", bytes("2"));
+		Instant to = Instant.now().plusMillis(1);
+
+		replayer.replay(from, to, 100.0);
+		GitHubHookReplayer.Status status = awaitReplay();
+
+		assertThat(status.getReplayed()).isEqualTo(1);
+		assertThat(status.getFailed()).isEqualTo(1);
+	}
+
+	@Test
+	public void replayWhenRunningThenFails() throws Exception {
+		Instant from = Instant.now();
+		for (int i = 1; i <= 3; i++) {
+			archive.append(String.valueOf(i), "pull_request", "apache", "https://localhost/", bytes(String.valueOf(i)));
+		}
+		Instant to = Instant.now().plusMillis(1);
+		replayer.replay(from, to, 5.0);
+
+		assertThatThrownBy(() -> replayer.replay(from, to, 5.0)).isInstanceOf(IllegalStateException.class);
+	}
+
+	@Test
+	public void replayWhenArchiveDisabledThenFails() {
+		GitHubHooksConfig disabledConfig = new GitHubHooksConfig();
+		GitHubHookReplayer disabled = new GitHubHookReplayer(new GitHubHookArchive(disabledConfig), queue, handler, disabledConfig);
+
+		assertThatThrownBy(() -> disabled.replay(Instant.now(), Instant.now().plusSeconds(1), null)).isInstanceOf(IllegalStateException.class);
+		assertThat(disabled.getStatus()).isNull();
+		disabled.destroy();
+	}
+
+	@Test
+	public void replayWhenRateNotPositiveThenFails() {
+		assertThatThrownBy(() -> replayer.replay(Instant.now(), Instant.now().plusSeconds(1), 0.0)).isInstanceOf(IllegalArgumentException.class);
+		assertThat(replayer.getStatus()).isNull();
+	}
+
+	private GitHubHookReplayer.Status awaitReplay() throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (replayer.getStatus().isRunning() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertThat(replayer.getStatus().isRunning()).isFalse();
+		return replayer.getStatus();
+	}
+
+	private static byte[] bytes(String value) {
+		return value.getBytes(StandardCharsets.UTF_8);
+	}
+}
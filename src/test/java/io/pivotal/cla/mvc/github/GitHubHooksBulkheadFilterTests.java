@@ -0,0 +1,141 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.mvc.github;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.FilterChain;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.pivotal.cla.config.GitHubHooksConfig;
+
+public class GitHubHooksBulkheadFilterTests {
+	SimpleMeterRegistry meterRegistry;
+
+	GitHubHooksConfig config;
+
+	CountDownLatch entered;
+
+	CountDownLatch release;
+
+	FilterChain blockingChain;
+
+	@Before
+	public void setup() {
+		meterRegistry = new SimpleMeterRegistry();
+		config = new GitHubHooksConfig();
+		config.setMaxConcurrent(1);
+		config.setMaxQueued(1);
+		config.setQueueTimeout(Duration.ofMillis(100));
+		config.setRetryAfter(Duration.ofSeconds(30));
+		entered = new CountDownLatch(1);
+		release = new CountDownLatch(1);
+		blockingChain = (request, response) -> {
+			entered.countDown();
+			try {
+				release.await(5, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				throw new IllegalStateException(e);
+			}
+		};
+	}
+
+	@Test
+	public void underLimitPassesThrough() throws Exception {
+		GitHubHooksBulkheadFilter filter = new GitHubHooksBulkheadFilter(config, meterRegistry);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		filter.doFilter(new MockHttpServletRequest(), response, (req, res) -> {
+			assertThat(meterRegistry.get("cla.hooks.bulkhead.inflight").gauge().value()).isEqualTo(1);
+		});
+
+		assertThat(response.getStatus()).isEqualTo(200);
+		assertThat(meterRegistry.get("cla.hooks.bulkhead.inflight").gauge().value()).isEqualTo(0);
+	}
+
+	@Test
+	public void queuedRequestTimesOut() throws Exception {
+		GitHubHooksBulkheadFilter filter = new GitHubHooksBulkheadFilter(config, meterRegistry);
+		CompletableFuture<Void> first = CompletableFuture.runAsync(() -> doFilter(filter, blockingChain));
+		assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(new MockHttpServletRequest(), response, (req, res) -> fail("Should be rejected"));
+		release.countDown();
+		first.get(5, TimeUnit.SECONDS);
+
+		assertThat(response.getStatus()).isEqualTo(503);
+		assertThat(response.getHeader("Retry-After")).isEqualTo("30");
+		assertThat(meterRegistry.get("cla.hooks.bulkhead.rejected").tag("reason", "timeout").counter().count()).isEqualTo(1);
+	}
+
+	@Test
+	public void queuedRequestProceedsWhenSlotFrees() throws Exception {
+		config.setQueueTimeout(Duration.ofSeconds(5));
+		GitHubHooksBulkheadFilter filter = new GitHubHooksBulkheadFilter(config, meterRegistry);
+		CompletableFuture<Void> first = CompletableFuture.runAsync(() -> doFilter(filter, blockingChain));
+		assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		CompletableFuture<Void> second = CompletableFuture.runAsync(() -> doFilter(filter, response, (req, res) -> {}));
+		while (meterRegistry.get("cla.hooks.bulkhead.queued").gauge().value() == 0) {
+			Thread.sleep(10);
+		}
+		release.countDown();
+		first.get(5, TimeUnit.SECONDS);
+		second.get(5, TimeUnit.SECONDS);
+
+		assertThat(response.getStatus()).isEqualTo(200);
+	}
+
+	@Test
+	public void fullQueueIsRejectedImmediately() throws Exception {
+		config.setMaxQueued(0);
+		GitHubHooksBulkheadFilter filter = new GitHubHooksBulkheadFilter(config, meterRegistry);
+		CompletableFuture<Void> first = CompletableFuture.runAsync(() -> doFilter(filter, blockingChain));
+		assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(new MockHttpServletRequest(), response, (req, res) -> fail("Should be rejected"));
+		release.countDown();
+		first.get(5, TimeUnit.SECONDS);
+
+		assertThat(response.getStatus()).isEqualTo(503);
+		assertThat(meterRegistry.get("cla.hooks.bulkhead.rejected").tag("reason", "queue_full").counter().count()).isEqualTo(1);
+	}
+
+	private void doFilter(GitHubHooksBulkheadFilter filter, FilterChain chain) {
+		doFilter(filter, new MockHttpServletResponse(), chain);
+	}
+
+	private void doFilter(GitHubHooksBulkheadFilter filter, MockHttpServletResponse response, FilterChain chain) {
+		try {
+			filter.doFilter(new MockHttpServletRequest(), response, chain);
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.mvc.github;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.function.BooleanSupplier;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.util.StreamUtils;
+
+import io.pivotal.cla.data.AccessToken;
+import io.pivotal.cla.data.GitHubHookDelivery.State;
+import io.pivotal.cla.data.User;
+import io.pivotal.cla.data.repository.GitHubHookDeliveryRepository;
+import io.pivotal.cla.egit.github.core.event.GithubEvents;
+import io.pivotal.cla.security.GitHubSignature;
+import io.pivotal.cla.security.WithSigningUserFactory;
+import io.pivotal.cla.service.github.PullRequestStatus;
+import io.pivotal.cla.webdriver.BaseWebDriverTests;
+
+@TestPropertySource(properties = { "cla.hooks.async=true", "cla.hooks.poll-interval=50ms", "cla.hooks.max-attempts=1" })
+public class GitHubHooksControllerAsyncTests extends BaseWebDriverTests {
+
+	AccessToken accessToken;
+
+	@Autowired
+	GitHubSignature oauth;
+
+	@Autowired
+	GitHubHookDeliveryRepository deliveries;
+
+	@Before
+	public void setupAccessToken() {
+		accessToken = new AccessToken(AccessToken.CLA_ACCESS_TOKEN_ID, "GitHubHooksControllerAsyncTests_access_token");
+		when(mockTokenRepo.findOne(AccessToken.CLA_ACCESS_TOKEN_ID)).thenReturn(accessToken);
+		when(mockTokenRepo.findOne("rwinch/176_test"))
+			.thenReturn(new AccessToken("rwinch/176_test", "mock_access_token_value"));
+	}
+
+	@After
+	public void cleanup() {
+		deliveries.deleteAll();
+	}
+
+	@Test
+	public void pullRequestIsAcceptedAndProcessedByWorker() throws Exception {
+		User user = WithSigningUserFactory.create();
+		when(mockUserRepo.findOne(anyString())).thenReturn(user);
+		when(mockSignerRepository.hasSigned(anyString(), anyString(), any(), any())).thenReturn(true);
+
+		mockMvc.perform(hookRequest(getPayload("pull_request.json")).header("X-GitHub-Event", GithubEvents.PULL_REQUEST))
+			.andExpect(status().isAccepted());
+
+		ArgumentCaptor<PullRequestStatus> statusCaptor = ArgumentCaptor.forClass(PullRequestStatus.class);
+		verify(mockGitHub, timeout(5000)).save(statusCaptor.capture());
+
+		PullRequestStatus status = statusCaptor.getValue();
+		assertThat(status.getRepoId()).isEqualTo("rwinch/176_test");
+		assertThat(status.getSha()).isEqualTo("a6befb598a35c1c206e1bf7bbb3018f4403b9610");
+		assertThat(status.getUrl()).isEqualTo("http://localhost/sign/pivotal?repositoryId=rwinch/176_test&pullRequestId=2");
+		assertThat(status.getSyncUrl()).isEqualTo("http://localhost/sync/pivotal?repositoryId=rwinch/176_test&pullRequestId=2");
+		assertThat(status.getFaqUrl()).isEqualTo("http://localhost/about");
+		assertThat(status.isSuccess()).isTrue();
+
+		waitFor(() -> deliveries.count() == 0);
+		assertThat(deliveries.count()).isZero();
+	}
+
+	@Test
+	public void failingDeliveryIsDeadLettered() throws Exception {
+		doThrow(new IllegalStateException("GitHub is down")).when(mockGitHub).save(any());
+
+		mockMvc.perform(hookRequest(getPayload("pull_request.json")).header("X-GitHub-Event", GithubEvents.PULL_REQUEST))
+			.andExpect(status().isAccepted());
+
+		verify(mockGitHub, timeout(5000)).save(any());
+		waitFor(() -> deliveries.countByState(State.DEAD_LETTER) == 1);
+		assertThat(deliveries.countByState(State.DEAD_LETTER)).isEqualTo(1);
+	}
+
+	@Test
+	public void unsignedDeliveryIsRejected() throws Exception {
+		mockMvc.perform(post("/github/hooks/pull_request/pivotal")
+				.header("X-GitHub-Event", GithubEvents.PULL_REQUEST)
+				.content(getPayload("pull_request.json")))
+			.andExpect(status().isUnauthorized());
+
+		assertThat(deliveries.count()).isZero();
+	}
+
+	private void waitFor(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(50);
+		}
+	}
+
+	private byte[] getPayload(String id) throws IOException {
+		try (InputStream is = getClass().getClassLoader().getResourceAsStream("GitHubHooksControllerTests/" + id)) {
+			return StreamUtils.copyToByteArray(is);
+		}
+	}
+
+	private MockHttpServletRequestBuilder hookRequest(byte[] body) {
+		String signature = oauth.create(new String(body, StandardCharsets.UTF_8), accessToken.getToken());
+		return post("/github/hooks/pull_request/pivotal")
+				.header("X-Hub-Signature", signature)
+				.content(body);
+	}
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.mvc.github;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.util.StreamUtils;
+
+import io.pivotal.cla.data.AccessToken;
+import io.pivotal.cla.data.User;
+import io.pivotal.cla.egit.github.core.PullRequestId;
+import io.pivotal.cla.egit.github.core.event.GithubEvents;
+import io.pivotal.cla.security.GitHubSignature;
+import io.pivotal.cla.security.WithSigningUserFactory;
+import io.pivotal.cla.service.github.PullRequestStatus;
+import io.pivotal.cla.webdriver.BaseWebDriverTests;
+
+@TestPropertySource(properties = "cla.hooks.coalesce-window=1s")
+public class GitHubHooksControllerCoalescingTests extends BaseWebDriverTests {
+
+	AccessToken accessToken;
+
+	@Autowired
+	GitHubSignature oauth;
+
+	@Before
+	public void setupMocks() {
+		accessToken = new AccessToken(AccessToken.CLA_ACCESS_TOKEN_ID, "GitHubHooksControllerCoalescingTests_access_token");
+		when(mockTokenRepo.findOne(AccessToken.CLA_ACCESS_TOKEN_ID)).thenReturn(accessToken);
+		when(mockTokenRepo.findOne("rwinch/176_test"))
+			.thenReturn(new AccessToken("rwinch/176_test", "mock_access_token_value"));
+		User user = WithSigningUserFactory.create();
+		when(mockUserRepo.findOne(anyString())).thenReturn(user);
+		when(mockSignerRepository.hasSigned(anyString(), anyString(), any(), any())).thenReturn(true);
+	}
+
+	@Test
+	public void eventsWithinWindowAreEvaluatedOnce() throws Exception {
+		mockMvc.perform(hookRequest(GithubEvents.ISSUE_COMMENT, "issue_comment.json"))
+			.andExpect(status().isAccepted());
+		mockMvc.perform(hookRequest(GithubEvents.PULL_REQUEST, "pull_request.json"))
+			.andExpect(status().isAccepted());
+		mockMvc.perform(hookRequest(GithubEvents.PULL_REQUEST_REVIEW_COMMENT, "pull_request_review_comment.json"))
+			.andExpect(status().isAccepted());
+
+		ArgumentCaptor<PullRequestStatus> statusCaptor = ArgumentCaptor.forClass(PullRequestStatus.class);
+		verify(mockGitHub, timeout(5000)).save(statusCaptor.capture());
+		Thread.sleep(1500);
+		verify(mockGitHub, times(1)).save(any());
+
+		PullRequestStatus status = statusCaptor.getValue();
+		assertThat(status.getRepoId()).isEqualTo("rwinch/176_test");
+		assertThat(status.getPullRequestId()).isEqualTo(2);
+		assertThat(status.getSha()).isEqualTo("a6befb598a35c1c206e1bf7bbb3018f4403b9610");
+		assertThat(status.isSuccess()).isTrue();
+		verify(mockGitHub, never()).getShaForPullRequest(any(PullRequestId.class));
+	}
+
+	@Test
+	public void shaIsFetchedWhenNoEventContainsIt() throws Exception {
+		when(mockGitHub.getShaForPullRequest(any(PullRequestId.class))).thenReturn("0000000000000000000000000000000000000001");
+
+		mockMvc.perform(hookRequest(GithubEvents.ISSUE_COMMENT, "issue_comment.json"))
+			.andExpect(status().isAccepted());
+		mockMvc.perform(hookRequest(GithubEvents.ISSUE_COMMENT, "issue_comment.json"))
+			.andExpect(status().isAccepted());
+
+		ArgumentCaptor<PullRequestStatus> statusCaptor = ArgumentCaptor.forClass(PullRequestStatus.class);
+		verify(mockGitHub, timeout(5000)).save(statusCaptor.capture());
+		verify(mockGitHub, times(1)).getShaForPullRequest(any(PullRequestId.class));
+		assertThat(statusCaptor.getValue().getSha()).isEqualTo("0000000000000000000000000000000000000001");
+	}
+
+	@Test
+	public void failedEvaluationAcceptsRedelivery() throws Exception {
+		doThrow(new IllegalStateException("GitHub is down")).doNothing().when(mockGitHub).save(any());
+		String deliveryId = UUID.randomUUID().toString();
+
+		mockMvc.perform(hookRequest(GithubEvents.PULL_REQUEST, "pull_request.json").header("X-GitHub-Delivery", deliveryId))
+			.andExpect(status().isAccepted());
+		verify(mockGitHub, timeout(5000)).save(any());
+		// the delivery is forgotten right after the evaluation failed
+		Thread.sleep(500);
+
+		mockMvc.perform(hookRequest(GithubEvents.PULL_REQUEST, "pull_request.json").header("X-GitHub-Delivery", deliveryId))
+			.andExpect(status().isAccepted())
+			.andExpect(content().string("SCHEDULED"));
+		verify(mockGitHub, timeout(5000).times(2)).save(any());
+	}
+
+	private MockHttpServletRequestBuilder hookRequest(String event, String payload) throws IOException {
+		byte[] body = getPayload(payload);
+		String signature = oauth.create(new String(body, StandardCharsets.UTF_8), accessToken.getToken());
+		return post("/github/hooks/pull_request/pivotal")
+				.header("X-GitHub-Event", event)
+				.header("X-Hub-Signature", signature)
+				.content(body);
+	}
+
+	private byte[] getPayload(String id) throws IOException {
+		try (InputStream is = getClass().getClassLoader().getResourceAsStream("GitHubHooksControllerTests/" + id)) {
+			return StreamUtils.copyToByteArray(is);
+		}
+	}
+}
@@ -23,7 +23,12 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -34,8 +39,11 @@ import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilde
 import org.springframework.test.web.servlet.request.RequestPostProcessor;
 import org.springframework.util.StreamUtils;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import io.pivotal.cla.data.AccessToken;
+import io.pivotal.cla.data.RepositoryClaLink;
 import io.pivotal.cla.data.User;
+import io.pivotal.cla.data.repository.RepositoryClaLinkRepository;
 import io.pivotal.cla.egit.github.core.PullRequestId;
 import io.pivotal.cla.egit.github.core.event.GithubEvents;
 import io.pivotal.cla.security.GitHubSignature;
@@ -54,6 +62,12 @@ public class GitHubHooksControllerTests extends BaseWebDriverTests {
 	@Autowired
 	GitHubApi gitHubApiMock;
 
+	@Autowired
+	MeterRegistry meterRegistry;
+
+	@Autowired
+	RepositoryClaLinkRepository linkRepository;
+
 	@Before
 	public void setupAccessToken() {
 		accessToken = new AccessToken(AccessToken.CLA_ACCESS_TOKEN_ID, "GitHubHooksControllerTests_access_token");
@@ -66,6 +80,24 @@ public class GitHubHooksControllerTests extends BaseWebDriverTests {
 				.andExpect(status().is2xxSuccessful());
 	}
 
+	@Test
+	public void pingSha256Signature() throws Exception {
+		byte[] body = getPayload("pull_request.json");
+		String signature256 = oauth.create256(new String(body, StandardCharsets.UTF_8), accessToken.getToken());
+
+		mockMvc.perform(post("/github/hooks/pull_request/pivotal").header("X-GitHub-Event", "ping").header("X-Hub-Signature-256", signature256).content(body))
+				.andExpect(status().is2xxSuccessful());
+	}
+
+	@Test
+	public void pingInvalidSha256Signature() throws Exception {
+		byte[] body = getPayload("pull_request.json");
+		String signature256 = oauth.create256("", accessToken.getToken());
+
+		mockMvc.perform(hookRequest().header("X-GitHub-Event", "ping").header("X-Hub-Signature-256", signature256).content(body))
+				.andExpect(status().isUnauthorized());
+	}
+
 	@Test
 	public void pingNoToken() throws Exception {
 		accessToken = null;
@@ -132,7 +164,7 @@ public class GitHubHooksControllerTests extends BaseWebDriverTests {
 		when(mockUserRepo.findOne(anyString())).thenReturn(user);
 		when(mockTokenRepo.findOne("rwinch/176_test"))
 			.thenReturn(new AccessToken("rwinch/176_test", "mock_access_token_value"));
-		when(mockIndividualSignatureRepository.findSignaturesFor(any(), any(), anyString())).thenReturn(Arrays.asList(individualSignature));
+		when(mockSignerRepository.hasSigned(anyString(), anyString(), any(), any())).thenReturn(true);
 
 		mockMvc.perform(hookRequest().header("X-GitHub-Event", "unknown").content(getPayload("pull_request.json")))
 			.andExpect(status().isBadRequest());
@@ -146,7 +178,7 @@ public class GitHubHooksControllerTests extends BaseWebDriverTests {
 		when(mockTokenRepo.findOne("rwinch/176_test"))
 			.thenReturn(new AccessToken("rwinch/176_test", "mock_access_token_value"));
 		when(gitHubApiMock.getGitHubClaUserLogin()).thenReturn("robwinch");
-		when(mockIndividualSignatureRepository.findSignaturesFor(any(), any(), anyString())).thenReturn(Arrays.asList(individualSignature));
+		when(mockSignerRepository.hasSigned(anyString(), anyString(), any(), any())).thenReturn(true);
 
 		mockMvc.perform(hookRequest().header("X-GitHub-Event", GithubEvents.PULL_REQUEST_REVIEW_COMMENT)
 				.content(getPayload("pull_request_review_comment.json"))).andExpect(status().isOk());
@@ -155,13 +187,38 @@ public class GitHubHooksControllerTests extends BaseWebDriverTests {
 		verifyNoMoreInteractions(gitHubApiMock);
 	}
 
+	@Test
+	public void skipClosedPullRequest() throws Exception {
+		String payload = new String(getPayload("pull_request.json"), StandardCharsets.UTF_8)
+				.replace("\"action\": \"reopened\"", "\"action\": \"closed\"")
+				.replace("\"state\": \"open\"", "\"state\": \"closed\"");
+
+		mockMvc.perform(hookRequest().header("X-GitHub-Event", GithubEvents.PULL_REQUEST).content(payload.getBytes(StandardCharsets.UTF_8)))
+			.andExpect(status().isOk())
+			.andExpect(content().string("Skipping closed (CLOSED)"));
+
+		verifyNoInteractions(mockGitHub);
+	}
+
+	@Test
+	public void skipLabeledPullRequest() throws Exception {
+		String payload = new String(getPayload("pull_request.json"), StandardCharsets.UTF_8)
+				.replace("\"action\": \"reopened\"", "\"action\": \"labeled\"");
+
+		mockMvc.perform(hookRequest().header("X-GitHub-Event", GithubEvents.PULL_REQUEST).content(payload.getBytes(StandardCharsets.UTF_8)))
+			.andExpect(status().isOk())
+			.andExpect(content().string("Skipping labeled (IGNORED_ACTION)"));
+
+		verifyNoInteractions(mockGitHub);
+	}
+
 	@Test
 	public void skipRequestsWithoutPullRequest() throws Exception {
 		User user = WithSigningUserFactory.create();
 		when(mockUserRepo.findOne(anyString())).thenReturn(user);
 		when(mockTokenRepo.findOne("rwinch/176_test"))
 			.thenReturn(new AccessToken("rwinch/176_test", "mock_access_token_value"));
-		when(mockIndividualSignatureRepository.findSignaturesFor(any(), any(), anyString())).thenReturn(Arrays.asList(individualSignature));
+		when(mockSignerRepository.hasSigned(anyString(), anyString(), any(), any())).thenReturn(true);
 
 		mockMvc.perform(hookRequest().header("X-GitHub-Event", GithubEvents.PULL_REQUEST).content(getPayload("issue.json")))
 			.andExpect(status().isBadRequest());
@@ -175,7 +232,7 @@ public class GitHubHooksControllerTests extends BaseWebDriverTests {
 		when(mockUserRepo.findOne(anyString())).thenReturn(user);
 		when(mockTokenRepo.findOne("rwinch/176_test"))
 			.thenReturn(new AccessToken("rwinch/176_test", "mock_access_token_value"));
-		when(mockIndividualSignatureRepository.findSignaturesFor(any(), any(), anyString())).thenReturn(Arrays.asList(individualSignature));
+		when(mockSignerRepository.hasSigned(anyString(), anyString(), any(), any())).thenReturn(true);
 
 		mockMvc.perform(hookRequest().header("X-GitHub-Event", GithubEvents.PULL_REQUEST).content(getPayload("pull_request.json")))
 			.andExpect(status().isOk());
@@ -194,6 +251,49 @@ public class GitHubHooksControllerTests extends BaseWebDriverTests {
 		assertThat(status.getPullRequestBody()).isNotEmpty();
 	}
 
+	@Test
+	public void metaDeletedUnlinksRepository() throws Exception {
+		linkRepository("rwinch/176_test", "pivotal");
+		linkRepository("rwinch/176_test", "apache");
+		try {
+			mockMvc.perform(hookRequest().header("X-GitHub-Event", GithubEvents.META).content(getPayload("meta_deleted.json")))
+				.andExpect(status().isOk());
+
+			assertThat(linkRepository.findByRepositoryId("rwinch/176_test")).extracting(RepositoryClaLink::getClaName).containsOnly("apache");
+			verifyNoInteractions(mockGitHub);
+		} finally {
+			linkRepository.deleteByRepositoryId("rwinch/176_test");
+		}
+	}
+
+	@Test
+	public void repositoryRenamedMovesLinks() throws Exception {
+		linkRepository("rwinch/176_test", "pivotal");
+		when(mockTokenRepo.findOne("rwinch/176_test"))
+			.thenReturn(new AccessToken("rwinch/176_test", "mock_access_token_value"));
+		try {
+			mockMvc.perform(hookRequest().header("X-GitHub-Event", GithubEvents.REPOSITORY).content(getPayload("repository_renamed.json")))
+				.andExpect(status().isOk());
+
+			assertThat(linkRepository.findByRepositoryId("rwinch/176_test")).isEmpty();
+			assertThat(linkRepository.findByRepositoryId("rwinch/176_renamed")).extracting(RepositoryClaLink::getClaName).containsOnly("pivotal");
+			ArgumentCaptor<AccessToken> tokenCaptor = ArgumentCaptor.forClass(AccessToken.class);
+			verify(mockTokenRepo).save(tokenCaptor.capture());
+			assertThat(tokenCaptor.getValue().getId()).isEqualTo("rwinch/176_renamed");
+			assertThat(tokenCaptor.getValue().getToken()).isEqualTo("mock_access_token_value");
+		} finally {
+			linkRepository.deleteByRepositoryId("rwinch/176_renamed");
+		}
+	}
+
+	private void linkRepository(String repositoryId, String claName) {
+		RepositoryClaLink link = new RepositoryClaLink();
+		link.setRepositoryId(repositoryId);
+		link.setClaName(claName);
+		link.setLinked(new Date());
+		linkRepository.save(link);
+	}
+
 	@Test
 	public void markCommitStatusSuccessIndividualAcceptingIssueComments() throws Exception {
 
@@ -201,7 +301,7 @@ public class GitHubHooksControllerTests extends BaseWebDriverTests {
 		when(mockUserRepo.findOne(anyString())).thenReturn(user);
 		when(mockTokenRepo.findOne("rwinch/176_test"))
 			.thenReturn(new AccessToken("rwinch/176_test", "mock_access_token_value"));
-		when(mockIndividualSignatureRepository.findSignaturesFor(any(), any(), anyString())).thenReturn(Arrays.asList(individualSignature));
+		when(mockSignerRepository.hasSigned(anyString(), anyString(), any(), any())).thenReturn(true);
 		when(gitHubApiMock.getShaForPullRequest(any(PullRequestId.class))).thenReturn("a6befb598a35c1c206e1bf7bbb3018f4403b9610");
 
 		mockMvc.perform(hookRequest().header("X-GitHub-Event", GithubEvents.ISSUE_COMMENT).content(getPayload("issue_comment.json")))
@@ -227,7 +327,7 @@ public class GitHubHooksControllerTests extends BaseWebDriverTests {
 		when(mockUserRepo.findOne(anyString())).thenReturn(user);
 		when(mockTokenRepo.findOne("rwinch/176_test"))
 			.thenReturn(new AccessToken("rwinch/176_test", "mock_access_token_value"));
-		when(mockIndividualSignatureRepository.findSignaturesFor(any(), any(), anyString())).thenReturn(Arrays.asList(individualSignature));
+		when(mockSignerRepository.hasSigned(anyString(), anyString(), any(), any())).thenReturn(true);
 
 		mockMvc.perform(hookRequest().header("X-GitHub-Event", GithubEvents.PULL_REQUEST_REVIEW_COMMENT).content(getPayload("pull_request_review_comment.json")))
 			.andExpect(status().isOk());
@@ -254,7 +354,7 @@ public class GitHubHooksControllerTests extends BaseWebDriverTests {
 		when(mockTokenRepo.findOne("rwinch/176_test"))
 			.thenReturn(new AccessToken("rwinch/176_test", "mock_access_token_value"));
 		when(mockGitHub.getOrganizations(anyString())).thenReturn(Arrays.asList("organization"));
-		when(mockCorporateSignatureRepository.findSignature(anyString(), any(), anyCollection())).thenReturn(corporateSignature);
+		when(mockSignerRepository.hasSigned(anyString(), anyString(), any(), any())).thenAnswer(invocation -> invocation.<Supplier<List<String>>>getArgument(3).get().contains(corporateSignature.getGitHubOrganization()));
 
 		mockMvc.perform(hookRequest().header("X-GitHub-Event", GithubEvents.PULL_REQUEST).content(getPayload("pull_request.json")))
 			.andExpect(status().isOk());
@@ -272,6 +372,47 @@ public class GitHubHooksControllerTests extends BaseWebDriverTests {
 		assertThat(status.getGitHubUsername()).isEqualTo(user.getGitHubLogin());
 	}
 
+	@Test
+	public void redeliveryIsIgnored() throws Exception {
+		User user = WithSigningUserFactory.create();
+		when(mockUserRepo.findOne(anyString())).thenReturn(user);
+		when(mockTokenRepo.findOne("rwinch/176_test"))
+			.thenReturn(new AccessToken("rwinch/176_test", "mock_access_token_value"));
+		when(mockSignerRepository.hasSigned(anyString(), anyString(), any(), any())).thenReturn(true);
+		String deliveryId = UUID.randomUUID().toString();
+		double hits = meterRegistry.counter("cla.hooks.dedup", "result", "hit").count();
+
+		mockMvc.perform(hookRequest().header("X-GitHub-Event", GithubEvents.PULL_REQUEST).header("X-GitHub-Delivery", deliveryId).content(getPayload("pull_request.json")))
+			.andExpect(status().isOk());
+		mockMvc.perform(hookRequest().header("X-GitHub-Event", GithubEvents.PULL_REQUEST).header("X-GitHub-Delivery", deliveryId).content(getPayload("pull_request.json")))
+			.andExpect(status().isOk())
+			.andExpect(content().string("DUPLICATE"));
+
+		verify(mockGitHub, times(1)).save(any());
+		assertThat(meterRegistry.counter("cla.hooks.dedup", "result", "hit").count()).isEqualTo(hits + 1);
+	}
+
+	@Test
+	public void redeliveryOfFailedDeliveryIsProcessed() throws Exception {
+		User user = WithSigningUserFactory.create();
+		when(mockUserRepo.findOne(anyString())).thenReturn(user);
+		when(mockTokenRepo.findOne("rwinch/176_test"))
+			.thenReturn(new AccessToken("rwinch/176_test", "mock_access_token_value"));
+		when(mockSignerRepository.hasSigned(anyString(), anyString(), any(), any())).thenReturn(true);
+		doThrow(new IllegalStateException("GitHub is down")).doNothing().when(mockGitHub).save(any());
+		String deliveryId = UUID.randomUUID().toString();
+
+		try {
+			mockMvc.perform(hookRequest().header("X-GitHub-Event", GithubEvents.PULL_REQUEST).header("X-GitHub-Delivery", deliveryId).content(getPayload("pull_request.json")));
+		} catch (Exception expected) {
+		}
+		mockMvc.perform(hookRequest().header("X-GitHub-Event", GithubEvents.PULL_REQUEST).header("X-GitHub-Delivery", deliveryId).content(getPayload("pull_request.json")))
+			.andExpect(status().isOk())
+			.andExpect(content().string("SUCCESS"));
+
+		verify(mockGitHub, times(2)).save(any());
+	}
+
 	@Test
 	public void markCommitStatusBadRequest() throws Exception {
 
@@ -303,7 +444,7 @@ public class GitHubHooksControllerTests extends BaseWebDriverTests {
 
 			private String getSignature(MockHttpServletRequest request)
 					throws IOException, UnsupportedEncodingException, Exception {
-				String body = new String(request.getContentAsByteArray());
+				String body = new String(request.getContentAsByteArray(), StandardCharsets.UTF_8);
 				String signature = oauth.create(body, accessToken.getToken());
 				return signature;
 			}
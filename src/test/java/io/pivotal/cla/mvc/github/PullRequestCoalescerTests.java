@@ -0,0 +1,115 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.mvc.github;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.pivotal.cla.config.GitHubHooksConfig;
+import io.pivotal.cla.service.ClaPullRequestStatusRequest;
+import io.pivotal.cla.service.github.PullRequestStatus;
+
+public class PullRequestCoalescerTests {
+	SimpleMeterRegistry meterRegistry;
+
+	PullRequestCoalescer coalescer;
+
+	@Before
+	public void setup() {
+		GitHubHooksConfig config = new GitHubHooksConfig();
+		config.setCoalesceWindow(Duration.ofMillis(200));
+		meterRegistry = new SimpleMeterRegistry();
+		coalescer = new PullRequestCoalescer(config, meterRegistry);
+		coalescer.start();
+	}
+
+	@After
+	public void cleanup() {
+		coalescer.stop();
+	}
+
+	@Test
+	public void eventsWithinWindowAreEvaluatedOnce() throws Exception {
+		List<ClaPullRequestStatusRequest> evaluated = new CopyOnWriteArrayList<>();
+
+		CompletableFuture<Void> first = coalescer.submit(request(2, "abc"), evaluated::add);
+		CompletableFuture<Void> second = coalescer.submit(request(2, null), evaluated::add);
+
+		assertThat(second).isSameAs(first);
+		first.get(5, TimeUnit.SECONDS);
+		assertThat(evaluated).hasSize(1);
+		assertThat(evaluated.get(0).getCommitStatus().getSha()).isEqualTo("abc");
+		assertThat(meterRegistry.get("cla.hooks.coalesced").counter().count()).isEqualTo(1);
+	}
+
+	@Test
+	public void differentPullRequestsAreNotCoalesced() throws Exception {
+		List<ClaPullRequestStatusRequest> evaluated = new CopyOnWriteArrayList<>();
+
+		CompletableFuture<Void> first = coalescer.submit(request(2, "abc"), evaluated::add);
+		CompletableFuture<Void> second = coalescer.submit(request(3, "def"), evaluated::add);
+
+		CompletableFuture.allOf(first, second).get(5, TimeUnit.SECONDS);
+		assertThat(evaluated).hasSize(2);
+		assertThat(meterRegistry.get("cla.hooks.coalesced").counter().count()).isZero();
+	}
+
+	@Test
+	public void failureIsPropagatedToEveryEvent() throws Exception {
+		IllegalStateException failure = new IllegalStateException("GitHub is down");
+
+		CompletableFuture<Void> first = coalescer.submit(request(2, "abc"), r -> { throw failure; });
+		CompletableFuture<Void> second = coalescer.submit(request(2, "abc"), r -> { throw failure; });
+
+		assertThatThrownBy(() -> first.get(5, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class).hasCause(failure);
+		assertThatThrownBy(() -> second.get(5, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class).hasCause(failure);
+	}
+
+	@Test
+	public void stopRunsPendingEvaluations() throws Exception {
+		List<ClaPullRequestStatusRequest> evaluated = new CopyOnWriteArrayList<>();
+		CompletableFuture<Void> evaluation = coalescer.submit(request(2, "abc"), evaluated::add);
+
+		coalescer.stop();
+
+		assertThat(evaluation).isCompleted();
+		assertThat(evaluated).hasSize(1);
+		assertThatThrownBy(() -> coalescer.submit(request(3, "def"), evaluated::add)).isInstanceOf(RejectedExecutionException.class);
+	}
+
+	private static ClaPullRequestStatusRequest request(int pullRequestId, String sha) {
+		PullRequestStatus status = new PullRequestStatus();
+		status.setRepoId("rwinch/176_test");
+		status.setPullRequestId(pullRequestId);
+		status.setSha(sha);
+		ClaPullRequestStatusRequest request = new ClaPullRequestStatusRequest();
+		request.setClaName("pivotal");
+		request.setCommitStatus(status);
+		return request;
+	}
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.mvc.github;
+
+import static org.assertj.core.api.Assertions.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.pivotal.cla.mvc.github.PullRequestHookFilter.Reason;
+
+public class PullRequestHookFilterTests {
+	SimpleMeterRegistry meterRegistry;
+
+	PullRequestHookFilter filter;
+
+	PullRequestHookPayload payload;
+
+	@Before
+	public void setup() {
+		meterRegistry = new SimpleMeterRegistry();
+		filter = new PullRequestHookFilter(meterRegistry);
+		payload = new PullRequestHookPayload();
+		payload.setPullRequest(true);
+		payload.setState("open");
+		payload.setAction("synchronize");
+		payload.setBody("body");
+	}
+
+	@Test
+	public void openPullRequestIsProcessed() {
+		assertThat(filter.skip(payload)).isNull();
+	}
+
+	@Test
+	public void ignoredActionIsSkipped() {
+		payload.setAction("labeled");
+		payload.setIgnored(true);
+
+		assertThat(filter.skip(payload)).isEqualTo(Reason.IGNORED_ACTION);
+		assertThat(meterRegistry.get("cla.hooks.skipped").tag("reason", "ignored_action").counter().count()).isEqualTo(1);
+	}
+
+	@Test
+	public void closedPullRequestIsSkipped() {
+		payload.setAction("closed");
+		payload.setState("closed");
+
+		assertThat(filter.skip(payload)).isEqualTo(Reason.CLOSED);
+		assertThat(meterRegistry.get("cla.hooks.skipped").tag("reason", "closed").counter().count()).isEqualTo(1);
+	}
+
+	@Test
+	public void newCommentIsProcessed() {
+		payload.setAction("created");
+		payload.setCommentBody("Looks good");
+
+		assertThat(filter.skip(payload)).isNull();
+	}
+
+	@Test
+	public void editedCommentWithoutObviousFixIsSkipped() {
+		payload.setAction("edited");
+		payload.setCommentBody("Looks good!");
+		payload.setPreviousBody("Looks good");
+
+		assertThat(filter.skip(payload)).isEqualTo(Reason.IRRELEVANT_EDIT);
+	}
+
+	@Test
+	public void editedCommentAddingObviousFixIsProcessed() {
+		payload.setAction("edited");
+		payload.setCommentBody("@pivotal-cla This is an Obvious Fix");
+		payload.setPreviousBody("Looks good");
+
+		assertThat(filter.skip(payload)).isNull();
+	}
+
+	@Test
+	public void editedCommentRemovingObviousFixIsProcessed() {
+		payload.setAction("edited");
+		payload.setCommentBody("Looks good");
+		payload.setPreviousBody("@pivotal-cla this is an obvious fix");
+
+		assertThat(filter.skip(payload)).isNull();
+	}
+
+	@Test
+	public void deletedCommentWithObviousFixIsProcessed() {
+		payload.setAction("deleted");
+		payload.setCommentBody("@pivotal-cla this is an obvious fix");
+
+		assertThat(filter.skip(payload)).isNull();
+	}
+
+	@Test
+	public void deletedCommentIsSkipped() {
+		payload.setAction("deleted");
+		payload.setCommentBody("Looks good");
+
+		assertThat(filter.skip(payload)).isEqualTo(Reason.IRRELEVANT_EDIT);
+	}
+
+	@Test
+	public void editedPullRequestTitleIsSkipped() {
+		payload.setAction("edited");
+
+		assertThat(filter.skip(payload)).isEqualTo(Reason.IRRELEVANT_EDIT);
+	}
+
+	@Test
+	public void editedPullRequestBodyWithObviousFixIsProcessed() {
+		payload.setAction("edited");
+		payload.setBody("Fix typo\n\n@pivotal-cla this is an obvious fix");
+		payload.setPreviousBody("Fix typo");
+
+		assertThat(filter.skip(payload)).isNull();
+	}
+
+	@Test
+	public void containsObviousFix() {
+		assertThat(PullRequestHookFilter.containsObviousFix(null)).isFalse();
+		assertThat(PullRequestHookFilter.containsObviousFix("")).isFalse();
+		assertThat(PullRequestHookFilter.containsObviousFix("this is an obvious")).isFalse();
+		assertThat(PullRequestHookFilter.containsObviousFix("THIS IS AN OBVIOUS FIX")).isTrue();
+		assertThat(PullRequestHookFilter.containsObviousFix("@bot this is an obvious fix.")).isTrue();
+	}
+}
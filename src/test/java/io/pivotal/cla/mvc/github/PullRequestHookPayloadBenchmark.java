@@ -0,0 +1,118 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.mvc.github;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.egit.github.core.PullRequest;
+import org.eclipse.egit.github.core.client.GsonUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.util.StreamUtils;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import io.pivotal.cla.egit.github.core.event.GithubEvents;
+import io.pivotal.cla.egit.github.core.event.RepositoryPullRequestPayload;
+
+/**
+ * Compares binding the whole payload with egit's {@link Gson} (the previous
+ * implementation) to {@link PullRequestHookPayloadReader}. Run with
+ * {@code ./gradlew jmh -Pjmh=PullRequestHookPayloadBenchmark} and compare
+ * {@code gc.alloc.rate.norm} for the allocation per delivery.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PullRequestHookPayloadBenchmark {
+
+	/**
+	 * small is the sample delivery from the tests. large is the same delivery
+	 * with a 64KB body and 200 labels.
+	 */
+	@Param({ "small", "large" })
+	String size;
+
+	String payload;
+
+	@Setup
+	public void setup() throws IOException {
+		try (InputStream is = getClass().getClassLoader().getResourceAsStream("GitHubHooksControllerTests/pull_request.json")) {
+			payload = StreamUtils.copyToString(is, StandardCharsets.UTF_8);
+		}
+		if ("large".equals(size)) {
+			JsonObject json = JsonParser.parseString(payload).getAsJsonObject();
+			JsonObject pullRequest = json.getAsJsonObject("pull_request");
+			StringBuilder body = new StringBuilder();
+			while (body.length() < 64 * 1024) {
+				body.append("Lorem ipsum dolor sit amet, consectetur adipiscing elit. ");
+			}
+			pullRequest.addProperty("body", body.toString());
+			JsonArray labels = new JsonArray();
+			for (int i = 0; i < 200; i++) {
+				JsonObject label = new JsonObject();
+				label.addProperty("id", i);
+				label.addProperty("url", "https://api.github.com/repos/rwinch/176_test/labels/label-" + i);
+				label.addProperty("name", "label-" + i);
+				label.addProperty("color", "ededed");
+				label.addProperty("default", false);
+				labels.add(label);
+			}
+			pullRequest.add("labels", labels);
+			payload = json.toString();
+		}
+	}
+
+	@Benchmark
+	public String gson() {
+		Gson gson = GsonUtils.createGson();
+		RepositoryPullRequestPayload pullRequestPayload = gson.fromJson(payload, RepositoryPullRequestPayload.class);
+		PullRequest pullRequest = pullRequestPayload.getPullRequest();
+		return pullRequestPayload.getSender().getLogin() + pullRequest.getUser().getLogin() + pullRequest.getHead().getSha()
+				+ pullRequestPayload.getRepository().getOwner().getLogin() + pullRequest.getNumber() + pullRequest.getState();
+	}
+
+	@Benchmark
+	public String streaming() throws IOException {
+		PullRequestHookPayload pullRequestPayload = PullRequestHookPayloadReader.read(GithubEvents.PULL_REQUEST, payload);
+		return pullRequestPayload.getSenderLogin() + pullRequestPayload.getAuthorLogin() + pullRequestPayload.getHeadSha()
+				+ pullRequestPayload.getRepositoryOwner() + pullRequestPayload.getNumber() + pullRequestPayload.getState();
+	}
+
+	public static void main(String[] args) throws Exception {
+		new Runner(new OptionsBuilder().include(PullRequestHookPayloadBenchmark.class.getSimpleName()).addProfiler("gc").build()).run();
+	}
+}
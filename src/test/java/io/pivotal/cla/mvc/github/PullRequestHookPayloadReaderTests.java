@@ -0,0 +1,115 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.mvc.github;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+import org.springframework.util.StreamUtils;
+
+import io.pivotal.cla.egit.github.core.event.GithubEvents;
+
+public class PullRequestHookPayloadReaderTests {
+
+	@Test
+	public void readPullRequest() throws Exception {
+		PullRequestHookPayload payload = PullRequestHookPayloadReader.read(GithubEvents.PULL_REQUEST, getPayload("pull_request.json"));
+
+		assertThat(payload.isIgnored()).isFalse();
+		assertThat(payload.isPullRequest()).isTrue();
+		assertThat(payload.getRepositoryId()).isEqualTo("rwinch/176_test");
+		assertThat(payload.getNumber()).isEqualTo(2);
+		assertThat(payload.getHeadSha()).isEqualTo("a6befb598a35c1c206e1bf7bbb3018f4403b9610");
+		assertThat(payload.getAuthorLogin()).isEqualTo("robwinch");
+		assertThat(payload.getSenderLogin()).isNotNull();
+		assertThat(payload.getState()).isEqualTo("open");
+		assertThat(payload.getBody()).isNotEmpty();
+	}
+
+	@Test
+	public void readIssueComment() throws Exception {
+		PullRequestHookPayload payload = PullRequestHookPayloadReader.read(GithubEvents.ISSUE_COMMENT, getPayload("issue_comment.json"));
+
+		assertThat(payload.isPullRequest()).isTrue();
+		assertThat(payload.getRepositoryId()).isEqualTo("rwinch/176_test");
+		assertThat(payload.getNumber()).isEqualTo(2);
+		assertThat(payload.getHeadSha()).isNull();
+		assertThat(payload.getAuthorLogin()).isEqualTo("robwinch");
+	}
+
+	@Test
+	public void readReviewComment() throws Exception {
+		PullRequestHookPayload payload = PullRequestHookPayloadReader.read(GithubEvents.PULL_REQUEST_REVIEW_COMMENT, getPayload("pull_request_review_comment.json"));
+
+		assertThat(payload.isPullRequest()).isTrue();
+		assertThat(payload.getRepositoryId()).isEqualTo("rwinch/176_test");
+		assertThat(payload.getNumber()).isEqualTo(2);
+		assertThat(payload.getHeadSha()).isEqualTo("a6befb598a35c1c206e1bf7bbb3018f4403b9610");
+	}
+
+	@Test
+	public void readCommentAndChanges() throws Exception {
+		PullRequestHookPayload payload = PullRequestHookPayloadReader.read(GithubEvents.ISSUE_COMMENT, "{\"action\":\"edited\",\"changes\":{\"body\":{\"from\":\"before\"}},\"issue\":{\"number\":1,\"body\":\"issue\",\"pull_request\":{}},\"comment\":{\"id\":1,\"body\":\"after\"}}");
+
+		assertThat(payload.getAction()).isEqualTo("edited");
+		assertThat(payload.getBody()).isEqualTo("issue");
+		assertThat(payload.getCommentBody()).isEqualTo("after");
+		assertThat(payload.getPreviousBody()).isEqualTo("before");
+	}
+
+	@Test
+	public void readIssueIsNotPullRequest() throws Exception {
+		PullRequestHookPayload payload = PullRequestHookPayloadReader.read(GithubEvents.PULL_REQUEST, getPayload("issue.json"));
+
+		assertThat(payload.isPullRequest()).isFalse();
+	}
+
+	@Test
+	public void readStopsAtIgnoredAction() throws Exception {
+		PullRequestHookPayload payload = PullRequestHookPayloadReader.read(GithubEvents.PULL_REQUEST, "{\"action\":\"labeled\",\"pull_request\":{\"number\":1");
+
+		assertThat(payload.isIgnored()).isTrue();
+		assertThat(payload.getAction()).isEqualTo("labeled");
+		assertThat(payload.isPullRequest()).isFalse();
+	}
+
+	@Test
+	public void readNullValues() throws Exception {
+		PullRequestHookPayload payload = PullRequestHookPayloadReader.read(GithubEvents.PULL_REQUEST, "{\"action\":null,\"pull_request\":{\"number\":1,\"body\":null,\"head\":null,\"user\":null},\"sender\":null}");
+
+		assertThat(payload.isPullRequest()).isTrue();
+		assertThat(payload.getNumber()).isEqualTo(1);
+		assertThat(payload.getBody()).isNull();
+		assertThat(payload.getHeadSha()).isNull();
+		assertThat(payload.getAuthorLogin()).isNull();
+		assertThat(payload.getSenderLogin()).isNull();
+	}
+
+	@Test(expected = IOException.class)
+	public void readInvalidJson() throws Exception {
+		PullRequestHookPayloadReader.read(GithubEvents.PULL_REQUEST, "{\"action\":");
+	}
+
+	private String getPayload(String id) throws IOException {
+		try (InputStream is = getClass().getClassLoader().getResourceAsStream("GitHubHooksControllerTests/" + id)) {
+			return StreamUtils.copyToString(is, StandardCharsets.UTF_8);
+		}
+	}
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.mvc.github;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.pivotal.cla.config.GitHubHooksConfig;
+
+public class PullRequestLanesTests {
+	SimpleMeterRegistry meterRegistry;
+
+	PullRequestLanes lanes;
+
+	@Before
+	public void setup() {
+		GitHubHooksConfig config = new GitHubHooksConfig();
+		config.setLaneTimeout(Duration.ofMillis(500));
+		meterRegistry = new SimpleMeterRegistry();
+		lanes = new PullRequestLanes(config, meterRegistry);
+	}
+
+	@Test
+	public void samePullRequestRunsSerially() throws Exception {
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger maxRunning = new AtomicInteger();
+		List<CompletableFuture<Void>> results = new ArrayList<>();
+		for (int i = 0; i < 8; i++) {
+			results.add(CompletableFuture.runAsync(() -> lanes.run("rwinch/176_test", 2, () -> {
+				maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+				sleep(10);
+				running.decrementAndGet();
+			})));
+		}
+		CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0])).get(5, TimeUnit.SECONDS);
+
+		assertThat(maxRunning.get()).isEqualTo(1);
+	}
+
+	@Test
+	public void samePullRequestRunsInOrder() {
+		List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+		for (int i = 0; i < 10; i++) {
+			int value = i;
+			lanes.run("rwinch/176_test", 2, () -> order.add(value));
+		}
+
+		assertThat(order).containsExactly(0, 1, 2, 3, 4, 5, 6, 7, 8, 9);
+	}
+
+	@Test
+	public void differentPullRequestsRunInParallel() throws Exception {
+		CountDownLatch bothRunning = new CountDownLatch(2);
+		Runnable task = () -> {
+			bothRunning.countDown();
+			try {
+				assertThat(bothRunning.await(5, TimeUnit.SECONDS)).isTrue();
+			} catch (InterruptedException e) {
+				throw new IllegalStateException(e);
+			}
+		};
+
+		CompletableFuture<Void> a = CompletableFuture.runAsync(() -> lanes.run("rwinch/176_test", 1, task));
+		CompletableFuture<Void> b = CompletableFuture.runAsync(() -> lanes.run("rwinch/176_test", 2, task));
+
+		CompletableFuture.allOf(a, b).get(5, TimeUnit.SECONDS);
+	}
+
+	@Test
+	public void waitingTooLongFails() throws Exception {
+		CountDownLatch running = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		CompletableFuture<Void> slow = CompletableFuture.runAsync(() -> lanes.run("rwinch/176_test", 2, () -> {
+			running.countDown();
+			try {
+				release.await(5, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				throw new IllegalStateException(e);
+			}
+		}));
+		assertThat(running.await(5, TimeUnit.SECONDS)).isTrue();
+
+		assertThatThrownBy(() -> lanes.run("rwinch/176_test", 2, () -> {
+		})).isInstanceOf(IllegalStateException.class).hasMessageContaining("rwinch/176_test#2");
+
+		release.countDown();
+		slow.get(5, TimeUnit.SECONDS);
+	}
+
+	@Test
+	public void laneIsRemovedWhenUnused() {
+		lanes.run("rwinch/176_test", 2, () -> assertThat(lanes.size()).isEqualTo(1));
+
+		assertThat(lanes.size()).isZero();
+	}
+
+	@Test
+	public void exceptionIsPropagated() {
+		assertThatThrownBy(() -> lanes.run("rwinch/176_test", 2, () -> {
+			throw new IllegalArgumentException("failed");
+		})).isInstanceOf(IllegalArgumentException.class).hasMessage("failed");
+	}
+
+	@Test
+	public void metricsArePublished() {
+		lanes.run("rwinch/176_test", 2, () -> {
+		});
+		lanes.run("rwinch/176_test", 3, () -> {
+		});
+		lanes.run("spring-projects/spring-security", 2, () -> {
+		});
+
+		assertThat(meterRegistry.get("cla.hooks.lane.wait").tag("repository", "rwinch/176_test").timer().count()).isEqualTo(2);
+		assertThat(meterRegistry.get("cla.hooks.lane.wait").tag("repository", "spring-projects/spring-security").timer().count()).isEqualTo(1);
+		assertThat(meterRegistry.get("cla.hooks.lane.queue").gauge().value()).isEqualTo(0);
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.security;
+
+import static org.mockito.Mockito.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.crypto.codec.Hex;
+import org.springframework.util.StreamUtils;
+
+import io.pivotal.cla.data.AccessToken;
+import io.pivotal.cla.data.repository.AccessTokenRepository;
+
+/**
+ * Compares {@link GitHubSignature#check(String, String, byte[])} to the previous
+ * implementation, which created and initialized a {@link Mac} and encoded the
+ * body for every delivery. The database lookup the previous implementation
+ * performed is not included. Run with
+ * {@code ./gradlew jmh -Pjmh=GitHubSignatureBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GitHubSignatureBenchmark {
+	private static final String TOKEN = "bff3b811-ea31-437b-8083-e451c50f0f99";
+
+	GitHubSignature gitHubSignature;
+
+	String body;
+
+	byte[] bodyBytes;
+
+	String signature;
+
+	String signature256;
+
+	@Setup
+	public void setup() throws IOException {
+		try (InputStream is = getClass().getClassLoader().getResourceAsStream("GitHubHooksControllerTests/pull_request.json")) {
+			bodyBytes = StreamUtils.copyToByteArray(is);
+		}
+		body = new String(bodyBytes, StandardCharsets.UTF_8);
+		AccessTokenRepository accessTokens = mock(AccessTokenRepository.class);
+		when(accessTokens.findOne(AccessToken.CLA_ACCESS_TOKEN_ID)).thenReturn(new AccessToken(AccessToken.CLA_ACCESS_TOKEN_ID, TOKEN));
+		gitHubSignature = new GitHubSignature(accessTokens);
+		signature = gitHubSignature.create(body, TOKEN);
+		signature256 = gitHubSignature.create256(body, TOKEN);
+	}
+
+	@Benchmark
+	public boolean previous() throws Exception {
+		byte[] providedHmacBytes = Hex.decode(signature.substring("sha1=".length()));
+		SecretKeySpec signingKey = new SecretKeySpec(TOKEN.getBytes(), "HmacSHA1");
+		Mac mac = Mac.getInstance("HmacSHA1");
+		mac.init(signingKey);
+		byte[] expectedBytes = mac.doFinal(body.getBytes());
+		return MessageDigest.isEqual(providedHmacBytes, expectedBytes);
+	}
+
+	@Benchmark
+	public boolean sha1() {
+		return gitHubSignature.check(null, signature, bodyBytes);
+	}
+
+	@Benchmark
+	public boolean sha256() {
+		return gitHubSignature.check(signature256, null, bodyBytes);
+	}
+
+	public static void main(String[] args) throws Exception {
+		new Runner(new OptionsBuilder().include(GitHubSignatureBenchmark.class.getSimpleName()).addProfiler("gc").build()).run();
+	}
+}
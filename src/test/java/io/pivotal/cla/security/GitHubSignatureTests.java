@@ -17,8 +17,13 @@ package io.pivotal.cla.security;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -55,4 +60,86 @@ public class GitHubSignatureTests {
 		assertThat(gitHubSignature.check("sha1=26b4be3b0ddaa9cb2894ff197029e132d716a572", body)).isTrue();
 	}
 
+	@Test
+	public void checkSignature256Success() throws Exception {
+		when(mockAccessTokens.findOne(anyString())).thenReturn(token);
+		String body = "{\"zen\":\"Speak like a human.\"}";
+		String signature256 = gitHubSignature.create256(body, token.getToken());
+
+		assertThat(gitHubSignature.check(signature256, null, body.getBytes(StandardCharsets.UTF_8))).isTrue();
+		assertThat(gitHubSignature.check(signature256, "sha1=0000000000000000000000000000000000000000", body.getBytes(StandardCharsets.UTF_8))).isTrue();
+	}
+
+	@Test
+	public void checkSignatureWhenInvalidThenFalse() throws Exception {
+		when(mockAccessTokens.findOne(anyString())).thenReturn(token);
+		String body = "{\"zen\":\"Speak like a human.\"}";
+		String signature = gitHubSignature.create(body, token.getToken());
+
+		assertThat(gitHubSignature.check(signature, body + " ")).isFalse();
+		assertThat(gitHubSignature.check(signature.replace('a', 'b').replace('1', '2'), body)).isFalse();
+		assertThat(gitHubSignature.check(signature.substring(0, signature.length() - 2), body)).isFalse();
+		assertThat(gitHubSignature.check("sha1=" + "zz" + signature.substring(7), body)).isFalse();
+		assertThat(gitHubSignature.check(null, body)).isFalse();
+		assertThat(gitHubSignature.check(gitHubSignature.create(body, "other"), body)).isFalse();
+	}
+
+	@Test
+	public void checkSignatureWhenNoTokenThenFalse() throws Exception {
+		String body = "{\"zen\":\"Speak like a human.\"}";
+
+		assertThat(gitHubSignature.check(gitHubSignature.create(body, token.getToken()), body)).isFalse();
+	}
+
+	@Test
+	public void checkSignatureCachesToken() throws Exception {
+		when(mockAccessTokens.findOne(anyString())).thenReturn(token);
+		String body = "{\"zen\":\"Speak like a human.\"}";
+		String signature = gitHubSignature.create(body, token.getToken());
+
+		assertThat(gitHubSignature.check(signature, body)).isTrue();
+		assertThat(gitHubSignature.check(signature, body)).isTrue();
+
+		verify(mockAccessTokens, times(1)).findOne(AccessToken.CLA_ACCESS_TOKEN_ID);
+	}
+
+	@Test
+	public void checkSignatureWhenTokenRotatedThenReloads() throws Exception {
+		gitHubSignature.setReloadInterval(Duration.ZERO);
+		when(mockAccessTokens.findOne(anyString())).thenReturn(token);
+		String body = "{\"zen\":\"Speak like a human.\"}";
+		assertThat(gitHubSignature.check(gitHubSignature.create(body, token.getToken()), body)).isTrue();
+
+		AccessToken rotated = new AccessToken(AccessToken.CLA_ACCESS_TOKEN_ID, "rotated");
+		when(mockAccessTokens.findOne(anyString())).thenReturn(rotated);
+
+		assertThat(gitHubSignature.check(gitHubSignature.create(body, rotated.getToken()), body)).isTrue();
+		assertThat(gitHubSignature.check(gitHubSignature.create(body, token.getToken()), body)).isFalse();
+	}
+
+	@Test
+	public void checkSignatureWhenInvalidThenReloadsAtMostOncePerInterval() throws Exception {
+		when(mockAccessTokens.findOne(anyString())).thenReturn(token);
+		String body = "{\"zen\":\"Speak like a human.\"}";
+		assertThat(gitHubSignature.check(gitHubSignature.create(body, token.getToken()), body)).isTrue();
+
+		for (int i = 0; i < 10; i++) {
+			assertThat(gitHubSignature.check(gitHubSignature.create(body, "other" + i), body)).isFalse();
+		}
+
+		verify(mockAccessTokens, times(1)).findOne(AccessToken.CLA_ACCESS_TOKEN_ID);
+	}
+
+	@Test
+	public void invalidateReloadsToken() throws Exception {
+		when(mockAccessTokens.findOne(anyString())).thenReturn(token);
+		String body = "{\"zen\":\"Speak like a human.\"}";
+		String signature = gitHubSignature.create(body, token.getToken());
+		assertThat(gitHubSignature.check(signature, body)).isTrue();
+
+		gitHubSignature.invalidate();
+		assertThat(gitHubSignature.check(signature, body)).isTrue();
+
+		verify(mockAccessTokens, times(2)).findOne(AccessToken.CLA_ACCESS_TOKEN_ID);
+	}
 }
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import io.pivotal.cla.data.ClaAcceptance;
+import io.pivotal.cla.data.ContributorLicenseAgreement;
+import io.pivotal.cla.data.repository.ClaAcceptanceRepository;
+import io.pivotal.cla.data.repository.ContributorLicenseAgreementRepository;
+
+public class ClaAcceptanceServiceTests {
+	ContributorLicenseAgreementRepository clas;
+
+	ClaAcceptanceRepository acceptances;
+
+	SignerService signers;
+
+	ClaAcceptanceService service;
+
+	@Before
+	public void setup() {
+		clas = mock(ContributorLicenseAgreementRepository.class);
+		acceptances = mock(ClaAcceptanceRepository.class);
+		signers = mock(SignerService.class);
+		service = new ClaAcceptanceService(clas, acceptances, signers);
+	}
+
+	@Test
+	public void computeAcceptancesSameName() {
+		ContributorLicenseAgreement pivotal = cla(1L, "pivotal", null);
+		ContributorLicenseAgreement pivotalV2 = cla(2L, "pivotal", null);
+
+		assertThat(ClaAcceptanceService.computeAcceptances(Arrays.asList(pivotal, pivotalV2)))
+				.extracting(ClaAcceptance::getClaName, ClaAcceptance::getAcceptedClaId)
+				.containsOnly(tuple("pivotal", 1L), tuple("pivotal", 2L));
+	}
+
+	@Test
+	public void computeAcceptancesSupersedingChain() {
+		ContributorLicenseAgreement pivotal = cla(1L, "pivotal", null);
+		ContributorLicenseAgreement spring = cla(2L, "spring", pivotal);
+		ContributorLicenseAgreement apache = cla(3L, "apache", spring);
+
+		assertThat(ClaAcceptanceService.computeAcceptances(Arrays.asList(pivotal, spring, apache)))
+				.extracting(ClaAcceptance::getClaName, ClaAcceptance::getAcceptedClaId)
+				.containsOnly(tuple("pivotal", 1L),
+						tuple("spring", 2L), tuple("spring", 1L),
+						tuple("apache", 3L), tuple("apache", 2L), tuple("apache", 1L));
+	}
+
+	@Test
+	public void computeAcceptancesCycle() {
+		ContributorLicenseAgreement pivotal = cla(1L, "pivotal", null);
+		ContributorLicenseAgreement spring = cla(2L, "spring", pivotal);
+		pivotal.setSupersedingCla(spring);
+
+		assertThat(ClaAcceptanceService.computeAcceptances(Arrays.asList(pivotal, spring)))
+				.extracting(ClaAcceptance::getClaName, ClaAcceptance::getAcceptedClaId)
+				.containsOnly(tuple("pivotal", 1L), tuple("pivotal", 2L), tuple("spring", 2L), tuple("spring", 1L));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void rebuildAddsMissingAndRemovesStale() {
+		ContributorLicenseAgreement pivotal = cla(1L, "pivotal", null);
+		ContributorLicenseAgreement spring = cla(2L, "spring", null);
+		when(clas.findAll()).thenReturn(Arrays.asList(pivotal, spring));
+		ClaAcceptance existing = new ClaAcceptance("pivotal", 1L);
+		ClaAcceptance stale = new ClaAcceptance("spring", 1L);
+		when(acceptances.findAll()).thenReturn(Arrays.asList(existing, stale));
+
+		service.rebuild();
+
+		ArgumentCaptor<Iterable<ClaAcceptance>> saved = ArgumentCaptor.forClass(Iterable.class);
+		verify(acceptances).saveAll(saved.capture());
+		assertThat(saved.getValue()).extracting(ClaAcceptance::getClaName, ClaAcceptance::getAcceptedClaId).containsOnly(tuple("spring", 2L));
+		verify(acceptances).deleteAll(Collections.singletonList(stale));
+		verify(signers).rebuild();
+	}
+
+	@Test
+	public void rebuildUnchanged() {
+		ContributorLicenseAgreement pivotal = cla(1L, "pivotal", null);
+		when(clas.findAll()).thenReturn(Arrays.asList(pivotal));
+		when(acceptances.findAll()).thenReturn(new ArrayList<>(Arrays.asList(new ClaAcceptance("pivotal", 1L))));
+
+		service.rebuild();
+
+		verify(acceptances, never()).saveAll(anyIterable());
+		verify(acceptances, never()).deleteAll(anyIterable());
+		verify(signers, never()).rebuild();
+	}
+
+	@Test
+	public void saveRebuilds() {
+		ContributorLicenseAgreement pivotal = cla(1L, "pivotal", null);
+		when(clas.save(pivotal)).thenReturn(pivotal);
+		when(clas.findAll()).thenReturn(Arrays.asList(pivotal));
+		when(acceptances.findAll()).thenReturn(new ArrayList<>());
+
+		assertThat(service.save(pivotal)).isSameAs(pivotal);
+
+		verify(acceptances).saveAll(anyIterable());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void saveFailsWhenRebuildFails() {
+		ContributorLicenseAgreement pivotal = cla(1L, "pivotal", null);
+		when(clas.findAll()).thenReturn(Arrays.asList(pivotal));
+		when(acceptances.findAll()).thenThrow(new IllegalStateException("database"));
+
+		service.save(pivotal);
+	}
+
+	private static ContributorLicenseAgreement cla(Long id, String name, ContributorLicenseAgreement supersedingCla) {
+		ContributorLicenseAgreement cla = new ContributorLicenseAgreement();
+		cla.setId(id);
+		cla.setName(name);
+		cla.setSupersedingCla(supersedingCla);
+		return cla;
+	}
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.verify;
+
+import java.util.UUID;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.pivotal.cla.data.ContributorLicenseAgreement;
+import io.pivotal.cla.data.DataUtils;
+import io.pivotal.cla.data.IndividualSignature;
+import io.pivotal.cla.data.repository.ContributorLicenseAgreementRepository;
+import io.pivotal.cla.service.github.GitHubApi;
+import io.pivotal.cla.service.github.PullRequestStatus;
+import io.pivotal.cla.webdriver.WebDriverContext;
+
+/**
+ * Signs with the real repositories, {@link SignerIndex} and
+ * {@link UnsignedCache}, so that a user who was unsigned before is signed once
+ * the signature committed.
+ *
+ * @see ClaServiceSigningWithoutSignerIndexTests
+ */
+@WebDriverContext
+@RunWith(SpringRunner.class)
+@TestPropertySource(properties = { "cla.signer-index.enabled=true", "cla.signer-index.refresh-interval=0", "cla.signer-index.verify-interval=0", "cla.unsigned-cache.enabled=true" })
+public class ClaServiceSigningTests {
+	@MockBean
+	GitHubApi gitHub;
+
+	@Autowired
+	ClaService claService;
+
+	@Autowired
+	SignerService signerService;
+
+	@Autowired
+	SignerIndex signerIndex;
+
+	@Autowired
+	ContributorLicenseAgreementRepository clas;
+
+	@Autowired
+	PlatformTransactionManager transactionManager;
+
+	ContributorLicenseAgreement cla;
+
+	String gitHubLogin;
+
+	@Before
+	public void setup() {
+		cla = clas.findByNameAndPrimaryTrue("pivotal");
+		gitHubLogin = "signer-" + UUID.randomUUID();
+	}
+
+	@Test
+	public void signThenPullRequestIsSigned() {
+		assertThat(savePullRequestStatus().isSuccess()).isFalse();
+
+		signerService.save(signature());
+
+		assertThat(savePullRequestStatus().isSuccess()).isTrue();
+	}
+
+	@Test
+	public void rolledBackSignatureIsNotSigned() {
+		new TransactionTemplate(transactionManager).execute(transaction -> {
+			signerService.save(signature());
+			transaction.setRollbackOnly();
+			return null;
+		});
+
+		assertThat(claService.hasSigned(gitHubLogin, cla.getName())).isFalse();
+	}
+
+	private PullRequestStatus savePullRequestStatus() {
+		PullRequestStatus status = new PullRequestStatus();
+		status.setGitHubUsername(gitHubLogin);
+		status.setRepoId("rwinch/176_test");
+		status.setPullRequestId(2);
+		status.setSha("abc123");
+		status.setAccessToken("access-token-123");
+		ClaPullRequestStatusRequest request = new ClaPullRequestStatusRequest();
+		request.setClaName(cla.getName());
+		request.setCommitStatus(status);
+		claService.savePullRequestStatus(request);
+		ArgumentCaptor<PullRequestStatus> saved = ArgumentCaptor.forClass(PullRequestStatus.class);
+		verify(gitHub, atLeastOnce()).save(saved.capture());
+		return saved.getValue();
+	}
+
+	private IndividualSignature signature() {
+		IndividualSignature signature = DataUtils.iclaSignature(cla);
+		signature.setGitHubLogin(gitHubLogin);
+		signature.setEmail(gitHubLogin + "@example.com");
+		return signature;
+	}
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * The same as {@link ClaServiceSigningTests}, but the signatures are looked up
+ * in the {@link io.pivotal.cla.data.repository.SignerRepository} since the
+ * {@link SignerIndex} is not built.
+ */
+@TestPropertySource(properties = "cla.signer-index.enabled=false")
+public class ClaServiceSigningWithoutSignerIndexTests extends ClaServiceSigningTests {
+
+	@Test
+	public void signerIndexIsNotReady() {
+		assertThat(signerIndex.isReady()).isFalse();
+	}
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import io.pivotal.cla.data.Signer.Kind;
+import io.pivotal.cla.data.User;
+import io.pivotal.cla.data.repository.AccessTokenRepository;
+import io.pivotal.cla.data.repository.ContributorLicenseAgreementRepository;
+import io.pivotal.cla.data.repository.CorporateSignatureRepository;
+import io.pivotal.cla.data.repository.IndividualSignatureRepository;
+import io.pivotal.cla.data.repository.SignerRepository;
+import io.pivotal.cla.data.repository.UserRepository;
+import io.pivotal.cla.service.github.AsyncGitHubApi;
+import io.pivotal.cla.service.github.GitHubApi;
+
+public class ClaServiceTests {
+	GitHubApi gitHub;
+
+	UserRepository users;
+
+	IndividualSignatureRepository individualSignatures;
+
+	CorporateSignatureRepository corporateSignatures;
+
+	SignerIndex signerIndex;
+
+	UnsignedCache unsignedCache;
+
+	SignerRepository signers;
+
+	ClaService claService;
+
+	@Before
+	public void setup() {
+		gitHub = mock(GitHubApi.class);
+		users = mock(UserRepository.class);
+		individualSignatures = mock(IndividualSignatureRepository.class);
+		corporateSignatures = mock(CorporateSignatureRepository.class);
+		signerIndex = mock(SignerIndex.class);
+		unsignedCache = mock(UnsignedCache.class);
+		signers = mock(SignerRepository.class);
+		claService = new ClaService(gitHub, mock(AsyncGitHubApi.class), mock(AccessTokenRepository.class), mock(RepositoryClaLinkService.class), signerIndex, unsignedCache, signers, mock(ContributorLicenseAgreementRepository.class), users, corporateSignatures, individualSignatures);
+		when(gitHub.getOrganizations(any())).thenReturn(Collections.emptyList());
+	}
+
+	@Test
+	public void findSignedLoginsIndividual() {
+		User rob = user("rwinch", "rob@example.com");
+		when(users.findAllWithEmails(anyCollection())).thenReturn(Arrays.asList(rob));
+		when(signers.findSigned(eq("pivotal"), eq(Kind.LOGIN), anyCollection())).thenReturn(Arrays.asList("JDoe"));
+		when(signers.findSigned(eq("pivotal"), eq(Kind.EMAIL), anyCollection())).thenReturn(Arrays.asList("rob@example.com"));
+
+		assertThat(claService.findSignedLogins(Arrays.asList("rwinch", "jdoe", "unsigned"), "pivotal")).containsOnly("rwinch", "jdoe");
+
+		verify(gitHub).getOrganizations("unsigned");
+		verify(gitHub, never()).getOrganizations("rwinch");
+		verify(gitHub, never()).getOrganizations("jdoe");
+	}
+
+	@Test
+	public void findSignedLoginsCorporate() {
+		User rob = user("rwinch", "rob@pivotal.io");
+		when(users.findAllWithEmails(anyCollection())).thenReturn(Arrays.asList(rob));
+		when(gitHub.getOrganizations("jdoe")).thenReturn(Arrays.asList("Spring-Projects"));
+		when(signers.findSigned(eq("pivotal"), eq(Kind.ORGANIZATION), anyCollection())).thenReturn(Arrays.asList("spring-projects"));
+		when(signers.findSigned(eq("pivotal"), eq(Kind.DOMAIN), anyCollection())).thenReturn(Arrays.asList("pivotal.io"));
+
+		assertThat(claService.findSignedLogins(Arrays.asList("rwinch", "jdoe", "unsigned"), "pivotal")).containsOnly("rwinch", "jdoe");
+
+		verify(signers).findSigned("pivotal", Kind.ORGANIZATION, new HashSet<>(Arrays.asList("Spring-Projects")));
+		verify(signers).findSigned("pivotal", Kind.DOMAIN, new HashSet<>(Arrays.asList("pivotal.io")));
+	}
+
+	@Test
+	public void findSignedLoginsNullCla() {
+		assertThat(claService.findSignedLogins(Arrays.asList("rwinch"), null)).isEmpty();
+	}
+
+	@Test
+	public void hasSignedLoginFromSignerIndex() {
+		when(signerIndex.isReady()).thenReturn(true);
+		when(signerIndex.hasSignedIndividual("pivotal", "rwinch", Collections.emptySet())).thenReturn(true);
+
+		assertThat(claService.hasSigned("rwinch", "pivotal")).isTrue();
+
+		verify(users, never()).findOne(any());
+		verify(individualSignatures, never()).findSignaturesFor(any(), any(User.class), any());
+	}
+
+	@Test
+	public void hasSignedCorporateFromSignerIndex() {
+		User rob = user("rwinch", "rob@pivotal.io");
+		when(signerIndex.isReady()).thenReturn(true);
+		when(signerIndex.hasSignedCorporate(eq("pivotal"), eq(rob.getEmails()), any())).thenReturn(true);
+
+		assertThat(claService.hasSigned(rob, "pivotal")).isTrue();
+
+		verify(corporateSignatures, never()).findSignature(any(), any(), any());
+	}
+
+	@Test
+	public void hasSignedFromSignersWhenSignerIndexNotReady() {
+		User rob = user("rwinch", "rob@pivotal.io");
+		when(signers.hasSigned(eq("pivotal"), eq("rwinch"), eq(rob.getEmails()), any())).thenReturn(true);
+
+		assertThat(claService.hasSigned(rob, "pivotal")).isTrue();
+
+		verify(individualSignatures, never()).findSignaturesFor(any(), any(User.class), any());
+		verify(corporateSignatures, never()).findSignature(any(), any(), any());
+		verify(gitHub, never()).getOrganizations(any());
+	}
+
+	@Test
+	public void hasSignedRemembersUnsigned() {
+		when(unsignedCache.generation()).thenReturn(3L);
+		User rob = user("rwinch", "rob@example.com");
+		when(users.findOne("rwinch")).thenReturn(rob);
+		when(signerIndex.isReady()).thenReturn(true);
+
+		assertThat(claService.hasSigned("rwinch", "pivotal")).isFalse();
+
+		verify(unsignedCache).putUnsigned(rob, "pivotal", 3L);
+	}
+
+	@Test
+	public void hasSignedKnownUnsigned() {
+		when(unsignedCache.isUnsigned("rwinch", "pivotal")).thenReturn(true);
+
+		assertThat(claService.hasSigned("rwinch", "pivotal")).isFalse();
+
+		verify(users, never()).findOne(any());
+		verify(gitHub, never()).getOrganizations(any());
+	}
+
+	private static User user(String gitHubLogin, String... emails) {
+		User user = new User();
+		user.setGitHubLogin(gitHubLogin);
+		user.setEmails(new HashSet<>(Arrays.asList(emails)));
+		return user;
+	}
+}
@@ -0,0 +1,278 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import io.pivotal.cla.config.PullRequestMigrationConfig;
+import io.pivotal.cla.data.AccessToken;
+import io.pivotal.cla.data.PullRequestMigration;
+import io.pivotal.cla.data.PullRequestMigration.State;
+import io.pivotal.cla.data.repository.AccessTokenRepository;
+import io.pivotal.cla.data.repository.PullRequestMigrationRepository;
+import io.pivotal.cla.service.github.GitHubApi;
+import io.pivotal.cla.service.github.PullRequestStatus;
+
+public class PullRequestMigrationServiceTests {
+	PullRequestMigrationRepository migrations;
+
+	AccessTokenRepository accessTokens;
+
+	GitHubApi gitHub;
+
+	ClaService claService;
+
+	PullRequestMigrationConfig config;
+
+	PullRequestMigrationService service;
+
+	PullRequestMigration migration;
+
+	List<State> savedStates = new ArrayList<>();
+
+	@Before
+	public void setup() {
+		migrations = mock(PullRequestMigrationRepository.class);
+		accessTokens = mock(AccessTokenRepository.class);
+		gitHub = mock(GitHubApi.class);
+		claService = mock(ClaService.class);
+		config = new PullRequestMigrationConfig();
+		config.setResume(false);
+		service = new PullRequestMigrationService(migrations, accessTokens, gitHub, claService, config);
+
+		migration = new PullRequestMigration();
+		migration.setId(1L);
+		migration.setClaName("pivotal");
+		migration.setRepositoryId("rwinch/176_test");
+		migration.setCommitStatusUrl("https://cla.pivotal.io/sign/pivotal");
+		migration.setFaqUrl("https://cla.pivotal.io/about");
+		migration.setBaseSyncUrl("https://cla.pivotal.io/sync/pivotal");
+		migration.setState(State.QUEUED);
+		when(migrations.findOne(1L)).thenReturn(migration);
+		when(migrations.claim(eq(1L), any(), any())).thenReturn(true);
+		when(migrations.findById(1L)).thenReturn(Optional.of(migration));
+		when(migrations.save(any())).thenAnswer(i -> {
+			PullRequestMigration saved = i.getArgument(0);
+			savedStates.add(saved.getState());
+			return saved;
+		});
+		AccessToken token = new AccessToken();
+		token.setId(migration.getRepositoryId());
+		token.setToken("repo-token");
+		when(accessTokens.findOne(migration.getRepositoryId())).thenReturn(token);
+		service.start();
+	}
+
+	@After
+	public void cleanup() {
+		service.stop();
+	}
+
+	@Test
+	public void migrateEvaluatesAuthorsInBatch() {
+		when(gitHub.createUpdatePullRequestStatuses(any())).thenReturn(Arrays.asList(status(3, "rwinch"), status(1, "rwinch"), status(2, "jdoe")));
+		when(claService.findSignedLogins(anyCollection(), eq("pivotal"))).thenReturn(Collections.singleton("rwinch"));
+
+		service.migrate(1L);
+
+		verify(claService).findSignedLogins(eq(new HashSet<>(Arrays.asList("rwinch", "jdoe"))), eq("pivotal"));
+		ArgumentCaptor<PullRequestStatus> saved = ArgumentCaptor.forClass(PullRequestStatus.class);
+		verify(gitHub, times(3)).save(saved.capture());
+		assertThat(saved.getAllValues()).extracting(PullRequestStatus::getPullRequestId).containsExactly(1, 2, 3);
+		assertThat(saved.getAllValues()).extracting(PullRequestStatus::getSuccess).containsExactly(true, false, true);
+		assertThat(migration.getState()).isEqualTo(State.DONE);
+		assertThat(migration.getDone()).isEqualTo(3);
+		assertThat(migration.getTotal()).isEqualTo(3);
+		assertThat(migration.getLastPullRequest()).isEqualTo(3);
+	}
+
+	@Test
+	public void migrateUsesRepositoryAccessToken() {
+		when(gitHub.createUpdatePullRequestStatuses(any())).thenReturn(Collections.emptyList());
+
+		service.migrate(1L);
+
+		ArgumentCaptor<MigratePullRequestStatusRequest> request = ArgumentCaptor.forClass(MigratePullRequestStatusRequest.class);
+		verify(gitHub).createUpdatePullRequestStatuses(request.capture());
+		assertThat(request.getValue().getAccessToken()).isEqualTo("repo-token");
+		assertThat(request.getValue().getRepositoryIds()).containsOnly("rwinch/176_test");
+	}
+
+	@Test
+	public void migrateResumesAfterCheckpoint() {
+		migration.setState(State.RUNNING);
+		migration.setDone(2);
+		migration.setLastPullRequest(2);
+		when(gitHub.createUpdatePullRequestStatuses(any())).thenReturn(Arrays.asList(status(1, "rwinch"), status(2, "rwinch"), status(5, "rwinch")));
+		when(claService.findSignedLogins(anyCollection(), eq("pivotal"))).thenReturn(Collections.emptySet());
+
+		service.migrate(1L);
+
+		ArgumentCaptor<PullRequestStatus> saved = ArgumentCaptor.forClass(PullRequestStatus.class);
+		verify(gitHub).save(saved.capture());
+		assertThat(saved.getValue().getPullRequestId()).isEqualTo(5);
+		assertThat(migration.getDone()).isEqualTo(3);
+		assertThat(migration.getTotal()).isEqualTo(3);
+		assertThat(migration.getStartedDone()).isEqualTo(2);
+		assertThat(migration.getState()).isEqualTo(State.DONE);
+	}
+
+	@Test
+	public void migrateSavesCheckpointAfterEachPullRequest() {
+		when(gitHub.createUpdatePullRequestStatuses(any())).thenReturn(Arrays.asList(status(1, "rwinch"), status(2, "rwinch")));
+		when(claService.findSignedLogins(anyCollection(), eq("pivotal"))).thenReturn(Collections.emptySet());
+
+		service.migrate(1L);
+
+		assertThat(savedStates).containsExactly(State.RUNNING, State.RUNNING, State.RUNNING, State.DONE);
+	}
+
+	@Test
+	public void migrateFailed() {
+		when(gitHub.createUpdatePullRequestStatuses(any())).thenThrow(new IllegalStateException("Bad credentials"));
+
+		service.migrate(1L);
+
+		assertThat(migration.getState()).isEqualTo(State.FAILED);
+		assertThat(migration.getLastError()).contains("Bad credentials");
+		verify(gitHub, never()).save(any());
+	}
+
+	@Test
+	public void migrateContinuesAfterFailedPullRequest() {
+		when(gitHub.createUpdatePullRequestStatuses(any())).thenReturn(Arrays.asList(status(1, "rwinch"), status(2, "rwinch"), status(3, "rwinch")));
+		when(claService.findSignedLogins(anyCollection(), eq("pivotal"))).thenReturn(Collections.emptySet());
+		doThrow(new IllegalStateException("Not Found")).when(gitHub).save(argThat(s -> s.getPullRequestId() == 2));
+
+		service.migrate(1L);
+
+		verify(gitHub, times(3)).save(any());
+		assertThat(migration.getState()).isEqualTo(State.FAILED);
+		assertThat(migration.getDone()).isEqualTo(3);
+		assertThat(migration.getFailed()).isEqualTo(1);
+		assertThat(migration.getLastPullRequest()).isEqualTo(3);
+		assertThat(migration.getLastError()).startsWith("#2: ").contains("Not Found");
+		assertThat(migration.getLeaseExpires()).isNull();
+	}
+
+	@Test
+	public void migrateClaimedByOtherInstanceIsSkipped() {
+		when(migrations.claim(eq(1L), any(), any())).thenReturn(false);
+
+		service.migrate(1L);
+
+		verify(gitHub, never()).createUpdatePullRequestStatuses(any());
+		verify(migrations, never()).save(any());
+	}
+
+	@Test
+	public void migrateRenewsLease() {
+		when(gitHub.createUpdatePullRequestStatuses(any())).thenReturn(Arrays.asList(status(1, "rwinch")));
+		when(claService.findSignedLogins(anyCollection(), eq("pivotal"))).thenReturn(Collections.emptySet());
+		List<Date> leases = new ArrayList<>();
+		doAnswer(i -> {
+			PullRequestMigration saved = i.getArgument(0);
+			leases.add(saved.getLeaseExpires());
+			return saved;
+		}).when(migrations).save(any());
+
+		service.migrate(1L);
+
+		assertThat(leases).hasSize(3);
+		assertThat(leases.get(0)).isInTheFuture();
+		assertThat(leases.get(1)).isInTheFuture();
+		assertThat(leases.get(2)).isNull();
+	}
+
+	@Test
+	public void retryFailed() {
+		migration.setState(State.FAILED);
+		migration.setDone(3);
+		migration.setFailed(1);
+		migration.setLastPullRequest(3);
+		migration.setLastError("#2: Not Found");
+
+		PullRequestMigration retried = service.retry(1L);
+
+		assertThat(retried.getState()).isEqualTo(State.QUEUED);
+		assertThat(retried.getDone()).isZero();
+		assertThat(retried.getFailed()).isZero();
+		assertThat(retried.getLastPullRequest()).isZero();
+		assertThat(retried.getLastError()).isNull();
+	}
+
+	@Test
+	public void retryWhenNotFailedThenNull() {
+		migration.setState(State.RUNNING);
+
+		assertThat(service.retry(1L)).isNull();
+		verify(migrations, never()).save(any());
+	}
+
+	@Test
+	public void migrateDoneIsSkipped() {
+		migration.setState(State.DONE);
+
+		service.migrate(1L);
+
+		verify(gitHub, never()).createUpdatePullRequestStatuses(any());
+	}
+
+	@Test
+	public void estimateRemainingMillis() {
+		migration.setState(State.RUNNING);
+		migration.setStarted(new Date(0));
+		migration.setStartedDone(10);
+		migration.setDone(20);
+		migration.setTotal(40);
+
+		assertThat(migration.getRemaining()).isEqualTo(20);
+		assertThat(migration.estimateRemainingMillis(new Date(10000))).isEqualTo(20000L);
+	}
+
+	private static PullRequestStatus status(int pullRequestId, String author) {
+		PullRequestStatus status = new PullRequestStatus();
+		status.setPullRequestId(pullRequestId);
+		status.setRepoId("rwinch/176_test");
+		status.setSha("sha-" + pullRequestId);
+		status.setGitHubUsername(author);
+		return status;
+	}
+}
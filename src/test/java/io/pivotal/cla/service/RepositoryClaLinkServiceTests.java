@@ -0,0 +1,159 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.eclipse.egit.github.core.RequestError;
+import org.eclipse.egit.github.core.client.RequestException;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.pivotal.cla.config.GitHubHooksConfig;
+import io.pivotal.cla.data.AccessToken;
+import io.pivotal.cla.data.RepositoryClaLink;
+import io.pivotal.cla.data.repository.AccessTokenRepository;
+import io.pivotal.cla.data.repository.RepositoryClaLinkRepository;
+import io.pivotal.cla.service.github.GitHubApi;
+
+public class RepositoryClaLinkServiceTests {
+	RepositoryClaLinkRepository links;
+
+	AccessTokenRepository accessTokens;
+
+	GitHubApi gitHub;
+
+	RepositoryClaLinkService service;
+
+	List<RepositoryClaLink> saved = new ArrayList<>();
+
+	@Before
+	public void setup() {
+		links = mock(RepositoryClaLinkRepository.class);
+		accessTokens = mock(AccessTokenRepository.class);
+		gitHub = mock(GitHubApi.class);
+		when(links.findByRepositoryId(anyString())).thenAnswer(i -> saved.stream().filter(l -> l.getRepositoryId().equals(i.getArgument(0))).collect(Collectors.toList()));
+		when(links.findRepositoryIds()).thenAnswer(i -> saved.stream().map(RepositoryClaLink::getRepositoryId).distinct().collect(Collectors.toList()));
+		when(links.save(any())).thenAnswer(i -> {
+			RepositoryClaLink link = i.getArgument(0);
+			if (!saved.contains(link)) {
+				saved.add(link);
+			}
+			return link;
+		});
+		when(links.deleteByRepositoryId(anyString())).thenAnswer(i -> {
+			saved.removeIf(l -> l.getRepositoryId().equals(i.getArgument(0)));
+			return 0;
+		});
+		doAnswer(i -> saved.remove(i.getArgument(0))).when(links).delete(any());
+		service = new RepositoryClaLinkService(links, accessTokens, gitHub, new GitHubHooksConfig());
+		service.start();
+	}
+
+	@Test
+	public void linkRecordsHookIds() {
+		service.link("pivotal", Arrays.asList("rwinch/176_test", "rwinch/other"), Arrays.asList("https://github.com/rwinch/176_test/settings/hooks/1", "https://github.com/rwinch/other/settings/hooks/2"), "rwinch");
+
+		assertThat(saved).extracting(RepositoryClaLink::getRepositoryId, RepositoryClaLink::getHookId, RepositoryClaLink::getLinkedBy)
+				.containsExactly(tuple("rwinch/176_test", 1L, "rwinch"), tuple("rwinch/other", 2L, "rwinch"));
+		assertThat(service.findClaNames("rwinch/176_test")).containsOnly("pivotal");
+	}
+
+	@Test
+	public void linkAgainUpdatesLink() {
+		service.link("pivotal", Arrays.asList("rwinch/176_test"), Arrays.asList("https://github.com/rwinch/176_test/settings/hooks/1"), "rwinch");
+		service.link("pivotal", Arrays.asList("rwinch/176_test"), Arrays.asList("https://github.com/rwinch/176_test/settings/hooks/3"), "joe");
+
+		assertThat(saved).hasSize(1);
+		assertThat(saved.get(0).getHookId()).isEqualTo(3L);
+		assertThat(saved.get(0).getLinkedBy()).isEqualTo("joe");
+	}
+
+	@Test
+	public void updateAddsRemovesAndDecodes() {
+		service.link("pivotal", Arrays.asList("rwinch/176_test"), Arrays.asList("https://github.com/rwinch/176_test/settings/hooks/1"), "rwinch");
+		service.link("apache", Arrays.asList("rwinch/176_test"), Arrays.asList("https://github.com/rwinch/176_test/settings/hooks/2"), "rwinch");
+		Map<String, Long> hooks = new HashMap<>();
+		hooks.put("pivotal", 5L);
+		hooks.put("my+cla", 6L);
+
+		assertThat(service.update("rwinch/176_test", hooks)).containsOnly("pivotal", "my cla");
+		assertThat(saved).extracting(RepositoryClaLink::getHookId).containsOnly(5L, 6L);
+	}
+
+	@Test
+	public void renameMovesLinksAndAccessToken() {
+		service.link("pivotal", Arrays.asList("rwinch/176_test"), Arrays.asList("https://github.com/rwinch/176_test/settings/hooks/1"), "rwinch");
+		AccessToken accessToken = new AccessToken("rwinch/176_test", "token");
+		when(accessTokens.findOne("rwinch/176_test")).thenReturn(accessToken);
+
+		service.rename("rwinch/176_test", "spring-projects/176_test");
+
+		assertThat(service.findClaNames("rwinch/176_test")).isEmpty();
+		assertThat(service.findClaNames("spring-projects/176_test")).containsOnly("pivotal");
+		verify(accessTokens).save(any(AccessToken.class));
+		verify(accessTokens).delete(accessToken);
+	}
+
+	@Test
+	public void reconcileFindsDrift() {
+		service.link("pivotal", Arrays.asList("rwinch/176_test"), Arrays.asList("https://github.com/rwinch/176_test/settings/hooks/1"), "rwinch");
+		when(accessTokens.findAll()).thenReturn(Arrays.asList(new AccessToken(AccessToken.CLA_ACCESS_TOKEN_ID, "this-token"), new AccessToken("rwinch/176_test", "token"), new AccessToken("rwinch/other", "other-token")));
+		when(accessTokens.findOne("rwinch/176_test")).thenReturn(new AccessToken("rwinch/176_test", "token"));
+		when(accessTokens.findOne("rwinch/other")).thenReturn(new AccessToken("rwinch/other", "other-token"));
+		when(gitHub.findClaHooks("rwinch/176_test", "token")).thenReturn(Collections.emptyMap());
+		when(gitHub.findClaHooks("rwinch/other", "other-token")).thenReturn(Collections.singletonMap("pivotal", 2L));
+
+		service.reconcile();
+
+		assertThat(service.findClaNames("rwinch/176_test")).isEmpty();
+		assertThat(service.findClaNames("rwinch/other")).containsOnly("pivotal");
+		verify(gitHub, never()).findClaHooks(eq(AccessToken.CLA_ACCESS_TOKEN_ID), anyString());
+	}
+
+	@Test
+	public void reconcileRemovesRepositoryNotFound() {
+		service.link("pivotal", Arrays.asList("rwinch/176_test"), Arrays.asList("https://github.com/rwinch/176_test/settings/hooks/1"), "rwinch");
+		when(accessTokens.findOne("rwinch/176_test")).thenReturn(new AccessToken("rwinch/176_test", "token"));
+		when(gitHub.findClaHooks("rwinch/176_test", "token")).thenThrow(new RuntimeException(notFound()));
+
+		service.reconcile();
+
+		assertThat(service.findClaNames("rwinch/176_test")).isEmpty();
+	}
+
+	private static IOException notFound() {
+		return new RequestException(new RequestError(), 404);
+	}
+}
@@ -0,0 +1,243 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.pivotal.cla.config.SignerIndexConfig;
+import io.pivotal.cla.data.ContributorLicenseAgreement;
+import io.pivotal.cla.data.IndividualSignature;
+import io.pivotal.cla.data.repository.ClaAcceptanceRepository;
+import io.pivotal.cla.data.repository.CorporateSignatureRepository;
+import io.pivotal.cla.data.repository.IndividualSignatureRepository;
+
+public class SignerIndexTests {
+	IndividualSignatureRepository individualSignatures;
+
+	CorporateSignatureRepository corporateSignatures;
+
+	ClaAcceptanceRepository acceptances;
+
+	UnsignedCache unsignedCache;
+
+	SignerIndexConfig config;
+
+	SimpleMeterRegistry meterRegistry;
+
+	SignerIndex index;
+
+	@Before
+	public void setup() {
+		individualSignatures = mock(IndividualSignatureRepository.class);
+		corporateSignatures = mock(CorporateSignatureRepository.class);
+		acceptances = mock(ClaAcceptanceRepository.class);
+		unsignedCache = mock(UnsignedCache.class);
+		config = new SignerIndexConfig();
+		meterRegistry = new SimpleMeterRegistry();
+		index = new SignerIndex(individualSignatures, corporateSignatures, acceptances, unsignedCache, config, meterRegistry);
+	}
+
+	@Test
+	public void notReadyUntilBuilt() {
+		assertThat(index.isReady()).isFalse();
+
+		index.refresh();
+
+		assertThat(index.isReady()).isTrue();
+	}
+
+	@Test
+	public void hasSignedIndividualByLoginOrEmail() {
+		givenIndividuals(0L, individual(1L, "RWinch", null, "pivotal"), individual(2L, null, "Rob@example.com", "pivotal"));
+		index.refresh();
+
+		assertThat(index.hasSignedIndividual("pivotal", "rwinch", Collections.emptySet())).isTrue();
+		assertThat(index.hasSignedIndividual("Pivotal", "jdoe", Arrays.asList("rob@example.com"))).isTrue();
+		assertThat(index.hasSignedIndividual("pivotal", "jdoe", Arrays.asList("jdoe@example.com"))).isFalse();
+		assertThat(index.hasSignedIndividual("apache", "rwinch", Collections.emptySet())).isFalse();
+	}
+
+	@Test
+	public void hasSignedSupersedingCla() {
+		ClaAcceptanceRepository.AcceptedName apache = acceptedName("apache", "apache");
+		ClaAcceptanceRepository.AcceptedName pivotal = acceptedName("apache", "pivotal");
+		when(acceptances.findAcceptedNames()).thenReturn(Arrays.asList(apache, pivotal));
+		givenIndividuals(0L, individual(1L, "rwinch", null, "pivotal"));
+		index.refresh();
+
+		assertThat(index.hasSignedIndividual("apache", "rwinch", Collections.emptySet())).isTrue();
+		assertThat(index.hasSignedIndividual("spring", "rwinch", Collections.emptySet())).isFalse();
+	}
+
+	@Test
+	public void hasSignedCorporateByDomainSkipsOrganizations() {
+		givenCorporates(0L, corporate(1L, null, "pivotal.io", "pivotal"));
+		index.refresh();
+		Supplier<List<String>> organizations = () -> {
+			throw new AssertionError("The organizations should not be looked up");
+		};
+
+		assertThat(index.hasSignedCorporate("pivotal", Arrays.asList("rob@Pivotal.io"), organizations)).isTrue();
+	}
+
+	@Test
+	public void hasSignedCorporateWithoutOrganizationSignaturesSkipsOrganizations() {
+		givenCorporates(0L, corporate(1L, null, "pivotal.io", "pivotal"), corporate(2L, "spring-projects", null, "spring"));
+		index.refresh();
+		Supplier<List<String>> organizations = () -> {
+			throw new AssertionError("The organizations should not be looked up");
+		};
+
+		assertThat(index.hasSignedCorporate("pivotal", Arrays.asList("rob@example.com"), organizations)).isFalse();
+		assertThat(meterRegistry.get(SignerIndex.ORGANIZATIONS_METRIC_NAME).tag("result", "skipped").counter().count()).isEqualTo(1);
+	}
+
+	@Test
+	public void hasSignedCorporateByOrganization() {
+		givenCorporates(0L, corporate(1L, "spring-projects", null, "pivotal"));
+		index.refresh();
+
+		assertThat(index.hasSignedCorporate("pivotal", Arrays.asList("rob@example.com"), () -> Arrays.asList("Spring-Projects"))).isTrue();
+		assertThat(index.hasSignedCorporate("pivotal", Arrays.asList("rob@example.com"), () -> Arrays.asList("pivotal"))).isFalse();
+	}
+
+	@Test
+	public void addSignature() {
+		index.refresh();
+		ContributorLicenseAgreement cla = new ContributorLicenseAgreement();
+		cla.setName("pivotal");
+		IndividualSignature signature = new IndividualSignature();
+		signature.setCla(cla);
+		signature.setGitHubLogin("rwinch");
+
+		index.add(signature);
+
+		assertThat(index.hasSignedIndividual("pivotal", "rwinch", Collections.emptySet())).isTrue();
+	}
+
+	@Test
+	public void refreshLoadsSignaturesAfterLastId() {
+		config.setRefreshOverlap(0);
+		givenIndividuals(0L, individual(5L, "rwinch", null, "pivotal"));
+		index.refresh();
+		givenIndividuals(5L, individual(6L, "jdoe", null, "pivotal"));
+
+		index.refresh();
+
+		assertThat(index.hasSignedIndividual("pivotal", "rwinch", Collections.emptySet())).isTrue();
+		assertThat(index.hasSignedIndividual("pivotal", "jdoe", Collections.emptySet())).isTrue();
+		verify(unsignedCache).evictIndividual("jdoe", null);
+		verify(unsignedCache, never()).evictIndividual(eq("rwinch"), any());
+	}
+
+	@Test
+	public void refreshLoadsSignaturesCommittedLate() {
+		config.setRefreshOverlap(2);
+		givenIndividuals(0L, individual(3L, "rwinch", null, "pivotal"), individual(5L, "jdoe", null, "pivotal"));
+		givenCorporates(0L, corporate(5L, "spring-projects", null, "pivotal"));
+		index.refresh();
+		// id 4 was committed after id 5 was loaded
+		givenIndividuals(3L, individual(4L, "jlong", null, "pivotal"), individual(5L, "jdoe", null, "pivotal"), individual(6L, "mfisher", null, "pivotal"));
+		givenCorporates(3L, corporate(5L, "spring-projects", null, "pivotal"));
+
+		index.refresh();
+
+		assertThat(index.hasSignedIndividual("pivotal", "jlong", Collections.emptySet())).isTrue();
+		assertThat(index.hasSignedIndividual("pivotal", "mfisher", Collections.emptySet())).isTrue();
+		verify(unsignedCache).evictIndividual("jlong", null);
+		verify(unsignedCache).evictIndividual("mfisher", null);
+		verify(unsignedCache, never()).evictIndividual(eq("jdoe"), any());
+		verify(unsignedCache, never()).evictCorporate();
+
+		// the next refresh starts the overlap below the highest id that was loaded
+		givenIndividuals(4L);
+		givenCorporates(3L);
+		index.refresh();
+
+		verify(individualSignatures).findSignersAfter(4L);
+	}
+
+	@Test
+	public void verifyUnchanged() {
+		givenIndividuals(0L, individual(1L, "rwinch", "rob@example.com", "pivotal"));
+		index.refresh();
+
+		assertThat(index.verify()).isZero();
+		assertThat(meterRegistry.get(SignerIndex.METRIC_NAME).counter().count()).isZero();
+	}
+
+	@Test
+	public void verifyReplacesDriftedIndex() {
+		givenIndividuals(0L, individual(1L, "rwinch", "rob@example.com", "pivotal"));
+		index.refresh();
+		// the signature was deleted
+		when(individualSignatures.findSignersAfter(anyLong())).thenReturn(Collections.emptyList());
+
+		assertThat(index.verify()).isEqualTo(2);
+
+		assertThat(meterRegistry.get(SignerIndex.METRIC_NAME).counter().count()).isEqualTo(2);
+		assertThat(index.hasSignedIndividual("pivotal", "rwinch", Collections.emptySet())).isFalse();
+	}
+
+	private void givenIndividuals(long after, IndividualSignatureRepository.Signer... signers) {
+		when(individualSignatures.findSignersAfter(after)).thenReturn(Arrays.asList(signers));
+	}
+
+	private void givenCorporates(long after, CorporateSignatureRepository.Signer... signers) {
+		when(corporateSignatures.findSignersAfter(after)).thenReturn(Arrays.asList(signers));
+	}
+
+	private static IndividualSignatureRepository.Signer individual(Long id, String gitHubLogin, String email, String claName) {
+		IndividualSignatureRepository.Signer signer = mock(IndividualSignatureRepository.Signer.class);
+		when(signer.getId()).thenReturn(id);
+		when(signer.getGitHubLogin()).thenReturn(gitHubLogin);
+		when(signer.getEmail()).thenReturn(email);
+		when(signer.getClaName()).thenReturn(claName);
+		return signer;
+	}
+
+	private static CorporateSignatureRepository.Signer corporate(Long id, String organization, String emailDomain, String claName) {
+		CorporateSignatureRepository.Signer signer = mock(CorporateSignatureRepository.Signer.class);
+		when(signer.getId()).thenReturn(id);
+		when(signer.getGitHubOrganization()).thenReturn(organization);
+		when(signer.getEmailDomain()).thenReturn(emailDomain);
+		when(signer.getClaName()).thenReturn(claName);
+		return signer;
+	}
+
+	private static ClaAcceptanceRepository.AcceptedName acceptedName(String claName, String acceptedClaName) {
+		ClaAcceptanceRepository.AcceptedName accepted = mock(ClaAcceptanceRepository.AcceptedName.class);
+		when(accepted.getClaName()).thenReturn(claName);
+		when(accepted.getAcceptedClaName()).thenReturn(acceptedClaName);
+		return accepted;
+	}
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.pivotal.cla.config.UnsignedCacheConfig;
+import io.pivotal.cla.data.CorporateSignature;
+import io.pivotal.cla.data.IndividualSignature;
+import io.pivotal.cla.data.User;
+
+public class UnsignedCacheTests {
+	UnsignedCacheConfig config;
+
+	SimpleMeterRegistry meterRegistry;
+
+	UnsignedCache cache;
+
+	User rob;
+
+	@Before
+	public void setup() {
+		config = new UnsignedCacheConfig();
+		meterRegistry = new SimpleMeterRegistry();
+		cache = new UnsignedCache(config, meterRegistry);
+		rob = new User();
+		rob.setGitHubLogin("rwinch");
+		rob.setEmails(new HashSet<>(Arrays.asList("rob@example.com")));
+	}
+
+	@Test
+	public void putUnsigned() {
+		assertThat(cache.isUnsigned("rwinch", "pivotal")).isFalse();
+
+		cache.putUnsigned(rob, "pivotal", cache.generation());
+
+		assertThat(cache.isUnsigned("RWinch", "pivotal")).isTrue();
+		assertThat(cache.isUnsigned("rwinch", "spring")).isFalse();
+		assertThat(meterRegistry.get(UnsignedCache.METRIC_NAME).tag("result", "hit").counter().count()).isEqualTo(1);
+		assertThat(meterRegistry.get(UnsignedCache.METRIC_NAME).tag("result", "miss").counter().count()).isEqualTo(2);
+	}
+
+	@Test
+	public void putUnsignedExpired() {
+		config.setTtl(Duration.ZERO);
+
+		cache.putUnsigned(rob, "pivotal", cache.generation());
+
+		assertThat(cache.isUnsigned("rwinch", "pivotal")).isFalse();
+	}
+
+	@Test
+	public void putUnsignedEvictedWhileDetermined() {
+		long generation = cache.generation();
+		cache.evictUser("jdoe");
+
+		cache.putUnsigned(rob, "pivotal", generation);
+
+		assertThat(cache.isUnsigned("rwinch", "pivotal")).isFalse();
+	}
+
+	@Test
+	public void maxSize() {
+		config.setMaxSize(1);
+		cache = new UnsignedCache(config, meterRegistry);
+		User jdoe = new User();
+		jdoe.setGitHubLogin("jdoe");
+		jdoe.setEmails(new HashSet<>());
+
+		cache.putUnsigned(rob, "pivotal", cache.generation());
+		cache.putUnsigned(jdoe, "pivotal", cache.generation());
+
+		assertThat(cache.isUnsigned("rwinch", "pivotal")).isFalse();
+		assertThat(cache.isUnsigned("jdoe", "pivotal")).isTrue();
+	}
+
+	@Test
+	public void disabled() {
+		config.setEnabled(false);
+
+		cache.putUnsigned(rob, "pivotal", cache.generation());
+
+		assertThat(cache.isUnsigned("rwinch", "pivotal")).isFalse();
+	}
+
+	@Test
+	public void evictIndividualSignatureByEmail() {
+		cache.putUnsigned(rob, "pivotal", cache.generation());
+		IndividualSignature signature = new IndividualSignature();
+		signature.setEmail("Rob@example.com");
+
+		cache.evict(signature);
+
+		assertThat(cache.isUnsigned("rwinch", "pivotal")).isFalse();
+		assertThat(meterRegistry.get(UnsignedCache.EVICTIONS_METRIC_NAME).tag("reason", "individual-signature").counter().count()).isEqualTo(1);
+	}
+
+	@Test
+	public void evictIndividualSignatureOtherUser() {
+		cache.putUnsigned(rob, "pivotal", cache.generation());
+		IndividualSignature signature = new IndividualSignature();
+		signature.setGitHubLogin("jdoe");
+		signature.setEmail("jdoe@example.com");
+
+		cache.evict(signature);
+
+		assertThat(cache.isUnsigned("rwinch", "pivotal")).isTrue();
+	}
+
+	@Test
+	public void evictCorporateSignature() {
+		cache.putUnsigned(rob, "pivotal", cache.generation());
+
+		cache.evict(new CorporateSignature());
+
+		assertThat(cache.isUnsigned("rwinch", "pivotal")).isFalse();
+	}
+
+	@Test
+	public void evictUser() {
+		cache.putUnsigned(rob, "pivotal", cache.generation());
+		cache.putUnsigned(rob, "spring", cache.generation());
+
+		cache.evictUser("RWinch");
+
+		assertThat(cache.isUnsigned("rwinch", "pivotal")).isFalse();
+		assertThat(cache.isUnsigned("rwinch", "spring")).isFalse();
+		assertThat(meterRegistry.get(UnsignedCache.EVICTIONS_METRIC_NAME).tag("reason", "user").counter().count()).isEqualTo(2);
+	}
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.service.github;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.pivotal.cla.config.GitHubClientConfig;
+
+public class ExecutorAsyncGitHubApiTests {
+	GitHubApi gitHub;
+
+	GitHubClientConfig config;
+
+	ExecutorAsyncGitHubApi async;
+
+	CountDownLatch release = new CountDownLatch(1);
+
+	@Before
+	public void setup() {
+		gitHub = mock(GitHubApi.class);
+		config = new GitHubClientConfig();
+		config.setAsyncThreads(2);
+		config.setAsyncQueueCapacity(1);
+		config.setAsyncTimeout(Duration.ofSeconds(5));
+	}
+
+	@After
+	public void cleanup() {
+		release.countDown();
+		async.destroy();
+	}
+
+	@Test
+	public void getOrganizations() throws Exception {
+		async = new ExecutorAsyncGitHubApi(gitHub, config);
+		when(gitHub.getOrganizations("rwinch")).thenReturn(Arrays.asList("spring-projects"));
+
+		assertThat(async.getOrganizations("rwinch").get(5, TimeUnit.SECONDS)).containsExactly("spring-projects");
+	}
+
+	@Test
+	public void requestsRunConcurrently() throws Exception {
+		async = new ExecutorAsyncGitHubApi(gitHub, config);
+		CountDownLatch started = new CountDownLatch(2);
+		when(gitHub.getOrganizations("rwinch")).thenAnswer(i -> {
+			started.countDown();
+			started.await();
+			return Arrays.asList("spring-projects");
+		});
+		when(gitHub.getVerifiedEmails("token")).thenAnswer(i -> {
+			started.countDown();
+			started.await();
+			return Collections.singleton("rob@example.com");
+		});
+
+		CompletableFuture<List<String>> organizations = async.getOrganizations("rwinch");
+		CompletableFuture<Set<String>> emails = async.getVerifiedEmails("token");
+
+		assertThat(organizations.get(5, TimeUnit.SECONDS)).containsExactly("spring-projects");
+		assertThat(emails.get(5, TimeUnit.SECONDS)).containsExactly("rob@example.com");
+	}
+
+	@Test
+	public void timeout() throws Exception {
+		config.setAsyncTimeout(Duration.ofMillis(50));
+		async = new ExecutorAsyncGitHubApi(gitHub, config);
+		CountDownLatch interrupted = new CountDownLatch(1);
+		when(gitHub.getOrganizations("rwinch")).thenAnswer(i -> {
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				interrupted.countDown();
+			}
+			return Collections.emptyList();
+		});
+
+		CompletableFuture<List<String>> organizations = async.getOrganizations("rwinch");
+
+		assertThatThrownBy(() -> organizations.get(5, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class).hasCauseInstanceOf(TimeoutException.class);
+		assertThat(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+	}
+
+	@Test
+	public void rejectedWhenQueueFull() throws Exception {
+		async = new ExecutorAsyncGitHubApi(gitHub, config);
+		when(gitHub.getOrganizations("rwinch")).thenAnswer(i -> {
+			release.await();
+			return Collections.emptyList();
+		});
+		async.getOrganizations("rwinch");
+		async.getOrganizations("rwinch");
+		async.getOrganizations("rwinch");
+
+		CompletableFuture<List<String>> rejected = async.getOrganizations("rwinch");
+
+		assertThat(rejected.isCompletedExceptionally()).isTrue();
+		assertThatThrownBy(() -> AsyncGitHubApi.join(rejected)).isInstanceOf(RejectedExecutionException.class);
+	}
+
+	@Test
+	public void joinRethrowsCause() {
+		async = new ExecutorAsyncGitHubApi(gitHub, config);
+		when(gitHub.getOrganizations("rwinch")).thenThrow(new IllegalStateException("Bad credentials"));
+
+		assertThatThrownBy(() -> AsyncGitHubApi.join(async.getOrganizations("rwinch"))).isInstanceOf(IllegalStateException.class).hasMessage("Bad credentials");
+	}
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.pivotal.cla.service.github;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.time.Duration;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+
+import io.pivotal.cla.config.ClaOAuthConfig;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+public class GitHubBotIdentityTests {
+	MockWebServer server;
+
+	ClaOAuthConfig oauthConfig;
+
+	GitHubBotIdentity identity;
+
+	@Before
+	public void setup() throws Exception {
+		server = new MockWebServer();
+		server.start();
+		oauthConfig = new ClaOAuthConfig();
+		oauthConfig.setScheme("http");
+		oauthConfig.setGitHubApiHost(server.getHostName());
+		oauthConfig.setPort(server.getPort());
+		oauthConfig.setPivotalClaAccessToken("token-1");
+		identity = new GitHubBotIdentity(oauthConfig, new OkHttpClient());
+	}
+
+	@After
+	public void cleanup() throws Exception {
+		server.shutdown();
+	}
+
+	@Test
+	public void loginResolvedOnce() throws Exception {
+		server.enqueue(user("pivotal-issuemaster"));
+
+		assertThat(identity.getLogin()).isEqualTo("pivotal-issuemaster");
+		assertThat(identity.getLogin()).isEqualTo("pivotal-issuemaster");
+
+		assertThat(server.getRequestCount()).isEqualTo(1);
+		assertThat(server.takeRequest().getHeader("Authorization")).isEqualTo("token token-1");
+	}
+
+	@Test
+	public void loginResolvedWhenAccessTokenChanges() throws Exception {
+		server.enqueue(user("pivotal-issuemaster"));
+		server.enqueue(user("spring-issuemaster"));
+		identity.getLogin();
+
+		oauthConfig.setPivotalClaAccessToken("token-2");
+
+		assertThat(identity.getLogin()).isEqualTo("spring-issuemaster");
+		server.takeRequest();
+		assertThat(server.takeRequest().getHeader("Authorization")).isEqualTo("token token-2");
+	}
+
+	@Test
+	public void healthUp() throws Exception {
+		server.enqueue(user("pivotal-issuemaster"));
+
+		Health health = identity.health();
+
+		assertThat(health.getStatus()).isEqualTo(Status.UP);
+		assertThat(health.getDetails()).containsEntry("login", "pivotal-issuemaster");
+	}
+
+	@Test
+	public void healthDownWhenAccessTokenInvalid() throws Exception {
+		server.enqueue(new MockResponse().setResponseCode(401).setBody("{\"message\":\"Bad credentials\"}"));
+		server.enqueue(new MockResponse().setResponseCode(401).setBody("{\"message\":\"Bad credentials\"}"));
+
+		assertThat(identity.health().getStatus()).isEqualTo(Status.DOWN);
+		assertThatCode(() -> identity.getLogin()).isInstanceOf(RuntimeException.class);
+	}
+
+	@Test
+	public void healthCachedWithinInterval() throws Exception {
+		server.enqueue(user("pivotal-issuemaster"));
+
+		assertThat(identity.health().getStatus()).isEqualTo(Status.UP);
+		assertThat(identity.health().getStatus()).isEqualTo(Status.UP);
+
+		assertThat(server.getRequestCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void healthCheckedAgainWhenAccessTokenChanges() throws Exception {
+		server.enqueue(user("pivotal-issuemaster"));
+		server.enqueue(user("spring-issuemaster"));
+		identity.health();
+
+		oauthConfig.setPivotalClaAccessToken("token-2");
+
+		assertThat(identity.health().getDetails()).containsEntry("login", "spring-issuemaster");
+	}
+
+	@Test
+	public void healthUpWithLastKnownLoginWhenGitHubUnavailable() throws Exception {
+		identity.setHealthCheckInterval(Duration.ZERO);
+		server.enqueue(user("pivotal-issuemaster"));
+		server.enqueue(new MockResponse().setResponseCode(502));
+		identity.health();
+
+		Health health = identity.health();
+
+		assertThat(health.getStatus()).isEqualTo(Status.UP);
+		assertThat(health.getDetails()).containsEntry("login", "pivotal-issuemaster").containsKey("error");
+		assertThat(identity.getLogin()).isEqualTo("pivotal-issuemaster");
+		assertThat(server.getRequestCount()).isEqualTo(2);
+	}
+
+	@Test
+	public void healthUnknownWhenGitHubUnavailableAndLoginNotKnown() throws Exception {
+		server.enqueue(new MockResponse().setResponseCode(502));
+
+		assertThat(identity.health().getStatus()).isEqualTo(Status.UNKNOWN);
+	}
+
+	private static MockResponse user(String login) {
+		return new MockResponse().addHeader("Content-Type", "application/json").setBody("{\"login\":\"" + login + "\"}");
+	}
+}
@@ -16,11 +16,20 @@
 package io.pivotal.cla.service.github;
 
 import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.junit.Before;
 import org.junit.Ignore;
@@ -32,9 +41,18 @@ import org.springframework.core.serializer.support.SerializingConverter;
 
 import io.pivotal.cla.config.ClaOAuthConfig;
 import io.pivotal.cla.config.OAuthClientCredentials;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.pivotal.cla.data.PullRequestComment;
+import io.pivotal.cla.data.PullRequestDecision;
+import io.pivotal.cla.data.PullRequestDecision.CommentKind;
 import io.pivotal.cla.data.User;
+import io.pivotal.cla.data.repository.PullRequestCommentRepository;
+import io.pivotal.cla.data.repository.PullRequestDecisionRepository;
+import okhttp3.OkHttpClient;
 import okhttp3.mockwebserver.EnqueueRequests;
+import okhttp3.mockwebserver.Dispatcher;
 import okhttp3.mockwebserver.EnqueueResourcesMockWebServer;
+import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.RecordedRequest;
 
 /**
@@ -50,6 +68,12 @@ public class MylynGitHubApiITests {
 
 	MylynGitHubApi service;
 
+	SimpleMeterRegistry meterRegistry;
+
+	PullRequestCommentRepository pullRequestComments;
+
+	Map<Long, PullRequestComment> comments;
+
 	@Before
 	public void setup() throws IOException {
 
@@ -297,7 +321,7 @@ public class MylynGitHubApiITests {
 				.isEqualTo("/api/v3/repos/spring-projects/spring-security/hooks");
 		assertThat(request.getHeader("Authorization")).isEqualTo("token " + hookRequest.getAccessToken());
 		assertThat(request.getBody().readUtf8()).isEqualTo(
-				"{\"events\":[\"issue_comment\",\"pull_request\",\"pull_request_review_comment\"],\"active\":true,\"created_at\":null,\"updated_at\":null,\"id\":0,\"last_response\":null,\"name\":\"web\",\"url\":null,\"config\":{\"content_type\":\"json\",\"secret\":\"do not guess me\",\"url\":\"https://example.com/github/hook\"}}");
+				"{\"events\":[\"issue_comment\",\"pull_request\",\"pull_request_review_comment\",\"meta\",\"repository\"],\"active\":true,\"created_at\":null,\"updated_at\":null,\"id\":0,\"last_response\":null,\"name\":\"web\",\"url\":null,\"config\":{\"content_type\":\"json\",\"secret\":\"do not guess me\",\"url\":\"https://example.com/github/hook\"}}");
 
 		request = server.getServer().takeRequest();
 		assertThat(request.getMethod()).isEqualTo("GET");
@@ -310,7 +334,7 @@ public class MylynGitHubApiITests {
 				.isEqualTo("/api/v3/repos/spring-projects/spring-session/hooks");
 		assertThat(request.getHeader("Authorization")).isEqualTo("token " + hookRequest.getAccessToken());
 		assertThat(request.getBody().readUtf8()).isEqualTo(
-				"{\"events\":[\"issue_comment\",\"pull_request\",\"pull_request_review_comment\"],\"active\":true,\"created_at\":null,\"updated_at\":null,\"id\":0,\"last_response\":null,\"name\":\"web\",\"url\":null,\"config\":{\"content_type\":\"json\",\"secret\":\"do not guess me\",\"url\":\"https://example.com/github/hook\"}}");
+				"{\"events\":[\"issue_comment\",\"pull_request\",\"pull_request_review_comment\",\"meta\",\"repository\"],\"active\":true,\"created_at\":null,\"updated_at\":null,\"id\":0,\"last_response\":null,\"name\":\"web\",\"url\":null,\"config\":{\"content_type\":\"json\",\"secret\":\"do not guess me\",\"url\":\"https://example.com/github/hook\"}}");
 	}
 
 	@Test
@@ -338,7 +362,7 @@ public class MylynGitHubApiITests {
 				.isEqualTo("/api/v3/repos/spring-projects/spring-security/hooks");
 		assertThat(request.getHeader("Authorization")).isEqualTo("token " + hookRequest.getAccessToken());
 		assertThat(request.getBody().readUtf8()).isEqualTo(
-				"{\"events\":[\"issue_comment\",\"pull_request\",\"pull_request_review_comment\"],\"active\":true,\"created_at\":null,\"updated_at\":null,\"id\":0,\"last_response\":null,\"name\":\"web\",\"url\":null,\"config\":{\"content_type\":\"json\",\"secret\":\"do not guess me\",\"url\":\"https://example.com/github/hook\"}}");
+				"{\"events\":[\"issue_comment\",\"pull_request\",\"pull_request_review_comment\",\"meta\",\"repository\"],\"active\":true,\"created_at\":null,\"updated_at\":null,\"id\":0,\"last_response\":null,\"name\":\"web\",\"url\":null,\"config\":{\"content_type\":\"json\",\"secret\":\"do not guess me\",\"url\":\"https://example.com/github/hook\"}}");
 	}
 
 	@Test
@@ -364,7 +388,7 @@ public class MylynGitHubApiITests {
 		assertThat(request.getPath()).isEqualTo("/api/v3/repos/spring-projects/spring-security/hooks/123");
 		assertThat(request.getHeader("Authorization")).isEqualTo("token " + hookRequest.getAccessToken());
 		assertThat(request.getBody().readUtf8()).isEqualTo(
-				"{\"events\":[\"issue_comment\",\"pull_request\",\"pull_request_review_comment\"],\"active\":true,\"created_at\":null,\"updated_at\":null,\"id\":123,\"last_response\":null,\"name\":\"web\",\"url\":null,\"config\":{\"content_type\":\"json\",\"secret\":\"do not guess me\",\"url\":\"https://example.com/github/hooks/pull_request/my-cla\"}}");
+				"{\"events\":[\"issue_comment\",\"pull_request\",\"pull_request_review_comment\",\"meta\",\"repository\"],\"active\":true,\"created_at\":null,\"updated_at\":null,\"id\":123,\"last_response\":null,\"name\":\"web\",\"url\":null,\"config\":{\"content_type\":\"json\",\"secret\":\"do not guess me\",\"url\":\"https://example.com/github/hooks/pull_request/my-cla\"}}");
 	}
 
 	@Test
@@ -1349,30 +1373,32 @@ public class MylynGitHubApiITests {
 	}
 
 	@Test
-	@EnqueueRequests({
-		"getContributingUrls302",
-		"getContributingUrls200",
-		"getContributingUrls404",
-		"getContributingUrls404",
-		"getContributingUrls302",
-		"getContributingUrls200",
-		"getContributingUrls404"
-	})
-	public void getContributingUrls() {
-		// make sure we use GitHubHost and not the GitHubApiHost
-		oauthConfig.setGitHubApiHost("donotuse");
-		oauthConfig.setGitHubHost(server.getServer().getHostName());
-
-		service = new MylynGitHubApi(oauthConfig);
-
-		List<String> repositoryIds = Arrays.asList("spring-projects/has-md", "spring-projects/has-adoc", "spring-projects/no-contributor");
+	public void getContributingUrls() throws Exception {
+		Map<String, String> roots = new HashMap<>();
+		roots.put("/api/v3/repos/spring-projects/has-md/contents?ref=main", "[{\"name\":\"README.md\",\"type\":\"file\"},{\"name\":\"CONTRIBUTING.md\",\"type\":\"file\"},{\"name\":\"CONTRIBUTING.adoc\",\"type\":\"file\"}]");
+		roots.put("/api/v3/repos/spring-projects/has-adoc/contents?ref=main", "[{\"name\":\"CONTRIBUTING.adoc\",\"type\":\"file\"},{\"name\":\"src\",\"type\":\"dir\"}]");
+		roots.put("/api/v3/repos/spring-projects/no-contributor/contents?ref=main", "[{\"name\":\"README.md\",\"type\":\"file\"}]");
+		server.getServer().setDispatcher(new Dispatcher() {
+			@Override
+			public MockResponse dispatch(RecordedRequest request) {
+				String root = roots.get(request.getPath());
+				return root == null ? new MockResponse().setResponseCode(404) : new MockResponse().setHeader("Content-Type", "application/json").setBody(root);
+			}
+		});
+		String accessToken = "access-token-123";
+		List<String> repositoryIds = Arrays.asList("spring-projects/has-md", "spring-projects/has-adoc", "spring-projects/no-contributor", "spring-projects/empty");
 
-		ContributingUrlsResponse urls = service.getContributingUrls(repositoryIds);
+		ContributingUrlsResponse urls = service.getContributingUrls(repositoryIds, accessToken);
 
 		assertThat(urls.getAsciidoc()).containsExactly(
 				server.getServerUrl() + "/spring-projects/has-adoc/edit/main/CONTRIBUTING.adoc",
-				server.getServerUrl() + "/spring-projects/no-contributor/new/main?filename=CONTRIBUTING.adoc");
+				server.getServerUrl() + "/spring-projects/no-contributor/new/main?filename=CONTRIBUTING.adoc",
+				server.getServerUrl() + "/spring-projects/empty/new/main?filename=CONTRIBUTING.adoc");
 		assertThat(urls.getMarkdown()).containsOnly(server.getServerUrl() + "/spring-projects/has-md/edit/main/CONTRIBUTING.md");
+		assertThat(server.getServer().getRequestCount()).isEqualTo(4);
+		RecordedRequest request = server.getServer().takeRequest();
+		assertThat(request.getMethod()).isEqualTo("GET");
+		assertThat(request.getHeader("Authorization")).isEqualTo("token " + accessToken);
 
 		SerializingConverter converter = new SerializingConverter();
 		// ensure we can serialize the result as it is placed in FlashMap
@@ -1380,6 +1406,38 @@ public class MylynGitHubApiITests {
 		assertThat(converter.convert(urls.getAsciidoc())).isNotNull();
 	}
 
+	@Test
+	public void getContributingUrlsWhenListingFailsThenException() throws Exception {
+		server.getServer().setDispatcher(new Dispatcher() {
+			@Override
+			public MockResponse dispatch(RecordedRequest request) {
+				return new MockResponse().setResponseCode(403).setHeader("Content-Type", "application/json").setBody("{\"message\":\"Resource not accessible by integration\"}");
+			}
+		});
+		List<String> repositoryIds = Arrays.asList("spring-projects/forbidden");
+
+		assertThatThrownBy(() -> service.getContributingUrls(repositoryIds, "access-token-123"))
+			.isInstanceOf(RuntimeException.class)
+			.hasMessageContaining("spring-projects/forbidden");
+	}
+
+	@Test
+	public void getContributingUrlsCached() throws Exception {
+		server.getServer().setDispatcher(new Dispatcher() {
+			@Override
+			public MockResponse dispatch(RecordedRequest request) {
+				return new MockResponse().setHeader("Content-Type", "application/json").setBody("[{\"name\":\"CONTRIBUTING.md\",\"type\":\"file\"}]");
+			}
+		});
+		List<String> repositoryIds = Arrays.asList("spring-projects/has-md");
+
+		service.getContributingUrls(repositoryIds, "access-token-123");
+		ContributingUrlsResponse urls = service.getContributingUrls(repositoryIds, "access-token-123");
+
+		assertThat(urls.getMarkdown()).containsOnly(server.getServerUrl() + "/spring-projects/has-md/edit/main/CONTRIBUTING.md");
+		assertThat(server.getServer().getRequestCount()).isEqualTo(1);
+	}
+
 	@Test
 	@EnqueueRequests("markdownToHtml")
 	public void markdownToHtml() {
@@ -1426,6 +1484,320 @@ public class MylynGitHubApiITests {
 
 	}
 
+	@Test
+	@EnqueueRequests({
+		"getUserPivotalIssueMaster",
+		"getPullRequestStateNoComments",
+		"saveStatus"})
+	public void saveSuccessNoCommentsGraphQl() throws Exception {
+		useGraphQl();
+		String accessToken = "access-token-123";
+		PullRequestStatus commitStatus = createPullRequestStatus(accessToken, true);
+
+		service.save(commitStatus);
+
+		assertThat(server.getServer().getRequestCount()).isEqualTo(3);
+		assertGetUserRequest(server.getServer().takeRequest());
+		assertPullRequestStateRequest(accessToken, server.getServer().takeRequest());
+		RecordedRequest request = server.getServer().takeRequest();
+		assertThat(request.getMethod()).isEqualTo("POST");
+		assertThat(request.getPath())
+				.isEqualTo("/api/v3/repos/spring-projects/spring-security/statuses/14f7eed929c0086d5d7b87d28bc4722f618a361f");
+		assertThat(request.getBody().readUtf8()).isEqualTo(
+				"{\"context\":\"ci/pivotal-cla\",\"description\":\"Thank you for signing the Contributor License Agreement!\",\"state\":\"success\",\"target_url\":\"https://status.example.com/uri\"}");
+	}
+
+	@Test
+	@EnqueueRequests({
+		"getUserPivotalIssueMaster",
+		"getPullRequestStateSuccess"})
+	public void saveSuccessAlreadySavedGraphQl() throws Exception {
+		useGraphQl();
+		String accessToken = "access-token-123";
+		PullRequestStatus commitStatus = createPullRequestStatus(accessToken, true);
+
+		service.save(commitStatus);
+
+		assertThat(server.getServer().getRequestCount()).isEqualTo(2);
+	}
+
+	@Test
+	@EnqueueRequests({
+		"getUserPivotalIssueMaster",
+		"getPullRequestStateSuccess",
+		"getStatusNone",
+		"saveStatus"})
+	public void saveSuccessShaNotHeadGraphQl() throws Exception {
+		useGraphQl();
+		String accessToken = "access-token-123";
+		PullRequestStatus commitStatus = createPullRequestStatus(accessToken, true);
+		commitStatus.setSha("a6e7e3a36ab66d0ec4e04aa3e35b8ba7b8fb5d0d");
+
+		service.save(commitStatus);
+
+		assertThat(server.getServer().getRequestCount()).isEqualTo(4);
+		server.getServer().takeRequest();
+		server.getServer().takeRequest();
+		assertThat(server.getServer().takeRequest().getPath())
+				.isEqualTo("/api/v3/repos/spring-projects/spring-security/statuses/a6e7e3a36ab66d0ec4e04aa3e35b8ba7b8fb5d0d?per_page=100&page=1");
+	}
+
+	@Test
+	@EnqueueRequests({
+		"getUserPivotalIssueMaster",
+		"getPullRequestStateObviousFixReviewComment",
+		"saveStatus",
+		"createComment"})
+	public void saveObviousFixReviewCommentGraphQl() throws Exception {
+		useGraphQl();
+		String accessToken = "access-token-123";
+		PullRequestStatus commitStatus = createPullRequestStatus(accessToken, false);
+
+		service.save(commitStatus);
+
+		assertThat(server.getServer().getRequestCount()).isEqualTo(4);
+		server.getServer().takeRequest();
+		server.getServer().takeRequest();
+		assertThat(server.getServer().takeRequest().getBody().readUtf8()).contains("This Pull Request contains an obvious fix");
+		RecordedRequest request = server.getServer().takeRequest();
+		assertThat(request.getPath()).isEqualTo("/api/v3/repos/spring-projects/spring-security/issues/1/comments");
+		assertThat(request.getBody().readUtf8()).contains("@rwinch This Pull Request contains an obvious fix");
+	}
+
+	@Test
+	@EnqueueRequests({
+		"getUserPivotalIssueMaster",
+		"getPullRequestStateMoreComments",
+		"getIssueCommentsNone",
+		"getPullRequestReviewCommentsNoComments",
+		"getStatusNone",
+		"saveStatus"})
+	public void saveFallsBackToRestWhenGraphQlPaged() throws Exception {
+		useGraphQl();
+		String accessToken = "access-token-123";
+		PullRequestStatus commitStatus = createPullRequestStatus(accessToken, true);
+
+		service.save(commitStatus);
+
+		assertThat(server.getServer().getRequestCount()).isEqualTo(6);
+		assertGetUserRequest(server.getServer().takeRequest());
+		assertPullRequestStateRequest(accessToken, server.getServer().takeRequest());
+		assertIssueCommentsRequest(server.getServer().takeRequest());
+		assertPullRequestCommentsRequest(server.getServer().takeRequest());
+		assertGetStatus(accessToken, server.getServer().takeRequest());
+	}
+
+	@Test
+	@EnqueueRequests({
+		"getUserPivotalIssueMaster",
+		"getIssueCommentsNone",
+		"getPullRequestReviewCommentsNoComments",
+		"getStatusNone",
+		"saveStatus",
+		"createComment"
+	})
+	public void saveSameDecisionMakesNoRequests() throws Exception {
+		Map<String, PullRequestDecision> decisions = useDecisionMemo();
+		String accessToken = "access-token-123";
+
+		service.save(createPullRequestStatus(accessToken, false));
+		service.save(createPullRequestStatus(accessToken, false));
+
+		assertThat(server.getServer().getRequestCount()).isEqualTo(6);
+		PullRequestDecision decision = decisions.get("spring-projects/spring-security#1");
+		assertThat(decision.getSha()).isEqualTo("14f7eed929c0086d5d7b87d28bc4722f618a361f");
+		assertThat(decision.isSignedCla()).isFalse();
+		assertThat(decision.isObviousFix()).isFalse();
+		assertThat(decision.getStatusState()).isEqualTo("failure");
+		assertThat(decision.getStatusDescription()).isEqualTo("Please sign the Contributor License Agreement!");
+		assertThat(decision.getCommentId()).isEqualTo(1L);
+		assertThat(meterRegistry.get("cla.github.decisions").tag("result", "hit").counter().count()).isEqualTo(1);
+		assertThat(meterRegistry.get("cla.github.decisions").tag("result", "miss").counter().count()).isEqualTo(1);
+	}
+
+	@Test
+	@EnqueueRequests({
+		"getUserPivotalIssueMaster",
+		"getIssueCommentsNone",
+		"getPullRequestReviewCommentsNoComments",
+		"getStatusNone",
+		"saveStatus",
+		"createComment",
+		"getIssueCommentsNone",
+		"getPullRequestReviewCommentsNoComments",
+		"getStatusNone",
+		"saveStatus",
+		"createComment"
+	})
+	public void saveReevaluateIgnoresDecision() throws Exception {
+		useDecisionMemo();
+		String accessToken = "access-token-123";
+		service.save(createPullRequestStatus(accessToken, false));
+
+		PullRequestStatus commitStatus = createPullRequestStatus(accessToken, false);
+		commitStatus.setReevaluate(true);
+		service.save(commitStatus);
+
+		assertThat(server.getServer().getRequestCount()).isEqualTo(11);
+	}
+
+	@Test
+	@EnqueueRequests({
+		"getUserPivotalIssueMaster",
+		"getIssueCommentsNone",
+		"getPullRequestReviewCommentsNoComments",
+		"getStatusNone",
+		"saveStatus",
+		"createComment",
+		"saveStatus"
+	})
+	public void saveChangedDecisionEvaluated() throws Exception {
+		Map<String, PullRequestDecision> decisions = useDecisionMemo();
+		String accessToken = "access-token-123";
+		service.save(createPullRequestStatus(accessToken, false));
+
+		service.save(createPullRequestStatus(accessToken, true));
+
+		assertThat(server.getServer().getRequestCount()).isEqualTo(7);
+		PullRequestDecision decision = decisions.get("spring-projects/spring-security#1");
+		assertThat(decision.isSignedCla()).isTrue();
+		assertThat(decision.getStatusState()).isEqualTo("success");
+		assertThat(decision.getCommentKind()).isEqualTo(CommentKind.NONE);
+		assertThat(decision.getCommentId()).isNull();
+	}
+
+	@Test
+	@EnqueueRequests({
+		"getUserPivotalIssueMaster",
+		"getStatusNone",
+		"saveStatus",
+		"editComment"
+	})
+	public void saveRememberedCommentEditedWithoutListingComments() throws Exception {
+		rememberOldFailureComment();
+		String accessToken = "access-token-123";
+
+		service.save(createPullRequestStatus(accessToken, false));
+
+		assertThat(server.getServer().getRequestCount()).isEqualTo(4);
+		assertGetUserRequest(server.getServer().takeRequest());
+		assertGetStatus(accessToken, server.getServer().takeRequest());
+		RecordedRequest request = server.getServer().takeRequest();
+		assertThat(request.getMethod()).isEqualTo("POST");
+		assertThat(request.getPath()).isEqualTo("/api/v3/repos/spring-projects/spring-security/statuses/14f7eed929c0086d5d7b87d28bc4722f618a361f");
+		request = server.getServer().takeRequest();
+		assertThat(request.getMethod()).isEqualTo("POST");
+		assertThat(request.getPath()).isEqualTo("/api/v3/repos/spring-projects/spring-security/issues/comments/1");
+		assertThat(comments.get(1L).getBody()).contains(MylynGitHubApi.FREQUENTLY_ASKED_QUESTIONS);
+	}
+
+	@Test
+	@EnqueueRequests({
+		"getUserPivotalIssueMaster",
+		"getStatusNone",
+		"saveStatus",
+		"editCommentNotFound",
+		"getIssueCommentsNone",
+		"getPullRequestReviewCommentsNoComments",
+		"getStatusNone",
+		"saveStatus",
+		"createComment"
+	})
+	public void saveRememberedCommentDeletedListsComments() throws Exception {
+		rememberOldFailureComment();
+		String accessToken = "access-token-123";
+
+		service.save(createPullRequestStatus(accessToken, false));
+
+		assertThat(server.getServer().getRequestCount()).isEqualTo(9);
+		verify(pullRequestComments).deleteByPullRequest("spring-projects/spring-security#1");
+		server.getServer().takeRequest();
+		server.getServer().takeRequest();
+		server.getServer().takeRequest();
+		assertThat(server.getServer().takeRequest().getPath()).isEqualTo("/api/v3/repos/spring-projects/spring-security/issues/comments/1");
+		assertIssueCommentsRequest(server.getServer().takeRequest());
+	}
+
+	/**
+	 * Remembers a decision for another sha along with a "please sign" comment in
+	 * the old format.
+	 */
+	private void rememberOldFailureComment() {
+		Map<String, PullRequestDecision> decisions = useDecisionMemo();
+		PullRequestDecision decision = new PullRequestDecision();
+		decision.setId("spring-projects/spring-security#1");
+		decision.setSha("0000000000000000000000000000000000000000");
+		decision.setStatusState("failure");
+		decision.setStatusDescription("Please sign the Contributor License Agreement!");
+		decision.setCommentKind(CommentKind.PLEASE_SIGN);
+		decision.setCommentId(1L);
+		decisions.put(decision.getId(), decision);
+		PullRequestComment comment = new PullRequestComment();
+		comment.setId(1L);
+		comment.setPullRequest(decision.getId());
+		comment.setKind(CommentKind.PLEASE_SIGN);
+		comment.setBody("@rwinch Please sign the [Contributor License Agreement](https://status.example.com/uri)!");
+		comments.put(comment.getId(), comment);
+	}
+
+	private Map<String, PullRequestDecision> useDecisionMemo() {
+		Map<String, PullRequestDecision> decisions = new HashMap<>();
+		PullRequestDecisionRepository repository = mock(PullRequestDecisionRepository.class);
+		when(repository.findOne(anyString())).thenAnswer(i -> decisions.get(i.getArgument(0)));
+		when(repository.save(any())).thenAnswer(i -> {
+			PullRequestDecision decision = i.getArgument(0);
+			decisions.put(decision.getId(), decision);
+			return decision;
+		});
+		comments = new HashMap<>();
+		pullRequestComments = mock(PullRequestCommentRepository.class);
+		when(pullRequestComments.findByPullRequestOrderById(anyString())).thenAnswer(i -> comments.values().stream()
+				.filter(c -> c.getPullRequest().equals(i.getArgument(0))).sorted(Comparator.comparing(PullRequestComment::getId)).collect(Collectors.toList()));
+		when(pullRequestComments.saveAll(any())).thenAnswer(i -> {
+			Iterable<PullRequestComment> saved = i.getArgument(0);
+			saved.forEach(c -> comments.put(c.getId(), c));
+			return saved;
+		});
+		when(pullRequestComments.deleteByPullRequest(anyString())).thenAnswer(i -> {
+			comments.values().removeIf(c -> c.getPullRequest().equals(i.getArgument(0)));
+			return 0;
+		});
+		meterRegistry = new SimpleMeterRegistry();
+		OkHttpClient httpClient = new OkHttpClient();
+		service = new MylynGitHubApi(oauthConfig, httpClient, new GitHubBotIdentity(oauthConfig, httpClient), new PullRequestStateQuery(oauthConfig, httpClient, false),
+				new PullRequestDecisionMemo(repository, pullRequestComments, true, meterRegistry));
+		return decisions;
+	}
+
+	private void useGraphQl() {
+		OkHttpClient httpClient = new OkHttpClient();
+		service = new MylynGitHubApi(oauthConfig, httpClient, new GitHubBotIdentity(oauthConfig, httpClient), new PullRequestStateQuery(oauthConfig, httpClient, true));
+	}
+
+	private PullRequestStatus createPullRequestStatus(String accessToken, boolean success) {
+		PullRequestStatus commitStatus = new PullRequestStatus();
+		commitStatus.setGitHubUsername("rwinch");
+		commitStatus.setPullRequestId(1);
+		commitStatus.setRepoId("spring-projects/spring-security");
+		commitStatus.setSha("14f7eed929c0086d5d7b87d28bc4722f618a361f");
+		commitStatus.setSuccess(success);
+		commitStatus.setUrl("https://status.example.com/uri");
+		commitStatus.setSyncUrl("https://cla.pivotal.io/sync/pivotal");
+		commitStatus.setFaqUrl("https://cla.pivotal.io/about");
+		commitStatus.setAccessToken(accessToken);
+		commitStatus.setPullRequestState("open");
+		return commitStatus;
+	}
+
+	private void assertPullRequestStateRequest(String accessToken, RecordedRequest request) {
+		assertThat(request.getMethod()).isEqualTo("POST");
+		assertThat(request.getPath()).isEqualTo("/api/graphql");
+		assertThat(request.getHeader("Authorization")).isEqualTo("bearer " + accessToken);
+		String body = request.getBody().readUtf8();
+		assertThat(body).contains("pullRequest(number: $number)");
+		assertThat(body).contains("\"owner\":\"spring-projects\"", "\"name\":\"spring-security\"", "\"number\":1", "\"context\":\"ci/pivotal-cla\"");
+	}
+
 	private void assertPullRequestCommentsRequest(RecordedRequest request) {
 		assertThat(request.getMethod()).isEqualTo("GET");
 		assertThat(request.getPath())
@@ -36,9 +36,11 @@ import io.pivotal.cla.data.CorporateSignature;
 import io.pivotal.cla.data.IndividualSignature;
 import io.pivotal.cla.data.MarkdownContent;
 import io.pivotal.cla.data.repository.AccessTokenRepository;
+import io.pivotal.cla.data.repository.ClaAcceptanceRepository;
 import io.pivotal.cla.data.repository.ContributorLicenseAgreementRepository;
 import io.pivotal.cla.data.repository.CorporateSignatureRepository;
 import io.pivotal.cla.data.repository.IndividualSignatureRepository;
+import io.pivotal.cla.data.repository.SignerRepository;
 import io.pivotal.cla.data.repository.UserRepository;
 import io.pivotal.cla.service.github.GitHubApi;
 
@@ -60,6 +62,16 @@ public abstract class BaseWebDriverTests {
 	protected AccessTokenRepository mockTokenRepo;
 	@MockBean
 	protected UserRepository mockUserRepo;
+	/**
+	 * The CLAs are mocked, so the acceptances of their ids cannot be saved
+	 */
+	@MockBean
+	protected ClaAcceptanceRepository mockClaAcceptanceRepository;
+	/**
+	 * The signatures are mocked, so whether they were signed is stubbed as well
+	 */
+	@MockBean
+	protected SignerRepository mockSignerRepository;
 
 	protected WebDriver driver;
 
@@ -45,8 +45,10 @@ import io.pivotal.cla.service.github.PullRequestStatus;
 import io.pivotal.cla.webdriver.pages.SignCclaPage;
 import io.pivotal.cla.webdriver.pages.SignCclaPage.Form;
 import org.springframework.security.test.context.support.WithAnonymousUser;
+import org.springframework.test.context.TestPropertySource;
 
 @WithSigningUser
+@TestPropertySource(properties = { "cla.signer-index.enabled=true", "cla.signer-index.refresh-interval=0", "cla.signer-index.verify-interval=0", "cla.unsigned-cache.enabled=true" })
 public class CclaControllerTests extends BaseWebDriverTests {
 
 	@Test
@@ -484,6 +486,7 @@ public class CclaControllerTests extends BaseWebDriverTests {
 		assertThat(updatePr.getGitHubUsername()).isEqualTo(WithSigningUserFactory.create().getGitHubLogin());
 		assertThat(updatePr.getPullRequestId()).isEqualTo(pullRequestId);
 		assertThat(updatePr.getRepoId()).isEqualTo(repositoryId);
+		assertThat(updatePr.getSuccess()).isTrue();
 	}
 
 	@Test
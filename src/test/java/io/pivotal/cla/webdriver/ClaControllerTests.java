@@ -26,6 +26,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.Supplier;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -58,7 +59,7 @@ public class ClaControllerTests extends BaseWebDriverTests {
 		User signingUser = WithSigningUserFactory.create();
 		when(mockGitHub.getCurrentUser(any())).thenReturn(signingUser);
 		when(mockGitHub.getShaForPullRequest(any(PullRequestStatus.class))).thenReturn("abc123");
-		when(mockIndividualSignatureRepository.findSignaturesFor(any(), eq(signingUser),eq(cla.getName()))).thenReturn(Arrays.asList(individualSignature));
+		when(mockSignerRepository.hasSigned(eq(cla.getName()), eq(signingUser.getGitHubLogin()), any(), any())).thenReturn(true);
 		when(mockIndividualSignatureRepository.findSignaturesFor(any(),eq(signingUser))).thenReturn(Arrays.asList(individualSignature));
 		when(mockTokenRepo.findOne(repositoryId)).thenReturn(new AccessToken(repositoryId, "access-token-123"));
 
@@ -99,7 +100,7 @@ public class ClaControllerTests extends BaseWebDriverTests {
 
 	@Test
 	public void claPivotalSignedWithPullRequest() throws Exception {
-		when(mockIndividualSignatureRepository.findSignaturesFor(any(), eq(WithSigningUserFactory.create()),eq(cla.getName()))).thenReturn(Arrays.asList(individualSignature));
+		when(mockSignerRepository.hasSigned(eq(cla.getName()), eq(WithSigningUserFactory.create().getGitHubLogin()), any(), any())).thenReturn(true);
 
 		String repositoryId = "spring-projects/spring-security";
 		int pullRequestId = 123;
@@ -110,7 +111,7 @@ public class ClaControllerTests extends BaseWebDriverTests {
 
 	@Test
 	public void claPivotalIndividualSigned() {
-		when(mockIndividualSignatureRepository.findSignaturesFor(any(), eq(WithSigningUserFactory.create()),eq(cla.getName()))).thenReturn(Arrays.asList(individualSignature));
+		when(mockSignerRepository.hasSigned(eq(cla.getName()), eq(WithSigningUserFactory.create().getGitHubLogin()), any(), any())).thenReturn(true);
 
 		SignClaPage home = SignClaPage.go(driver, cla.getName());
 		home.assertAt();
@@ -123,7 +124,7 @@ public class ClaControllerTests extends BaseWebDriverTests {
 		User user = WithSigningUserFactory.create();
 		when(mockGitHub.getOrganizations(user.getGitHubLogin())).thenReturn(organizations);
 		when(mockClaRepository.findByNameAndPrimaryTrue(cla.getName())).thenReturn(cla);
-		when(mockCorporateSignatureRepository.findSignature(cla.getName(), organizations, user.getEmails())).thenReturn(corporateSignature);
+		when(mockSignerRepository.hasSigned(eq(cla.getName()), eq(user.getGitHubLogin()), eq(user.getEmails()), any())).thenAnswer(invocation -> invocation.<Supplier<List<String>>>getArgument(3).get().containsAll(organizations));
 
 		SignClaPage claPage = SignClaPage.go(driver, cla.getName());
 
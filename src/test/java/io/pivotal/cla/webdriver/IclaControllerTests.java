@@ -44,8 +44,10 @@ import io.pivotal.cla.service.github.PullRequestStatus;
 import io.pivotal.cla.webdriver.pages.SignIclaPage;
 import io.pivotal.cla.webdriver.pages.SignIclaPage.Form;
 import org.springframework.security.test.context.support.WithAnonymousUser;
+import org.springframework.test.context.TestPropertySource;
 
 @WithSigningUser
+@TestPropertySource(properties = { "cla.signer-index.enabled=true", "cla.signer-index.refresh-interval=0", "cla.signer-index.verify-interval=0", "cla.unsigned-cache.enabled=true" })
 public class IclaControllerTests extends BaseWebDriverTests {
 
 	@Test
@@ -346,6 +348,7 @@ public class IclaControllerTests extends BaseWebDriverTests {
 		assertThat(updatePr.getGitHubUsername()).isEqualTo(WithSigningUserFactory.create().getGitHubLogin());
 		assertThat(updatePr.getPullRequestId()).isEqualTo(pullRequestId);
 		assertThat(updatePr.getRepoId()).isEqualTo(repositoryId);
+		assertThat(updatePr.getSuccess()).isTrue();
 	}
 
 	@Test
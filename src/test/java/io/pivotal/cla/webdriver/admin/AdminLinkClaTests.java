@@ -20,6 +20,7 @@ import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyList;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -104,7 +105,7 @@ public class AdminLinkClaTests extends BaseWebDriverTests {
 	public void linkClaRepositories() throws Exception {
 		AccessToken token = new AccessToken(AccessToken.CLA_ACCESS_TOKEN_ID, "linkClaValidationRepositories_access_token_abc123");
 		when(mockTokenRepo.findOne(AccessToken.CLA_ACCESS_TOKEN_ID)).thenReturn(token);
-		when(mockGitHub.getContributingUrls(anyList())).thenReturn(new ContributingUrlsResponse());
+		when(mockGitHub.getContributingUrls(anyList(), any())).thenReturn(new ContributingUrlsResponse());
 		User user = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
 
 		AdminLinkClaPage link = AdminLinkClaPage.to(getDriver());
@@ -142,7 +143,7 @@ public class AdminLinkClaTests extends BaseWebDriverTests {
 		link = link.migrate();
 
 		ArgumentCaptor<PullRequestStatus> statusCaptor = ArgumentCaptor.forClass(PullRequestStatus.class);
-		verify(mockGitHub).save(statusCaptor.capture());
+		verify(mockGitHub, timeout(5000)).save(statusCaptor.capture());
 
 		PullRequestStatus status = statusCaptor.getValue();
 		assertThat(status.getAccessToken()).isEqualTo(expectedStatus.getAccessToken());